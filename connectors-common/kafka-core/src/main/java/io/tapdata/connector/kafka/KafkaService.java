@@ -2,15 +2,17 @@ package io.tapdata.connector.kafka;
 
 import com.google.common.collect.Lists;
 import io.tapdata.common.AbstractMqService;
+import io.tapdata.common.MqBatchPusher;
 import io.tapdata.common.constant.MqOp;
 import io.tapdata.connector.kafka.admin.Admin;
 import io.tapdata.connector.kafka.admin.DefaultAdmin;
 import io.tapdata.connector.kafka.config.*;
 import io.tapdata.connector.kafka.data.KafkaOffset;
-import io.tapdata.connector.kafka.util.BatchPusher;
 import io.tapdata.connector.kafka.util.KafkaOffsetUtils;
 import io.tapdata.connector.kafka.util.Krb5Util;
+import io.tapdata.connector.kafka.util.MessageKeyExtractor;
 import io.tapdata.connector.kafka.util.ObjectUtils;
+import io.tapdata.connector.kafka.util.ProduceBatch;
 import io.tapdata.constant.MqTestItem;
 import io.tapdata.entity.error.CoreException;
 import io.tapdata.entity.event.TapEvent;
@@ -67,6 +69,7 @@ public class KafkaService extends AbstractMqService {
     private static final JsonParser jsonParser = InstanceFactory.instance(JsonParser.class);
     private String connectorId;
     private KafkaProducer<byte[], byte[]> kafkaProducer;
+    private final Map<String, MessageKeyExtractor> messageKeyExtractorMap = new ConcurrentHashMap<>();
     private static final ScriptFactory scriptFactory = InstanceFactory.instance(ScriptFactory.class, "tapdata"); //script factory
 
     public KafkaService() {
@@ -303,12 +306,9 @@ public class KafkaService extends AbstractMqService {
 
     @Override
     public void produce(List<TapRecordEvent> tapRecordEvents, TapTable tapTable, Consumer<WriteListResult<TapRecordEvent>> writeListResultConsumer, Supplier<Boolean> isAlive) {
-        AtomicLong insert = new AtomicLong(0);
-        AtomicLong update = new AtomicLong(0);
-        AtomicLong delete = new AtomicLong(0);
-        WriteListResult<TapRecordEvent> listResult = new WriteListResult<>();
-        CountDownLatch countDownLatch = new CountDownLatch(tapRecordEvents.size());
+        ProduceBatch produceBatch = new ProduceBatch(tapRecordEvents.size());
         String topic = EmptyKit.isBlank(((KafkaConfig) mqConfig).getTopicName()) ? tapTable.getId() : ((KafkaConfig) mqConfig).getTopicName();
+        MessageKeyExtractor messageKeyExtractor = getMessageKeyExtractor(tapTable);
         try {
             for (TapRecordEvent event : tapRecordEvents) {
                 if (null != isAlive && !isAlive.get()) {
@@ -328,47 +328,30 @@ public class KafkaService extends AbstractMqService {
                     data = new HashMap<>();
                 }
                 byte[] body = jsonParser.toJsonBytes(data, JsonParser.ToJsonFeature.WriteMapNullValue);
-                MqOp finalMqOp = mqOp;
-                Callback callback = (metadata, exception) -> {
-                    try {
-                        if (EmptyKit.isNotNull(exception)) {
-                            listResult.addError(event, exception);
-                        }
-                        switch (finalMqOp) {
-                            case INSERT:
-                                insert.incrementAndGet();
-                                break;
-                            case UPDATE:
-                                update.incrementAndGet();
-                                break;
-                            case DELETE:
-                                delete.incrementAndGet();
-                                break;
-                        }
-                    } finally {
-                        countDownLatch.countDown();
-                    }
-                };
                 ProducerRecord<byte[], byte[]> producerRecord = new ProducerRecord<>(topic,
-                        null, event.getTime(), getKafkaMessageKey(data, tapTable), body,
-                        new RecordHeaders().add("mqOp", mqOp.getOp().getBytes()));
-                kafkaProducer.send(producerRecord, callback);
+                        null, event.getTime(), messageKeyExtractor.extract(data), body, ProduceBatch.headers(mqOp));
+                produceBatch.send(kafkaProducer, producerRecord, event, mqOp);
             }
         } catch (RejectedExecutionException e) {
             tapLogger.warn("task stopped, some data produce failed!", e);
         } catch (Exception e) {
             tapLogger.error("produce error, or task interrupted!", e);
         }
+        CompletableFuture<Void> done = produceBatch.seal();
         try {
             while (null != isAlive && isAlive.get()) {
-                if (countDownLatch.await(500L, TimeUnit.MILLISECONDS)) {
+                try {
+                    done.get(500L, TimeUnit.MILLISECONDS);
                     break;
+                } catch (TimeoutException ignored) {
                 }
             }
         } catch (InterruptedException e) {
             tapLogger.error("error occur when await", e);
+        } catch (ExecutionException e) {
+            tapLogger.error("error occur when await", e.getCause());
         } finally {
-            writeListResultConsumer.accept(listResult.insertedCount(insert.get()).modifiedCount(update.get()).removedCount(delete.get()));
+            writeListResultConsumer.accept(produceBatch.toResult());
         }
 //            this.produce(null,tapRecordEvents,tapTable,writeListResultConsumer,isAlive);
     }
@@ -542,6 +525,7 @@ public class KafkaService extends AbstractMqService {
     public void produce(TapFieldBaseEvent tapFieldBaseEvent) {
         AtomicReference<Throwable> reference = new AtomicReference<>();
         String tableId = tapFieldBaseEvent.getTableId();
+        messageKeyExtractorMap.remove(tableId);
         ScriptEngine scriptEngine;
         String script = ((KafkaConfig) mqConfig).getScript();
         Map<String, Object> record = new HashMap<>();
@@ -582,19 +566,12 @@ public class KafkaService extends AbstractMqService {
     }
 
     private byte[] getKafkaMessageKey(Map<String, Object> data, TapTable tapTable) {
-        if (EmptyKit.isNotBlank(((KafkaConfig) mqConfig).getTopicName())) {
-            DataMap dataMap = DataMap.create();
-            if (EmptyKit.isNotEmpty(tapTable.primaryKeys(true))) {
-                tapTable.primaryKeys(true).forEach(key -> dataMap.put(key, data.get(key)));
-            }
-            return jsonParser.toJsonBytes(dataMap);
-        } else {
-            if (EmptyKit.isEmpty(tapTable.primaryKeys(true))) {
-                return null;
-            } else {
-                return jsonParser.toJsonBytes(tapTable.primaryKeys(true).stream().map(key -> String.valueOf(data.get(key))).collect(Collectors.joining("_")));
-            }
-        }
+        return getMessageKeyExtractor(tapTable).extract(data);
+    }
+
+    //primary keys of a table are cached until its ddl
+    private MessageKeyExtractor getMessageKeyExtractor(TapTable tapTable) {
+        return messageKeyExtractorMap.computeIfAbsent(tapTable.getId(), k -> new MessageKeyExtractor(tapTable, EmptyKit.isNotBlank(((KafkaConfig) mqConfig).getTopicName())));
     }
 
     //kafka查询topic的partition数量
@@ -679,11 +656,18 @@ public class KafkaService extends AbstractMqService {
         int maxDelay = 500;
         KafkaConfig kafkaConfig = (KafkaConfig) mqConfig;
         ConsumerConfiguration consumerConfiguration = new ConsumerConfiguration((kafkaConfig), connectorId, true);
+        int decodeThreads = EmptyKit.isNull(kafkaConfig.getKafkaStreamDecodeThreads()) ? 0 : kafkaConfig.getKafkaStreamDecodeThreads();
+        ExecutorService decodePool = decodeThreads > 1 ? Executors.newFixedThreadPool(decodeThreads, r -> {
+            Thread thread = new Thread(r, "kafka-stream-decode-" + connectorId);
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
         try (KafkaConsumer<byte[], byte[]> kafkaConsumer = new KafkaConsumer<>(consumerConfiguration.build())) {
             KafkaOffset streamOffset = KafkaOffsetUtils.setConsumerByOffset(kafkaConsumer, tableList, offset, consuming);
-            try (BatchPusher<TapEvent> batchPusher = new BatchPusher<TapEvent>(
-                    tapEvents -> eventsOffsetConsumer.accept(tapEvents, streamOffset.clone())
-            ).batchSize(eventBatchSize).maxDelay(maxDelay)) {
+            MqBatchPusher<TapEvent> batchPusher = new MqBatchPusher<TapEvent>(
+                    "kafka-stream-" + connectorId, eventsOffsetConsumer, streamOffset::clone
+            ).batchSize(eventBatchSize).maxDelay(maxDelay).start();
+            try {
                 // 将初始化的 offset 推送到目标，让指定时间的增量任务下次启动时拿到 offset
                 Optional.of(new HeartbeatEvent()).ifPresent(event -> {
                     event.setTime(System.currentTimeMillis());
@@ -695,18 +679,64 @@ public class KafkaService extends AbstractMqService {
                     ConsumerRecords<byte[], byte[]> consumerRecords = kafkaConsumer.poll(Duration.ofSeconds(2L));
                     if (consumerRecords.isEmpty()) {
                         batchPusher.checkAndSummit();
+                    } else if (null != decodePool && consumerRecords.partitions().size() > 1) {
+                        consumeByPartition(consumerRecords, decodePool, streamOffset, batchPusher);
                     } else {
                         for (ConsumerRecord<byte[], byte[]> consumerRecord : consumerRecords) {
-                            streamOffset.addTopicOffset(consumerRecord); // 推进 offset
-                            makeMessage(consumerRecord, consumerRecord.topic(), batchPusher::add);
+                            List<TapEvent> events = new ArrayList<>(1);
+                            makeMessage(consumerRecord, consumerRecord.topic(), events::add);
+                            batchPusher.addAll(events, () -> streamOffset.addTopicOffset(consumerRecord)); // 推进 offset
                         }
                     }
                 }
+            } finally {
+                batchPusher.close();
+                tapLogger.info("Stream consume finished, {}", batchPusher.metrics());
             }
         } catch (InterruptedException | InterruptException ex) {
             Thread.currentThread().interrupt();
         } catch (Exception ex) {
             tapLogger.error("Stream consume occur: {}", ex.getMessage(), ex);
+        } finally {
+            if (null != decodePool) {
+                decodePool.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * records of each partition are decoded on the pool in their order, and added on the calling thread partition by partition,
+     * so the offset of a record is only advanced together with its events
+     */
+    protected void consumeByPartition(ConsumerRecords<byte[], byte[]> consumerRecords, ExecutorService decodePool, KafkaOffset streamOffset, MqBatchPusher<TapEvent> batchPusher) throws Exception {
+        Map<TopicPartition, Future<List<List<TapEvent>>>> decodedMap = new LinkedHashMap<>();
+        for (TopicPartition topicPartition : consumerRecords.partitions()) {
+            List<ConsumerRecord<byte[], byte[]>> records = consumerRecords.records(topicPartition);
+            decodedMap.put(topicPartition, decodePool.submit(() -> {
+                List<List<TapEvent>> decoded = new ArrayList<>(records.size());
+                for (ConsumerRecord<byte[], byte[]> consumerRecord : records) {
+                    //ddl record may carry several events
+                    List<TapEvent> events = new ArrayList<>(1);
+                    makeMessage(consumerRecord, consumerRecord.topic(), events::add);
+                    decoded.add(events);
+                }
+                return decoded;
+            }));
+        }
+        try {
+            for (Map.Entry<TopicPartition, Future<List<List<TapEvent>>>> entry : decodedMap.entrySet()) {
+                List<ConsumerRecord<byte[], byte[]>> records = consumerRecords.records(entry.getKey());
+                List<List<TapEvent>> decoded = entry.getValue().get();
+                for (int i = 0; i < records.size(); i++) {
+                    ConsumerRecord<byte[], byte[]> consumerRecord = records.get(i);
+                    batchPusher.addAll(decoded.get(i), () -> streamOffset.addTopicOffset(consumerRecord)); // 推进 offset
+                }
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : e;
+        } finally {
+            decodedMap.values().forEach(future -> future.cancel(true));
         }
     }
 
@@ -98,6 +98,7 @@ public class KafkaConfig extends MqConfig {
     private Integer kafkaMaxFetchBytes = 0;
     private Integer kafkaMaxFetchWaitMS = 0;
     private Boolean kafkaIgnoreInvalidRecord = false;
+    private Integer kafkaStreamDecodeThreads = 0;
     /**
      * kafka target (Producer)
      */
@@ -196,6 +197,14 @@ public class KafkaConfig extends MqConfig {
         this.kafkaMaxPollRecords = kafkaMaxPollRecords;
     }
 
+    public Integer getKafkaStreamDecodeThreads() {
+        return kafkaStreamDecodeThreads;
+    }
+
+    public void setKafkaStreamDecodeThreads(Integer kafkaStreamDecodeThreads) {
+        this.kafkaStreamDecodeThreads = kafkaStreamDecodeThreads;
+    }
+
     public Integer getKafkaPollTimeoutMS() {
         return kafkaPollTimeoutMS;
     }
@@ -0,0 +1,60 @@
+package io.tapdata.connector.kafka.util;
+
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.entity.utils.DataMap;
+import io.tapdata.entity.utils.InstanceFactory;
+import io.tapdata.entity.utils.JsonParser;
+import io.tapdata.kit.EmptyKit;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * message key of one table, primary keys are resolved once instead of for each record
+ */
+public class MessageKeyExtractor {
+
+    private static final JsonParser jsonParser = InstanceFactory.instance(JsonParser.class);
+    private static final int MAX_BUILDER_CAPACITY = 4096;
+    private static final ThreadLocal<StringBuilder> KEY_BUILDER = ThreadLocal.withInitial(() -> new StringBuilder(64));
+
+    private final String[] primaryKeys;
+    private final boolean objectKey;
+
+    /**
+     * @param objectKey key is a json object of primary keys when tables share one topic,
+     *                  otherwise it is the primary key values joined by "_"
+     */
+    public MessageKeyExtractor(TapTable tapTable, boolean objectKey) {
+        Collection<String> keys = tapTable.primaryKeys(true);
+        this.primaryKeys = EmptyKit.isEmpty(keys) ? new String[0] : keys.toArray(new String[0]);
+        this.objectKey = objectKey;
+    }
+
+    public byte[] extract(Map<String, Object> data) {
+        if (objectKey) {
+            DataMap dataMap = DataMap.create();
+            for (String key : primaryKeys) {
+                dataMap.put(key, data.get(key));
+            }
+            return jsonParser.toJsonBytes(dataMap);
+        }
+        if (primaryKeys.length == 0) {
+            return null;
+        }
+        StringBuilder builder = KEY_BUILDER.get();
+        //a huge key should not be kept by the thread
+        if (builder.capacity() > MAX_BUILDER_CAPACITY) {
+            builder = new StringBuilder(64);
+            KEY_BUILDER.set(builder);
+        }
+        builder.setLength(0);
+        for (int i = 0; i < primaryKeys.length; i++) {
+            if (i > 0) {
+                builder.append('_');
+            }
+            builder.append(data.get(primaryKeys[i]));
+        }
+        return jsonParser.toJsonBytes(builder.toString());
+    }
+}
@@ -0,0 +1,137 @@
+package io.tapdata.connector.kafka.util;
+
+import io.tapdata.common.constant.MqOp;
+import io.tapdata.entity.event.dml.TapRecordEvent;
+import io.tapdata.pdk.apis.entity.WriteListResult;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * records of one produce batch share this callback, so nothing is allocated per record for completion.
+ * failed records are found by their futures when the result is built, after the batch is done
+ */
+public class ProduceBatch implements Callback {
+
+    //headers are read only after sent, so one instance of each op is shared by all records
+    private static final Map<MqOp, Headers> OP_HEADERS = new EnumMap<>(MqOp.class);
+
+    static {
+        for (MqOp mqOp : MqOp.values()) {
+            RecordHeaders headers = new RecordHeaders().add("mqOp", mqOp.getOp().getBytes());
+            headers.setReadOnly();
+            OP_HEADERS.put(mqOp, headers);
+        }
+    }
+
+    private final List<TapRecordEvent> events;
+    private final List<Future<RecordMetadata>> futures;
+    //one for the sending thread, released by seal
+    private final AtomicInteger pending = new AtomicInteger(1);
+    private final LongAdder failed = new LongAdder();
+    private final CompletableFuture<Void> done = new CompletableFuture<>();
+    private long insert;
+    private long update;
+    private long delete;
+
+    public ProduceBatch(int size) {
+        this.events = new ArrayList<>(size);
+        this.futures = new ArrayList<>(size);
+    }
+
+    public static Headers headers(MqOp mqOp) {
+        return OP_HEADERS.get(mqOp);
+    }
+
+    /**
+     * called by one sending thread
+     */
+    public void send(Producer<byte[], byte[]> producer, ProducerRecord<byte[], byte[]> producerRecord, TapRecordEvent event, MqOp mqOp) {
+        pending.incrementAndGet();
+        Future<RecordMetadata> future;
+        try {
+            future = producer.send(producerRecord, this);
+        } catch (RuntimeException e) {
+            pending.decrementAndGet();
+            throw e;
+        }
+        events.add(event);
+        futures.add(future);
+        switch (mqOp) {
+            case INSERT:
+                insert++;
+                break;
+            case UPDATE:
+                update++;
+                break;
+            case DELETE:
+                delete++;
+                break;
+            default:
+                break;
+        }
+    }
+
+    @Override
+    public void onCompletion(RecordMetadata metadata, Exception exception) {
+        if (null != exception) {
+            failed.increment();
+        }
+        if (pending.decrementAndGet() == 0) {
+            done.complete(null);
+        }
+    }
+
+    /**
+     * no more records are sent, the future is completed by the callback of the last record
+     */
+    public CompletableFuture<Void> seal() {
+        if (pending.decrementAndGet() == 0) {
+            done.complete(null);
+        }
+        return done;
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    /**
+     * called by the sending thread, futures are done just after their callbacks,
+     * so they are only waited when the whole batch is done
+     */
+    public WriteListResult<TapRecordEvent> toResult() {
+        WriteListResult<TapRecordEvent> listResult = new WriteListResult<>();
+        if (failed.sum() > 0) {
+            boolean batchDone = done.isDone();
+            for (int i = 0; i < futures.size(); i++) {
+                Future<RecordMetadata> future = futures.get(i);
+                if (!batchDone && !future.isDone()) {
+                    continue;
+                }
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    listResult.addError(events.get(i), e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        return listResult.insertedCount(insert).modifiedCount(update).removedCount(delete);
+    }
+}
@@ -1,5 +1,6 @@
 package io.tapdata.connector.kafka;
 
+import io.tapdata.common.MqBatchPusher;
 import io.tapdata.common.MqConfig;
 import io.tapdata.connector.kafka.config.KafkaConfig;
 import io.tapdata.entity.event.dml.TapDeleteRecordEvent;
@@ -14,7 +15,15 @@ import io.tapdata.entity.utils.JsonParser;
 import io.tapdata.pdk.apis.context.TapConnectorContext;
 import io.tapdata.pdk.apis.entity.WriteListResult;
 import io.tapdata.script.factory.script.TapRunScriptEngine;
+import io.tapdata.connector.kafka.data.KafkaOffset;
+import io.tapdata.entity.event.TapEvent;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Nested;
@@ -28,11 +37,19 @@ import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
@@ -95,4 +112,70 @@ public class KafkaServiceTest {
             assertEquals(true,s.contains("var DateUtil"));
         }
     }
-}
\ No newline at end of file
+    @Nested
+    class ConsumeByPartitionTest {
+        private ExecutorService decodePool;
+
+        @BeforeEach
+        void init() {
+            kafkaService = new KafkaService();
+            decodePool = Executors.newFixedThreadPool(4);
+        }
+
+        @AfterEach
+        void close() {
+            decodePool.shutdownNow();
+        }
+
+        private ConsumerRecord<byte[], byte[]> record(int partition, long offset, String op, String value) {
+            RecordHeaders headers = new RecordHeaders();
+            headers.add("mqOp", op.getBytes());
+            return new ConsumerRecord<>("topic", partition, offset, 0L, TimestampType.CREATE_TIME, 0, 0, null, value.getBytes(), headers, Optional.empty());
+        }
+
+        private MqBatchPusher<TapEvent> pusher(List<TapEvent> events) {
+            return new MqBatchPusher<TapEvent>("test", (batch, offset) -> events.addAll(batch), null).batchSize(1000).maxDelay(60000).start();
+        }
+
+        @Test
+        void testDeliverInPartitionOrder() throws Exception {
+            Map<TopicPartition, List<ConsumerRecord<byte[], byte[]>>> recordMap = new LinkedHashMap<>();
+            for (int partition = 0; partition < 3; partition++) {
+                List<ConsumerRecord<byte[], byte[]>> records = new ArrayList<>();
+                for (long offset = 0; offset < 100; offset++) {
+                    records.add(record(partition, offset, offset % 2 == 0 ? "insert" : "update", "{\"id\":" + (partition * 1000 + offset) + "}"));
+                }
+                recordMap.put(new TopicPartition("topic", partition), records);
+            }
+            KafkaOffset streamOffset = new KafkaOffset();
+            List<TapEvent> events = new ArrayList<>();
+            MqBatchPusher<TapEvent> batchPusher = pusher(events);
+            kafkaService.consumeByPartition(new ConsumerRecords<>(recordMap), decodePool, streamOffset, batchPusher);
+            batchPusher.close();
+            assertEquals(300, events.size());
+            for (int i = 0; i < 300; i++) {
+                TapRecordEvent event = (TapRecordEvent) events.get(i);
+                Map<String, Object> after = i % 2 == 0 ? ((TapInsertRecordEvent) event).getAfter() : ((TapUpdateRecordEvent) event).getAfter();
+                assertEquals((i / 100) * 1000 + i % 100, ((Number) after.get("id")).intValue());
+            }
+            for (int partition = 0; partition < 3; partition++) {
+                assertEquals(100L, streamOffset.get("topic").get(partition));
+            }
+        }
+
+        @Test
+        void testOffsetNotAdvancedPastFailedRecord() throws Exception {
+            Map<TopicPartition, List<ConsumerRecord<byte[], byte[]>>> recordMap = new LinkedHashMap<>();
+            recordMap.put(new TopicPartition("topic", 0), Collections.singletonList(record(0, 5, "insert", "{\"id\":1}")));
+            recordMap.put(new TopicPartition("topic", 1), Collections.singletonList(record(1, 7, "insert", "not json")));
+            KafkaOffset streamOffset = new KafkaOffset();
+            List<TapEvent> events = new ArrayList<>();
+            MqBatchPusher<TapEvent> batchPusher = pusher(events);
+            assertThrows(Exception.class, () -> kafkaService.consumeByPartition(new ConsumerRecords<>(recordMap), decodePool, streamOffset, batchPusher));
+            batchPusher.close();
+            assertEquals(1, events.size());
+            assertEquals(6L, streamOffset.get("topic").get(0));
+            assertFalse(streamOffset.get("topic").containsKey(1));
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package io.tapdata.connector.kafka;
+
+import io.tapdata.common.constant.MqOp;
+import io.tapdata.connector.kafka.util.MessageKeyExtractor;
+import io.tapdata.connector.kafka.util.ProduceBatch;
+import io.tapdata.entity.event.dml.TapInsertRecordEvent;
+import io.tapdata.entity.event.dml.TapRecordEvent;
+import io.tapdata.entity.schema.TapField;
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.entity.utils.InstanceFactory;
+import io.tapdata.entity.utils.JsonParser;
+import io.tapdata.pdk.apis.entity.WriteListResult;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * per record cost of the produce path without the body json, which is the same for both:
+ * message key, headers and completion callback, records are completed by MockProducer at once.
+ * run with main method, add "-prof gc" to the options to compare the allocation rate
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProduceBatchBenchmark {
+
+    private static final int RECORDS = 1000;
+    private static final JsonParser jsonParser = InstanceFactory.instance(JsonParser.class);
+
+    private TapTable tapTable;
+    private List<TapRecordEvent> events;
+    private MockProducer<byte[], byte[]> producer;
+    private byte[] body;
+
+    @Setup
+    public void setup() {
+        tapTable = new TapTable("orders");
+        tapTable.add(new TapField("id", "int").primaryKeyPos(1));
+        tapTable.add(new TapField("region", "string").primaryKeyPos(2));
+        tapTable.add(new TapField("amount", "double"));
+        events = new ArrayList<>(RECORDS);
+        for (int i = 0; i < RECORDS; i++) {
+            Map<String, Object> after = new HashMap<>();
+            after.put("id", i);
+            after.put("region", "r" + i % 10);
+            after.put("amount", i * 1.5);
+            events.add(TapInsertRecordEvent.create().after(after));
+        }
+        producer = new MockProducer<>(true, new ByteArraySerializer(), new ByteArraySerializer());
+        body = new byte[256];
+    }
+
+    @Benchmark
+    public void callbackPerRecord(Blackhole blackhole) throws InterruptedException {
+        AtomicLong insert = new AtomicLong(0);
+        WriteListResult<TapRecordEvent> listResult = new WriteListResult<>();
+        CountDownLatch countDownLatch = new CountDownLatch(events.size());
+        for (TapRecordEvent event : events) {
+            Map<String, Object> data = ((TapInsertRecordEvent) event).getAfter();
+            byte[] key = jsonParser.toJsonBytes(tapTable.primaryKeys(true).stream().map(k -> String.valueOf(data.get(k))).collect(Collectors.joining("_")));
+            Callback callback = (metadata, exception) -> {
+                try {
+                    if (null != exception) {
+                        listResult.addError(event, exception);
+                    }
+                    insert.incrementAndGet();
+                } finally {
+                    countDownLatch.countDown();
+                }
+            };
+            producer.send(new ProducerRecord<>("orders", null, event.getTime(), key, body,
+                    new RecordHeaders().add("mqOp", MqOp.INSERT.getOp().getBytes())), callback);
+        }
+        countDownLatch.await();
+        blackhole.consume(listResult.insertedCount(insert.get()));
+        producer.clear();
+    }
+
+    @Benchmark
+    public void sharedBatchCallback(Blackhole blackhole) throws Exception {
+        MessageKeyExtractor messageKeyExtractor = new MessageKeyExtractor(tapTable, false);
+        ProduceBatch produceBatch = new ProduceBatch(events.size());
+        for (TapRecordEvent event : events) {
+            Map<String, Object> data = ((TapInsertRecordEvent) event).getAfter();
+            produceBatch.send(producer, new ProducerRecord<>("orders", null, event.getTime(), messageKeyExtractor.extract(data), body,
+                    ProduceBatch.headers(MqOp.INSERT)), event, MqOp.INSERT);
+        }
+        produceBatch.seal().get();
+        blackhole.consume(produceBatch.toResult());
+        producer.clear();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ProduceBatchBenchmark.class.getSimpleName()).build()).run();
+    }
+}
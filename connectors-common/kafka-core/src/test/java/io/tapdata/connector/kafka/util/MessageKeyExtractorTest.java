@@ -0,0 +1,57 @@
+package io.tapdata.connector.kafka.util;
+
+import io.tapdata.entity.schema.TapField;
+import io.tapdata.entity.schema.TapTable;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+public class MessageKeyExtractorTest {
+
+    TapTable tapTable;
+    Map<String, Object> data;
+
+    @BeforeEach
+    void init() {
+        tapTable = new TapTable("orders");
+        tapTable.add(new TapField("id", "int").primaryKeyPos(1));
+        tapTable.add(new TapField("region", "string").primaryKeyPos(2));
+        tapTable.add(new TapField("amount", "double"));
+        data = new HashMap<>();
+        data.put("id", 1);
+        data.put("region", "east");
+        data.put("amount", 1.5);
+    }
+
+    @Test
+    @DisplayName("test key of table topic is primary key values joined")
+    void testJoinedKey() {
+        MessageKeyExtractor messageKeyExtractor = new MessageKeyExtractor(tapTable, false);
+        Assertions.assertEquals("\"1_east\"", new String(messageKeyExtractor.extract(data), StandardCharsets.UTF_8));
+        data.put("id", 2);
+        Assertions.assertEquals("\"2_east\"", new String(messageKeyExtractor.extract(data), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("test key of shared topic is a json object")
+    void testObjectKey() {
+        MessageKeyExtractor messageKeyExtractor = new MessageKeyExtractor(tapTable, true);
+        String key = new String(messageKeyExtractor.extract(data), StandardCharsets.UTF_8);
+        Assertions.assertTrue(key.contains("\"id\":1"));
+        Assertions.assertTrue(key.contains("\"region\":\"east\""));
+        Assertions.assertFalse(key.contains("amount"));
+    }
+
+    @Test
+    @DisplayName("test table without primary key has no key")
+    void testNoPrimaryKey() {
+        TapTable noKeyTable = new TapTable("logs");
+        noKeyTable.add(new TapField("id", "int"));
+        Assertions.assertNull(new MessageKeyExtractor(noKeyTable, false).extract(data));
+    }
+}
@@ -0,0 +1,74 @@
+package io.tapdata.connector.kafka.util;
+
+import io.tapdata.common.constant.MqOp;
+import io.tapdata.entity.event.dml.TapDeleteRecordEvent;
+import io.tapdata.entity.event.dml.TapInsertRecordEvent;
+import io.tapdata.entity.event.dml.TapRecordEvent;
+import io.tapdata.entity.event.dml.TapUpdateRecordEvent;
+import io.tapdata.pdk.apis.entity.WriteListResult;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+public class ProduceBatchTest {
+
+    MockProducer<byte[], byte[]> producer;
+
+    @BeforeEach
+    void init() {
+        producer = new MockProducer<>(false, new ByteArraySerializer(), new ByteArraySerializer());
+    }
+
+    private ProducerRecord<byte[], byte[]> record(MqOp mqOp) {
+        return new ProducerRecord<>("test", null, null, null, new byte[0], ProduceBatch.headers(mqOp));
+    }
+
+    @Test
+    @DisplayName("test batch is done by the last callback and failed record is reported")
+    void testSealAndResult() {
+        ProduceBatch produceBatch = new ProduceBatch(3);
+        TapRecordEvent insert = TapInsertRecordEvent.create();
+        TapRecordEvent update = TapUpdateRecordEvent.create();
+        TapRecordEvent delete = TapDeleteRecordEvent.create();
+        produceBatch.send(producer, record(MqOp.INSERT), insert, MqOp.INSERT);
+        produceBatch.send(producer, record(MqOp.UPDATE), update, MqOp.UPDATE);
+        produceBatch.send(producer, record(MqOp.DELETE), delete, MqOp.DELETE);
+        producer.completeNext();
+        CompletableFuture<Void> done = produceBatch.seal();
+        Assertions.assertFalse(done.isDone());
+        producer.errorNext(new RuntimeException("failed"));
+        Assertions.assertFalse(done.isDone());
+        producer.completeNext();
+        Assertions.assertTrue(done.isDone());
+
+        WriteListResult<TapRecordEvent> result = produceBatch.toResult();
+        Assertions.assertEquals(1, produceBatch.getFailed());
+        Assertions.assertEquals(1, result.getInsertedCount());
+        Assertions.assertEquals(1, result.getModifiedCount());
+        Assertions.assertEquals(1, result.getRemovedCount());
+        Assertions.assertEquals(1, result.getErrorMap().size());
+        Assertions.assertTrue(result.getErrorMap().containsKey(update));
+    }
+
+    @Test
+    @DisplayName("test empty batch is done when sealed")
+    void testEmptyBatch() {
+        ProduceBatch produceBatch = new ProduceBatch(0);
+        Assertions.assertTrue(produceBatch.seal().isDone());
+        Assertions.assertEquals(0, produceBatch.toResult().getInsertedCount());
+    }
+
+    @Test
+    @DisplayName("test headers of one op are shared and read only")
+    void testHeaders() {
+        Assertions.assertSame(ProduceBatch.headers(MqOp.INSERT), ProduceBatch.headers(MqOp.INSERT));
+        Assertions.assertArrayEquals("insert".getBytes(), ProduceBatch.headers(MqOp.INSERT).lastHeader("mqOp").value());
+        Assertions.assertThrows(IllegalStateException.class, () -> ProduceBatch.headers(MqOp.INSERT).add("k", new byte[0]));
+    }
+}
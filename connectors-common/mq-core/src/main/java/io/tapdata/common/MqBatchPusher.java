@@ -0,0 +1,249 @@
+package io.tapdata.common;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * double-buffered batcher shared by mq connectors
+ * records are buffered by the consuming threads, a sealed batch is delivered on its own thread, so polling overlaps with downstream
+ * the buffer is sealed when it is full or a scheduled flusher finds it older than max delay, and the offset is taken when it is sealed
+ * at most maxInFlight sealed batches wait for delivery, then the consuming threads are blocked
+ * close waits at most close timeout for the delivery, then the delivering thread is interrupted
+ */
+public class MqBatchPusher<T> implements AutoCloseable {
+
+    private final String name;
+    private final BiConsumer<List<T>, Object> submitConsumer;
+    private final Supplier<Object> offsetSupplier;
+    private int batchSize = 100;
+    private long maxDelay = 2000;
+    private int maxInFlight = 2;
+    private long closeTimeout = 30000;
+
+    private final Object lock = new Object();
+    private List<T> buffer;
+    private long bufferTime;
+    private BlockingQueue<Batch<T>> inFlight;
+    private ScheduledExecutorService flusher;
+    private Thread deliverer;
+    private volatile boolean closed;
+    private final AtomicReference<Throwable> error = new AtomicReference<>();
+
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong recordCount = new AtomicLong();
+    private final AtomicLong totalLinger = new AtomicLong();
+    private final AtomicLong maxLinger = new AtomicLong();
+
+    /**
+     * @param offsetSupplier offset of the records added so far, called under the buffer lock, so it must return a copy
+     */
+    public MqBatchPusher(String name, BiConsumer<List<T>, Object> submitConsumer, Supplier<Object> offsetSupplier) {
+        this.name = name;
+        this.submitConsumer = submitConsumer;
+        this.offsetSupplier = offsetSupplier;
+    }
+
+    public MqBatchPusher<T> batchSize(int batchSize) {
+        this.batchSize = Math.max(1, batchSize);
+        return this;
+    }
+
+    public MqBatchPusher<T> maxDelay(long maxDelay) {
+        this.maxDelay = Math.max(1, maxDelay);
+        return this;
+    }
+
+    public MqBatchPusher<T> maxInFlight(int maxInFlight) {
+        this.maxInFlight = Math.max(1, maxInFlight);
+        return this;
+    }
+
+    public MqBatchPusher<T> closeTimeout(long closeTimeout) {
+        this.closeTimeout = Math.max(1, closeTimeout);
+        return this;
+    }
+
+    public MqBatchPusher<T> start() {
+        buffer = new ArrayList<>(batchSize);
+        inFlight = new ArrayBlockingQueue<>(maxInFlight);
+        deliverer = new Thread(this::deliver, name + "-deliver");
+        deliverer.setDaemon(true);
+        deliverer.start();
+        long period = Math.max(10, maxDelay / 4);
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, name + "-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushIfExpired, period, period, TimeUnit.MILLISECONDS);
+        return this;
+    }
+
+    public void add(T record) {
+        synchronized (lock) {
+            append(record);
+            sealIfFull();
+        }
+    }
+
+    /**
+     * records and the offset update of them are applied together, a batch never carries the offset without all of the records
+     */
+    public void addAll(Collection<T> records, Runnable offsetUpdater) {
+        synchronized (lock) {
+            records.forEach(this::append);
+            if (null != offsetUpdater) {
+                offsetUpdater.run();
+            }
+            sealIfFull();
+        }
+    }
+
+    /**
+     * seal the buffer if it is expired, for the consumers which poll in the calling thread
+     */
+    public void checkAndSummit() {
+        flushIfExpired();
+        throwIfFailed();
+    }
+
+    private void append(T record) {
+        throwIfFailed();
+        if (buffer.isEmpty()) {
+            bufferTime = System.currentTimeMillis();
+        }
+        buffer.add(record);
+    }
+
+    private void sealIfFull() {
+        if (buffer.size() >= batchSize) {
+            seal(Long.MAX_VALUE);
+        }
+    }
+
+    private void flushIfExpired() {
+        synchronized (lock) {
+            if (null != buffer && !buffer.isEmpty() && System.currentTimeMillis() - bufferTime >= maxDelay) {
+                seal(Long.MAX_VALUE);
+            }
+        }
+    }
+
+    //called under the lock, so the batches are queued in order
+    private boolean seal(long deadline) {
+        Batch<T> batch = new Batch<>(buffer, null == offsetSupplier ? null : offsetSupplier.get(), bufferTime);
+        buffer = new ArrayList<>(batchSize);
+        try {
+            while (!inFlight.offer(batch, 100, TimeUnit.MILLISECONDS)) {
+                throwIfFailed();
+                if (System.currentTimeMillis() >= deadline) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted when waiting for batch delivery: " + name, e);
+        }
+    }
+
+    private void deliver() {
+        try {
+            while (!closed || !inFlight.isEmpty()) {
+                Batch<T> batch = inFlight.poll(100, TimeUnit.MILLISECONDS);
+                if (null == batch) {
+                    continue;
+                }
+                long linger = System.currentTimeMillis() - batch.firstTime;
+                submitConsumer.accept(batch.records, batch.offset);
+                batchCount.incrementAndGet();
+                recordCount.addAndGet(batch.records.size());
+                totalLinger.addAndGet(linger);
+                maxLinger.accumulateAndGet(linger, Math::max);
+            }
+        } catch (Throwable e) {
+            error.compareAndSet(null, e);
+        }
+    }
+
+    private void throwIfFailed() {
+        Throwable e = error.get();
+        if (null != e) {
+            throw new IllegalStateException("Batch delivery failed: " + name + ", " + e.getMessage(), e);
+        }
+    }
+
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+
+    public double getAverageBatchSize() {
+        long batches = batchCount.get();
+        return batches == 0 ? 0 : (double) recordCount.get() / batches;
+    }
+
+    /**
+     * @return average millis from the first record of a batch to its delivery
+     */
+    public double getAverageLinger() {
+        long batches = batchCount.get();
+        return batches == 0 ? 0 : (double) totalLinger.get() / batches;
+    }
+
+    public long getMaxLinger() {
+        return maxLinger.get();
+    }
+
+    public String metrics() {
+        return String.format("batches: %d, avg size: %.1f, avg linger: %.1fms, max linger: %dms", getBatchCount(), getAverageBatchSize(), getAverageLinger(), getMaxLinger());
+    }
+
+    /**
+     * the remaining records are delivered before it returns, a delivery stuck longer than close timeout is interrupted and fails the close
+     */
+    @Override
+    public void close() throws Exception {
+        if (null == deliverer || closed) {
+            return;
+        }
+        long deadline = System.currentTimeMillis() + closeTimeout;
+        boolean sealed = true;
+        try {
+            flusher.shutdownNow();
+            synchronized (lock) {
+                if (!buffer.isEmpty() && null == error.get()) {
+                    sealed = seal(deadline);
+                }
+            }
+        } finally {
+            closed = true;
+            deliverer.join(Math.max(1, deadline - System.currentTimeMillis()));
+            if (deliverer.isAlive()) {
+                deliverer.interrupt();
+                sealed = false;
+            }
+        }
+        throwIfFailed();
+        if (!sealed) {
+            throw new IllegalStateException("Batch delivery is not finished in " + closeTimeout + "ms: " + name);
+        }
+    }
+
+    private static class Batch<T> {
+        private final List<T> records;
+        private final Object offset;
+        private final long firstTime;
+
+        Batch(List<T> records, Object offset, long firstTime) {
+            this.records = records;
+            this.offset = offset;
+            this.firstTime = firstTime;
+        }
+    }
+}
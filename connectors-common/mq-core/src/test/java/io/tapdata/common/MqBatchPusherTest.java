@@ -0,0 +1,105 @@
+package io.tapdata.common;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class MqBatchPusherTest {
+
+    @Test
+    @DisplayName("test batches are sealed by size and delivered in order")
+    void testSealBySize() throws Exception {
+        List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+        try (MqBatchPusher<Integer> pusher = new MqBatchPusher<Integer>("test", (batch, offset) -> batches.add(batch), null)
+                .batchSize(10).maxDelay(60000).start()) {
+            for (int i = 0; i < 25; i++) {
+                pusher.add(i);
+            }
+        }
+        Assertions.assertEquals(3, batches.size());
+        Assertions.assertEquals(10, batches.get(0).size());
+        Assertions.assertEquals(5, batches.get(2).size());
+        List<Integer> all = new ArrayList<>();
+        batches.forEach(all::addAll);
+        for (int i = 0; i < 25; i++) {
+            Assertions.assertEquals(i, all.get(i));
+        }
+    }
+
+    @Test
+    @DisplayName("test expired buffer is flushed without new records")
+    void testFlushByTimer() throws Exception {
+        CountDownLatch delivered = new CountDownLatch(1);
+        MqBatchPusher<Integer> pusher = new MqBatchPusher<Integer>("test", (batch, offset) -> delivered.countDown(), null)
+                .batchSize(100).maxDelay(50).start();
+        pusher.add(1);
+        Assertions.assertTrue(delivered.await(2, TimeUnit.SECONDS));
+        pusher.close();
+        Assertions.assertEquals(1, pusher.getBatchCount());
+        Assertions.assertTrue(pusher.getMaxLinger() >= 50);
+    }
+
+    @Test
+    @DisplayName("test offset is taken with the records of the batch")
+    void testOffsetWithRecords() throws Exception {
+        AtomicInteger offset = new AtomicInteger();
+        List<Object> offsets = new CopyOnWriteArrayList<>();
+        List<Integer> sizes = new CopyOnWriteArrayList<>();
+        try (MqBatchPusher<Integer> pusher = new MqBatchPusher<Integer>("test", (batch, o) -> {
+            offsets.add(o);
+            sizes.add(batch.size());
+        }, offset::get).batchSize(3).maxDelay(60000).start()) {
+            pusher.addAll(Arrays.asList(1, 2), offset::incrementAndGet);
+            //sealed after the whole record, even if it is over the batch size
+            pusher.addAll(Arrays.asList(3, 4), offset::incrementAndGet);
+            pusher.addAll(Collections.singletonList(5), offset::incrementAndGet);
+        }
+        Assertions.assertEquals(Arrays.asList(4, 1), sizes);
+        Assertions.assertEquals(Arrays.asList(2, 3), offsets);
+    }
+
+    @Test
+    @DisplayName("test delivery error is thrown to the adding thread")
+    void testDeliveryError() {
+        MqBatchPusher<Integer> pusher = new MqBatchPusher<Integer>("test", (batch, offset) -> {
+            throw new IllegalArgumentException("downstream");
+        }, null).batchSize(1).maxDelay(60000).maxInFlight(1).start();
+        Assertions.assertThrows(IllegalStateException.class, () -> {
+            for (int i = 0; i < 100; i++) {
+                pusher.add(i);
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+        });
+        Assertions.assertThrows(IllegalStateException.class, pusher::close);
+    }
+
+    @Test
+    @DisplayName("test close does not wait for a stuck delivery longer than the close timeout")
+    void testCloseTimeout() throws Exception {
+        CountDownLatch stuck = new CountDownLatch(1);
+        AtomicInteger interrupted = new AtomicInteger();
+        MqBatchPusher<Integer> pusher = new MqBatchPusher<Integer>("test", (batch, offset) -> {
+            try {
+                stuck.await();
+            } catch (InterruptedException e) {
+                interrupted.incrementAndGet();
+            }
+        }, null).batchSize(1).maxDelay(60000).maxInFlight(1).closeTimeout(200).start();
+        pusher.add(1);
+        pusher.add(2);
+        long start = System.currentTimeMillis();
+        Assertions.assertThrows(IllegalStateException.class, pusher::close);
+        Assertions.assertTrue(System.currentTimeMillis() - start < 2000);
+        TimeUnit.MILLISECONDS.sleep(100);
+        Assertions.assertEquals(1, interrupted.get());
+    }
+}
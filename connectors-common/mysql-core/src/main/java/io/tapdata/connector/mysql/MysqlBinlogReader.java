@@ -0,0 +1,653 @@
+package io.tapdata.connector.mysql;
+
+import com.github.shyiko.mysql.binlog.BinaryLogClient;
+import com.github.shyiko.mysql.binlog.event.*;
+import com.github.shyiko.mysql.binlog.event.deserialization.EventDeserializer;
+import com.github.shyiko.mysql.binlog.network.SSLMode;
+import io.tapdata.common.ddl.DDLFactory;
+import io.tapdata.common.ddl.type.DDLParserType;
+import io.tapdata.connector.mysql.constant.DeployModeEnum;
+import io.tapdata.connector.mysql.entity.MysqlBinlogColumn;
+import io.tapdata.connector.mysql.entity.MysqlBinlogLayout;
+import io.tapdata.connector.mysql.entity.MysqlBinlogPosition;
+import io.tapdata.connector.mysql.entity.MysqlStreamOffset;
+import io.tapdata.connector.mysql.util.MysqlBinlogPositionUtil;
+import io.tapdata.connector.mysql.util.OrderedPipeline;
+import io.tapdata.entity.event.TapEvent;
+import io.tapdata.entity.event.ddl.TapDDLEvent;
+import io.tapdata.entity.event.ddl.TapDDLUnknownEvent;
+import io.tapdata.entity.event.dml.TapDeleteRecordEvent;
+import io.tapdata.entity.event.dml.TapInsertRecordEvent;
+import io.tapdata.entity.event.dml.TapRecordEvent;
+import io.tapdata.entity.event.dml.TapUpdateRecordEvent;
+import io.tapdata.entity.logger.Log;
+import io.tapdata.entity.simplify.TapSimplify;
+import io.tapdata.entity.utils.InstanceFactory;
+import io.tapdata.entity.utils.JsonParser;
+import io.tapdata.entity.utils.TypeHolder;
+import io.tapdata.kit.EmptyKit;
+import io.tapdata.kit.ErrorKit;
+import io.tapdata.pdk.apis.consumer.StreamReadConsumer;
+import io.tapdata.pdk.apis.context.TapConnectorContext;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static io.tapdata.connector.mysql.util.MysqlUtil.randomServerId;
+
+/**
+ * native cdc of mysql, row images of BinaryLogClient are converted to TapEvent directly,
+ * without debezium SourceRecord/Struct, column layouts are kept in MysqlSchemaHistoryTransfer
+ * with the binlog position they are valid from, a new layout is recorded on ddl only,
+ * and rows are decoded with the layout resolved for the table id of their TABLE_MAP
+ */
+public class MysqlBinlogReader extends MysqlReader {
+
+    protected static final String NATIVE_HISTORY_KEY = "%s_native_%s";
+    protected static final String OFFSET_ROW_EVENT_KEY = "tap_event";
+    protected static final String OFFSET_ROW_KEY = "tap_row";
+    protected static final long FLUSH_INTERVAL_MS = 500L;
+    protected static final String DOUBLE_ACTIVE_TABLE = "_tap_double_active";
+    protected static final int PIPELINE_CAPACITY_PER_WORKER = 64;
+    protected static final int MAX_LAYOUT_HISTORY = 16;
+    private static final String SELECT_BINLOG_COLUMNS = "SELECT TABLE_NAME `tableName`, COLUMN_NAME `columnName`, DATA_TYPE `dataType`, " +
+            "COLUMN_TYPE `columnType`, CHARACTER_SET_NAME `charset` FROM INFORMATION_SCHEMA.COLUMNS " +
+            "WHERE TABLE_SCHEMA = '%s' AND TABLE_NAME IN (%s) ORDER BY TABLE_NAME, ORDINAL_POSITION";
+
+    protected BinaryLogClient binaryLogClient;
+    protected final Map<String, MysqlBinlogTable> binlogTableMap = new ConcurrentHashMap<>();
+    protected final Map<Long, TableMapEventData> tableMapEventMap = new HashMap<>();
+    //table id of TABLE_MAP changes with ddl, so a resolved layout is kept until the next ddl or rotate
+    protected final Map<Long, MysqlBinlogTable> tableIdLayoutMap = new HashMap<>();
+    protected Set<String> tableSet;
+    protected MysqlBinlogTable.TimeContext timeContext;
+    protected String serverId;
+    protected int batchSize;
+    protected List<TapEvent> pendingEvents = new ArrayList<>();
+    protected long lastFlushTime;
+    //position of binlog, the transaction restarts from transactionPosition and skips handled row events/rows
+    protected String binlogFilename;
+    protected long transactionPosition;
+    protected long eventTimestamp;
+    protected boolean gtidStarted;
+    protected int rowEventIndex;
+    protected int skipRowEvents;
+    protected int skipRows;
+    protected boolean skipTransaction;
+    //decode of row events may run on workers, offset below is only moved by the delivery side in binlog order
+    protected OrderedPipeline<BinlogEntry> pipeline;
+    protected String deliveredFilename;
+    protected long deliveredPosition;
+    protected long deliveredTimestamp;
+    protected int deliveredRowEvent;
+    protected int deliveredRow;
+    protected boolean offsetChanged;
+
+    public MysqlBinlogReader(MysqlJdbcContextV2 mysqlJdbcContext, Log tapLogger, Supplier<Boolean> isAlive) {
+        super(mysqlJdbcContext, tapLogger, isAlive);
+    }
+
+    @Override
+    public void readBinlog(TapConnectorContext tapConnectorContext, List<String> tables,
+                           Object offset, int batchSize, DDLParserType ddlParserType, StreamReadConsumer consumer, HashMap<String, MysqlJdbcContextV2> contextMapForMasterSlave) throws Throwable {
+        if (DeployModeEnum.fromString(mysqlConfig.getDeploymentMode()) == DeployModeEnum.MASTER_SLAVE) {
+            super.readBinlog(tapConnectorContext, tables, offset, batchSize, ddlParserType, consumer, contextMapForMasterSlave);
+            return;
+        }
+        try {
+            initDebeziumServerName(tapConnectorContext);
+            this.tapTableMap = tapConnectorContext.getTableMap();
+            this.tapConnectorContext = tapConnectorContext;
+            this.ddlParserType = ddlParserType;
+            this.streamReadConsumer = consumer;
+            this.batchSize = Math.max(batchSize, 1);
+            this.serverId = mysqlJdbcContext.getServerId();
+            this.tableSet = new HashSet<>(tables);
+            this.timeContext = new MysqlBinlogTable.TimeContext(dbTimeZone.toZoneId(), timeZone, diff, mysqlConfig.getOldVersionTimezone());
+            initPosition(offset);
+            tapLogger.info("Starting mysql native cdc, server name: {}, file: {}, position: {}", serverName, binlogFilename, transactionPosition);
+            LockManager.mysqlSchemaHistoryTransferManager.computeIfAbsent(serverName, key -> {
+                this.schemaHistoryTransfer = new MysqlSchemaHistoryTransfer();
+                return this.schemaHistoryTransfer;
+            });
+            initMysqlSchemaHistory(tapConnectorContext);
+            this.mysqlSchemaHistoryMonitor = new ScheduledThreadPoolExecutor(1);
+            this.mysqlSchemaHistoryMonitor.scheduleAtFixedRate(() -> saveMysqlSchemaHistory(tapConnectorContext),
+                    SAVE_DEBEZIUM_SCHEMA_HISTORY_INTERVAL_SEC, SAVE_DEBEZIUM_SCHEMA_HISTORY_INTERVAL_SEC, TimeUnit.SECONDS);
+            initBinlogTables(tables);
+            binaryLogClient = createBinaryLogClient();
+            int workers = EmptyKit.isNull(mysqlConfig.getNativeCdcWorkers()) ? 0 : mysqlConfig.getNativeCdcWorkers();
+            pipeline = new OrderedPipeline<>("Mysql-Binlog-" + serverName, workers, workers * PIPELINE_CAPACITY_PER_WORKER, this::deliver, e -> {
+                throwableAtomicReference.compareAndSet(null, e);
+                disconnectQuietly(binaryLogClient);
+            });
+            if (pipeline.isParallel()) {
+                tapLogger.info("Mysql native cdc decodes row events with {} workers", workers);
+            }
+            lastFlushTime = System.currentTimeMillis();
+            streamReadConsumer.streamReadStarted();
+            try {
+                binaryLogClient.connect();
+                //events read before disconnect are still delivered in order
+                pipeline.finish();
+            } finally {
+                pipeline.close();
+                streamReadConsumer.streamReadEnded();
+            }
+            if (null != throwableAtomicReference.get()) {
+                Throwable e = ErrorKit.getLastCause(throwableAtomicReference.get());
+                ((MysqlExceptionCollector) exceptionCollector).setMysqlConfig(mysqlConfig);
+                exceptionCollector.collectTerminateByServer(e);
+                exceptionCollector.collectOffsetInvalid(offset, e);
+                exceptionCollector.collectCdcConfigInvalid(e);
+                throw e;
+            }
+        } finally {
+            Optional.ofNullable(mysqlSchemaHistoryMonitor).ifPresent(ExecutorService::shutdownNow);
+            tapLogger.info("Mysql native binlog reader stopped");
+        }
+    }
+
+    protected BinaryLogClient createBinaryLogClient() {
+        BinaryLogClient client = new BinaryLogClient(mysqlConfig.getHost(), mysqlConfig.getPort(), mysqlConfig.getUser(),
+                EmptyKit.isNull(mysqlConfig.getPassword()) ? "" : mysqlConfig.getPassword());
+        client.setServerId(randomServerId());
+        client.setBinlogFilename(binlogFilename);
+        client.setBinlogPosition(transactionPosition);
+        //stream read is restarted by engine with the last offset, never reconnect silently
+        client.setKeepAlive(false);
+        client.setHeartbeatInterval(TimeUnit.SECONDS.toMillis(1));
+        if (Boolean.TRUE.equals(mysqlConfig.getUseSSL())) {
+            client.setSSLMode(SSLMode.REQUIRED);
+        }
+        EventDeserializer eventDeserializer = new EventDeserializer();
+        eventDeserializer.setCompatibilityMode(
+                EventDeserializer.CompatibilityMode.DATE_AND_TIME_AS_LONG_MICRO,
+                EventDeserializer.CompatibilityMode.CHAR_AND_BINARY_AS_BYTE_ARRAY,
+                EventDeserializer.CompatibilityMode.INVALID_DATE_AND_TIME_AS_MIN_VALUE);
+        client.setEventDeserializer(eventDeserializer);
+        client.registerEventListener(this::handleEvent);
+        client.registerLifecycleListener(new BinaryLogClient.AbstractLifecycleListener() {
+            @Override
+            public void onCommunicationFailure(BinaryLogClient client, Exception ex) {
+                throwableAtomicReference.compareAndSet(null, ex);
+            }
+
+            @Override
+            public void onEventDeserializationFailure(BinaryLogClient client, Exception ex) {
+                throwableAtomicReference.compareAndSet(null, ex);
+                //disconnect can not be called in the thread which is reading events
+                new Thread(() -> disconnectQuietly(client), "Mysql-Binlog-Disconnect-" + serverName).start();
+            }
+        });
+        return client;
+    }
+
+    protected void initPosition(Object offset) throws Throwable {
+        JsonParser jsonParser = InstanceFactory.instance(JsonParser.class);
+        if (offset instanceof Long) {
+            try (MysqlBinlogPositionUtil ins = new MysqlBinlogPositionUtil(
+                    mysqlConfig.getHost(),
+                    mysqlConfig.getPort(),
+                    mysqlConfig.getUser(),
+                    mysqlConfig.getPassword())) {
+                offset = ins.findByLessTimestamp((Long) offset, true);
+                if (null == offset) {
+                    throw new RuntimeException("Not found binlog of sync time: " + offset);
+                }
+            }
+        }
+        if (offset instanceof MysqlStreamOffset) {
+            Map<String, String> offsetMap = ((MysqlStreamOffset) offset).getOffset();
+            Map<String, Object> position = jsonParser.fromJson(offsetMap.values().iterator().next(), new TypeHolder<Map<String, Object>>() {
+            });
+            binlogFilename = String.valueOf(position.get("file"));
+            transactionPosition = ((Number) position.get("pos")).longValue();
+            //offset of debezium has no native counters, the transaction is read again
+            skipRowEvents = position.get(OFFSET_ROW_EVENT_KEY) instanceof Number ? ((Number) position.get(OFFSET_ROW_EVENT_KEY)).intValue() : 0;
+            skipRows = position.get(OFFSET_ROW_KEY) instanceof Number ? ((Number) position.get(OFFSET_ROW_KEY)).intValue() : 0;
+        } else if (offset instanceof MysqlBinlogPosition) {
+            binlogFilename = ((MysqlBinlogPosition) offset).getFilename();
+            transactionPosition = ((MysqlBinlogPosition) offset).getPosition();
+        } else {
+            MysqlBinlogPosition mysqlBinlogPosition = mysqlJdbcContext.readBinlogPosition();
+            binlogFilename = mysqlBinlogPosition.getFilename();
+            transactionPosition = mysqlBinlogPosition.getPosition();
+        }
+        deliveredFilename = binlogFilename;
+        deliveredPosition = transactionPosition;
+        deliveredRowEvent = skipRowEvents;
+        deliveredRow = skipRows;
+    }
+
+    protected void handleEvent(Event event) {
+        if (null != throwableAtomicReference.get()) {
+            return;
+        }
+        EventHeaderV4 header = event.getHeader();
+        EventType eventType = header.getEventType();
+        if (header.getTimestamp() > 0) {
+            eventTimestamp = header.getTimestamp();
+        }
+        try {
+            switch (eventType) {
+                case ROTATE:
+                    RotateEventData rotateEventData = event.getData();
+                    binlogFilename = rotateEventData.getBinlogFilename();
+                    transactionPosition = rotateEventData.getBinlogPosition();
+                    tableMapEventMap.clear();
+                    tableIdLayoutMap.clear();
+                    break;
+                case GTID:
+                case ANONYMOUS_GTID:
+                case MARIADB_GTID:
+                    beginTransaction(header.getPosition());
+                    gtidStarted = true;
+                    break;
+                case QUERY:
+                    handleQuery(event);
+                    break;
+                case TABLE_MAP:
+                    TableMapEventData tableMapEventData = event.getData();
+                    tableMapEventMap.put(tableMapEventData.getTableId(), tableMapEventData);
+                    break;
+                case XID:
+                    commitTransaction(header.getNextPosition());
+                    break;
+                case HEARTBEAT:
+                    pipeline.submitCompleted(new BinlogEntry(BinlogEntry.Kind.HEARTBEAT, binlogFilename, transactionPosition, eventTimestamp));
+                    break;
+                default:
+                    if (EventType.isRowMutation(eventType)) {
+                        handleRows(event);
+                    }
+                    break;
+            }
+        } catch (Throwable e) {
+            throwableAtomicReference.compareAndSet(null, e);
+            new Thread(() -> disconnectQuietly(binaryLogClient), "Mysql-Binlog-Disconnect-" + serverName).start();
+        }
+    }
+
+    protected void handleQuery(Event event) {
+        EventHeaderV4 header = event.getHeader();
+        QueryEventData queryEventData = event.getData();
+        String sql = queryEventData.getSql().trim();
+        if ("BEGIN".equalsIgnoreCase(sql) || startsWithIgnoreCase(sql, "XA START")) {
+            if (!gtidStarted) {
+                beginTransaction(header.getPosition());
+            }
+            gtidStarted = false;
+            return;
+        }
+        if ("COMMIT".equalsIgnoreCase(sql) || "ROLLBACK".equalsIgnoreCase(sql)
+                || startsWithIgnoreCase(sql, "XA COMMIT") || startsWithIgnoreCase(sql, "XA ROLLBACK")) {
+            commitTransaction(header.getNextPosition());
+            return;
+        }
+        //statements inside of a transaction, rows after them belong to the same transaction
+        if (startsWithIgnoreCase(sql, "SAVEPOINT") || startsWithIgnoreCase(sql, "ROLLBACK TO") || startsWithIgnoreCase(sql, "RELEASE SAVEPOINT")
+                || startsWithIgnoreCase(sql, "XA END") || startsWithIgnoreCase(sql, "XA PREPARE")) {
+            return;
+        }
+        gtidStarted = false;
+        //ddl is committed by itself
+        if (!mysqlConfig.getDatabase().equals(queryEventData.getDatabase())) {
+            commitTransaction(header.getNextPosition());
+            return;
+        }
+        resetTransaction(header.getNextPosition());
+        tableIdLayoutMap.clear();
+        BinlogEntry entry = new BinlogEntry(BinlogEntry.Kind.DDL, binlogFilename, transactionPosition, eventTimestamp);
+        entry.events = wrapNativeDDL(sql, header.getTimestamp());
+        pipeline.submitCompleted(entry);
+    }
+
+    private static boolean startsWithIgnoreCase(String sql, String prefix) {
+        return sql.regionMatches(true, 0, prefix, 0, prefix.length());
+    }
+
+    protected List<TapEvent> wrapNativeDDL(String sql, long eventTime) {
+        List<TapEvent> tapEvents = new ArrayList<>();
+        try {
+            DDLFactory.ddlToTapDDLEvent(ddlParserType, sql, DDL_WRAPPER_CONFIG, tapTableMap, tapDDLEvent -> {
+                if (!tableSet.contains(tapDDLEvent.getTableId())) {
+                    return;
+                }
+                tapDDLEvent.setTime(System.currentTimeMillis());
+                tapDDLEvent.setReferenceTime(eventTime);
+                tapDDLEvent.setOriginDDL(sql);
+                tapDDLEvent.setExactlyOnceId(getExactlyOnceId(0) + "_0");
+                tapEvents.add(tapDDLEvent);
+                tapLogger.info("Read DDL: " + sql + ", about to be packaged as some event(s)");
+            });
+        } catch (Throwable e) {
+            //only unknown ddl of captured tables is delivered
+            String lowerSql = sql.toLowerCase();
+            if (tableSet.stream().anyMatch(table -> lowerSql.contains(table.toLowerCase()))) {
+                TapDDLEvent tapDDLEvent = new TapDDLUnknownEvent();
+                tapDDLEvent.setTime(System.currentTimeMillis());
+                tapDDLEvent.setReferenceTime(eventTime);
+                tapDDLEvent.setOriginDDL(sql);
+                tapDDLEvent.setExactlyOnceId(getExactlyOnceId(0) + "_0");
+                tapEvents.add(tapDDLEvent);
+            }
+        }
+        //column layouts after ddl, valid from the position after the ddl
+        Set<String> ddlTables = tapEvents.stream().map(e -> ((TapDDLEvent) e).getTableId()).filter(EmptyKit::isNotNull).collect(Collectors.toSet());
+        if (tapEvents.stream().anyMatch(e -> e instanceof TapDDLUnknownEvent)) {
+            ddlTables.addAll(tableSet);
+        }
+        if (EmptyKit.isNotEmpty(ddlTables)) {
+            refreshBinlogTables(new ArrayList<>(ddlTables));
+        }
+        return tapEvents;
+    }
+
+    protected void handleRows(Event event) {
+        EventHeaderV4 header = event.getHeader();
+        EventType eventType = header.getEventType();
+        EventData eventData = event.getData();
+        long tableId = EventType.isWrite(eventType) ? ((WriteRowsEventData) eventData).getTableId() :
+                EventType.isUpdate(eventType) ? ((UpdateRowsEventData) eventData).getTableId() : ((DeleteRowsEventData) eventData).getTableId();
+        int currentRowEvent = rowEventIndex++;
+        TableMapEventData tableMapEventData = tableMapEventMap.get(tableId);
+        if (null == tableMapEventData || !mysqlConfig.getDatabase().equals(tableMapEventData.getDatabase())) {
+            return;
+        }
+        String table = tableMapEventData.getTable();
+        //double active: records of the same transaction as _tap_double_active are written by ourselves
+        if (Boolean.TRUE.equals(mysqlConfig.getDoubleActive()) && DOUBLE_ACTIVE_TABLE.equals(table)) {
+            skipTransaction = true;
+            return;
+        }
+        if (skipTransaction || !tableSet.contains(table) || currentRowEvent < skipRowEvents) {
+            return;
+        }
+        int skip = currentRowEvent == skipRowEvents ? skipRows : 0;
+        //layout and exactly once id are decided here, conversion may run on workers
+        MysqlBinlogTable binlogTable = tableIdLayoutMap.computeIfAbsent(tableId, id -> resolveLayout(tableMapEventData));
+        String exactlyOncePrefix = getExactlyOnceId(currentRowEvent);
+        long eventTime = header.getTimestamp();
+        BinlogEntry entry = new BinlogEntry(BinlogEntry.Kind.ROWS, binlogFilename, transactionPosition, eventTimestamp);
+        entry.rowEvent = currentRowEvent;
+        entry.skip = skip;
+        pipeline.submit(() -> {
+            entry.events = convertRows(eventType, eventData, binlogTable, eventTime, skip, exactlyOncePrefix);
+            return entry;
+        });
+    }
+
+    //decode row images of one rows event, rows before skip are handled already
+    protected List<TapEvent> convertRows(EventType eventType, EventData eventData, MysqlBinlogTable binlogTable, long eventTime, int skip, String exactlyOncePrefix) {
+        List<TapEvent> tapEvents = new ArrayList<>();
+        String table = binlogTable.getTableName();
+        if (EventType.isWrite(eventType)) {
+            WriteRowsEventData data = (WriteRowsEventData) eventData;
+            List<Serializable[]> rows = data.getRows();
+            for (int i = skip; i < rows.size(); i++) {
+                TapInsertRecordEvent insertRecordEvent = new TapInsertRecordEvent().init();
+                insertRecordEvent.setAfter(binlogTable.toMap(rows.get(i), data.getIncludedColumns()));
+                tapEvents.add(wrapRecordEvent(insertRecordEvent, table, eventTime, exactlyOncePrefix + "_" + (i + 1)));
+            }
+        } else if (EventType.isUpdate(eventType)) {
+            UpdateRowsEventData data = (UpdateRowsEventData) eventData;
+            List<Map.Entry<Serializable[], Serializable[]>> rows = data.getRows();
+            for (int i = skip; i < rows.size(); i++) {
+                TapUpdateRecordEvent updateRecordEvent = new TapUpdateRecordEvent().init();
+                updateRecordEvent.setBefore(binlogTable.toMap(rows.get(i).getKey(), data.getIncludedColumnsBeforeUpdate()));
+                updateRecordEvent.setAfter(binlogTable.toMap(rows.get(i).getValue(), data.getIncludedColumns()));
+                tapEvents.add(wrapRecordEvent(updateRecordEvent, table, eventTime, exactlyOncePrefix + "_" + (i + 1)));
+            }
+        } else {
+            DeleteRowsEventData data = (DeleteRowsEventData) eventData;
+            List<Serializable[]> rows = data.getRows();
+            for (int i = skip; i < rows.size(); i++) {
+                TapDeleteRecordEvent deleteRecordEvent = new TapDeleteRecordEvent().init();
+                deleteRecordEvent.setBefore(binlogTable.toMap(rows.get(i), data.getIncludedColumns()));
+                tapEvents.add(wrapRecordEvent(deleteRecordEvent, table, eventTime, exactlyOncePrefix + "_" + (i + 1)));
+            }
+        }
+        return tapEvents;
+    }
+
+    private TapRecordEvent wrapRecordEvent(TapRecordEvent recordEvent, String table, long eventTime, String exactlyOnceId) {
+        recordEvent.setTableId(table);
+        recordEvent.setReferenceTime(eventTime);
+        recordEvent.setExactlyOnceId(exactlyOnceId);
+        return recordEvent;
+    }
+
+    protected String getExactlyOnceId(int rowEvent) {
+        return binlogFilename + "_" + transactionPosition + "_" + rowEvent;
+    }
+
+    protected void beginTransaction(long position) {
+        transactionPosition = position;
+        rowEventIndex = 0;
+        skipTransaction = false;
+    }
+
+    protected void commitTransaction(long nextPosition) {
+        resetTransaction(nextPosition);
+        pipeline.submitCompleted(new BinlogEntry(BinlogEntry.Kind.COMMIT, binlogFilename, transactionPosition, eventTimestamp));
+    }
+
+    private void resetTransaction(long nextPosition) {
+        transactionPosition = nextPosition;
+        rowEventIndex = 0;
+        skipRowEvents = 0;
+        skipRows = 0;
+        skipTransaction = false;
+    }
+
+    //called in binlog order, on the delivery thread when workers are enabled
+    protected void deliver(BinlogEntry entry) {
+        deliveredTimestamp = entry.timestamp;
+        if (BinlogEntry.Kind.HEARTBEAT == entry.kind) {
+            flush(true);
+            return;
+        }
+        deliveredFilename = entry.filename;
+        deliveredPosition = entry.position;
+        if (BinlogEntry.Kind.ROWS == entry.kind) {
+            for (int i = 0; i < entry.events.size(); i++) {
+                //offset points to the last delivered row, rows before it are skipped when resuming
+                deliveredRowEvent = entry.rowEvent;
+                deliveredRow = entry.skip + i + 1;
+                pendingEvents.add(entry.events.get(i));
+                offsetChanged = true;
+                if (pendingEvents.size() >= batchSize) {
+                    flush(true);
+                }
+            }
+            flush(false);
+            return;
+        }
+        deliveredRowEvent = 0;
+        deliveredRow = 0;
+        offsetChanged = true;
+        if (EmptyKit.isNotEmpty(entry.events)) {
+            pendingEvents.addAll(entry.events);
+        }
+        flush(BinlogEntry.Kind.DDL == entry.kind);
+    }
+
+    //force: deliver now, otherwise only when the interval is reached
+    protected void flush(boolean force) {
+        if (!force && System.currentTimeMillis() - lastFlushTime < FLUSH_INTERVAL_MS) {
+            return;
+        }
+        if (EmptyKit.isNotEmpty(pendingEvents)) {
+            streamReadConsumer.accept(pendingEvents, currentOffset());
+            pendingEvents = new ArrayList<>();
+        } else if (offsetChanged && force) {
+            //no captured change, heartbeat moves the offset forward
+            streamReadConsumer.accept(TapSimplify.list(TapSimplify.heartbeatEvent(deliveredTimestamp)), currentOffset());
+        } else {
+            return;
+        }
+        offsetChanged = false;
+        lastFlushTime = System.currentTimeMillis();
+    }
+
+    protected MysqlStreamOffset currentOffset() {
+        JsonParser jsonParser = InstanceFactory.instance(JsonParser.class);
+        Map<String, Object> partitionMap = new HashMap<>();
+        partitionMap.put("server", serverName);
+        Map<String, Object> offsetMap = new HashMap<>();
+        offsetMap.put("file", deliveredFilename);
+        offsetMap.put("pos", deliveredPosition);
+        offsetMap.put("server_id", serverId);
+        offsetMap.put("ts_sec", TimeUnit.MILLISECONDS.toSeconds(deliveredTimestamp));
+        if (deliveredRowEvent > 0 || deliveredRow > 0) {
+            offsetMap.put(OFFSET_ROW_EVENT_KEY, deliveredRowEvent);
+            offsetMap.put(OFFSET_ROW_KEY, deliveredRow);
+        }
+        MysqlStreamOffset mysqlStreamOffset = new MysqlStreamOffset();
+        mysqlStreamOffset.setName(serverName);
+        Map<String, String> offset = new HashMap<>(1);
+        offset.put(jsonParser.toJson(partitionMap), jsonParser.toJson(offsetMap));
+        mysqlStreamOffset.setOffset(offset);
+        return mysqlStreamOffset;
+    }
+
+    /**
+     * layout of the rows of one TABLE_MAP, from the schema history at the current position,
+     * the current schema is only queried for a table without history, the layout must match the TABLE_MAP
+     */
+    protected MysqlBinlogTable resolveLayout(TableMapEventData tableMapEventData) {
+        String table = tableMapEventData.getTable();
+        int columnCount = tableMapEventData.getColumnTypes().length;
+        MysqlBinlogTable binlogTable = binlogTableMap.get(table);
+        if (null == binlogTable) {
+            refreshBinlogTables(Collections.singletonList(table));
+            binlogTable = binlogTableMap.get(table);
+        }
+        if (null == binlogTable || binlogTable.size() != columnCount) {
+            throw new RuntimeException(String.format("Column count of table %s in binlog is %s, but %s in schema history, please use debezium cdc for the table",
+                    table, columnCount, null == binlogTable ? 0 : binlogTable.size()));
+        }
+        //column names are in TABLE_MAP when binlog_row_metadata is FULL
+        List<String> columnNames = null == tableMapEventData.getEventMetadata() ? null : tableMapEventData.getEventMetadata().getColumnNames();
+        if (EmptyKit.isNotEmpty(columnNames)) {
+            List<String> layoutNames = binlogTable.getColumns().stream().map(MysqlBinlogColumn::getName).collect(Collectors.toList());
+            if (!columnNames.equals(layoutNames)) {
+                throw new RuntimeException(String.format("Columns of table %s in binlog are %s, but %s in schema history, please use debezium cdc for the table",
+                        table, columnNames, layoutNames));
+            }
+        }
+        return binlogTable;
+    }
+
+    //the last layout valid at the start position is used, the current schema may be changed by later ddl
+    protected void initBinlogTables(List<String> tables) throws Throwable {
+        List<String> missingTables = new ArrayList<>();
+        for (String table : tables) {
+            MysqlBinlogLayout layout = null;
+            for (MysqlBinlogLayout history : readLayoutHistory(table)) {
+                if (history.isValidAt(binlogFilename, transactionPosition)) {
+                    layout = history;
+                }
+            }
+            if (null == layout) {
+                missingTables.add(table);
+                continue;
+            }
+            binlogTableMap.put(table, new MysqlBinlogTable(table, layout.getColumns(), tapTableMap.get(table), timeContext));
+        }
+        if (EmptyKit.isNotEmpty(missingTables)) {
+            tapLogger.info("Mysql native cdc has no column layout of tables {} at {}:{}, current schema is used", missingTables, binlogFilename, transactionPosition);
+            refreshBinlogTables(missingTables);
+        }
+    }
+
+    protected List<MysqlBinlogLayout> readLayoutHistory(String table) {
+        JsonParser jsonParser = InstanceFactory.instance(JsonParser.class);
+        Set<String> history = schemaHistoryTransfer.getHistoryMap().get(String.format(NATIVE_HISTORY_KEY, serverName, table));
+        if (EmptyKit.isEmpty(history)) {
+            return new ArrayList<>();
+        }
+        return history.stream().map(json -> jsonParser.fromJson(json, new TypeHolder<MysqlBinlogLayout>() {
+        })).collect(Collectors.toList());
+    }
+
+    //current schema of tables is recorded as their layouts from the current position on
+    protected void refreshBinlogTables(List<String> tables) {
+        Map<String, List<MysqlBinlogColumn>> columnMap = new HashMap<>();
+        String tableIn = tables.stream().map(t -> "'" + t.replace("'", "''") + "'").collect(Collectors.joining(","));
+        try {
+            mysqlJdbcContext.normalQuery(String.format(SELECT_BINLOG_COLUMNS, mysqlConfig.getDatabase().replace("'", "''"), tableIn), resultSet -> {
+                while (resultSet.next()) {
+                    MysqlBinlogColumn column = new MysqlBinlogColumn();
+                    column.setName(resultSet.getString("columnName"));
+                    column.setDataType(resultSet.getString("dataType"));
+                    column.setColumnType(resultSet.getString("columnType"));
+                    column.setCharset(resultSet.getString("charset"));
+                    columnMap.computeIfAbsent(resultSet.getString("tableName"), k -> new ArrayList<>()).add(column);
+                }
+            });
+        } catch (Exception e) {
+            throw new RuntimeException("Query column layout of tables failed: " + tables, e);
+        }
+        JsonParser jsonParser = InstanceFactory.instance(JsonParser.class);
+        columnMap.forEach((table, columns) -> {
+            binlogTableMap.put(table, new MysqlBinlogTable(table, columns, tapTableMap.get(table), timeContext));
+            MysqlBinlogLayout layout = new MysqlBinlogLayout(binlogFilename, transactionPosition, columns);
+            schemaHistoryTransfer.executeWithLock(n -> !isAlive.get(), () -> {
+                List<MysqlBinlogLayout> layouts = readLayoutHistory(table);
+                layouts.add(layout);
+                Set<String> history = new LinkedHashSet<>();
+                layouts.subList(Math.max(0, layouts.size() - MAX_LAYOUT_HISTORY), layouts.size()).forEach(l -> history.add(jsonParser.toJson(l)));
+                schemaHistoryTransfer.getHistoryMap().put(String.format(NATIVE_HISTORY_KEY, serverName, table), history);
+                schemaHistoryTransfer.unSave();
+            });
+        });
+    }
+
+    private void disconnectQuietly(BinaryLogClient client) {
+        try {
+            client.disconnect();
+        } catch (IOException e) {
+            tapLogger.warn("Disconnect binlog client failed, error: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        Optional.ofNullable(binaryLogClient).ifPresent(this::disconnectQuietly);
+        Optional.ofNullable(pipeline).ifPresent(OrderedPipeline::close);
+        super.close();
+    }
+
+    /**
+     * one unit of the pipeline, row events carry the decoded events of one rows event
+     */
+    protected static class BinlogEntry {
+        protected enum Kind {
+            ROWS, COMMIT, DDL, HEARTBEAT
+        }
+
+        protected final Kind kind;
+        protected final String filename;
+        protected final long position;
+        protected final long timestamp;
+        protected int rowEvent;
+        protected int skip;
+        protected List<TapEvent> events;
+
+        protected BinlogEntry(Kind kind, String filename, long position, long timestamp) {
+            this.kind = kind;
+            this.filename = filename;
+            this.position = position;
+            this.timestamp = timestamp;
+        }
+    }
+}
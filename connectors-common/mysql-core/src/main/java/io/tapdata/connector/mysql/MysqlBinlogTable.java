@@ -0,0 +1,244 @@
+package io.tapdata.connector.mysql;
+
+import com.github.shyiko.mysql.binlog.event.deserialization.json.JsonBinary;
+import io.tapdata.connector.mysql.entity.MysqlBinlogColumn;
+import io.tapdata.entity.schema.TapField;
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.entity.schema.type.TapDateTime;
+import io.tapdata.entity.schema.type.TapType;
+import io.tapdata.kit.EmptyKit;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * column names and value converters of one table, computed once and applied to every binlog row image
+ * values are converted to the same form as the debezium path (struct2Map + handleDatetime)
+ */
+public class MysqlBinlogTable {
+
+    private static final Pattern PRECISION_PATTERN = Pattern.compile("\\((\\d+)\\)");
+    private static final Pattern ELEMENTS_PATTERN = Pattern.compile("'((?:[^']|'')*)'");
+
+    private final String tableName;
+    private final List<MysqlBinlogColumn> columns;
+    private final String[] columnNames;
+    private final Function<Serializable, Object>[] converters;
+
+    @SuppressWarnings("unchecked")
+    public MysqlBinlogTable(String tableName, List<MysqlBinlogColumn> columns, TapTable tapTable, TimeContext timeContext) {
+        this.tableName = tableName;
+        this.columns = columns;
+        this.columnNames = new String[columns.size()];
+        this.converters = new Function[columns.size()];
+        Map<String, TapField> fieldMap = EmptyKit.isNull(tapTable) || EmptyKit.isNull(tapTable.getNameFieldMap()) ? Collections.emptyMap() : tapTable.getNameFieldMap();
+        for (int i = 0; i < columns.size(); i++) {
+            MysqlBinlogColumn column = columns.get(i);
+            columnNames[i] = column.getName();
+            TapField tapField = fieldMap.get(column.getName());
+            converters[i] = createConverter(column, EmptyKit.isNull(tapField) ? null : tapField.getTapType(), timeContext);
+        }
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public List<MysqlBinlogColumn> getColumns() {
+        return columns;
+    }
+
+    public int size() {
+        return columnNames.length;
+    }
+
+    public Map<String, Object> toMap(Serializable[] row, BitSet includedColumns) {
+        Map<String, Object> result = new HashMap<>(columnNames.length * 4 / 3 + 1);
+        int index = 0;
+        for (int i = 0; i < columnNames.length; i++) {
+            if (EmptyKit.isNotNull(includedColumns) && !includedColumns.get(i)) {
+                continue;
+            }
+            Serializable value = row[index++];
+            result.put(columnNames[i], EmptyKit.isNull(value) ? null : converters[i].apply(value));
+        }
+        return result;
+    }
+
+    private static Function<Serializable, Object> createConverter(MysqlBinlogColumn column, TapType tapType, TimeContext timeContext) {
+        String dataType = column.getDataType().toLowerCase();
+        String columnType = EmptyKit.isNull(column.getColumnType()) ? dataType : column.getColumnType().toLowerCase();
+        boolean unsigned = columnType.contains("unsigned");
+        switch (dataType) {
+            case "tinyint":
+                return unsigned ? v -> ((Integer) v) & 0xFF : v -> v;
+            case "smallint":
+                return unsigned ? v -> ((Integer) v) & 0xFFFF : v -> v;
+            case "mediumint":
+                return unsigned ? v -> ((Integer) v) & 0xFFFFFF : v -> v;
+            case "int":
+            case "integer":
+                return unsigned ? v -> ((Integer) v) & 0xFFFFFFFFL : v -> v;
+            case "bigint":
+                //unsigned bigint is always BigDecimal, the same type whether it fits in long or not
+                return unsigned ? v -> new BigDecimal(Long.toUnsignedString((Long) v)) : v -> v;
+            case "char":
+            case "varchar":
+            case "tinytext":
+            case "text":
+            case "mediumtext":
+            case "longtext": {
+                Charset charset = toCharset(column.getCharset());
+                return v -> v instanceof byte[] ? new String((byte[]) v, charset) : v;
+            }
+            case "json":
+                return v -> {
+                    try {
+                        return JsonBinary.parseAsString((byte[]) v);
+                    } catch (IOException e) {
+                        throw new RuntimeException("Parse binlog json value failed, column: " + column.getName(), e);
+                    }
+                };
+            case "enum": {
+                List<String> elements = elements(columnType);
+                return v -> {
+                    int index = (Integer) v;
+                    return index > 0 && index <= elements.size() ? elements.get(index - 1) : "";
+                };
+            }
+            case "set": {
+                List<String> elements = elements(columnType);
+                return v -> {
+                    long bits = (Long) v;
+                    StringJoiner joiner = new StringJoiner(",");
+                    for (int i = 0; i < elements.size(); i++) {
+                        if ((bits & (1L << i)) != 0) {
+                            joiner.add(elements.get(i));
+                        }
+                    }
+                    return joiner.toString();
+                };
+            }
+            case "bit":
+                return precision(columnType, 1) == 1 ? v -> ((BitSet) v).get(0) : v -> ((BitSet) v).toByteArray();
+            case "datetime":
+                return datetimeConverter(tapType, precision(columnType, 0), timeContext);
+            case "timestamp":
+                return timestampConverter(tapType, timeContext);
+            case "date":
+                return v -> isInvalidTime(v) ? null : ((Long) v) / 1000 + (timeContext.oldVersion ? timeContext.diff : 0);
+            case "time":
+                return v -> isInvalidTime(v) ? null : v;
+            default:
+                return v -> v;
+        }
+    }
+
+    //binlog gives micros of local datetime as utc, the same as debezium timestamp/micro timestamp
+    private static Function<Serializable, Object> datetimeConverter(TapType tapType, int precision, TimeContext timeContext) {
+        int fraction = tapType instanceof TapDateTime && EmptyKit.isNotNull(((TapDateTime) tapType).getFraction()) ? ((TapDateTime) tapType).getFraction() : precision;
+        long diff = timeContext.diff;
+        if (fraction > 3) {
+            long divisor = (long) Math.pow(10, 6 - fraction);
+            return v -> isInvalidTime(v) ? null : ((Long) v + diff * 1000) / divisor;
+        }
+        long divisor = (long) Math.pow(10, 3 - fraction);
+        return v -> isInvalidTime(v) ? null : ((Long) v / 1000 + diff) / divisor;
+    }
+
+    //binlog gives epoch micros, debezium gives zoned timestamp string in utc
+    private static Function<Serializable, Object> timestampConverter(TapType tapType, TimeContext timeContext) {
+        int fraction = tapType instanceof TapDateTime && EmptyKit.isNotNull(((TapDateTime) tapType).getFraction()) ? ((TapDateTime) tapType).getFraction() : 0;
+        if (timeContext.oldVersion) {
+            long milliOffset = timeContext.timeZone.getRawOffset() + timeContext.diff;
+            return v -> {
+                if (isInvalidTime(v)) {
+                    return null;
+                }
+                Instant instant = toInstant((Long) v);
+                return instant.getEpochSecond() * (long) Math.pow(10, fraction) + instant.getNano() / (long) Math.pow(10, 9 - fraction) + (long) (milliOffset * Math.pow(10, fraction - 3));
+            };
+        }
+        ZoneId dbZoneId = timeContext.dbZoneId;
+        return v -> isInvalidTime(v) ? null : toInstant((Long) v).atZone(dbZoneId).toLocalDateTime().atZone(ZoneOffset.UTC);
+    }
+
+    private static Instant toInstant(long micros) {
+        return Instant.ofEpochSecond(Math.floorDiv(micros, 1000000L), Math.floorMod(micros, 1000000L) * 1000L);
+    }
+
+    private static boolean isInvalidTime(Serializable value) {
+        return value instanceof Long && Long.MIN_VALUE == (Long) value;
+    }
+
+    private static int precision(String columnType, int defaultValue) {
+        Matcher matcher = PRECISION_PATTERN.matcher(columnType);
+        return matcher.find() ? Integer.parseInt(matcher.group(1)) : defaultValue;
+    }
+
+    private static List<String> elements(String columnType) {
+        List<String> elements = new ArrayList<>();
+        Matcher matcher = ELEMENTS_PATTERN.matcher(columnType);
+        while (matcher.find()) {
+            elements.add(matcher.group(1).replace("''", "'"));
+        }
+        return elements;
+    }
+
+    private static Charset toCharset(String mysqlCharset) {
+        if (EmptyKit.isBlank(mysqlCharset)) {
+            return StandardCharsets.UTF_8;
+        }
+        switch (mysqlCharset.toLowerCase()) {
+            case "utf8":
+            case "utf8mb3":
+            case "utf8mb4":
+                return StandardCharsets.UTF_8;
+            case "latin1":
+                return Charset.forName("windows-1252");
+            case "ascii":
+                return StandardCharsets.US_ASCII;
+            case "ucs2":
+            case "utf16":
+                return StandardCharsets.UTF_16BE;
+            case "utf16le":
+                return StandardCharsets.UTF_16LE;
+            case "gb18030":
+                return Charset.forName("GB18030");
+            case "gbk":
+            case "gb2312":
+                return Charset.forName("GBK");
+            case "big5":
+                return Charset.forName("Big5");
+            default:
+                return Charset.isSupported(mysqlCharset) ? Charset.forName(mysqlCharset) : StandardCharsets.UTF_8;
+        }
+    }
+
+    /**
+     * timezone settings of the reader, the same as MysqlReader
+     */
+    public static class TimeContext {
+        private final ZoneId dbZoneId;
+        private final TimeZone timeZone;
+        private final long diff;
+        private final boolean oldVersion;
+
+        public TimeContext(ZoneId dbZoneId, TimeZone timeZone, long diff, boolean oldVersion) {
+            this.dbZoneId = dbZoneId;
+            this.timeZone = timeZone;
+            this.diff = diff;
+            this.oldVersion = oldVersion;
+        }
+    }
+}
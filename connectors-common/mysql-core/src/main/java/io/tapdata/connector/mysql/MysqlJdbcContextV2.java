@@ -233,6 +233,30 @@ public class MysqlJdbcContextV2 extends JdbcContext {
         }
     }
 
+    public void queryWithStream(String prepareSql, List<Object> params, ResultSetConsumer resultSetConsumer) throws Throwable {
+        TapLogger.debug(TAG, "Execute prepared query with stream, sql: " + prepareSql);
+        try (
+                Connection connection = getConnection();
+                PreparedStatement preparedStatement = connection.prepareStatement(prepareSql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)
+        ) {
+            //row by row streaming of mysql driver
+            preparedStatement.setFetchSize(Integer.MIN_VALUE);
+            int pos = 1;
+            for (Object obj : params) {
+                preparedStatement.setObject(pos++, obj);
+            }
+            try (
+                    ResultSet resultSet = preparedStatement.executeQuery()
+            ) {
+                if (null != resultSet) {
+                    resultSetConsumer.accept(resultSet);
+                }
+            }
+        } catch (SQLException e) {
+            throw new Exception("Execute steaming query failed, sql: " + prepareSql + ", code: " + e.getSQLState() + "(" + e.getErrorCode() + "), error: " + e.getMessage(), e);
+        }
+    }
+
     private static final String MYSQL_ALL_TABLE =
             "SELECT\n" +
                     "\tTABLE_NAME `tableName`,\n" +
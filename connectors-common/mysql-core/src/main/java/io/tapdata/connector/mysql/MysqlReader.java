@@ -85,25 +85,25 @@ public class MysqlReader implements Closeable {
     protected static final DDLWrapperConfig DDL_WRAPPER_CONFIG = CCJBaseDDLWrapper.CCJDDLWrapperConfig.create().split("`");
     public static final long SAVE_DEBEZIUM_SCHEMA_HISTORY_INTERVAL_SEC = 2L;
     protected String serverName;
-    private final Supplier<Boolean> isAlive;
+    protected final Supplier<Boolean> isAlive;
     protected final MysqlJdbcContextV2 mysqlJdbcContext;
     private EmbeddedEngine embeddedEngine;
     protected StreamReadConsumer streamReadConsumer;
     private LinkedBlockingQueue<MysqlStreamEvent> eventQueue;
-    private ScheduledExecutorService mysqlSchemaHistoryMonitor;
+    protected ScheduledExecutorService mysqlSchemaHistoryMonitor;
     protected KVReadOnlyMap<TapTable> tapTableMap;
     protected DDLParserType ddlParserType = DDLParserType.MYSQL_CCJ_SQL_PARSER;
     private static final int MIN_BATCH_SIZE = 1000;
-    private TimeZone timeZone;
-    private TimeZone dbTimeZone;
+    protected TimeZone timeZone;
+    protected TimeZone dbTimeZone;
     protected final AtomicReference<Throwable> throwableAtomicReference = new AtomicReference<>();
-    private final ExceptionCollector exceptionCollector;
-    private MysqlSchemaHistoryTransfer schemaHistoryTransfer;
+    protected final ExceptionCollector exceptionCollector;
+    protected MysqlSchemaHistoryTransfer schemaHistoryTransfer;
     private String dropTransactionId = null;
-    private final MysqlConfig mysqlConfig;
+    protected final MysqlConfig mysqlConfig;
     protected Log tapLogger;
-    private long diff = 0;
-    private TapConnectorContext tapConnectorContext;
+    protected long diff = 0;
+    protected TapConnectorContext tapConnectorContext;
 
     public MysqlReader(MysqlJdbcContextV2 mysqlJdbcContext, Log tapLogger, Supplier<Boolean> isAlive) {
         this.mysqlJdbcContext = mysqlJdbcContext;
@@ -162,6 +162,8 @@ public class MysqlConfig extends CommonDbConfig {
     private ArrayList<LinkedHashMap<String, Integer>> availableMasterSlaveAddress;
     private LinkedHashMap<String, Integer> masterNode;
     private Integer maximumQueueSize = 800;
+    private Boolean nativeCdc = false;
+    private Integer nativeCdcWorkers = 0;
 
     public String getDeploymentMode() {
         return deploymentMode;
@@ -203,4 +205,20 @@ public class MysqlConfig extends CommonDbConfig {
         this.maximumQueueSize = maximumQueueSize;
     }
 
+    public Boolean getNativeCdc() {
+        return nativeCdc;
+    }
+
+    public void setNativeCdc(Boolean nativeCdc) {
+        this.nativeCdc = nativeCdc;
+    }
+
+    public Integer getNativeCdcWorkers() {
+        return nativeCdcWorkers;
+    }
+
+    public void setNativeCdcWorkers(Integer nativeCdcWorkers) {
+        this.nativeCdcWorkers = nativeCdcWorkers;
+    }
+
 }
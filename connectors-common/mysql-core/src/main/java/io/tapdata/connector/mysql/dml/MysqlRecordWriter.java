@@ -2,6 +2,7 @@ package io.tapdata.connector.mysql.dml;
 
 import io.tapdata.common.JdbcContext;
 import io.tapdata.common.dml.NormalRecordWriter;
+import io.tapdata.common.dml.WriteSession;
 import io.tapdata.connector.mysql.MysqlExceptionCollector;
 import io.tapdata.connector.mysql.config.MysqlConfig;
 import io.tapdata.entity.schema.TapTable;
@@ -34,6 +35,17 @@ public class MysqlRecordWriter extends NormalRecordWriter {
         deleteRecorder = new MysqlWriteRecorder(connection, tapTable, jdbcContext.getConfig().getDatabase());
     }
 
+    public MysqlRecordWriter(JdbcContext jdbcContext, WriteSession writeSession, TapTable tapTable) {
+        super(jdbcContext, writeSession, tapTable);
+        largeSql = true;
+        exceptionCollector = new MysqlExceptionCollector();
+        ((MysqlExceptionCollector) exceptionCollector).setMysqlConfig((MysqlConfig)jdbcContext.getConfig());
+        insertRecorder = new MysqlWriteRecorder(connection, tapTable, jdbcContext.getConfig().getDatabase());
+        insertRecorder.setLargeSql(largeSql);
+        updateRecorder = new MysqlWriteRecorder(connection, tapTable, jdbcContext.getConfig().getDatabase());
+        deleteRecorder = new MysqlWriteRecorder(connection, tapTable, jdbcContext.getConfig().getDatabase());
+    }
+
     protected String getCloseConstraintCheckSql() {
         return "SET FOREIGN_KEY_CHECKS=0";
     }
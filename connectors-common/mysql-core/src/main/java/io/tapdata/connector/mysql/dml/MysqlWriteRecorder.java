@@ -48,7 +48,7 @@ public class MysqlWriteRecorder extends NormalWriteRecorder {
     @Override
     protected void upsert(Map<String, Object> after, WriteListResult<TapRecordEvent> listResult) throws SQLException {
         if (EmptyKit.isNull(preparedStatement)) {
-            preparedStatement = connection.prepareStatement(getUpsertSql());
+            preparedStatement = prepareStatement(getUpsertSql());
         }
         preparedStatement.clearParameters();
         int pos = 1;
@@ -78,7 +78,7 @@ public class MysqlWriteRecorder extends NormalWriteRecorder {
 
     protected void insertIgnore(Map<String, Object> after, WriteListResult<TapRecordEvent> listResult) throws SQLException {
         if (EmptyKit.isNull(preparedStatement)) {
-            preparedStatement = connection.prepareStatement(getInsertIgnoreSql());
+            preparedStatement = prepareStatement(getInsertIgnoreSql());
         }
         preparedStatement.clearParameters();
         int pos = 1;
@@ -101,13 +101,13 @@ public class MysqlWriteRecorder extends NormalWriteRecorder {
             preparedStatement = preparedStatementMap.get(preparedStatementKey);
         } else {
             if (EmptyKit.isNull(this.preparedStatementKey)) {
-                preparedStatement = connection.prepareStatement(getInsertUpdateSql(after, before));
+                preparedStatement = prepareStatement(getInsertUpdateSql(after, before));
                 preparedStatementMap.put(preparedStatementKey, preparedStatement);
             } else {
                 executeBatch(listResult);
                 preparedStatement = preparedStatementMap.get(preparedStatementKey);
                 if (EmptyKit.isNull(preparedStatement)) {
-                    preparedStatement = connection.prepareStatement(getInsertUpdateSql(after, before));
+                    preparedStatement = prepareStatement(getInsertUpdateSql(after, before));
                     preparedStatementMap.put(preparedStatementKey, preparedStatement);
                 }
             }
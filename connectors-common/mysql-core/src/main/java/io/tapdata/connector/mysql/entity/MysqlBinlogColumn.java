@@ -0,0 +1,47 @@
+package io.tapdata.connector.mysql.entity;
+
+import java.io.Serializable;
+
+/**
+ * column layout of binlog row image, in ordinal position
+ */
+public class MysqlBinlogColumn implements Serializable {
+
+    private static final long serialVersionUID = -2385520512237417262L;
+    private String name;
+    private String dataType;
+    private String columnType;
+    private String charset;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getDataType() {
+        return dataType;
+    }
+
+    public void setDataType(String dataType) {
+        this.dataType = dataType;
+    }
+
+    public String getColumnType() {
+        return columnType;
+    }
+
+    public void setColumnType(String columnType) {
+        this.columnType = columnType;
+    }
+
+    public String getCharset() {
+        return charset;
+    }
+
+    public void setCharset(String charset) {
+        this.charset = charset;
+    }
+}
@@ -0,0 +1,56 @@
+package io.tapdata.connector.mysql.entity;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * column layout of one table in schema history, valid for binlog events from file/position on
+ */
+public class MysqlBinlogLayout implements Serializable {
+
+    private static final long serialVersionUID = 4216703392467260121L;
+    private String file;
+    private long position;
+    private List<MysqlBinlogColumn> columns;
+
+    public MysqlBinlogLayout() {
+    }
+
+    public MysqlBinlogLayout(String file, long position, List<MysqlBinlogColumn> columns) {
+        this.file = file;
+        this.position = position;
+        this.columns = columns;
+    }
+
+    /**
+     * @return true when the layout is valid at file/position, binlog files of one server are ordered by name
+     */
+    public boolean isValidAt(String file, long position) {
+        int compared = this.file.compareTo(file);
+        return compared < 0 || compared == 0 && this.position <= position;
+    }
+
+    public String getFile() {
+        return file;
+    }
+
+    public void setFile(String file) {
+        this.file = file;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    public void setPosition(long position) {
+        this.position = position;
+    }
+
+    public List<MysqlBinlogColumn> getColumns() {
+        return columns;
+    }
+
+    public void setColumns(List<MysqlBinlogColumn> columns) {
+        this.columns = columns;
+    }
+}
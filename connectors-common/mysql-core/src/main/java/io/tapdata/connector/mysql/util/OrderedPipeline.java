@@ -0,0 +1,126 @@
+package io.tapdata.connector.mysql.util;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * tasks are executed on a worker pool and delivered to one consumer thread in submission order
+ * workers <= 0 means tasks are executed and delivered on the caller thread
+ */
+public class OrderedPipeline<T> implements AutoCloseable {
+
+    private static final long POLL_INTERVAL_MS = 100L;
+
+    private final ExecutorService workers;
+    private final BlockingQueue<CompletableFuture<T>> orderedQueue;
+    private final Consumer<T> deliverer;
+    private final Consumer<Throwable> errorHandler;
+    private final Thread deliveryThread;
+    private volatile boolean finished;
+    private volatile boolean failed;
+
+    public OrderedPipeline(String name, int workers, int capacity, Consumer<T> deliverer, Consumer<Throwable> errorHandler) {
+        this.deliverer = deliverer;
+        this.errorHandler = errorHandler;
+        if (workers <= 0) {
+            this.workers = null;
+            this.orderedQueue = null;
+            this.deliveryThread = null;
+            return;
+        }
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(workers, r -> {
+            Thread thread = new Thread(r, name + "-Worker-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        //bounded queue of futures keeps the order and blocks the reader when delivery is slow
+        this.orderedQueue = new ArrayBlockingQueue<>(Math.max(capacity, workers));
+        this.deliveryThread = new Thread(this::deliverLoop, name + "-Delivery");
+        this.deliveryThread.setDaemon(true);
+        this.deliveryThread.start();
+    }
+
+    public boolean isParallel() {
+        return null != workers;
+    }
+
+    public void submit(Supplier<T> task) {
+        if (null == workers) {
+            deliverer.accept(task.get());
+            return;
+        }
+        enqueue(CompletableFuture.supplyAsync(task, workers));
+    }
+
+    public void submitCompleted(T value) {
+        if (null == workers) {
+            deliverer.accept(value);
+            return;
+        }
+        enqueue(CompletableFuture.completedFuture(value));
+    }
+
+    //futures are queued in submission order and delivered from the head, a completed later future waits for the earlier ones
+    private void enqueue(CompletableFuture<T> future) {
+        try {
+            while (!failed && !finished) {
+                if (orderedQueue.offer(future, POLL_INTERVAL_MS, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void deliverLoop() {
+        try {
+            while (true) {
+                CompletableFuture<T> future = orderedQueue.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (null == future) {
+                    if (finished) {
+                        break;
+                    }
+                    continue;
+                }
+                T value;
+                try {
+                    value = future.get();
+                } catch (ExecutionException e) {
+                    throw e.getCause();
+                }
+                deliverer.accept(value);
+            }
+        } catch (InterruptedException ignore) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable e) {
+            failed = true;
+            orderedQueue.clear();
+            errorHandler.accept(e);
+        }
+    }
+
+    /**
+     * wait until all submitted tasks are delivered, or the pipeline failed
+     */
+    public void finish() throws InterruptedException {
+        finished = true;
+        if (null != deliveryThread) {
+            deliveryThread.join();
+        }
+    }
+
+    @Override
+    public void close() {
+        finished = true;
+        if (null != workers) {
+            workers.shutdownNow();
+        }
+        if (null != deliveryThread) {
+            deliveryThread.interrupt();
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package io.tapdata.connector.mysql;
+
+import com.github.shyiko.mysql.binlog.event.Event;
+import com.github.shyiko.mysql.binlog.event.EventHeaderV4;
+import com.github.shyiko.mysql.binlog.event.EventType;
+import com.github.shyiko.mysql.binlog.event.QueryEventData;
+import com.github.shyiko.mysql.binlog.event.TableMapEventData;
+import com.github.shyiko.mysql.binlog.event.TableMapEventMetadata;
+import io.tapdata.connector.mysql.config.MysqlConfig;
+import io.tapdata.connector.mysql.entity.MysqlBinlogColumn;
+import io.tapdata.connector.mysql.entity.MysqlBinlogLayout;
+import io.tapdata.connector.mysql.util.OrderedPipeline;
+import io.tapdata.entity.logger.Log;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TimeZone;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class MysqlBinlogReaderTest {
+
+    MysqlBinlogReader reader;
+    OrderedPipeline<MysqlBinlogReader.BinlogEntry> pipeline;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void beforeEach() {
+        MysqlJdbcContextV2 jdbcContextV2 = mock(MysqlJdbcContextV2.class);
+        MysqlConfig mysqlConfig = mock(MysqlConfig.class);
+        when(mysqlConfig.getDatabase()).thenReturn("db");
+        when(jdbcContextV2.getConfig()).thenReturn(mysqlConfig);
+        reader = new MysqlBinlogReader(jdbcContextV2, mock(Log.class), () -> true);
+        pipeline = mock(OrderedPipeline.class);
+        reader.pipeline = pipeline;
+        reader.binlogFilename = "mysql-bin.000001";
+        reader.timeContext = new MysqlBinlogTable.TimeContext(ZoneId.of("UTC"), TimeZone.getTimeZone("UTC"), 0L, false);
+    }
+
+    private Event query(String sql, long position) {
+        EventHeaderV4 header = new EventHeaderV4();
+        header.setEventType(EventType.QUERY);
+        header.setEventLength(10);
+        header.setNextPosition(position + 10);
+        QueryEventData data = new QueryEventData();
+        data.setDatabase("db");
+        data.setSql(sql);
+        return new Event(header, data);
+    }
+
+    private MysqlBinlogColumn column(String name) {
+        MysqlBinlogColumn column = new MysqlBinlogColumn();
+        column.setName(name);
+        column.setDataType("int");
+        column.setColumnType("int(11)");
+        return column;
+    }
+
+    @Nested
+    class HandleQueryTest {
+
+        @Test
+        void testSavepointKeepsTransaction() {
+            reader.handleQuery(query("BEGIN", 100));
+            reader.rowEventIndex = 2;
+            reader.handleQuery(query("SAVEPOINT sp1", 200));
+            reader.handleQuery(query("ROLLBACK TO SAVEPOINT sp1", 300));
+            Assertions.assertEquals(2, reader.rowEventIndex);
+            Assertions.assertEquals(100, reader.transactionPosition);
+            verify(pipeline, never()).submitCompleted(any());
+
+            reader.handleQuery(query("COMMIT", 400));
+            Assertions.assertEquals(0, reader.rowEventIndex);
+            Assertions.assertEquals(410, reader.transactionPosition);
+            verify(pipeline, times(1)).submitCompleted(any());
+        }
+
+        @Test
+        void testXaTransaction() {
+            reader.handleQuery(query("XA START X'01',X'',1", 100));
+            reader.rowEventIndex = 1;
+            reader.handleQuery(query("XA END X'01',X'',1", 200));
+            Assertions.assertEquals(1, reader.rowEventIndex);
+            Assertions.assertEquals(100, reader.transactionPosition);
+            reader.handleQuery(query("XA COMMIT X'01',X'',1", 300));
+            Assertions.assertEquals(310, reader.transactionPosition);
+            verify(pipeline, times(1)).submitCompleted(any());
+        }
+    }
+
+    @Nested
+    class ResolveLayoutTest {
+
+        TableMapEventData tableMap(int columnCount, List<String> columnNames) {
+            TableMapEventData tableMap = new TableMapEventData();
+            tableMap.setDatabase("db");
+            tableMap.setTable("t");
+            tableMap.setColumnTypes(new byte[columnCount]);
+            if (null != columnNames) {
+                TableMapEventMetadata metadata = new TableMapEventMetadata();
+                metadata.setColumnNames(columnNames);
+                tableMap.setEventMetadata(metadata);
+            }
+            return tableMap;
+        }
+
+        @BeforeEach
+        void beforeEach() {
+            reader.binlogTableMap.put("t", new MysqlBinlogTable("t", Arrays.asList(column("id"), column("name")), null, reader.timeContext));
+        }
+
+        @Test
+        void testMatchedLayout() {
+            Assertions.assertSame(reader.binlogTableMap.get("t"), reader.resolveLayout(tableMap(2, Arrays.asList("id", "name"))));
+            Assertions.assertSame(reader.binlogTableMap.get("t"), reader.resolveLayout(tableMap(2, null)));
+        }
+
+        @Test
+        void testLayoutNotOfPosition() {
+            //rows logged before a ddl are not decoded with the layout after it
+            Assertions.assertThrows(RuntimeException.class, () -> reader.resolveLayout(tableMap(3, null)));
+            Assertions.assertThrows(RuntimeException.class, () -> reader.resolveLayout(tableMap(2, Arrays.asList("id", "title"))));
+        }
+    }
+
+    @Test
+    void testLayoutValidAt() {
+        MysqlBinlogLayout layout = new MysqlBinlogLayout("mysql-bin.000002", 500, new ArrayList<>());
+        Assertions.assertTrue(layout.isValidAt("mysql-bin.000002", 500));
+        Assertions.assertTrue(layout.isValidAt("mysql-bin.000003", 4));
+        Assertions.assertFalse(layout.isValidAt("mysql-bin.000002", 499));
+        Assertions.assertFalse(layout.isValidAt("mysql-bin.000001", 900));
+    }
+}
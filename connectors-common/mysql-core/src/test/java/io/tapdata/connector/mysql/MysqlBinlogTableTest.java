@@ -0,0 +1,93 @@
+package io.tapdata.connector.mysql;
+
+import io.tapdata.connector.mysql.entity.MysqlBinlogColumn;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.TimeZone;
+
+public class MysqlBinlogTableTest {
+
+    private MysqlBinlogTable.TimeContext timeContext;
+
+    @BeforeEach
+    void beforeEach() {
+        timeContext = new MysqlBinlogTable.TimeContext(ZoneId.of("UTC"), TimeZone.getTimeZone("UTC"), 0L, false);
+    }
+
+    @Test
+    void testConvertRow() {
+        MysqlBinlogTable binlogTable = new MysqlBinlogTable("t", Arrays.asList(
+                column("id", "int", "int(10) unsigned", null),
+                column("big", "bigint", "bigint(20) unsigned", null),
+                column("name", "varchar", "varchar(20)", "utf8mb4"),
+                column("color", "enum", "enum('red','it''s')", "utf8mb4"),
+                column("tags", "set", "set('a','b','c')", "utf8mb4"),
+                column("flag", "bit", "bit(1)", null),
+                column("created", "datetime", "datetime", null)
+        ), null, timeContext);
+        BitSet flag = new BitSet();
+        flag.set(0);
+        Map<String, Object> result = binlogTable.toMap(new Serializable[]{-1, -1L, "名字".getBytes(StandardCharsets.UTF_8), 2, 5L, flag, Long.MIN_VALUE}, null);
+        Assertions.assertEquals(4294967295L, result.get("id"));
+        Assertions.assertEquals(new BigDecimal("18446744073709551615"), result.get("big"));
+        Assertions.assertEquals("名字", result.get("name"));
+        Assertions.assertEquals("it's", result.get("color"));
+        Assertions.assertEquals("a,c", result.get("tags"));
+        Assertions.assertEquals(true, result.get("flag"));
+        Assertions.assertNull(result.get("created"));
+    }
+
+    @Test
+    void testUnsignedBigint() {
+        MysqlBinlogTable binlogTable = new MysqlBinlogTable("t", Arrays.asList(
+                column("small", "bigint", "bigint(20) unsigned", null),
+                column("signed", "bigint", "bigint(20)", null)
+        ), null, timeContext);
+        Map<String, Object> result = binlogTable.toMap(new Serializable[]{1L, 1L}, null);
+        Assertions.assertEquals(BigDecimal.ONE, result.get("small"));
+        Assertions.assertEquals(1L, result.get("signed"));
+    }
+
+    @Test
+    void testIncludedColumns() {
+        MysqlBinlogTable binlogTable = new MysqlBinlogTable("t", Arrays.asList(
+                column("id", "int", "int(11)", null),
+                column("name", "varchar", "varchar(20)", "utf8"),
+                column("age", "int", "int(11)", null)
+        ), null, timeContext);
+        BitSet included = new BitSet();
+        included.set(0);
+        included.set(2);
+        Map<String, Object> result = binlogTable.toMap(new Serializable[]{1, 18}, included);
+        Assertions.assertEquals(2, result.size());
+        Assertions.assertEquals(1, result.get("id"));
+        Assertions.assertEquals(18, result.get("age"));
+    }
+
+    @Test
+    void testDatetimeMillis() {
+        MysqlBinlogTable binlogTable = new MysqlBinlogTable("t", Arrays.asList(
+                column("created", "datetime", "datetime(3)", null)
+        ), null, timeContext);
+        Map<String, Object> result = binlogTable.toMap(new Serializable[]{1700000000123456L}, null);
+        Assertions.assertEquals(1700000000123L, result.get("created"));
+    }
+
+    private MysqlBinlogColumn column(String name, String dataType, String columnType, String charset) {
+        MysqlBinlogColumn column = new MysqlBinlogColumn();
+        column.setName(name);
+        column.setDataType(dataType);
+        column.setColumnType(columnType);
+        column.setCharset(charset);
+        return column;
+    }
+}
@@ -0,0 +1,116 @@
+package io.tapdata.connector.mysql.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+class OrderedPipelineTest {
+
+    @Test
+    void deliverInSubmitOrder() throws InterruptedException {
+        List<Integer> delivered = new ArrayList<>();
+        Random random = new Random();
+        try (OrderedPipeline<Integer> pipeline = new OrderedPipeline<>("test", 4, 16, delivered::add, e -> {
+        })) {
+            for (int i = 0; i < 200; i++) {
+                int value = i;
+                if (i % 10 == 0) {
+                    pipeline.submitCompleted(value);
+                    continue;
+                }
+                int sleep = random.nextInt(3);
+                pipeline.submit(() -> {
+                    try {
+                        Thread.sleep(sleep);
+                    } catch (InterruptedException ignore) {
+                    }
+                    return value;
+                });
+            }
+            pipeline.finish();
+        }
+        Assertions.assertEquals(200, delivered.size());
+        for (int i = 0; i < 200; i++) {
+            Assertions.assertEquals(i, delivered.get(i));
+        }
+    }
+
+    @Test
+    void holdCompletedTasksUntilEarlierOnesAreDelivered() throws InterruptedException {
+        int size = 4;
+        List<Integer> delivered = Collections.synchronizedList(new ArrayList<>());
+        List<Integer> completed = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch[] release = new CountDownLatch[size];
+        CountDownLatch done = new CountDownLatch(size - 1);
+        try (OrderedPipeline<Integer> pipeline = new OrderedPipeline<>("test", size, size, delivered::add, e -> {
+        })) {
+            for (int i = 0; i < size; i++) {
+                int value = i;
+                release[i] = new CountDownLatch(1);
+                pipeline.submit(() -> {
+                    try {
+                        release[value].await();
+                    } catch (InterruptedException ignore) {
+                    }
+                    completed.add(value);
+                    if (value > 0) {
+                        done.countDown();
+                    }
+                    return value;
+                });
+            }
+            //complete the later tasks first, in reverse order
+            for (int i = size - 1; i > 0; i--) {
+                release[i].countDown();
+                Thread.sleep(20);
+            }
+            Assertions.assertTrue(done.await(5, TimeUnit.SECONDS));
+            Thread.sleep(200);
+            Assertions.assertTrue(delivered.isEmpty());
+            release[0].countDown();
+            pipeline.finish();
+        }
+        Assertions.assertEquals(Arrays.asList(3, 2, 1, 0), completed);
+        Assertions.assertEquals(Arrays.asList(0, 1, 2, 3), delivered);
+    }
+
+    @Test
+    void inlineWithoutWorkers() throws InterruptedException {
+        List<String> delivered = new ArrayList<>();
+        try (OrderedPipeline<String> pipeline = new OrderedPipeline<>("test", 0, 0, delivered::add, e -> {
+        })) {
+            Assertions.assertFalse(pipeline.isParallel());
+            pipeline.submit(() -> Thread.currentThread().getName());
+            pipeline.finish();
+        }
+        Assertions.assertEquals(Thread.currentThread().getName(), delivered.get(0));
+    }
+
+    @Test
+    void stopDeliveryAfterFailure() throws InterruptedException {
+        List<Integer> delivered = new ArrayList<>();
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        try (OrderedPipeline<Integer> pipeline = new OrderedPipeline<>("test", 2, 4, delivered::add, error::set)) {
+            pipeline.submit(() -> 1);
+            pipeline.submit(() -> {
+                throw new IllegalArgumentException("decode failed");
+            });
+            for (int i = 3; i < 100; i++) {
+                int value = i;
+                pipeline.submit(() -> value);
+            }
+            pipeline.finish();
+        }
+        Assertions.assertEquals(1, delivered.get(0));
+        Assertions.assertEquals(1, delivered.size());
+        Assertions.assertTrue(error.get() instanceof IllegalArgumentException);
+    }
+}
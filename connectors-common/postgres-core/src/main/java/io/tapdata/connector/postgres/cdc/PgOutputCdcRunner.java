@@ -0,0 +1,358 @@
+package io.tapdata.connector.postgres.cdc;
+
+import com.google.common.collect.Lists;
+import io.tapdata.connector.postgres.PostgresJdbcContext;
+import io.tapdata.connector.postgres.cdc.offset.PostgresOffset;
+import io.tapdata.connector.postgres.config.PostgresConfig;
+import io.tapdata.entity.event.TapEvent;
+import io.tapdata.entity.event.control.HeartbeatEvent;
+import io.tapdata.entity.event.dml.TapDeleteRecordEvent;
+import io.tapdata.entity.event.dml.TapInsertRecordEvent;
+import io.tapdata.entity.event.dml.TapRecordEvent;
+import io.tapdata.entity.event.dml.TapUpdateRecordEvent;
+import io.tapdata.entity.logger.Log;
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.entity.schema.partition.TapSubPartitionTableInfo;
+import io.tapdata.entity.simplify.TapSimplify;
+import io.tapdata.entity.utils.DataMap;
+import io.tapdata.entity.utils.cache.KVReadOnlyMap;
+import io.tapdata.kit.EmptyKit;
+import io.tapdata.pdk.apis.consumer.StreamReadConsumer;
+import org.postgresql.Driver;
+import org.postgresql.PGConnection;
+import org.postgresql.replication.LogSequenceNumber;
+import org.postgresql.replication.PGReplicationStream;
+import org.postgresql.replication.fluent.logical.ChainedLogicalStreamBuilder;
+
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * CDC runner reading pgoutput from the replication stream of pgjdbc, without debezium engine
+ * lsn is acknowledged to the slot after the engine flushes the offset of delivered events
+ */
+public class PgOutputCdcRunner extends DebeziumCdcRunner implements PgOutputDecoder.Listener {
+
+    private static final long HEARTBEAT_INTERVAL = 3000L;
+    private static final long IDLE_WAIT = 10L;
+    private final PostgresJdbcContext postgresJdbcContext;
+    private final PostgresConfig postgresConfig;
+    private final Log tapLogger;
+    private final AtomicReference<Throwable> throwableAtomicReference = new AtomicReference<>();
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    //commit lsn of the offset flushed by engine, acknowledged by the reading thread
+    private final AtomicLong confirmedLsn = new AtomicLong();
+    private long acknowledgedLsn;
+    private boolean withSchema;
+    private final Set<String> watchedTables = new HashSet<>();
+    private Map<String, List<String>> schemaTableMap;
+    private StreamReadConsumer consumer;
+    private int recordSize;
+    private Supplier<Boolean> isAlive;
+    private Connection connection;
+    private PGReplicationStream stream;
+    private List<TapEvent> events = TapSimplify.list();
+    private long lastAcceptTime;
+    private long startLsn;
+    //changes before it in the first transaction were delivered before restart
+    private long resumeLsn;
+    private long receiveLsn;
+    private long commitLsn;
+    private long xid;
+    private long commitTime;
+    private boolean dropTransaction;
+
+    public PgOutputCdcRunner(PostgresJdbcContext postgresJdbcContext, Log tapLogger) {
+        this.postgresJdbcContext = postgresJdbcContext;
+        this.postgresConfig = (PostgresConfig) postgresJdbcContext.getConfig();
+        this.tapLogger = tapLogger;
+    }
+
+    public PgOutputCdcRunner useSlot(String slotName) {
+        this.runnerName = slotName;
+        return this;
+    }
+
+    public PgOutputCdcRunner watch(List<String> observedTableList, KVReadOnlyMap<TapTable> tableMap) {
+        withSchema = false;
+        List<String> tables = new ArrayList<>(observedTableList);
+        if (Boolean.TRUE.equals(postgresConfig.getDoubleActive())) {
+            tables.add("_tap_double_active");
+        }
+        tables.addAll(getSubPartitionTables(tableMap, tables, ""));
+        schemaTableMap = Collections.singletonMap(postgresConfig.getSchema(), tables);
+        tables.forEach(table -> watchedTables.add(postgresConfig.getSchema() + "." + table));
+        return this;
+    }
+
+    public PgOutputCdcRunner watch(Map<String, List<String>> observedSchemaTableMap, KVReadOnlyMap<TapTable> tableMap) {
+        withSchema = true;
+        schemaTableMap = new HashMap<>();
+        observedSchemaTableMap.forEach((schema, observedTables) -> {
+            List<String> tables = new ArrayList<>(observedTables);
+            if (Boolean.TRUE.equals(postgresConfig.getDoubleActive()) && schema.equals(postgresConfig.getSchema())) {
+                tables.add("_tap_double_active");
+            }
+            tables.addAll(getSubPartitionTables(tableMap, tables, schema + "."));
+            schemaTableMap.put(schema, tables);
+            tables.forEach(table -> watchedTables.add(schema + "." + table));
+        });
+        return this;
+    }
+
+    /**
+     * offset of debezium is accepted, the stream restarts from its last commit
+     */
+    public PgOutputCdcRunner offset(Object offsetState) {
+        if (offsetState instanceof PostgresOffset && EmptyKit.isNotBlank(((PostgresOffset) offsetState).getSourceOffset())) {
+            DataMap sourceOffset = TapSimplify.fromJsonObject(((PostgresOffset) offsetState).getSourceOffset());
+            long lsn = sourceOffset.get("lsn") instanceof Number ? ((Number) sourceOffset.get("lsn")).longValue() : 0;
+            startLsn = sourceOffset.get("lsn_commit") instanceof Number ? ((Number) sourceOffset.get("lsn_commit")).longValue() : lsn;
+            resumeLsn = lsn > startLsn ? lsn : 0;
+            commitLsn = startLsn;
+        }
+        return this;
+    }
+
+    public PgOutputCdcRunner registerConsumer(StreamReadConsumer consumer, int recordSize) {
+        this.consumer = consumer;
+        this.recordSize = recordSize;
+        return this;
+    }
+
+    public PgOutputCdcRunner supplierIsAlive(Supplier<Boolean> isAlive) {
+        this.isAlive = isAlive;
+        return this;
+    }
+
+    public AtomicReference<Throwable> getThrowable() {
+        return throwableAtomicReference;
+    }
+
+    @Override
+    public void startCdcRunner() {
+        running.set(true);
+        consumer.streamReadStarted();
+        try {
+            if (postgresConfig.getPartPublication()) {
+                buildPublication();
+            }
+            openStream();
+            PgOutputDecoder decoder = new PgOutputDecoder((schema, table) -> watchedTables.contains(schema + "." + table), postgresConfig.getZoneOffsetHour(), this);
+            lastAcceptTime = System.currentTimeMillis();
+            while (running.get() && (EmptyKit.isNull(isAlive) || isAlive.get())) {
+                acknowledge();
+                ByteBuffer buffer = stream.readPending();
+                if (EmptyKit.isNull(buffer)) {
+                    //stream is caught up, deliver events without waiting for a full batch
+                    if (EmptyKit.isNotEmpty(events)) {
+                        deliver();
+                    } else if (System.currentTimeMillis() - lastAcceptTime >= HEARTBEAT_INTERVAL) {
+                        consumer.accept(Collections.singletonList(new HeartbeatEvent().init().referenceTime(System.currentTimeMillis())), currentOffset());
+                        lastAcceptTime = System.currentTimeMillis();
+                    }
+                    TimeUnit.MILLISECONDS.sleep(IDLE_WAIT);
+                    continue;
+                }
+                receiveLsn = stream.getLastReceiveLSN().asLong();
+                decoder.decode(buffer);
+                if (events.size() >= recordSize) {
+                    deliver();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable e) {
+            throwableAtomicReference.set(e);
+        } finally {
+            running.set(false);
+            closeStream();
+            consumer.streamReadEnded();
+        }
+    }
+
+    private void openStream() throws SQLException {
+        Properties properties = new Properties();
+        if (EmptyKit.isNotNull(postgresConfig.getProperties())) {
+            properties.putAll(postgresConfig.getProperties());
+        }
+        properties.put("user", postgresConfig.getUser());
+        properties.put("password", EmptyKit.isNull(postgresConfig.getPassword()) ? "" : postgresConfig.getPassword());
+        properties.put("replication", "database");
+        properties.put("assumeMinServerVersion", "9.4");
+        properties.put("preferQueryMode", "simple");
+        connection = new Driver().connect(postgresConfig.getDatabaseUrl(), properties);
+        if (EmptyKit.isNull(connection)) {
+            throw new SQLException("Replication connection is not created, url: " + postgresConfig.getDatabaseUrl());
+        }
+        ChainedLogicalStreamBuilder streamBuilder = connection.unwrap(PGConnection.class).getReplicationAPI()
+                .replicationStream()
+                .logical()
+                .withSlotName(runnerName)
+                .withSlotOption("proto_version", 1)
+                .withSlotOption("publication_names", getPublicationName())
+                .withStatusInterval(10, TimeUnit.SECONDS);
+        if (startLsn > 0) {
+            streamBuilder.withStartPosition(LogSequenceNumber.valueOf(startLsn));
+        }
+        stream = streamBuilder.start();
+        tapLogger.info("Pgoutput replication stream started, slot: {}, start lsn: {}", runnerName, LogSequenceNumber.valueOf(startLsn).asString());
+    }
+
+    private String getPublicationName() {
+        if (postgresConfig.getPartPublication()) {
+            return runnerName;
+        }
+        return postgresConfig.getPartitionRoot() ? "dbz_publication_root" : "dbz_publication";
+    }
+
+    //publication of the watched tables, named after the slot
+    private void buildPublication() throws SQLException {
+        String tables = schemaTableMap.entrySet().stream().flatMap(v -> v.getValue().stream().map(t -> "\"" + v.getKey() + "\".\"" + t + "\""))
+                .collect(Collectors.joining(","));
+        AtomicBoolean exists = new AtomicBoolean(false);
+        postgresJdbcContext.queryWithNext("SELECT COUNT(1) FROM pg_publication WHERE pubname = '" + runnerName + "'", resultSet -> exists.set(resultSet.getInt(1) > 0));
+        if (exists.get()) {
+            postgresJdbcContext.execute("ALTER PUBLICATION " + runnerName + " SET TABLE " + tables);
+        } else {
+            postgresJdbcContext.execute("CREATE PUBLICATION " + runnerName + " FOR TABLE " + tables
+                    + (postgresConfig.getPartitionRoot() ? " WITH (publish_via_partition_root = true)" : ""));
+        }
+    }
+
+    //offset flushed by engine is acknowledged in the reading thread, the stream is not thread safe
+    private void acknowledge() {
+        long lsn = confirmedLsn.get();
+        if (lsn > acknowledgedLsn) {
+            LogSequenceNumber logSequenceNumber = LogSequenceNumber.valueOf(lsn);
+            stream.setAppliedLSN(logSequenceNumber);
+            stream.setFlushedLSN(logSequenceNumber);
+            acknowledgedLsn = lsn;
+        }
+    }
+
+    private void deliver() {
+        consumer.accept(events, currentOffset());
+        events = TapSimplify.list();
+        lastAcceptTime = System.currentTimeMillis();
+    }
+
+    private PostgresOffset currentOffset() {
+        Map<String, Object> sourceOffset = new HashMap<>();
+        sourceOffset.put("lsn", Math.max(receiveLsn, commitLsn));
+        sourceOffset.put("lsn_commit", commitLsn);
+        sourceOffset.put("txId", xid);
+        sourceOffset.put("ts_usec", commitTime * 1000);
+        PostgresOffset postgresOffset = new PostgresOffset();
+        postgresOffset.setSourceOffset(TapSimplify.toJson(sourceOffset));
+        return postgresOffset;
+    }
+
+    @Override
+    public void begin(long xid, long commitTime) {
+        this.xid = xid;
+        this.commitTime = commitTime;
+        this.dropTransaction = false;
+    }
+
+    @Override
+    public void commit(long endLsn, long commitTime) {
+        commitLsn = endLsn;
+        resumeLsn = 0;
+    }
+
+    @Override
+    public void insert(PgOutputDecoder.Relation relation, DataMap after) {
+        addEvent(relation, new TapInsertRecordEvent().init().table(relation.getTable()).after(after));
+    }
+
+    @Override
+    public void update(PgOutputDecoder.Relation relation, DataMap before, DataMap after) {
+        addEvent(relation, new TapUpdateRecordEvent().init().table(relation.getTable()).after(after).before(before));
+    }
+
+    @Override
+    public void delete(PgOutputDecoder.Relation relation, DataMap before) {
+        addEvent(relation, new TapDeleteRecordEvent().init().table(relation.getTable()).before(before));
+    }
+
+    private void addEvent(PgOutputDecoder.Relation relation, TapRecordEvent event) {
+        if (resumeLsn > 0 && receiveLsn <= resumeLsn) {
+            return;
+        }
+        //双活情形下，需要过滤_tap_double_active记录的同事务数据
+        if ("_tap_double_active".equals(relation.getTable())) {
+            dropTransaction = true;
+            return;
+        }
+        if (dropTransaction) {
+            return;
+        }
+        event.setReferenceTime(commitTime);
+        event.setExactlyOnceId(LogSequenceNumber.valueOf(receiveLsn).asString());
+        if (withSchema) {
+            event.setNamespaces(Lists.newArrayList(relation.getSchema(), relation.getTable()));
+        }
+        events.add(event);
+    }
+
+    @Override
+    public void flushOffset(Map<String, ?> offset) {
+        if (EmptyKit.isNotNull(offset) && offset.get("lsn_commit") instanceof Number) {
+            long lsn = ((Number) offset.get("lsn_commit")).longValue();
+            confirmedLsn.accumulateAndGet(lsn, Math::max);
+        }
+    }
+
+    @Override
+    public void stopCdcRunner() {
+        running.set(false);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    @Override
+    public void closeCdcRunner() {
+        running.set(false);
+    }
+
+    private void closeStream() {
+        try {
+            if (EmptyKit.isNotNull(stream)) {
+                stream.close();
+            }
+        } catch (Exception e) {
+            tapLogger.warn("Close pgoutput replication stream failed: {}", e.getMessage());
+        }
+        EmptyKit.closeQuietly(connection);
+    }
+
+    private List<String> getSubPartitionTables(KVReadOnlyMap<TapTable> tableMap, List<String> tables, String keyPrefix) {
+        if (EmptyKit.isNull(tableMap)) {
+            return Collections.emptyList();
+        }
+        List<String> subPartitionTableNames = new ArrayList<>();
+        for (String table : tables) {
+            TapTable tableInfo = tableMap.get(keyPrefix + table);
+            if (EmptyKit.isNotNull(tableInfo) && tableInfo.checkIsMasterPartitionTable()
+                    && EmptyKit.isNotNull(tableInfo.getPartitionInfo().getSubPartitionTableInfo())) {
+                tableInfo.getPartitionInfo().getSubPartitionTableInfo().stream().filter(Objects::nonNull)
+                        .map(TapSubPartitionTableInfo::getTableName)
+                        .filter(n -> !tables.contains(n) && !subPartitionTableNames.contains(n))
+                        .forEach(subPartitionTableNames::add);
+            }
+        }
+        return subPartitionTableNames;
+    }
+}
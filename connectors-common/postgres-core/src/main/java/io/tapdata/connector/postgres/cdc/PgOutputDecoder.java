@@ -0,0 +1,298 @@
+package io.tapdata.connector.postgres.cdc;
+
+import io.tapdata.entity.utils.DataMap;
+import io.tapdata.kit.EmptyKit;
+import io.tapdata.kit.StringKit;
+import org.postgresql.util.PGInterval;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.*;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+/**
+ * decoder of pgoutput messages (protocol version 1)
+ * relations are cached with the converters of their columns, so a row is converted from text without looking up types
+ */
+public class PgOutputDecoder {
+
+    //2000-01-01 in unix millis, timestamps of pgoutput are micros since it
+    private static final long PG_EPOCH_MILLIS = 946684800000L;
+    private static final LocalDate EPOCH_DATE = LocalDate.ofYearDay(1970, 1);
+    private static final DateTimeFormatter TIMESTAMP_TZ_FORMATTER = new DateTimeFormatterBuilder()
+            .appendPattern("uuuu-MM-dd HH:mm:ss")
+            .optionalStart().appendFraction(ChronoField.NANO_OF_SECOND, 0, 9, true).optionalEnd()
+            .appendOffset("+HH:mm:ss", "+00").toFormatter();
+    private static final DateTimeFormatter TIME_TZ_FORMATTER = new DateTimeFormatterBuilder()
+            .appendPattern("HH:mm:ss")
+            .optionalStart().appendFraction(ChronoField.NANO_OF_SECOND, 0, 9, true).optionalEnd()
+            .appendOffset("+HH:mm:ss", "+00").toFormatter();
+
+    private final Map<Integer, Relation> relationMap = new HashMap<>();
+    private final BiPredicate<String, String> relationFilter;
+    private final int zoneOffsetHour;
+    private final Listener listener;
+
+    /**
+     * @param relationFilter schema and table of watched relations, changes of the others are not decoded
+     */
+    public PgOutputDecoder(BiPredicate<String, String> relationFilter, int zoneOffsetHour, Listener listener) {
+        this.relationFilter = relationFilter;
+        this.zoneOffsetHour = zoneOffsetHour;
+        this.listener = listener;
+    }
+
+    public void decode(ByteBuffer buffer) {
+        char type = (char) buffer.get();
+        switch (type) {
+            case 'B': {
+                //final lsn of the transaction is not used, commit lsn comes with commit message
+                buffer.getLong();
+                long commitTime = toEpochMillis(buffer.getLong());
+                listener.begin(Integer.toUnsignedLong(buffer.getInt()), commitTime);
+                break;
+            }
+            case 'C': {
+                buffer.get();
+                buffer.getLong();
+                long endLsn = buffer.getLong();
+                listener.commit(endLsn, toEpochMillis(buffer.getLong()));
+                break;
+            }
+            case 'R':
+                decodeRelation(buffer);
+                break;
+            case 'I': {
+                Relation relation = watchedRelation(buffer.getInt());
+                if (EmptyKit.isNotNull(relation)) {
+                    buffer.get();
+                    listener.insert(relation, readTuple(buffer, relation, null, false));
+                }
+                break;
+            }
+            case 'U': {
+                Relation relation = watchedRelation(buffer.getInt());
+                if (EmptyKit.isNotNull(relation)) {
+                    char tupleType = (char) buffer.get();
+                    DataMap before = null;
+                    if (tupleType == 'K' || tupleType == 'O') {
+                        before = readTuple(buffer, relation, null, tupleType == 'K');
+                        tupleType = (char) buffer.get();
+                    }
+                    DataMap after = readTuple(buffer, relation, before, false);
+                    //the old key is only sent when the key is changed
+                    listener.update(relation, EmptyKit.isNull(before) ? relation.keyOf(after) : before, after);
+                }
+                break;
+            }
+            case 'D': {
+                Relation relation = watchedRelation(buffer.getInt());
+                if (EmptyKit.isNotNull(relation)) {
+                    char tupleType = (char) buffer.get();
+                    listener.delete(relation, readTuple(buffer, relation, null, tupleType == 'K'));
+                }
+                break;
+            }
+            default:
+                //type, origin, truncate and logical messages
+                break;
+        }
+    }
+
+    private Relation watchedRelation(int relationId) {
+        Relation relation = relationMap.get(relationId);
+        if (EmptyKit.isNull(relation)) {
+            throw new IllegalStateException("Relation " + relationId + " is not received before its changes");
+        }
+        return relation.watched ? relation : null;
+    }
+
+    //relation is sent before the first change of it in each session, and again after it is altered
+    private void decodeRelation(ByteBuffer buffer) {
+        int relationId = buffer.getInt();
+        String schema = readString(buffer);
+        String table = readString(buffer);
+        buffer.get();
+        int columnCount = buffer.getShort();
+        String[] columnNames = new String[columnCount];
+        boolean[] keyColumns = new boolean[columnCount];
+        int[] typeOids = new int[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            keyColumns[i] = (buffer.get() & 1) != 0;
+            columnNames[i] = readString(buffer);
+            typeOids[i] = buffer.getInt();
+            buffer.getInt();
+        }
+        relationMap.put(relationId, new Relation(schema, table, columnNames, keyColumns, typeOids, relationFilter.test(schema, table)));
+    }
+
+    private DataMap readTuple(ByteBuffer buffer, Relation relation, DataMap old, boolean keyOnly) {
+        int columnCount = buffer.getShort();
+        DataMap data = new DataMap();
+        for (int i = 0; i < columnCount; i++) {
+            char kind = (char) buffer.get();
+            String column = relation.columnNames[i];
+            switch (kind) {
+                case 'n':
+                    if (!keyOnly || relation.keyColumns[i]) {
+                        data.put(column, null);
+                    }
+                    break;
+                case 'u':
+                    //unchanged toast value is not sent, it is absent unless the old row has it
+                    if (EmptyKit.isNotNull(old) && old.containsKey(column)) {
+                        data.put(column, old.get(column));
+                    }
+                    break;
+                case 't':
+                    int length = buffer.getInt();
+                    String text = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+                    buffer.position(buffer.position() + length);
+                    if (!keyOnly || relation.keyColumns[i]) {
+                        data.put(column, relation.converters[i].apply(text));
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException("Unsupported tuple data type: " + kind + ", table: " + relation.table);
+            }
+        }
+        return data;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int start = buffer.position();
+        while (buffer.get() != 0) {
+        }
+        return new String(buffer.array(), buffer.arrayOffset() + start, buffer.position() - start - 1, StandardCharsets.UTF_8);
+    }
+
+    private static long toEpochMillis(long pgMicros) {
+        return pgMicros / 1000 + PG_EPOCH_MILLIS;
+    }
+
+    private Function<String, Object> converterOf(int typeOid) {
+        switch (typeOid) {
+            case 16: //bool
+                return "t"::equals;
+            case 17: //bytea
+                return v -> StringKit.toByteArray(v.substring(2));
+            case 20: //int8
+            case 26: //oid
+                return Long::valueOf;
+            case 21: //int2
+                return Short::valueOf;
+            case 23: //int4
+                return Integer::valueOf;
+            case 700: //float4
+                return Float::valueOf;
+            case 701: //float8
+                return Double::valueOf;
+            case 1700: //numeric
+                return BigDecimal::new;
+            case 1082: //date
+                return v -> LocalDate.parse(v).atStartOfDay();
+            case 1083: //time
+                return v -> LocalTime.parse(v).atDate(EPOCH_DATE).minusHours(zoneOffsetHour);
+            case 1114: //timestamp
+                return v -> Timestamp.valueOf(v).toLocalDateTime().minusHours(zoneOffsetHour);
+            case 1184: //timestamptz
+                return v -> OffsetDateTime.parse(v, TIMESTAMP_TZ_FORMATTER).atZoneSameInstant(ZoneOffset.UTC);
+            case 1266: //timetz
+                return v -> OffsetTime.parse(v, TIME_TZ_FORMATTER).atDate(EPOCH_DATE).atZoneSameInstant(ZoneOffset.UTC);
+            case 1186: //interval
+                return PgOutputDecoder::toIsoInterval;
+            case 1560: //bit
+                return v -> v.length() == 1 ? "1".equals(v) : v;
+            default:
+                return null;
+        }
+    }
+
+    private static String toIsoInterval(String value) {
+        try {
+            PGInterval interval = new PGInterval(value);
+            return "P" + interval.getYears() + "Y" + interval.getMonths() + "M" + interval.getDays() + "DT"
+                    + interval.getHours() + "H" + interval.getMinutes() + "M" + BigDecimal.valueOf(interval.getSeconds()).stripTrailingZeros().toPlainString() + "S";
+        } catch (SQLException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    //values out of the java range, such as infinity or BC dates, are kept as text
+    private static Function<String, Object> orText(Function<String, Object> converter) {
+        if (EmptyKit.isNull(converter)) {
+            return v -> v;
+        }
+        return v -> {
+            try {
+                return converter.apply(v);
+            } catch (RuntimeException e) {
+                return v;
+            }
+        };
+    }
+
+    public class Relation {
+        private final String schema;
+        private final String table;
+        private final String[] columnNames;
+        private final boolean[] keyColumns;
+        private final Function<String, Object>[] converters;
+        private final boolean watched;
+
+        @SuppressWarnings("unchecked")
+        Relation(String schema, String table, String[] columnNames, boolean[] keyColumns, int[] typeOids, boolean watched) {
+            this.schema = schema;
+            this.table = table;
+            this.columnNames = columnNames;
+            this.keyColumns = keyColumns;
+            this.watched = watched;
+            this.converters = new Function[typeOids.length];
+            for (int i = 0; i < typeOids.length; i++) {
+                converters[i] = orText(converterOf(typeOids[i]));
+            }
+        }
+
+        public String getSchema() {
+            return schema;
+        }
+
+        public String getTable() {
+            return table;
+        }
+
+        private DataMap keyOf(DataMap data) {
+            DataMap key = new DataMap();
+            for (int i = 0; i < columnNames.length; i++) {
+                if (keyColumns[i] && data.containsKey(columnNames[i])) {
+                    key.put(columnNames[i], data.get(columnNames[i]));
+                }
+            }
+            return key;
+        }
+    }
+
+    /**
+     * called in the order of messages, changes of one transaction are between its begin and commit
+     */
+    public interface Listener {
+        void begin(long xid, long commitTime);
+
+        void commit(long endLsn, long commitTime);
+
+        void insert(Relation relation, DataMap after);
+
+        void update(Relation relation, DataMap before, DataMap after);
+
+        void delete(Relation relation, DataMap before);
+    }
+}
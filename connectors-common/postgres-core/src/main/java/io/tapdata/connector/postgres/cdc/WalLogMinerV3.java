@@ -9,15 +9,16 @@ import io.tapdata.entity.logger.Log;
 import io.tapdata.entity.simplify.TapSimplify;
 import io.tapdata.kit.EmptyKit;
 
-import java.sql.Connection;
-import java.sql.ResultSet;
-import java.sql.Statement;
-import java.sql.Timestamp;
+import java.sql.*;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
@@ -27,7 +28,14 @@ import static io.tapdata.base.ConnectorBase.list;
 
 public class WalLogMinerV3 extends AbstractWalLogMiner {
 
+    private static final long MIN_WINDOW_MILLIS = 5 * 1000L;
+    private static final long MAX_WINDOW_MILLIS = 10 * 60 * 1000L;
+    private static final long MIN_MINE_MILLIS = 1000L;
+    private static final long TARGET_WINDOW_ROWS = 50000L;
+    private static final int PAGE_SIZE = 5000;
+    private static final int FETCH_SIZE = 1000;
     private String timestamp;
+    private volatile long windowMillis = 60 * 1000L;
 
     public WalLogMinerV3(PostgresJdbcContext postgresJdbcContext, Log tapLogger) {
         super(postgresJdbcContext, tapLogger);
@@ -72,109 +80,145 @@ public class WalLogMinerV3 extends AbstractWalLogMiner {
         });
         t.setName("wal-miner-Consumer");
         t.start();
-        AtomicReference<String> nextTimestamp = new AtomicReference<>();
-        Connection connection = postgresJdbcContext.getConnection();
-        Statement statement = connection.createStatement();
+        ExecutorService prepareExecutor = Executors.newSingleThreadExecutor(r -> new Thread(r, "wal-miner-prepare"));
+        MinerSession current = new MinerSession();
+        MinerSession next = new MinerSession();
         try {
+            current.mine(timestamp, isAlive);
             while (isAlive.get()) {
                 if (EmptyKit.isNotNull(threadException.get())) {
                     consumer.streamReadEnded();
                     throw new RuntimeException(threadException.get());
                 }
-                try (ResultSet resultSet = statement.executeQuery(String.format(WALMINER_CURRENT_TIMESTAMP))) {
-                    if (resultSet.next()) {
-                        nextTimestamp.set(getWalminerNextTimestamp(resultSet.getTimestamp(1), timestamp));
-                    }
-                }
-                tapLogger.info("Start mining wal lsn timestamp: {} - {}", timestamp, nextTimestamp.get());
-                while (isAlive.get()) {
-                    try {
-                        statement.execute(String.format(WALMINER_BY_TIMESTAMP, timestamp, nextTimestamp.get()));
-                        break;
-                    } catch (Exception e) {
-                        try {
-                            statement.execute(WALMINER_STOP);
-                        } catch (Exception ignore) {
-                            tapLogger.warn("Walminer by lsn occurs error, change statement and retry: from {} to {}", timestamp, nextTimestamp.get());
-                            EmptyKit.closeQuietly(statement);
-                            EmptyKit.closeQuietly(connection);
-                            connection = postgresJdbcContext.getConnection();
-                            statement = connection.createStatement();
-                        }
-                        TapSimplify.sleep(2000);
-                    }
-                }
-                String analysisSql = getAnalysisSql();
-                try (ResultSet resultSet = statement.executeQuery(analysisSql)) {
-                    while (resultSet.next()) {
-                        String relation = resultSet.getString("relation");
-                        String schema = resultSet.getString("schema");
-                        timestamp = resultSet.getString("timestamp");
-                        if (withSchema) {
-                            if (filterSchema && !schemaTableMap.get(schema).contains(relation)) {
-                                continue;
-                            }
-                        } else {
-                            if (filterSchema && !tableList.contains(relation)) {
-                                continue;
-                            }
-                        }
-                        NormalRedo normalRedo = new NormalRedo();
-                        normalRedo.setNameSpace(schema);
-                        normalRedo.setTableName(relation);
-                        normalRedo.setCdcSequenceStr(timestamp);
-                        collectRedo(normalRedo, resultSet);
-                        //双活情形下，需要过滤_tap_double_active记录的同事务数据
-                        if (Boolean.TRUE.equals(postgresConfig.getDoubleActive())) {
-                            if ("_tap_double_active".equals(relation)) {
-                                dropTransactionId = normalRedo.getTransactionId();
-                                continue;
-                            } else {
-                                if (null != dropTransactionId) {
-                                    if (dropTransactionId.equals(normalRedo.getTransactionId())) {
-                                        continue;
-                                    } else {
-                                        dropTransactionId = null;
-                                    }
-                                }
-                            }
-                        }
-                        concurrentProcessor.runAsync(normalRedo, r -> {
-                            try {
-                                if (parseRedo(r)) {
-                                    return r;
-                                }
-                            } catch (Throwable e) {
-                                threadException.set(e);
-                            }
-                            return null;
-                        });
-                    }
+                //next window is mined in another session while the current one is read and parsed
+                MinerSession preparing = next;
+                String nextStart = current.end;
+                Future<?> prepared = prepareExecutor.submit(() -> {
+                    preparing.mine(nextStart, isAlive);
+                    return null;
+                });
+                long rows = readContents(current.statement, concurrentProcessor, isAlive);
+                current.stop();
+                adjustWindow(rows, current.start, current.end);
+                timestamp = current.end;
+                try {
+                    prepared.get();
+                } catch (ExecutionException e) {
+                    throw e.getCause();
                 }
-                statement.execute(WALMINER_STOP);
-                timestamp = nextTimestamp.get();
+                next = current;
+                current = preparing;
             }
         } finally {
-            statement.close();
-            connection.close();
+            prepareExecutor.shutdownNow();
+            current.close();
+            next.close();
             concurrentProcessor.close();
             consumer.streamReadEnded();
         }
     }
 
-    private String getAnalysisSql() {
+    //window is sized to mine about TARGET_WINDOW_ROWS rows with the row rate of the last window
+    void adjustWindow(long rows, String start, String end) throws ParseException {
+        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+        long mined = sdf.parse(end).getTime() - sdf.parse(start).getTime();
+        if (mined <= 0) {
+            return;
+        }
+        long window = rows <= 0 ? windowMillis * 2 : mined * TARGET_WINDOW_ROWS / rows;
+        windowMillis = Math.max(MIN_WINDOW_MILLIS, Math.min(MAX_WINDOW_MILLIS, window));
+    }
+
+    /**
+     * read contents of the mined window in pages ordered by (start_lsn, sqlno), so the driver holds one page at most
+     *
+     * @return rows of the window
+     */
+    long readContents(Statement statement, ConcurrentProcessor<NormalRedo, NormalRedo> concurrentProcessor, Supplier<Boolean> isAlive) throws SQLException {
+        String condition = getContentsCondition();
+        String lastLsn = null;
+        String lastSqlno = null;
+        long rows = 0;
+        int pageRows = PAGE_SIZE;
+        while (isAlive.get() && pageRows >= PAGE_SIZE) {
+            //a parse error stops the window at the next page, instead of after the whole window is dispatched
+            if (EmptyKit.isNotNull(threadException.get())) {
+                throw new RuntimeException(threadException.get());
+            }
+            pageRows = 0;
+            String pageSql = EmptyKit.isNull(lastLsn) ? String.format(WALMINER_CONTENTS_FIRST_PAGE, condition, PAGE_SIZE)
+                    : String.format(WALMINER_CONTENTS_NEXT_PAGE, condition, lastLsn, lastSqlno, PAGE_SIZE);
+            try (ResultSet resultSet = statement.executeQuery(pageSql)) {
+                while (resultSet.next()) {
+                    pageRows++;
+                    lastLsn = resultSet.getString("start_lsn");
+                    lastSqlno = resultSet.getString("sqlno");
+                    dispatch(resultSet, concurrentProcessor);
+                }
+            }
+            rows += pageRows;
+        }
+        return rows;
+    }
+
+    private void dispatch(ResultSet resultSet, ConcurrentProcessor<NormalRedo, NormalRedo> concurrentProcessor) throws SQLException {
+        String relation = resultSet.getString("relation");
+        String schema = resultSet.getString("schema");
+        timestamp = resultSet.getString("timestamp");
+        if (withSchema) {
+            if (filterSchema && !schemaTableMap.get(schema).contains(relation)) {
+                return;
+            }
+        } else {
+            if (filterSchema && !tableList.contains(relation)) {
+                return;
+            }
+        }
+        NormalRedo normalRedo = new NormalRedo();
+        normalRedo.setNameSpace(schema);
+        normalRedo.setTableName(relation);
+        normalRedo.setCdcSequenceStr(timestamp);
+        collectRedo(normalRedo, resultSet);
+        //双活情形下，需要过滤_tap_double_active记录的同事务数据
+        if (Boolean.TRUE.equals(postgresConfig.getDoubleActive())) {
+            if ("_tap_double_active".equals(relation)) {
+                dropTransactionId = normalRedo.getTransactionId();
+                return;
+            } else {
+                if (null != dropTransactionId) {
+                    if (dropTransactionId.equals(normalRedo.getTransactionId())) {
+                        return;
+                    } else {
+                        dropTransactionId = null;
+                    }
+                }
+            }
+        }
+        concurrentProcessor.runAsync(normalRedo, r -> {
+            try {
+                if (parseRedo(r)) {
+                    return r;
+                }
+            } catch (Throwable e) {
+                threadException.set(e);
+            }
+            return null;
+        });
+    }
+
+    private String getContentsCondition() {
         if (withSchema) {
             if (filterSchema) {
-                return String.format(MULTI_WALMINER_CONTENTS_SCHEMA, String.join("','", schemaTableMap.keySet()));
+                return String.format("schema in ('%s')", String.join("','", schemaTableMap.keySet()));
             } else {
-                return String.format(MULTI_WALMINER_CONTENTS_TABLE, schemaTableMap.entrySet().stream().map(e ->
-                        String.format("schema='%s' and relation in ('%s')", e.getKey(), String.join("','", e.getValue()))).collect(Collectors.joining(" or ")));
+                return schemaTableMap.entrySet().stream().map(e ->
+                        String.format("schema='%s' and relation in ('%s')", e.getKey(), String.join("','", e.getValue()))).collect(Collectors.joining(" or "));
             }
         } else {
             if (filterSchema) {
-                return String.format(WALMINER_CONTENTS_SCHEMA, postgresConfig.getSchema());
+                return String.format("schema='%s'", postgresConfig.getSchema());
             } else {
-                return String.format(WALMINER_CONTENTS_TABLE, postgresConfig.getSchema(), String.join("','", tableList));
+                return String.format("schema='%s' and relation in ('%s')", postgresConfig.getSchema(), String.join("','", tableList));
             }
         }
     }
@@ -183,13 +227,77 @@ public class WalLogMinerV3 extends AbstractWalLogMiner {
         SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
         long t = sdf.parse(timestamp).getTime();
         long n = now.getTime();
-        return sdf.format(n - t > 10 * 60 * 1000L ? (t + 10 * 60 * 1000L) : n);
+        return sdf.format(n - t > windowMillis ? (t + windowMillis) : n);
+    }
+
+    /**
+     * walminer contents belong to the session, so two sessions mine the current and the next window in turn
+     */
+    private class MinerSession {
+        private Connection connection;
+        private Statement statement;
+        private String start;
+        private String end;
+
+        private void mine(String start, Supplier<Boolean> isAlive) throws Exception {
+            if (EmptyKit.isNull(connection)) {
+                open();
+            }
+            this.start = start;
+            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+            while (isAlive.get()) {
+                try (ResultSet resultSet = statement.executeQuery(WALMINER_CURRENT_TIMESTAMP)) {
+                    if (resultSet.next()) {
+                        end = getWalminerNextTimestamp(resultSet.getTimestamp(1), start);
+                    }
+                }
+                //caught up with the source, wait for a window worth mining
+                if (sdf.parse(end).getTime() - sdf.parse(start).getTime() >= MIN_MINE_MILLIS) {
+                    break;
+                }
+                TapSimplify.sleep(MIN_MINE_MILLIS);
+            }
+            tapLogger.info("Start mining wal lsn timestamp: {} - {}", start, end);
+            while (isAlive.get()) {
+                try {
+                    statement.execute(String.format(WALMINER_BY_TIMESTAMP, start, end));
+                    break;
+                } catch (Exception e) {
+                    try {
+                        statement.execute(WALMINER_STOP);
+                    } catch (Exception ignore) {
+                        tapLogger.warn("Walminer by lsn occurs error, change statement and retry: from {} to {}", start, end);
+                        close();
+                        open();
+                    }
+                    TapSimplify.sleep(2000);
+                }
+            }
+        }
+
+        private void open() throws SQLException {
+            connection = postgresJdbcContext.getConnection();
+            statement = connection.createStatement();
+            statement.setFetchSize(FETCH_SIZE);
+        }
+
+        private void stop() throws SQLException {
+            statement.execute(WALMINER_STOP);
+            if (!connection.getAutoCommit()) {
+                connection.commit();
+            }
+        }
+
+        private void close() {
+            EmptyKit.closeQuietly(statement);
+            EmptyKit.closeQuietly(connection);
+            statement = null;
+            connection = null;
+        }
     }
 
     private static final String WALMINER_CURRENT_TIMESTAMP = "select clock_timestamp()";
     private static final String WALMINER_BY_TIMESTAMP = "select walminer_by_time('%s', '%s', true)";
-    private static final String WALMINER_CONTENTS_SCHEMA = "select * from walminer_contents where minerd=true and schema='%s' order by start_lsn";
-    private static final String WALMINER_CONTENTS_TABLE = "select * from walminer_contents where minerd=true and schema='%s' and relation in ('%s') order by start_lsn";
-    private static final String MULTI_WALMINER_CONTENTS_SCHEMA = "select * from walminer_contents where minerd=true and schema in ('%s') order by start_lsn";
-    private static final String MULTI_WALMINER_CONTENTS_TABLE = "select * from walminer_contents where minerd=true and (%s) order by start_lsn";
+    private static final String WALMINER_CONTENTS_FIRST_PAGE = "select * from walminer_contents where minerd=true and (%s) order by start_lsn, sqlno limit %d";
+    private static final String WALMINER_CONTENTS_NEXT_PAGE = "select * from walminer_contents where minerd=true and (%s) and (start_lsn, sqlno) > ('%s'::pg_lsn, %s) order by start_lsn, sqlno limit %d";
 }
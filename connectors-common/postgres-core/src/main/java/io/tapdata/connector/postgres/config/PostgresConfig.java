@@ -31,6 +31,8 @@ public class PostgresConfig extends CommonDbConfig implements Serializable {
     private int pgtoPort = 9876;
     private Integer defaultWalLogSize = 102400;
     private Boolean partPublication = false;
+    private Boolean stageMergeWrite = false; //collapse events by key, binary copy them into a staging table and merge
+    private Boolean nativePgoutput = false; //read pgoutput from replication stream directly instead of debezium engine
 
     private String deploymentMode;
     private ArrayList<LinkedHashMap<String, Integer>> masterSlaveAddress;
@@ -210,4 +212,20 @@ public class PostgresConfig extends CommonDbConfig implements Serializable {
     public void setMasterSlaveAddress(ArrayList<LinkedHashMap<String, Integer>> masterSlaveAddress) {
         this.masterSlaveAddress = masterSlaveAddress;
     }
+
+    public Boolean getNativePgoutput() {
+        return nativePgoutput;
+    }
+
+    public void setNativePgoutput(Boolean nativePgoutput) {
+        this.nativePgoutput = nativePgoutput;
+    }
+
+    public Boolean getStageMergeWrite() {
+        return stageMergeWrite;
+    }
+
+    public void setStageMergeWrite(Boolean stageMergeWrite) {
+        this.stageMergeWrite = stageMergeWrite;
+    }
 }
@@ -2,15 +2,27 @@ package io.tapdata.connector.postgres.dml;
 
 import io.tapdata.common.JdbcContext;
 import io.tapdata.common.dml.NormalRecordWriter;
+import io.tapdata.common.dml.WriteSession;
+import io.tapdata.connector.postgres.config.PostgresConfig;
 import io.tapdata.connector.postgres.exception.PostgresExceptionCollector;
+import io.tapdata.entity.event.dml.TapInsertRecordEvent;
+import io.tapdata.entity.event.dml.TapRecordEvent;
 import io.tapdata.entity.schema.TapTable;
+import io.tapdata.kit.EmptyKit;
+import io.tapdata.pdk.apis.entity.WriteListResult;
 
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.List;
 
 public class PostgresRecordWriter extends NormalRecordWriter {
 
+    protected boolean conflictSupported = false;
+    private PostgresStageMerger stageMerger;
+    private boolean stageMergeChecked = false;
+    private List<String> removedColumn;
+
     public PostgresRecordWriter(JdbcContext jdbcContext, TapTable tapTable) throws SQLException {
         super(jdbcContext, tapTable);
     }
@@ -22,7 +34,8 @@ public class PostgresRecordWriter extends NormalRecordWriter {
     public PostgresRecordWriter(JdbcContext jdbcContext, TapTable tapTable, String version) throws SQLException {
         super(jdbcContext, tapTable);
         exceptionCollector = new PostgresExceptionCollector();
-        if (Integer.parseInt(version) > 90500) {
+        conflictSupported = Integer.parseInt(version) > 90500;
+        if (conflictSupported) {
             insertRecorder = new PostgresWriteRecorder(connection, tapTable, jdbcContext.getConfig().getSchema());
             updateRecorder = new PostgresWriteRecorder(connection, tapTable, jdbcContext.getConfig().getSchema());
             deleteRecorder = new PostgresWriteRecorder(connection, tapTable, jdbcContext.getConfig().getSchema());
@@ -36,7 +49,23 @@ public class PostgresRecordWriter extends NormalRecordWriter {
     public PostgresRecordWriter(JdbcContext jdbcContext, Connection connection, TapTable tapTable, String version) {
         super(jdbcContext, connection, tapTable);
         exceptionCollector = new PostgresExceptionCollector();
-        if (Integer.parseInt(version) > 90500) {
+        conflictSupported = Integer.parseInt(version) > 90500;
+        if (conflictSupported) {
+            insertRecorder = new PostgresWriteRecorder(connection, tapTable, jdbcContext.getConfig().getSchema());
+            updateRecorder = new PostgresWriteRecorder(connection, tapTable, jdbcContext.getConfig().getSchema());
+            deleteRecorder = new PostgresWriteRecorder(connection, tapTable, jdbcContext.getConfig().getSchema());
+        } else {
+            insertRecorder = new OldPostgresWriteRecorder(connection, tapTable, jdbcContext.getConfig().getSchema());
+            updateRecorder = new OldPostgresWriteRecorder(connection, tapTable, jdbcContext.getConfig().getSchema());
+            deleteRecorder = new OldPostgresWriteRecorder(connection, tapTable, jdbcContext.getConfig().getSchema());
+        }
+    }
+
+    public PostgresRecordWriter(JdbcContext jdbcContext, WriteSession writeSession, TapTable tapTable, String version) {
+        super(jdbcContext, writeSession, tapTable);
+        exceptionCollector = new PostgresExceptionCollector();
+        conflictSupported = Integer.parseInt(version) > 90500;
+        if (conflictSupported) {
             insertRecorder = new PostgresWriteRecorder(connection, tapTable, jdbcContext.getConfig().getSchema());
             updateRecorder = new PostgresWriteRecorder(connection, tapTable, jdbcContext.getConfig().getSchema());
             deleteRecorder = new PostgresWriteRecorder(connection, tapTable, jdbcContext.getConfig().getSchema());
@@ -61,4 +90,58 @@ public class PostgresRecordWriter extends NormalRecordWriter {
         return true;
     }
 
+    @Override
+    public NormalRecordWriter setRemovedColumn(List<String> removedColumn) {
+        this.removedColumn = removedColumn;
+        return super.setRemovedColumn(removedColumn);
+    }
+
+    @Override
+    protected void writeEvent(TapRecordEvent recordEvent, WriteListResult<TapRecordEvent> listResult) throws SQLException {
+        PostgresStageMerger merger = getStageMerger();
+        if (EmptyKit.isNull(merger)) {
+            super.writeEvent(recordEvent, listResult);
+        } else if (merger.canStage(recordEvent)) {
+            //batches of recorders are before this event
+            super.flushEvents(listResult);
+            if (recordEvent instanceof TapInsertRecordEvent) {
+                recordAutoInc((TapInsertRecordEvent) recordEvent);
+            }
+            merger.stage(recordEvent);
+        } else {
+            merger.flush();
+            super.writeEvent(recordEvent, listResult);
+        }
+    }
+
+    @Override
+    protected void flushEvents(WriteListResult<TapRecordEvent> listResult) throws SQLException {
+        if (EmptyKit.isNotNull(stageMerger)) {
+            stageMerger.flush();
+        }
+        super.flushEvents(listResult);
+    }
+
+    @Override
+    protected void clearEvents() {
+        if (EmptyKit.isNotNull(stageMerger)) {
+            stageMerger.reset();
+        }
+        super.clearEvents();
+    }
+
+    //policies are set after construction
+    private PostgresStageMerger getStageMerger() {
+        if (!stageMergeChecked) {
+            stageMergeChecked = true;
+            if (commonDbConfig instanceof PostgresConfig && Boolean.TRUE.equals(((PostgresConfig) commonDbConfig).getStageMergeWrite())
+                    && PostgresStageMerger.isSupported(tapTable, insertPolicy, updatePolicy, deletePolicy)
+                    //rows are joined by primary key, it must be in the target table
+                    && (EmptyKit.isEmpty(removedColumn) || tapTable.primaryKeys(false).stream().noneMatch(removedColumn::contains))) {
+                stageMerger = new PostgresStageMerger(connection, tapTable, commonDbConfig.getSchema(), conflictSupported, insertPolicy, updatePolicy, removedColumn);
+                stageMerger.setCounters(insertRecorder.getAtomicLong(), updateRecorder.getAtomicLong(), deleteRecorder.getAtomicLong());
+            }
+        }
+        return stageMerger;
+    }
 }
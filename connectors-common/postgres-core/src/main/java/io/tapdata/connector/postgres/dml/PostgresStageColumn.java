@@ -0,0 +1,276 @@
+package io.tapdata.connector.postgres.dml;
+
+import io.netty.buffer.ByteBuf;
+import io.tapdata.kit.EmptyKit;
+import io.tapdata.kit.StringKit;
+import org.postgresql.util.PGobject;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.*;
+import java.util.Collection;
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * column of the staging table, common types are staged with their own binary format,
+ * the others are staged as text and cast to the column type when merging
+ */
+public class PostgresStageColumn {
+
+    enum Kind {
+        INT2("smallint"), INT4("integer"), INT8("bigint"), FLOAT4("real"), FLOAT8("double precision"),
+        BOOL("boolean"), TEXT("text"), BYTEA("bytea"), UUID("uuid"), CAST_TEXT("text");
+
+        private final String stageType;
+
+        Kind(String stageType) {
+            this.stageType = stageType;
+        }
+    }
+
+    private final String name;
+    private final String dataType;
+    private final Kind kind;
+
+    public PostgresStageColumn(String name, String dataType) {
+        this.name = name;
+        this.dataType = dataType;
+        this.kind = kindOf(dataType);
+    }
+
+    static Kind kindOf(String dataType) {
+        if (EmptyKit.isBlank(dataType)) {
+            return Kind.CAST_TEXT;
+        }
+        String type = StringKit.removeParentheses(dataType).trim().toLowerCase();
+        if (type.endsWith(" array") || type.endsWith("[]")) {
+            return Kind.CAST_TEXT;
+        }
+        switch (type) {
+            case "smallint":
+            case "int2":
+                return Kind.INT2;
+            case "integer":
+            case "int":
+            case "int4":
+                return Kind.INT4;
+            case "bigint":
+            case "int8":
+                return Kind.INT8;
+            case "real":
+            case "float4":
+                return Kind.FLOAT4;
+            case "double precision":
+            case "float8":
+                return Kind.FLOAT8;
+            case "boolean":
+            case "bool":
+                return Kind.BOOL;
+            case "text":
+            case "character varying":
+            case "varchar":
+            case "character":
+            case "char":
+            case "bpchar":
+                return Kind.TEXT;
+            case "bytea":
+                return Kind.BYTEA;
+            case "uuid":
+                return Kind.UUID;
+            default:
+                return Kind.CAST_TEXT;
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getStageType() {
+        return kind.stageType;
+    }
+
+    //value of staging table in the type of target column
+    public String castExpression(String expression) {
+        return EmptyKit.isBlank(dataType) ? expression : expression + "::" + dataType;
+    }
+
+    /**
+     * convert value of event into the java type of staging column
+     */
+    public Object normalize(Object value) {
+        if (EmptyKit.isNull(value)) {
+            return null;
+        }
+        switch (kind) {
+            case INT2:
+                return (short) toLong(value);
+            case INT4:
+                return (int) toLong(value);
+            case INT8:
+                return toLong(value);
+            case FLOAT4:
+                return value instanceof Number ? ((Number) value).floatValue() : Float.parseFloat(String.valueOf(value).trim());
+            case FLOAT8:
+                return value instanceof Number ? ((Number) value).doubleValue() : Double.parseDouble(String.valueOf(value).trim());
+            case BOOL:
+                return toBoolean(value);
+            case BYTEA:
+                return value instanceof byte[] ? value : String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+            case UUID:
+                return value instanceof UUID ? value : java.util.UUID.fromString(String.valueOf(value));
+            default:
+                return toText(value);
+        }
+    }
+
+    private long toLong(Object value) {
+        if (value instanceof Boolean) {
+            return Boolean.TRUE.equals(value) ? 1 : 0;
+        }
+        if (value instanceof BigDecimal) {
+            return ((BigDecimal) value).longValueExact();
+        }
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        return Long.parseLong(String.valueOf(value).trim());
+    }
+
+    private boolean toBoolean(Object value) {
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).intValue() != 0;
+        }
+        switch (String.valueOf(value).trim().toLowerCase()) {
+            case "t":
+            case "true":
+            case "1":
+            case "y":
+            case "yes":
+            case "on":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    //text accepted by the input function of target column type
+    private String toText(Object value) {
+        if (value instanceof String) {
+            return ((String) value).replace("\u0000", "");
+        }
+        String type = EmptyKit.isNull(dataType) ? "" : dataType.toLowerCase();
+        boolean withTimeZone = type.endsWith("with time zone");
+        if (value instanceof Boolean) {
+            if (type.startsWith("bit") || type.contains("int")) {
+                return Boolean.TRUE.equals(value) ? "1" : "0";
+            }
+            return String.valueOf(value);
+        }
+        if (value instanceof BigDecimal) {
+            return ((BigDecimal) value).toPlainString();
+        }
+        if (value instanceof LocalDateTime) {
+            //local date time of event is utc
+            return withTimeZone ? value + "Z" : value.toString();
+        }
+        if (value instanceof java.sql.Timestamp) {
+            return withTimeZone ? ((java.sql.Timestamp) value).toInstant().toString() : value.toString();
+        }
+        if (value instanceof java.sql.Date || value instanceof java.sql.Time) {
+            return value.toString();
+        }
+        if (value instanceof Date) {
+            return ((Date) value).toInstant().toString();
+        }
+        if (value instanceof ZonedDateTime) {
+            return ((ZonedDateTime) value).toOffsetDateTime().toString();
+        }
+        if (value instanceof byte[]) {
+            return "\\x" + StringKit.convertToHexString((byte[]) value);
+        }
+        if (value instanceof PGobject) {
+            return ((PGobject) value).getValue();
+        }
+        if (value instanceof Collection) {
+            return toArrayText((Collection<?>) value);
+        }
+        return String.valueOf(value);
+    }
+
+    private String toArrayText(Collection<?> values) {
+        StringBuilder sb = new StringBuilder("{");
+        for (Object element : values) {
+            if (sb.length() > 1) {
+                sb.append(',');
+            }
+            if (EmptyKit.isNull(element)) {
+                sb.append("NULL");
+            } else {
+                String text = element instanceof Collection ? toArrayText((Collection<?>) element) : toText(element);
+                sb.append('"').append(text.replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+            }
+        }
+        return sb.append('}').toString();
+    }
+
+    /**
+     * field of binary copy: length and value in network byte order, -1 length means null
+     */
+    public void write(ByteBuf buffer, Object normalized) {
+        if (EmptyKit.isNull(normalized)) {
+            buffer.writeInt(-1);
+            return;
+        }
+        switch (kind) {
+            case INT2:
+                buffer.writeInt(2).writeShort((Short) normalized);
+                break;
+            case INT4:
+                buffer.writeInt(4).writeInt((Integer) normalized);
+                break;
+            case INT8:
+                buffer.writeInt(8).writeLong((Long) normalized);
+                break;
+            case FLOAT4:
+                buffer.writeInt(4).writeFloat((Float) normalized);
+                break;
+            case FLOAT8:
+                buffer.writeInt(8).writeDouble((Double) normalized);
+                break;
+            case BOOL:
+                buffer.writeInt(1).writeByte(Boolean.TRUE.equals(normalized) ? 1 : 0);
+                break;
+            case BYTEA:
+                byte[] bytes = (byte[]) normalized;
+                buffer.writeInt(bytes.length).writeBytes(bytes);
+                break;
+            case UUID:
+                UUID uuid = (UUID) normalized;
+                buffer.writeInt(16).writeLong(uuid.getMostSignificantBits()).writeLong(uuid.getLeastSignificantBits());
+                break;
+            default:
+                byte[] text = ((String) normalized).getBytes(StandardCharsets.UTF_8);
+                buffer.writeInt(text.length).writeBytes(text);
+                break;
+        }
+    }
+
+    //staging without copy api of driver
+    public void bind(PreparedStatement preparedStatement, int pos, Object normalized) throws SQLException {
+        if (EmptyKit.isNull(normalized)) {
+            preparedStatement.setNull(pos, kind == Kind.BYTEA ? Types.BINARY : Types.OTHER);
+        } else if (kind == Kind.BYTEA) {
+            preparedStatement.setBytes(pos, (byte[]) normalized);
+        } else {
+            preparedStatement.setObject(pos, normalized);
+        }
+    }
+}
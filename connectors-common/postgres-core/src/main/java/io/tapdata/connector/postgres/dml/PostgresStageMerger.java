@@ -0,0 +1,489 @@
+package io.tapdata.connector.postgres.dml;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.tapdata.common.dml.WritePolicyEnum;
+import io.tapdata.entity.event.dml.TapDeleteRecordEvent;
+import io.tapdata.entity.event.dml.TapInsertRecordEvent;
+import io.tapdata.entity.event.dml.TapRecordEvent;
+import io.tapdata.entity.event.dml.TapUpdateRecordEvent;
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.kit.EmptyKit;
+import io.tapdata.kit.StringKit;
+import org.postgresql.copy.CopyManager;
+import org.postgresql.core.BaseConnection;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * events are collapsed by primary key into one row per key, copied into a temp staging table in binary format,
+ * and applied with set-based delete, update and insert statements
+ * an event which can not be collapsed with the staged row of its key flushes the staged rows first, so the order is kept
+ */
+public class PostgresStageMerger {
+
+    static final String OP_COLUMN = "_tap_op";
+    static final String MASK_COLUMN = "_tap_mask";
+    static final String OP_INSERT = "I";
+    static final String OP_UPDATE = "U";
+    static final String OP_DELETE = "D";
+    //deleted and inserted again
+    static final String OP_REPLACE = "R";
+    private static final byte[] COPY_SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xff, '\r', '\n', 0};
+
+    private final Connection connection;
+    private final String schema;
+    private final TapTable tapTable;
+    private final List<PostgresStageColumn> columns;
+    private final Map<String, Integer> columnIndexMap = new HashMap<>();
+    private final List<String> keyColumns;
+    private final boolean onConflict;
+    private final WritePolicyEnum insertPolicy;
+    private final WritePolicyEnum updatePolicy;
+    private final String stageTable;
+    private final Map<List<Object>, StageRow> stageRows = new LinkedHashMap<>();
+    private boolean stageCreated = false;
+    private boolean stageLoaded = false;
+    private Boolean copySupported;
+    private final long[] stagedCounts = new long[3];
+    private AtomicLong[] counters;
+
+    public PostgresStageMerger(Connection connection, TapTable tapTable, String schema, boolean onConflict, String insertPolicy, String updatePolicy) {
+        this(connection, tapTable, schema, onConflict, insertPolicy, updatePolicy, Collections.emptyList());
+    }
+
+    /**
+     * @param removedColumn columns not in the target table, they are neither staged nor written, the same as the recorders
+     */
+    public PostgresStageMerger(Connection connection, TapTable tapTable, String schema, boolean onConflict, String insertPolicy, String updatePolicy, List<String> removedColumn) {
+        this.connection = connection;
+        this.tapTable = tapTable;
+        this.schema = schema;
+        this.onConflict = onConflict;
+        this.insertPolicy = WritePolicyEnum.valueOf(insertPolicy.toUpperCase());
+        this.updatePolicy = WritePolicyEnum.valueOf(updatePolicy.toUpperCase());
+        this.columns = tapTable.getNameFieldMap().entrySet().stream().filter(v -> EmptyKit.isNull(removedColumn) || !removedColumn.contains(v.getKey())).sorted(Comparator.comparing(v ->
+                        EmptyKit.isNull(v.getValue().getPos()) ? 99999 : v.getValue().getPos()))
+                .map(v -> new PostgresStageColumn(v.getKey(), v.getValue().getDataType())).collect(Collectors.toList());
+        IntStream.range(0, columns.size()).forEach(i -> columnIndexMap.put(columns.get(i).getName(), i));
+        this.keyColumns = new ArrayList<>(tapTable.primaryKeys(false));
+        //columns are in the name, so the staging table of an altered table is a new one
+        String definition = columns.stream().map(c -> c.getName() + " " + c.getStageType()).collect(Collectors.joining(","));
+        this.stageTable = "_tap_stage_" + Integer.toHexString((tapTable.getId() + "|" + definition).hashCode());
+    }
+
+    /**
+     * delete and update of a missing row can not be logged by set-based statements, tables without primary key are not collapsed
+     */
+    public static boolean isSupported(TapTable tapTable, String insertPolicy, String updatePolicy, String deletePolicy) {
+        return EmptyKit.isNotEmpty(tapTable.primaryKeys(false))
+                && (WritePolicyEnum.UPDATE_ON_EXISTS.getPolicyName().equals(insertPolicy) || WritePolicyEnum.IGNORE_ON_EXISTS.getPolicyName().equals(insertPolicy))
+                && (WritePolicyEnum.IGNORE_ON_NONEXISTS.getPolicyName().equals(updatePolicy) || WritePolicyEnum.INSERT_ON_NONEXISTS.getPolicyName().equals(updatePolicy))
+                && WritePolicyEnum.IGNORE_ON_NONEXISTS.getPolicyName().equals(deletePolicy);
+    }
+
+    /**
+     * counters of inserted, modified and removed records, increased when staged rows are applied
+     */
+    public void setCounters(AtomicLong inserted, AtomicLong modified, AtomicLong removed) {
+        this.counters = new AtomicLong[]{inserted, modified, removed};
+    }
+
+    public boolean isEmpty() {
+        return stageRows.isEmpty();
+    }
+
+    /**
+     * @return false when the event must be written alone, such as update of primary key or event without key
+     */
+    public boolean canStage(TapRecordEvent recordEvent) {
+        try {
+            if (recordEvent instanceof TapInsertRecordEvent) {
+                Map<String, Object> after = ((TapInsertRecordEvent) recordEvent).getAfter();
+                return EmptyKit.isNotEmpty(after) && EmptyKit.isNotNull(keyOf(after, null));
+            } else if (recordEvent instanceof TapUpdateRecordEvent) {
+                Map<String, Object> after = ((TapUpdateRecordEvent) recordEvent).getAfter();
+                Map<String, Object> before = ((TapUpdateRecordEvent) recordEvent).getBefore();
+                if (EmptyKit.isEmpty(after)) {
+                    return false;
+                }
+                List<Object> key = keyOf(before, after);
+                if (EmptyKit.isNull(key)) {
+                    return false;
+                }
+                for (int i = 0; i < keyColumns.size(); i++) {
+                    String column = keyColumns.get(i);
+                    if (after.containsKey(column) && !key.get(i).equals(keyValue(column, after.get(column)))) {
+                        return false;
+                    }
+                }
+                return true;
+            } else if (recordEvent instanceof TapDeleteRecordEvent) {
+                return EmptyKit.isNotNull(keyOf(((TapDeleteRecordEvent) recordEvent).getBefore(), null));
+            }
+        } catch (RuntimeException e) {
+            //key can not be converted, the error is reported by the normal write
+            return false;
+        }
+        return false;
+    }
+
+    //key values from the first map, or the second one when absent, null when some value is missing
+    private List<Object> keyOf(Map<String, Object> data, Map<String, Object> other) {
+        List<Object> key = new ArrayList<>(keyColumns.size());
+        for (String column : keyColumns) {
+            Object value = EmptyKit.isNotNull(data) && data.containsKey(column) ? data.get(column) : EmptyKit.isNotNull(other) ? other.get(column) : null;
+            if (EmptyKit.isNull(value)) {
+                return null;
+            }
+            key.add(keyValue(column, value));
+        }
+        return key;
+    }
+
+    //the same key in different java types is one row of staging table
+    private Object keyValue(String column, Object value) {
+        Integer index = columnIndexMap.get(column);
+        Object normalized = EmptyKit.isNull(index) ? value : columns.get(index).normalize(value);
+        return normalized instanceof byte[] ? ByteBuffer.wrap((byte[]) normalized) : normalized;
+    }
+
+    /**
+     * stage the event which canStage, staged rows are applied first when it conflicts with the staged row of its key
+     */
+    public void stage(TapRecordEvent recordEvent) throws SQLException {
+        if (recordEvent instanceof TapInsertRecordEvent) {
+            Map<String, Object> after = ((TapInsertRecordEvent) recordEvent).getAfter();
+            List<Object> key = keyOf(after, null);
+            if (!tryStageInsert(key, after)) {
+                flush();
+                tryStageInsert(key, after);
+            }
+            stagedCounts[0]++;
+        } else if (recordEvent instanceof TapUpdateRecordEvent) {
+            Map<String, Object> after = ((TapUpdateRecordEvent) recordEvent).getAfter();
+            Map<String, Object> before = ((TapUpdateRecordEvent) recordEvent).getBefore();
+            List<Object> key = keyOf(before, after);
+            if (!tryStageUpdate(key, after, before)) {
+                flush();
+                tryStageUpdate(key, after, before);
+            }
+            stagedCounts[1]++;
+        } else if (recordEvent instanceof TapDeleteRecordEvent) {
+            List<Object> key = keyOf(((TapDeleteRecordEvent) recordEvent).getBefore(), null);
+            StageRow stageRow = stageRows.get(key);
+            if (EmptyKit.isNull(stageRow)) {
+                stageRows.put(key, new StageRow(OP_DELETE, rowOf(key, Collections.emptyMap(), null), null));
+            } else {
+                //row of any staged operation is removed at last
+                stageRow.op = OP_DELETE;
+                stageRow.mask = null;
+            }
+            stagedCounts[2]++;
+        }
+    }
+
+    private boolean tryStageInsert(List<Object> key, Map<String, Object> after) {
+        StageRow stageRow = stageRows.get(key);
+        boolean upsert = insertPolicy == WritePolicyEnum.UPDATE_ON_EXISTS;
+        if (EmptyKit.isNull(stageRow)) {
+            stageRows.put(key, new StageRow(OP_INSERT, rowOf(key, after, null), null));
+        } else if (OP_DELETE.equals(stageRow.op)) {
+            stageRow.op = OP_REPLACE;
+            stageRow.values = rowOf(key, after, null);
+        } else if (OP_INSERT.equals(stageRow.op) || OP_REPLACE.equals(stageRow.op)) {
+            //the row exists after the staged insert, the second insert is ignored or overwrites it
+            if (upsert) {
+                stageRow.values = rowOf(key, after, null);
+            }
+        } else if (upsert) {
+            //row is the inserted one whether the staged update found it or not
+            stageRow.op = OP_INSERT;
+            stageRow.values = rowOf(key, after, null);
+            stageRow.mask = null;
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    private boolean tryStageUpdate(List<Object> key, Map<String, Object> after, Map<String, Object> before) {
+        StageRow stageRow = stageRows.get(key);
+        if (EmptyKit.isNull(stageRow)) {
+            boolean[] mask = new boolean[columns.size()];
+            after.keySet().stream().map(columnIndexMap::get).filter(Objects::nonNull).forEach(i -> mask[i] = true);
+            stageRows.put(key, new StageRow(OP_UPDATE, rowOf(key, after, before), mask));
+        } else if (OP_UPDATE.equals(stageRow.op)) {
+            mergeInto(stageRow, after);
+        } else if ((OP_INSERT.equals(stageRow.op) || OP_REPLACE.equals(stageRow.op)) && insertPolicy == WritePolicyEnum.UPDATE_ON_EXISTS) {
+            //staged insert surely wrote the row
+            mergeInto(stageRow, after);
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    private void mergeInto(StageRow stageRow, Map<String, Object> after) {
+        after.forEach((column, value) -> {
+            Integer index = columnIndexMap.get(column);
+            if (EmptyKit.isNotNull(index) && !keyColumns.contains(column)) {
+                stageRow.values[index] = value;
+                if (EmptyKit.isNotNull(stageRow.mask)) {
+                    stageRow.mask[index] = true;
+                }
+            }
+        });
+    }
+
+    private Object[] rowOf(List<Object> key, Map<String, Object> after, Map<String, Object> before) {
+        Object[] values = new Object[columns.size()];
+        for (int i = 0; i < values.length; i++) {
+            String column = columns.get(i).getName();
+            values[i] = after.containsKey(column) ? after.get(column) : EmptyKit.isNotNull(before) ? before.get(column) : null;
+        }
+        for (int i = 0; i < keyColumns.size(); i++) {
+            Integer index = columnIndexMap.get(keyColumns.get(i));
+            if (EmptyKit.isNotNull(index)) {
+                values[index] = key.get(i) instanceof ByteBuffer ? ((ByteBuffer) key.get(i)).array() : key.get(i);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * apply staged rows to the target table in the current transaction
+     */
+    public void flush() throws SQLException {
+        if (stageRows.isEmpty()) {
+            return;
+        }
+        try (Statement statement = connection.createStatement()) {
+            if (!stageCreated) {
+                statement.execute(getCreateStageSql());
+                stageCreated = true;
+            }
+            //rows of the last flush, truncate would give the temp table a new file and update the catalog every flush
+            if (stageLoaded) {
+                statement.execute("DELETE FROM " + quote(stageTable));
+            }
+            stageLoaded = true;
+            loadStage();
+            Set<String> ops = stageRows.values().stream().map(v -> v.op).collect(Collectors.toSet());
+            if (ops.contains(OP_DELETE) || ops.contains(OP_REPLACE)) {
+                statement.executeUpdate(getDeleteSql());
+            }
+            if (ops.contains(OP_UPDATE)) {
+                if (columns.size() > keyColumns.size()) {
+                    statement.executeUpdate(getUpdateSql());
+                }
+                if (updatePolicy == WritePolicyEnum.INSERT_ON_NONEXISTS) {
+                    statement.executeUpdate(getInsertNotExistsSql("='" + OP_UPDATE + "'"));
+                }
+            }
+            if (ops.contains(OP_INSERT) || ops.contains(OP_REPLACE)) {
+                String opCondition = " IN ('" + OP_INSERT + "','" + OP_REPLACE + "')";
+                if (onConflict) {
+                    statement.executeUpdate(getInsertOnConflictSql(opCondition));
+                } else {
+                    if (insertPolicy == WritePolicyEnum.UPDATE_ON_EXISTS && columns.size() > keyColumns.size()) {
+                        statement.executeUpdate(getOverwriteSql(opCondition));
+                    }
+                    statement.executeUpdate(getInsertNotExistsSql(opCondition));
+                }
+            }
+        }
+        if (EmptyKit.isNotNull(counters)) {
+            for (int i = 0; i < counters.length; i++) {
+                counters[i].addAndGet(stagedCounts[i]);
+            }
+        }
+        clear();
+    }
+
+    public void clear() {
+        stageRows.clear();
+        Arrays.fill(stagedCounts, 0);
+    }
+
+    //after rollback, the staging table may be created in the rolled back transaction
+    public void reset() {
+        clear();
+        stageCreated = false;
+    }
+
+    protected String getCreateStageSql() {
+        return "CREATE TEMP TABLE IF NOT EXISTS " + quote(stageTable) + " ("
+                + columns.stream().map(c -> quote(c.getName()) + " " + c.getStageType()).collect(Collectors.joining(", "))
+                + ", " + quote(OP_COLUMN) + " text, " + quote(MASK_COLUMN) + " text)";
+    }
+
+    private void loadStage() throws SQLException {
+        if (EmptyKit.isNull(copySupported)) {
+            copySupported = connection.isWrapperFor(BaseConnection.class);
+        }
+        List<Object[]> normalizedRows = new ArrayList<>(stageRows.size());
+        try {
+            for (StageRow stageRow : stageRows.values()) {
+                Object[] normalized = new Object[columns.size()];
+                for (int i = 0; i < normalized.length; i++) {
+                    normalized[i] = columns.get(i).normalize(stageRow.values[i]);
+                }
+                normalizedRows.add(normalized);
+            }
+        } catch (RuntimeException e) {
+            throw new SQLException("Convert staged row failed, table: " + tapTable.getId() + ", error: " + e.getMessage(), e);
+        }
+        if (copySupported) {
+            copyStage(normalizedRows);
+        } else {
+            insertStage(normalizedRows);
+        }
+    }
+
+    private void copyStage(List<Object[]> normalizedRows) throws SQLException {
+        ByteBuf buffer = PooledByteBufAllocator.DEFAULT.directBuffer();
+        try {
+            //header: signature, flags, header extension length
+            buffer.writeBytes(COPY_SIGNATURE).writeInt(0).writeInt(0);
+            Iterator<StageRow> iterator = stageRows.values().iterator();
+            for (Object[] normalized : normalizedRows) {
+                StageRow stageRow = iterator.next();
+                buffer.writeShort(columns.size() + 2);
+                for (int i = 0; i < normalized.length; i++) {
+                    columns.get(i).write(buffer, normalized[i]);
+                }
+                writeText(buffer, stageRow.op);
+                writeText(buffer, stageRow.maskString());
+            }
+            buffer.writeShort(-1);
+            try (ByteBufInputStream inputStream = new ByteBufInputStream(buffer)) {
+                new CopyManager(connection.unwrap(BaseConnection.class)).copyIn("COPY " + quote(stageTable) + " ("
+                        + columns.stream().map(c -> quote(c.getName())).collect(Collectors.joining(", ")) + ", "
+                        + quote(OP_COLUMN) + ", " + quote(MASK_COLUMN) + ") FROM STDIN BINARY", inputStream);
+            } catch (IOException e) {
+                throw new SQLException("Copy staged rows failed, table: " + tapTable.getId(), e);
+            }
+        } finally {
+            buffer.release();
+        }
+    }
+
+    private static void writeText(ByteBuf buffer, String text) {
+        if (EmptyKit.isNull(text)) {
+            buffer.writeInt(-1);
+            return;
+        }
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        buffer.writeInt(bytes.length).writeBytes(bytes);
+    }
+
+    //driver is not compatible with CopyManager
+    private void insertStage(List<Object[]> normalizedRows) throws SQLException {
+        String sql = "INSERT INTO " + quote(stageTable) + " VALUES(" + StringKit.copyString("?", columns.size() + 2, ",") + ")";
+        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            Iterator<StageRow> iterator = stageRows.values().iterator();
+            for (Object[] normalized : normalizedRows) {
+                StageRow stageRow = iterator.next();
+                int pos = 1;
+                for (int i = 0; i < normalized.length; i++) {
+                    columns.get(i).bind(preparedStatement, pos++, normalized[i]);
+                }
+                preparedStatement.setString(pos++, stageRow.op);
+                preparedStatement.setString(pos, stageRow.maskString());
+                preparedStatement.addBatch();
+            }
+            preparedStatement.executeBatch();
+        }
+    }
+
+    private String keyJoin() {
+        return keyColumns.stream().map(k -> "t." + quote(k) + "=s." + quote(k)).collect(Collectors.joining(" AND "));
+    }
+
+    private String selectColumns() {
+        return columns.stream().map(c -> c.castExpression("s." + quote(c.getName()))).collect(Collectors.joining(", "));
+    }
+
+    private String insertColumns() {
+        return columns.stream().map(c -> quote(c.getName())).collect(Collectors.joining(", "));
+    }
+
+    private List<PostgresStageColumn> valueColumns() {
+        return columns.stream().filter(c -> !keyColumns.contains(c.getName())).collect(Collectors.toList());
+    }
+
+    protected String getDeleteSql() {
+        return "DELETE FROM " + getSchemaAndTable() + " t USING " + quote(stageTable) + " s WHERE s." + quote(OP_COLUMN)
+                + " IN ('" + OP_DELETE + "','" + OP_REPLACE + "') AND " + keyJoin();
+    }
+
+    //only columns of update events are set, the mask marks them
+    protected String getUpdateSql() {
+        return "UPDATE " + getSchemaAndTable() + " t SET " + valueColumns().stream().map(c -> quote(c.getName()) + "=CASE WHEN substr(s."
+                        + quote(MASK_COLUMN) + "," + (columnIndexMap.get(c.getName()) + 1) + ",1)='1' THEN " + c.castExpression("s." + quote(c.getName()))
+                        + " ELSE t." + quote(c.getName()) + " END").collect(Collectors.joining(", "))
+                + " FROM " + quote(stageTable) + " s WHERE s." + quote(OP_COLUMN) + "='" + OP_UPDATE + "' AND " + keyJoin();
+    }
+
+    protected String getOverwriteSql(String opCondition) {
+        return "UPDATE " + getSchemaAndTable() + " t SET " + valueColumns().stream().map(c -> quote(c.getName()) + "=" + c.castExpression("s." + quote(c.getName())))
+                .collect(Collectors.joining(", ")) + " FROM " + quote(stageTable) + " s WHERE s." + quote(OP_COLUMN) + opCondition + " AND " + keyJoin();
+    }
+
+    protected String getInsertNotExistsSql(String opCondition) {
+        return "INSERT INTO " + getSchemaAndTable() + " (" + insertColumns() + ") SELECT " + selectColumns() + " FROM " + quote(stageTable)
+                + " s WHERE s." + quote(OP_COLUMN) + opCondition + " AND NOT EXISTS (SELECT 1 FROM " + getSchemaAndTable() + " t WHERE " + keyJoin() + ")";
+    }
+
+    protected String getInsertOnConflictSql(String opCondition) {
+        List<PostgresStageColumn> valueColumns = valueColumns();
+        String conflictAction = insertPolicy == WritePolicyEnum.UPDATE_ON_EXISTS && EmptyKit.isNotEmpty(valueColumns) ?
+                "DO UPDATE SET " + valueColumns.stream().map(c -> quote(c.getName()) + "=EXCLUDED." + quote(c.getName())).collect(Collectors.joining(", ")) :
+                "DO NOTHING";
+        return "INSERT INTO " + getSchemaAndTable() + " (" + insertColumns() + ") SELECT " + selectColumns() + " FROM " + quote(stageTable)
+                + " s WHERE s." + quote(OP_COLUMN) + opCondition + " ON CONFLICT (" + keyColumns.stream().map(this::quote).collect(Collectors.joining(", ")) + ") " + conflictAction;
+    }
+
+    private String getSchemaAndTable() {
+        return quote(schema) + "." + quote(tapTable.getId());
+    }
+
+    private String quote(String name) {
+        return "\"" + StringKit.escape(name, '"') + "\"";
+    }
+
+    private static class StageRow {
+        private String op;
+        private Object[] values;
+        private boolean[] mask;
+
+        StageRow(String op, Object[] values, boolean[] mask) {
+            this.op = op;
+            this.values = values;
+            this.mask = mask;
+        }
+
+        private String maskString() {
+            if (EmptyKit.isNull(mask)) {
+                return null;
+            }
+            StringBuilder sb = new StringBuilder(mask.length);
+            for (boolean present : mask) {
+                sb.append(present ? '1' : '0');
+            }
+            return sb.toString();
+        }
+    }
+}
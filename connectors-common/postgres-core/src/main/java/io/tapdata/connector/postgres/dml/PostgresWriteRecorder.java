@@ -65,13 +65,13 @@ public class PostgresWriteRecorder extends NormalWriteRecorder {
             preparedStatement = preparedStatementMap.get(preparedStatementKey);
         } else {
             if (EmptyKit.isNull(this.preparedStatementKey)) {
-                preparedStatement = connection.prepareStatement(getInsertUpdateSql(containsNull));
+                preparedStatement = prepareStatement(getInsertUpdateSql(containsNull));
                 preparedStatementMap.put(preparedStatementKey, preparedStatement);
             } else {
                 executeBatch(listResult);
                 preparedStatement = preparedStatementMap.get(preparedStatementKey);
                 if (EmptyKit.isNull(preparedStatement)) {
-                    preparedStatement = connection.prepareStatement(getInsertUpdateSql(containsNull));
+                    preparedStatement = prepareStatement(getInsertUpdateSql(containsNull));
                     preparedStatementMap.put(preparedStatementKey, preparedStatement);
                 }
             }
@@ -243,7 +243,7 @@ public class PostgresWriteRecorder extends NormalWriteRecorder {
     @Override
     protected void upsert(Map<String, Object> after, WriteListResult<TapRecordEvent> listResult) throws SQLException {
         if (EmptyKit.isNull(preparedStatement)) {
-            preparedStatement = connection.prepareStatement(getUpsertSql());
+            preparedStatement = prepareStatement(getUpsertSql());
         }
         preparedStatement.clearParameters();
         int pos = 1;
@@ -307,7 +307,7 @@ public class PostgresWriteRecorder extends NormalWriteRecorder {
     @Override
     protected void insertIgnore(Map<String, Object> after, WriteListResult<TapRecordEvent> listResult) throws SQLException {
         if (EmptyKit.isNull(preparedStatement)) {
-            preparedStatement = connection.prepareStatement(getInsertIgnoreSql());
+            preparedStatement = prepareStatement(getInsertIgnoreSql());
         }
         preparedStatement.clearParameters();
         int pos = 1;
@@ -332,13 +332,13 @@ public class PostgresWriteRecorder extends NormalWriteRecorder {
             preparedStatement = preparedStatementMap.get(preparedStatementKey);
         } else {
             if (EmptyKit.isNull(this.preparedStatementKey)) {
-                preparedStatement = connection.prepareStatement(getInsertUpdateSql(containsNull));
+                preparedStatement = prepareStatement(getInsertUpdateSql(containsNull));
                 preparedStatementMap.put(preparedStatementKey, preparedStatement);
             } else {
                 executeBatch(listResult);
                 preparedStatement = preparedStatementMap.get(preparedStatementKey);
                 if (EmptyKit.isNull(preparedStatement)) {
-                    preparedStatement = connection.prepareStatement(getInsertUpdateSql(containsNull));
+                    preparedStatement = prepareStatement(getInsertUpdateSql(containsNull));
                     preparedStatementMap.put(preparedStatementKey, preparedStatement);
                 }
             }
@@ -371,13 +371,13 @@ public class PostgresWriteRecorder extends NormalWriteRecorder {
             preparedStatement = preparedStatementMap.get(preparedStatementKey);
         } else {
             if (EmptyKit.isNull(this.preparedStatementKey)) {
-                preparedStatement = connection.prepareStatement(getOldInsertIgnoreSql(containsNull));
+                preparedStatement = prepareStatement(getOldInsertIgnoreSql(containsNull));
                 preparedStatementMap.put(preparedStatementKey, preparedStatement);
             } else {
                 executeBatch(listResult);
                 preparedStatement = preparedStatementMap.get(preparedStatementKey);
                 if (EmptyKit.isNull(preparedStatement)) {
-                    preparedStatement = connection.prepareStatement(getOldInsertIgnoreSql(containsNull));
+                    preparedStatement = prepareStatement(getOldInsertIgnoreSql(containsNull));
                     preparedStatementMap.put(preparedStatementKey, preparedStatement);
                 }
             }
@@ -0,0 +1,164 @@
+package io.tapdata.connector.postgres.cdc;
+
+import io.tapdata.entity.utils.DataMap;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public class PgOutputDecoderTest {
+
+    List<Object[]> changes;
+    PgOutputDecoder decoder;
+
+    @BeforeEach
+    void init() {
+        changes = new ArrayList<>();
+        decoder = new PgOutputDecoder((schema, table) -> "public".equals(schema) && "orders".equals(table), 0, new PgOutputDecoder.Listener() {
+            @Override
+            public void begin(long xid, long commitTime) {
+                changes.add(new Object[]{"B", xid, commitTime});
+            }
+
+            @Override
+            public void commit(long endLsn, long commitTime) {
+                changes.add(new Object[]{"C", endLsn, commitTime});
+            }
+
+            @Override
+            public void insert(PgOutputDecoder.Relation relation, DataMap after) {
+                changes.add(new Object[]{"I", relation.getTable(), after});
+            }
+
+            @Override
+            public void update(PgOutputDecoder.Relation relation, DataMap before, DataMap after) {
+                changes.add(new Object[]{"U", relation.getTable(), before, after});
+            }
+
+            @Override
+            public void delete(PgOutputDecoder.Relation relation, DataMap before) {
+                changes.add(new Object[]{"D", relation.getTable(), before});
+            }
+        });
+    }
+
+    private ByteBuffer relation(int relationId, String table) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte('R');
+        out.writeInt(relationId);
+        writeString(out, "public");
+        writeString(out, table);
+        out.writeByte('d');
+        out.writeShort(4);
+        writeColumn(out, 1, "id", 20);
+        writeColumn(out, 0, "amount", 1700);
+        writeColumn(out, 0, "created", 1184);
+        writeColumn(out, 0, "note", 25);
+        return ByteBuffer.wrap(bytes.toByteArray());
+    }
+
+    private void writeColumn(DataOutputStream out, int flags, String name, int typeOid) throws IOException {
+        out.writeByte(flags);
+        writeString(out, name);
+        out.writeInt(typeOid);
+        out.writeInt(-1);
+    }
+
+    private void writeString(DataOutputStream out, String value) throws IOException {
+        out.write(value.getBytes(StandardCharsets.UTF_8));
+        out.writeByte(0);
+    }
+
+    private void writeTuple(DataOutputStream out, String... values) throws IOException {
+        out.writeShort(values.length);
+        for (String value : values) {
+            if (null == value) {
+                out.writeByte('n');
+            } else if ("\u0000".equals(value)) {
+                out.writeByte('u');
+            } else {
+                byte[] text = value.getBytes(StandardCharsets.UTF_8);
+                out.writeByte('t');
+                out.writeInt(text.length);
+                out.write(text);
+            }
+        }
+    }
+
+    private ByteBuffer change(char type, int relationId, Character oldType, String[] oldValues, String... values) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(type);
+        out.writeInt(relationId);
+        if (null != oldType) {
+            out.writeByte(oldType);
+            writeTuple(out, oldValues);
+        }
+        if (type != 'D') {
+            out.writeByte('N');
+            writeTuple(out, values);
+        }
+        return ByteBuffer.wrap(bytes.toByteArray());
+    }
+
+    @Test
+    @DisplayName("test transaction messages")
+    void testBeginAndCommit() {
+        ByteBuffer begin = ByteBuffer.allocate(21);
+        begin.put((byte) 'B').putLong(100L).putLong(1000000L).putInt(-1).flip();
+        decoder.decode(begin);
+        ByteBuffer commit = ByteBuffer.allocate(26);
+        commit.put((byte) 'C').put((byte) 0).putLong(100L).putLong(120L).putLong(1000000L).flip();
+        decoder.decode(commit);
+        Assertions.assertArrayEquals(new Object[]{"B", 4294967295L, 946684801000L}, changes.get(0));
+        Assertions.assertArrayEquals(new Object[]{"C", 120L, 946684801000L}, changes.get(1));
+    }
+
+    @Test
+    @DisplayName("test changes are converted by cached relation")
+    void testChanges() throws IOException {
+        decoder.decode(relation(1, "orders"));
+        decoder.decode(change('I', 1, null, null, "1", "12.50", "2024-01-02 10:00:00.5+08", "a"));
+        DataMap after = (DataMap) changes.get(0)[2];
+        Assertions.assertEquals(1L, after.get("id"));
+        Assertions.assertEquals(new BigDecimal("12.50"), after.get("amount"));
+        Assertions.assertEquals(ZonedDateTime.of(LocalDateTime.of(2024, 1, 2, 2, 0, 0, 500000000), ZoneOffset.UTC), after.get("created"));
+        Assertions.assertEquals("a", after.get("note"));
+
+        //unchanged toast value is absent, before is the key
+        decoder.decode(change('U', 1, null, null, "1", "13", "infinity", "\u0000"));
+        DataMap before = (DataMap) changes.get(1)[2];
+        after = (DataMap) changes.get(1)[3];
+        Assertions.assertEquals(1, before.size());
+        Assertions.assertEquals(1L, before.get("id"));
+        Assertions.assertEquals("infinity", after.get("created"));
+        Assertions.assertFalse(after.containsKey("note"));
+
+        decoder.decode(change('D', 1, 'K', new String[]{"1", null, null, null}));
+        before = (DataMap) changes.get(2)[2];
+        Assertions.assertEquals(1, before.size());
+        Assertions.assertEquals(1L, before.get("id"));
+    }
+
+    @Test
+    @DisplayName("test changes of unwatched relation are skipped")
+    void testUnwatchedRelation() throws IOException {
+        decoder.decode(relation(2, "others"));
+        decoder.decode(change('I', 2, null, null, "1", "12.50", null, "a"));
+        Assertions.assertTrue(changes.isEmpty());
+        Assertions.assertThrows(IllegalStateException.class, () -> decoder.decode(change('I', 3, null, null, "1", "1", null, "a")));
+    }
+}
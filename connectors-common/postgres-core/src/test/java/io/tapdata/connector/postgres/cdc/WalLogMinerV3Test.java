@@ -0,0 +1,208 @@
+package io.tapdata.connector.postgres.cdc;
+
+import io.tapdata.common.concurrent.ConcurrentProcessor;
+import io.tapdata.connector.postgres.PostgresJdbcContext;
+import io.tapdata.connector.postgres.config.PostgresConfig;
+import io.tapdata.entity.logger.TapLog;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class WalLogMinerV3Test {
+
+    private static final Pattern NEXT_PAGE = Pattern.compile("\\(start_lsn, sqlno\\) > \\('(\\d+)/(\\d+)'::pg_lsn, (\\d+)\\)");
+
+    WalLogMinerV3 miner;
+
+    @BeforeEach
+    void beforeEach() {
+        PostgresJdbcContext jdbcContext = mock(PostgresJdbcContext.class);
+        PostgresConfig config = mock(PostgresConfig.class);
+        when(config.getSchema()).thenReturn("public");
+        when(config.getDoubleActive()).thenReturn(false);
+        when(jdbcContext.getConfig()).thenReturn(config);
+        miner = new WalLogMinerV3(jdbcContext, new TapLog());
+        ReflectionTestUtils.setField(miner, "withSchema", false);
+        ReflectionTestUtils.setField(miner, "filterSchema", false);
+        ReflectionTestUtils.setField(miner, "tableList", Collections.singletonList("t"));
+    }
+
+    private long windowMillis() {
+        return (long) ReflectionTestUtils.getField(miner, "windowMillis");
+    }
+
+    @Nested
+    class AdjustWindowTest {
+
+        @Test
+        @DisplayName("test window grows when nothing is mined")
+        void testGrowOnEmptyWindow() throws Exception {
+            miner.adjustWindow(0, "2024-01-01 00:00:00.000", "2024-01-01 00:01:00.000");
+            Assertions.assertEquals(120 * 1000L, windowMillis());
+        }
+
+        @Test
+        @DisplayName("test window is sized by the row rate of the last window")
+        void testResizeByRowRate() throws Exception {
+            //50000 rows in 30s is the target
+            miner.adjustWindow(100000, "2024-01-01 00:00:00.000", "2024-01-01 00:01:00.000");
+            Assertions.assertEquals(30 * 1000L, windowMillis());
+            miner.adjustWindow(10000, "2024-01-01 00:00:00.000", "2024-01-01 00:00:30.000");
+            Assertions.assertEquals(150 * 1000L, windowMillis());
+        }
+
+        @Test
+        @DisplayName("test window is clamped to 5s and 10min")
+        void testClamp() throws Exception {
+            miner.adjustWindow(100000000, "2024-01-01 00:00:00.000", "2024-01-01 00:01:00.000");
+            Assertions.assertEquals(5 * 1000L, windowMillis());
+            miner.adjustWindow(1, "2024-01-01 00:00:00.000", "2024-01-01 00:01:00.000");
+            Assertions.assertEquals(10 * 60 * 1000L, windowMillis());
+            for (int i = 0; i < 3; i++) {
+                miner.adjustWindow(0, "2024-01-01 00:00:00.000", "2024-01-01 00:01:00.000");
+            }
+            Assertions.assertEquals(10 * 60 * 1000L, windowMillis());
+        }
+
+        @Test
+        @DisplayName("test window is kept when the mined range is empty")
+        void testEmptyRange() throws Exception {
+            miner.adjustWindow(100, "2024-01-01 00:01:00.000", "2024-01-01 00:01:00.000");
+            Assertions.assertEquals(60 * 1000L, windowMillis());
+        }
+    }
+
+    @Nested
+    class ReadContentsTest {
+
+        //rows of walminer_contents as {lsn high, lsn low, sqlno}, ordered by (start_lsn, sqlno)
+        List<long[]> contents;
+        List<String> sqls;
+        Statement statement;
+        ConcurrentProcessor<NormalRedo, NormalRedo> concurrentProcessor;
+
+        @BeforeEach
+        @SuppressWarnings("unchecked")
+        void beforeEach() throws Exception {
+            contents = new ArrayList<>();
+            sqls = new ArrayList<>();
+            statement = mock(Statement.class);
+            concurrentProcessor = mock(ConcurrentProcessor.class);
+            //the keyset condition of the sql is applied to the contents
+            when(statement.executeQuery(anyString())).thenAnswer(invocation -> {
+                String sql = invocation.getArgument(0);
+                sqls.add(sql);
+                int limit = Integer.parseInt(sql.substring(sql.lastIndexOf("limit ") + 6));
+                Matcher matcher = NEXT_PAGE.matcher(sql);
+                long[] last = matcher.find() ? new long[]{Long.parseLong(matcher.group(1)), Long.parseLong(matcher.group(2)), Long.parseLong(matcher.group(3))} : null;
+                return resultSet(contents.stream().filter(row -> null == last || compare(row, last) > 0).limit(limit).collect(Collectors.toList()));
+            });
+        }
+
+        private int compare(long[] row, long[] last) {
+            for (int i = 0; i < row.length; i++) {
+                if (row[i] != last[i]) {
+                    return Long.compare(row[i], last[i]);
+                }
+            }
+            return 0;
+        }
+
+        private ResultSet resultSet(List<long[]> rows) throws Exception {
+            ResultSet resultSet = mock(ResultSet.class);
+            AtomicInteger index = new AtomicInteger(-1);
+            when(resultSet.next()).thenAnswer(invocation -> index.incrementAndGet() < rows.size());
+            when(resultSet.getString(anyString())).thenAnswer(invocation -> {
+                long[] row = rows.get(index.get());
+                switch ((String) invocation.getArgument(0)) {
+                    case "start_lsn":
+                        return row[0] + "/" + row[1];
+                    case "sqlno":
+                        return String.valueOf(row[2]);
+                    case "relation":
+                        return "t";
+                    case "schema":
+                        return "public";
+                    case "timestamp":
+                        return "2024-01-01 00:00:00.000";
+                    case "sqlkind":
+                        return "1";
+                    default:
+                        return null;
+                }
+            });
+            when(resultSet.getTimestamp("timestamp")).thenReturn(new Timestamp(0));
+            return resultSet;
+        }
+
+        private List<String> dispatched() {
+            ArgumentCaptor<NormalRedo> captor = ArgumentCaptor.forClass(NormalRedo.class);
+            verify(concurrentProcessor, atLeast(0)).runAsync(captor.capture(), any());
+            return captor.getAllValues().stream().map(NormalRedo::getTableName).collect(Collectors.toList());
+        }
+
+        @Test
+        @DisplayName("test pages continue after the last (start_lsn, sqlno) when many rows share one start_lsn")
+        void testPagingAcrossEqualLsn() throws Exception {
+            //a page boundary inside the statements of one lsn
+            for (int i = 1; i <= 5002; i++) {
+                contents.add(new long[]{0, 16, i});
+            }
+            contents.add(new long[]{0, 32, 1});
+            long rows = miner.readContents(statement, concurrentProcessor, () -> true);
+            Assertions.assertEquals(5003, rows);
+            Assertions.assertEquals(5003, dispatched().size());
+            Assertions.assertEquals(2, sqls.size());
+            Assertions.assertFalse(sqls.get(0).contains("(start_lsn, sqlno) >"));
+            Assertions.assertTrue(sqls.get(1).contains("(start_lsn, sqlno) > ('0/16'::pg_lsn, 5000)"));
+        }
+
+        @Test
+        @DisplayName("test a full last page is followed by one empty page")
+        void testExactPage() throws Exception {
+            for (int i = 1; i <= 5000; i++) {
+                contents.add(new long[]{0, 16, i});
+            }
+            Assertions.assertEquals(5000, miner.readContents(statement, concurrentProcessor, () -> true));
+            Assertions.assertEquals(2, sqls.size());
+        }
+
+        @Test
+        @DisplayName("test parse error stops reading at the next page")
+        @SuppressWarnings("unchecked")
+        void testThreadExceptionCheckedPerPage() {
+            for (int i = 1; i <= 12000; i++) {
+                contents.add(new long[]{0, 16, i});
+            }
+            AtomicReference<Throwable> threadException = (AtomicReference<Throwable>) ReflectionTestUtils.getField(miner, "threadException");
+            RuntimeException error = new RuntimeException("parse error");
+            doAnswer(invocation -> {
+                threadException.set(error);
+                return null;
+            }).when(concurrentProcessor).runAsync(any(), any());
+            RuntimeException e = Assertions.assertThrows(RuntimeException.class, () -> miner.readContents(statement, concurrentProcessor, () -> true));
+            Assertions.assertSame(error, e.getCause());
+            Assertions.assertEquals(1, sqls.size());
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package io.tapdata.connector.postgres.dml;
+
+import io.tapdata.entity.event.dml.TapDeleteRecordEvent;
+import io.tapdata.entity.event.dml.TapInsertRecordEvent;
+import io.tapdata.entity.event.dml.TapUpdateRecordEvent;
+import io.tapdata.entity.schema.TapField;
+import io.tapdata.entity.schema.TapTable;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class PostgresStageMergerTest {
+
+    TapTable tapTable;
+    Connection connection;
+    Statement statement;
+    PreparedStatement preparedStatement;
+
+    @BeforeEach
+    void init() throws Exception {
+        tapTable = new TapTable("test");
+        tapTable.add(new TapField("id", "bigint").primaryKeyPos(1));
+        tapTable.add(new TapField("name", "character varying(64)"));
+        tapTable.add(new TapField("amount", "numeric(10,2)"));
+        connection = mock(Connection.class);
+        statement = mock(Statement.class);
+        preparedStatement = mock(PreparedStatement.class);
+        when(connection.createStatement()).thenReturn(statement);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(connection.isWrapperFor(any())).thenReturn(false);
+    }
+
+    private Map<String, Object> row(Object id, String name) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("id", id);
+        row.put("name", name);
+        return row;
+    }
+
+    @Test
+    @DisplayName("test supported policies")
+    void testIsSupported() {
+        Assertions.assertTrue(PostgresStageMerger.isSupported(tapTable, "update_on_exists", "ignore_on_nonexists", "ignore_on_nonexists"));
+        Assertions.assertTrue(PostgresStageMerger.isSupported(tapTable, "ignore_on_exists", "insert_on_nonexists", "ignore_on_nonexists"));
+        Assertions.assertFalse(PostgresStageMerger.isSupported(tapTable, "just_insert", "ignore_on_nonexists", "ignore_on_nonexists"));
+        Assertions.assertFalse(PostgresStageMerger.isSupported(tapTable, "update_on_exists", "log_on_nonexists", "ignore_on_nonexists"));
+        TapTable noKeyTable = new TapTable("test");
+        noKeyTable.add(new TapField("id", "bigint"));
+        Assertions.assertFalse(PostgresStageMerger.isSupported(noKeyTable, "update_on_exists", "ignore_on_nonexists", "ignore_on_nonexists"));
+    }
+
+    @Test
+    @DisplayName("test events can not be staged")
+    void testCanStage() {
+        PostgresStageMerger merger = new PostgresStageMerger(connection, tapTable, "public", true, "update_on_exists", "ignore_on_nonexists");
+        Assertions.assertTrue(merger.canStage(TapInsertRecordEvent.create().after(row(1, "a"))));
+        Assertions.assertFalse(merger.canStage(TapInsertRecordEvent.create().after(row(null, "a"))));
+        //the same key in another java type
+        Assertions.assertTrue(merger.canStage(TapUpdateRecordEvent.create().before(row(1L, "a")).after(row(1, "b"))));
+        //update of primary key
+        Assertions.assertFalse(merger.canStage(TapUpdateRecordEvent.create().before(row(1, "a")).after(row(2, "a"))));
+        Assertions.assertFalse(merger.canStage(TapDeleteRecordEvent.create().before(row("x", "a"))));
+    }
+
+    @Test
+    @DisplayName("test events of one key are collapsed")
+    void testStageCollapse() throws Exception {
+        PostgresStageMerger merger = new PostgresStageMerger(connection, tapTable, "public", true, "update_on_exists", "ignore_on_nonexists");
+        AtomicLong inserted = new AtomicLong();
+        AtomicLong modified = new AtomicLong();
+        AtomicLong removed = new AtomicLong();
+        merger.setCounters(inserted, modified, removed);
+        merger.stage(TapInsertRecordEvent.create().after(row(1, "a")));
+        merger.stage(TapUpdateRecordEvent.create().before(row(1L, "a")).after(row(1, "b")));
+        merger.stage(TapDeleteRecordEvent.create().before(row(2, "c")));
+        merger.stage(TapInsertRecordEvent.create().after(row(2, "d")));
+        merger.flush();
+        ArgumentCaptor<String> ddlCaptor = ArgumentCaptor.forClass(String.class);
+        verify(statement, times(1)).execute(ddlCaptor.capture());
+        Assertions.assertTrue(ddlCaptor.getValue().startsWith("CREATE TEMP TABLE IF NOT EXISTS"));
+        //two rows are staged
+        verify(preparedStatement, times(2)).addBatch();
+        verify(preparedStatement).setString(4, "I");
+        verify(preparedStatement).setString(4, "R");
+        ArgumentCaptor<String> sqlCaptor = ArgumentCaptor.forClass(String.class);
+        verify(statement, times(2)).executeUpdate(sqlCaptor.capture());
+        List<String> updates = sqlCaptor.getAllValues();
+        Assertions.assertTrue(updates.get(0).startsWith("DELETE FROM \"public\".\"test\" t USING"));
+        Assertions.assertTrue(updates.get(1).contains("ON CONFLICT (\"id\") DO UPDATE SET \"name\"=EXCLUDED.\"name\", \"amount\"=EXCLUDED.\"amount\""));
+        Assertions.assertEquals(2, inserted.get());
+        Assertions.assertEquals(1, modified.get());
+        Assertions.assertEquals(1, removed.get());
+        Assertions.assertTrue(merger.isEmpty());
+    }
+
+    @Test
+    @DisplayName("test insert after update is flushed first when insert is ignored on exists")
+    void testStageFlushOnConflict() throws Exception {
+        PostgresStageMerger merger = new PostgresStageMerger(connection, tapTable, "public", false, "ignore_on_exists", "ignore_on_nonexists");
+        merger.stage(TapUpdateRecordEvent.create().before(row(1, "a")).after(row(1, "b")));
+        merger.stage(TapInsertRecordEvent.create().after(row(1, "c")));
+        verify(preparedStatement).setString(4, "U");
+        verify(preparedStatement).setString(5, "110");
+        Assertions.assertFalse(merger.isEmpty());
+        merger.flush();
+        ArgumentCaptor<String> sqlCaptor = ArgumentCaptor.forClass(String.class);
+        verify(statement, times(2)).executeUpdate(sqlCaptor.capture());
+        Assertions.assertTrue(sqlCaptor.getAllValues().get(0).contains("\"name\"=CASE WHEN substr(s.\"_tap_mask\",2,1)='1' THEN s.\"name\"::character varying(64) ELSE t.\"name\" END"));
+        Assertions.assertTrue(sqlCaptor.getAllValues().get(1).contains("AND NOT EXISTS (SELECT 1 FROM \"public\".\"test\" t WHERE t.\"id\"=s.\"id\")"));
+    }
+
+    @Test
+    @DisplayName("test staging table is emptied by delete from the second flush")
+    void testStageDeleteNotTruncate() throws Exception {
+        PostgresStageMerger merger = new PostgresStageMerger(connection, tapTable, "public", true, "update_on_exists", "ignore_on_nonexists");
+        merger.stage(TapInsertRecordEvent.create().after(row(1, "a")));
+        merger.flush();
+        merger.stage(TapInsertRecordEvent.create().after(row(2, "b")));
+        merger.flush();
+        ArgumentCaptor<String> ddlCaptor = ArgumentCaptor.forClass(String.class);
+        verify(statement, times(2)).execute(ddlCaptor.capture());
+        Assertions.assertTrue(ddlCaptor.getAllValues().get(0).startsWith("CREATE TEMP TABLE IF NOT EXISTS"));
+        Assertions.assertTrue(ddlCaptor.getAllValues().get(1).startsWith("DELETE FROM \"_tap_stage_"));
+        Assertions.assertTrue(ddlCaptor.getAllValues().stream().noneMatch(sql -> sql.startsWith("TRUNCATE")));
+    }
+
+    @Test
+    @DisplayName("test removed columns are neither staged nor written")
+    void testRemovedColumn() throws Exception {
+        PostgresStageMerger merger = new PostgresStageMerger(connection, tapTable, "public", true, "update_on_exists", "ignore_on_nonexists", Collections.singletonList("amount"));
+        Map<String, Object> after = row(1, "a");
+        after.put("amount", 1.5);
+        merger.stage(TapInsertRecordEvent.create().after(after));
+        merger.flush();
+        ArgumentCaptor<String> ddlCaptor = ArgumentCaptor.forClass(String.class);
+        verify(statement).execute(ddlCaptor.capture());
+        Assertions.assertFalse(ddlCaptor.getValue().contains("amount"));
+        verify(connection).prepareStatement("INSERT INTO " + ddlCaptor.getValue().split(" ")[6] + " VALUES(?,?,?,?)");
+        ArgumentCaptor<String> sqlCaptor = ArgumentCaptor.forClass(String.class);
+        verify(statement).executeUpdate(sqlCaptor.capture());
+        Assertions.assertFalse(sqlCaptor.getValue().contains("amount"));
+        Assertions.assertTrue(sqlCaptor.getValue().contains("DO UPDATE SET \"name\"=EXCLUDED.\"name\""));
+    }
+}
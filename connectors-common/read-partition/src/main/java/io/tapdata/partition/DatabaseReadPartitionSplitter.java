@@ -16,7 +16,11 @@ import io.tapdata.pdk.apis.partition.TapPartitionFilter;
 import io.tapdata.pdk.apis.partition.splitter.*;
 
 import java.util.*;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 
@@ -63,12 +67,13 @@ public class DatabaseReadPartitionSplitter {
 	private Consumer<ReadPartition> consumer;
 	private long maxRecordWithRatioInPartition;
 	private SplitCompleteListener splitCompleteListener;
-	private final PartitionCollector rootPartitionCollector = new PartitionCollector();
+	private int splitParallelism = 4;
+	private ExecutorService probeExecutor;
+	private ExecutorService jobExecutor;
+	private final AtomicInteger runningJobs = new AtomicInteger();
+	private final AtomicReference<Throwable> jobError = new AtomicReference<>();
 	private QueryFieldMinMaxValueFunction queryFieldMinMaxValue;
 	private CountByPartitionFilterFunction countByPartitionFilter;
-	//private ParallelWorker parallelWorker;
-	//private QueueWorker readPartitionTimerTask;
-	//private PartitionCollector currentPartitionCollector;
 
 	public void startSplitting() throws Throwable {
 		if(countByPartitionFilter == null) {
@@ -108,40 +113,88 @@ public class DatabaseReadPartitionSplitter {
 			SplitContext splitContext = SplitContext.create().indexFields(partitionIndex.getIndexFields()).total(count);
 			SplitProgress splitProgress = SplitProgress.create().partitionFilter(TapPartitionFilter.create()).currentFieldPos(0).count(count);
 
-			//if(currentPartitionCollector == null) {
-			//	currentPartitionCollector = rootPartitionCollector;
-			//}
+			probeExecutor = Executors.newFixedThreadPool(splitParallelism);
+			jobExecutor = Executors.newFixedThreadPool(splitParallelism);
+			try {
+				submitJob(JobContext.create(splitProgress).context(splitContext));
+				waitJobsFinished();
+			} finally {
+				probeExecutor.shutdownNow();
+				jobExecutor.shutdownNow();
+			}
+			if(splitCompleteListener != null)
+				splitCompleteListener.completed(id);
+			context.getLog().info(id + ": Split job done because worker has finished");
+		}
+	}
 
-			//if(partitionFuture != null)
-			//	partitionFuture.cancel(true);
-			//partitionFuture = handleReadPartitionScheduler.scheduleWithFixedDelay(this::handleReadPartitions,  1000L, 1000L, TimeUnit.MILLISECONDS);
+	private void submitJob(JobContext jobContext) {
+		runningJobs.incrementAndGet();
+		jobExecutor.execute(() -> {
+			try {
+				if(jobError.get() == null)
+					handleJob(jobContext);
+			} catch (Throwable e) {
+				jobError.compareAndSet(null, e);
+			} finally {
+				if(runningJobs.decrementAndGet() == 0) {
+					synchronized (runningJobs) {
+						runningJobs.notifyAll();
+					}
+				}
+			}
+		});
+	}
 
-			//parallelWorker = asyncMaster.createAsyncParallelWorker(id, countNumOfThread);
-			//parallelWorker.job(JobContext.create(splitProgress).context(splitContext), asyncQueueWorker -> asyncQueueWorker.job(this::handleJob).finished());
-			//parallelWorker.start();
+	private void waitJobsFinished() throws Throwable {
+		synchronized (runningJobs) {
+			while (runningJobs.get() > 0) {
+				runningJobs.wait(1000L);
+			}
+		}
+		if(jobError.get() != null)
+			throw jobError.get();
+	}
 
-			handleJob(JobContext.create(splitProgress).context(splitContext));
-			handleReadPartitions();
+	/**
+	 * Run the probe for every partition filter on the probe executor, results keep the order of partition filters.
+	 */
+	private <T> List<T> probe(List<TapPartitionFilter> partitionFilters, PartitionProbe<T> partitionProbe) throws Throwable {
+		List<Future<T>> futures = new ArrayList<>();
+		for(TapPartitionFilter eachPartitionFilter : partitionFilters) {
+			futures.add(probeExecutor.submit(() -> {
+				try {
+					return partitionProbe.probe(eachPartitionFilter);
+				} catch (Exception e) {
+					throw e;
+				} catch (Throwable e) {
+					throw new RuntimeException(e);
+				}
+			}));
+		}
+		List<T> results = new ArrayList<>();
+		for(Future<T> future : futures) {
+			try {
+				results.add(future.get());
+			} catch (ExecutionException e) {
+				throw e.getCause();
+			}
+		}
+		return results;
+	}
 
-			//if(partitionFuture != null)
-			//	partitionFuture.cancel(true);
+	private boolean isEmptyMinMax(FieldMinMaxValue fieldMinMaxValue) {
+		return fieldMinMaxValue == null || fieldMinMaxValue.getMin() == null || fieldMinMaxValue.getMax() == null;
+	}
 
-			//noinspection ResultOfMethodCallIgnored
-			//handleReadPartitions();
-			if(splitCompleteListener != null)
-				splitCompleteListener.completed(id);
-			context.getLog().info(id + ": Split job done because worker has finished");
-		}
+	private boolean isNoBoundary(TapPartitionFilter partitionFilter) {
+		return partitionFilter.getRightBoundary() == null && partitionFilter.getLeftBoundary() == null && partitionFilter.getMatch() != null;
 	}
 
-	private JobContext handleJob(JobContext jobContext) {
+	private void handleJob(JobContext jobContext) throws Throwable {
 		SplitContext splitContext = jobContext.getContext(SplitContext.class);
 		SplitProgress splitProgress = jobContext.getResult(SplitProgress.class);
 		TapPartitionFilter partitionFilter = splitProgress.getPartitionFilter();
-		PartitionCollector partitionCollector = splitProgress.getPartitionCollector();
-		if(partitionCollector == null) {
-			partitionCollector = rootPartitionCollector;
-		}
 		context.getLog().info(id + " " + partitionFilter + ": start splitting");
 		long count = splitProgress.getCount();
 		List<TapIndexField> indexFields = splitContext.getIndexFields();
@@ -154,43 +207,47 @@ public class DatabaseReadPartitionSplitter {
 		}
 		TapIndexField indexField = indexFields.get(splitProgress.getCurrentFieldPos());
 		FieldMinMaxValue fieldMinMaxValue = queryFieldMinMaxValue.minMaxValue(context, table, partitionFilter.toAdvanceFilter(), indexField.getName());
-		if(fieldMinMaxValue == null || fieldMinMaxValue.getMin() == null || fieldMinMaxValue.getMax() == null) {
-			partitionCollector.addPartition(partitionFilter, 0L);
-			partitionCollector.state(PartitionCollector.STATE_DONE);
+		if(isEmptyMinMax(fieldMinMaxValue)) {
 			context.getLog().info("Partition {} can not find min/max value which means no record in table.", partitionFilter);
-			return null;
+			PartitionGather partitionGather = new PartitionGather();
+			partitionGather.add(partitionFilter, 0L);
+			partitionGather.flush();
+			return;
 		}
 		String type = fieldMinMaxValue.getType();
 		TypeSplitter<?> typeSplitter = typeSplitterMap.get(type);
 		if(typeSplitter == null)
 			throw new CoreException(ConnectorErrors.MISSING_TYPE_SPLITTER, "Missing type splitter for type {}", type);
-		partitionCollector.state(PartitionCollector.STATE_MIN_MAX);
 		Map<TapPartitionFilter, Long> minMaxPartitionMap = new HashMap<>();
 		List<TapPartitionFilter> partitionFilters = typeSplitter.split(partitionFilter, fieldMinMaxValue, (int) splitPieces);
 		if(countIsSlow) {
 			long finalTimes = splitPieces;
 			boolean noMoreSplit = false;
 			long minTimes = splitPieces / 2;
-			long time = System.currentTimeMillis();
 			while(!noMoreSplit && partitionFilters.size() < minTimes) {
 				context.getLog().info(id + " [countIsSlow] current partition size {} is less than minimum split pieces {}, will continue split to satisfy split pieces {} or can NOT split any more. ", partitionFilters.size(), minTimes, minTimes);
+				List<TapPartitionFilter> probeFilters = new ArrayList<>();
+				for(TapPartitionFilter eachPartitionFilter : partitionFilters) {
+					if(!isNoBoundary(eachPartitionFilter) && !eachPartitionFilter.equals(partitionFilter))
+						probeFilters.add(eachPartitionFilter);
+				}
+				List<FieldMinMaxValue> probeMinMaxValues = probe(probeFilters, eachPartitionFilter -> queryFieldMinMaxValue.minMaxValue(context, table, eachPartitionFilter.toAdvanceFilter(), indexField.getName()));
+				Map<TapPartitionFilter, FieldMinMaxValue> probeMinMaxMap = new HashMap<>();
+				for(int i = 0; i < probeFilters.size(); i++) {
+					probeMinMaxMap.put(probeFilters.get(i), probeMinMaxValues.get(i));
+				}
 				List<TapPartitionFilter> newPartitionFilters = new ArrayList<>();
-				AtomicBoolean canSplit = new AtomicBoolean(false);
-				jobContext.foreach(partitionFilters, eachPartitionFilter -> {
-					boolean noBoundary = eachPartitionFilter.getRightBoundary() == null && eachPartitionFilter.getLeftBoundary() == null && eachPartitionFilter.getMatch() != null;
-					if(noBoundary) {
-						newPartitionFilters.add(eachPartitionFilter);
-						return true;
-					}
-					if(eachPartitionFilter.equals(partitionFilter)) {
+				boolean canSplit = false;
+				for(TapPartitionFilter eachPartitionFilter : partitionFilters) {
+					if(!probeMinMaxMap.containsKey(eachPartitionFilter)) {
 						newPartitionFilters.add(eachPartitionFilter);
-						return true;
+						continue;
 					}
-					FieldMinMaxValue fieldMinMaxValueForPartition = queryFieldMinMaxValue.minMaxValue(context, table, eachPartitionFilter.toAdvanceFilter(), indexField.getName());
-					if(fieldMinMaxValueForPartition == null || fieldMinMaxValueForPartition.getMin() == null || fieldMinMaxValueForPartition.getMax() == null) {
+					FieldMinMaxValue fieldMinMaxValueForPartition = probeMinMaxMap.get(eachPartitionFilter);
+					if(isEmptyMinMax(fieldMinMaxValueForPartition)) {
 						newPartitionFilters.add(eachPartitionFilter);
 						minMaxPartitionMap.put(eachPartitionFilter, 0L);
-						return true;
+						continue;
 					} else {
 						minMaxPartitionMap.put(eachPartitionFilter, -1L);
 					}
@@ -200,76 +257,57 @@ public class DatabaseReadPartitionSplitter {
 						throw new CoreException(ConnectorErrors.MISSING_TYPE_SPLITTER, "Missing type splitter for type {}", typeForPartition);
 
 					List<TapPartitionFilter> partitionFiltersForPartition = typeSplitterForPartition.split(eachPartitionFilter, fieldMinMaxValueForPartition, (int) finalTimes);
-					canSplit.set(true);
+					canSplit = true;
 					newPartitionFilters.addAll(partitionFiltersForPartition);
-					return true;
-				});
-				noMoreSplit = !canSplit.get();
+				}
+				noMoreSplit = !canSplit;
 				partitionFilters = newPartitionFilters;
 			}
-			//context.getLog().info(id + " [countIsSlow] Finished split partitionFilter {}, current partition size {}, minimum split pieces {}, noMoreSplit {} takes {} milliseconds", partitionFilter, partitionFilters.size(), minTimes, noMoreSplit, (System.currentTimeMillis() - time));
 		}
-		partitionCollector.state(PartitionCollector.STATE_SPLIT);
 		context.getLog().info(id + " start collect all partitions with possible count");
 		long time = System.currentTimeMillis();
-		AtomicReference<PartitionCollector> partitionCollectorRef = new AtomicReference<>(partitionCollector);
-		jobContext.foreach(partitionFilters, eachPartitionFilter -> {
-			long partitionCount = -1;
-			if(!countIsSlow) {
-				try {
-					partitionCount = countByPartitionFilter.countByPartitionFilter(context, table, eachPartitionFilter.toAdvanceFilter());
-				} catch (Throwable e) {
-					throw new RuntimeException(e);
-				}
-				//context.getLog().info(id + " " + partitionFilter + ": Partition count {} for {}", partitionCount, eachPartitionFilter);
-			} else if(!minMaxPartitionMap.containsKey(eachPartitionFilter)){
-				FieldMinMaxValue fieldMinMaxValueForPartition = queryFieldMinMaxValue.minMaxValue(context, table, eachPartitionFilter.toAdvanceFilter(), indexField.getName());
-				if(fieldMinMaxValueForPartition == null || fieldMinMaxValueForPartition.getMin() == null || fieldMinMaxValueForPartition.getMax() == null) {
-					minMaxPartitionMap.put(eachPartitionFilter, 0L);
-				} else {
-					minMaxPartitionMap.put(eachPartitionFilter, -1L);
-				}
+		Map<TapPartitionFilter, Long> partitionCountMap = new HashMap<>();
+		if(!countIsSlow) {
+			List<Long> counts = probe(partitionFilters, eachPartitionFilter -> countByPartitionFilter.countByPartitionFilter(context, table, eachPartitionFilter.toAdvanceFilter()));
+			for(int i = 0; i < partitionFilters.size(); i++) {
+				partitionCountMap.put(partitionFilters.get(i), counts.get(i));
 			}
-			boolean noBoundary = eachPartitionFilter.getRightBoundary() == null && eachPartitionFilter.getLeftBoundary() == null && eachPartitionFilter.getMatch() != null;
-			partitionCollectorRef.get().setState(PartitionCollector.STATE_COUNT);
+		} else {
+			List<TapPartitionFilter> probeFilters = new ArrayList<>();
+			for(TapPartitionFilter eachPartitionFilter : partitionFilters) {
+				if(!minMaxPartitionMap.containsKey(eachPartitionFilter))
+					probeFilters.add(eachPartitionFilter);
+			}
+			List<FieldMinMaxValue> probeMinMaxValues = probe(probeFilters, eachPartitionFilter -> queryFieldMinMaxValue.minMaxValue(context, table, eachPartitionFilter.toAdvanceFilter(), indexField.getName()));
+			for(int i = 0; i < probeFilters.size(); i++) {
+				minMaxPartitionMap.put(probeFilters.get(i), isEmptyMinMax(probeMinMaxValues.get(i)) ? 0L : -1L);
+			}
+		}
+		PartitionGather partitionGather = new PartitionGather();
+		for(TapPartitionFilter eachPartitionFilter : partitionFilters) {
+			long partitionCount = partitionCountMap.getOrDefault(eachPartitionFilter, -1L);
+			boolean noBoundary = isNoBoundary(eachPartitionFilter);
 			Long eachCount = minMaxPartitionMap.get(eachPartitionFilter);
 			boolean isEmptyPartition = eachCount != null && eachCount == 0;
 			if(!isEmptyPartition && (noBoundary || (partitionCount >= 0 && partitionCount > maxRecordWithRatioInPartition))) {
-				PartitionCollector newPartitionCollector = new PartitionCollector().state(PartitionCollector.STATE_COUNT);
-				partitionCollectorRef.get().sibling(newPartitionCollector);
-				partitionCollectorRef.get().state(PartitionCollector.STATE_DONE);
+				//partitions before the one to be split further are final, emit them now
+				partitionGather.flush();
 				if(noBoundary) { //which means min == max case.
 					int pos = splitProgress.getCurrentFieldPos() + 1;
 					if(indexFields.size() > pos) { // split into next index position.
-						newPartitionCollector.nextIndex(new PartitionCollector()).state(PartitionCollector.STATE_DONE);
-						SplitProgress newSplitProgress = SplitProgress.create().partitionCollector(newPartitionCollector.getNextIndex()).partitionFilter(eachPartitionFilter).currentFieldPos(splitProgress.getCurrentFieldPos() + 1).count(partitionCount);
-						//parallelWorker.job(JobContext.create(newSplitProgress).context(splitContext), asyncQueueWorker -> asyncQueueWorker.job(this::handleJob).finished());
-						handleJob(JobContext.create(newSplitProgress).context(splitContext));
+						submitJob(JobContext.create(SplitProgress.create().partitionFilter(eachPartitionFilter).currentFieldPos(pos).count(partitionCount)).context(splitContext));
 					} else { //no more next index, make it a partition.
-						newPartitionCollector.addPartition(eachPartitionFilter, partitionCount);
-						newPartitionCollector.state(PartitionCollector.STATE_DONE);
+						partitionGather.add(eachPartitionFilter, -1L);
 					}
 				} else { //still can be split in current index position. min != max case.
-					newPartitionCollector.nextSplit(new PartitionCollector()).state(PartitionCollector.STATE_DONE);
-					SplitProgress newSplitProgress = SplitProgress.create().partitionCollector(newPartitionCollector.getNextSplit()).partitionFilter(eachPartitionFilter).currentFieldPos(splitProgress.getCurrentFieldPos()).count(partitionCount);
-					//parallelWorker.job(JobContext.create(newSplitProgress).context(splitContext), asyncQueueWorker -> asyncQueueWorker.job(this::handleJob).finished());
-					handleJob(JobContext.create(newSplitProgress).context(splitContext));
+					submitJob(JobContext.create(SplitProgress.create().partitionFilter(eachPartitionFilter).currentFieldPos(splitProgress.getCurrentFieldPos()).count(partitionCount)).context(splitContext));
 				}
-				PartitionCollector siblingCollector = new PartitionCollector().state(PartitionCollector.STATE_COUNT);
-				newPartitionCollector.sibling(siblingCollector);
-				partitionCollectorRef.set(siblingCollector);
 			} else { // no need for split
-				if(isEmptyPartition) {
-					partitionCollectorRef.get().addPartition(eachPartitionFilter, 0L);
-				} else {
-					partitionCollectorRef.get().addPartition(eachPartitionFilter, partitionCount);
-				}
+				partitionGather.add(eachPartitionFilter, isEmptyPartition ? 0L : partitionCount);
 			}
-			return true;
-		});
-		partitionCollectorRef.get().state(PartitionCollector.STATE_DONE);
-		context.getLog().info(id + " collected all partitions with possible count, takes {}", (System.currentTimeMillis() - time));
-		return null;
+		}
+		partitionGather.flush();
+		context.getLog().info(id + " " + partitionFilter + ": collected all partitions with possible count, takes {}", (System.currentTimeMillis() - time));
 	}
 
 	private ReadPartition getReadPartition(Map<TapPartitionFilter, Long> gatherFilters, long total) {
@@ -283,77 +321,43 @@ public class DatabaseReadPartitionSplitter {
 		return readPartition1;
 	}
 
-	private void handleReadPartitionPrivate(PartitionCollector currentPartitionCollector, Map<TapPartitionFilter, Long> gatherFilters, Long total) {
-		if(gatherFilters == null)
-			gatherFilters = new LinkedHashMap<>();
-		if(total == null)
-			total = 0L;
-		while (currentPartitionCollector != null && currentPartitionCollector.getState() == PartitionCollector.STATE_DONE) {
-			Map<TapPartitionFilter, Long> partitionFilterLongMap = currentPartitionCollector.getPartitionCountMap();
-			for(Map.Entry<TapPartitionFilter, Long> entry : partitionFilterLongMap.entrySet()) {
-				if(countIsSlow) { //countIsSlow = true
-					//unknown count for this partition
-					if(entry.getValue() < 0) {
-						if(!gatherFilters.isEmpty()) {
-							ReadPartition readPartition1 = getReadPartition(gatherFilters, total);
-							consumer.accept(readPartition1);
-							gatherFilters.clear();
-							total = 0L;
-						}
-						ReadPartition readPartition1 = ReadPartition.create().id(UUID.randomUUID().toString().replace("-", "")).partitionFilter(entry.getKey());
-						//context.getLog().info(id + ": ReadPartition is ready to start reading for no count process, {}", readPartition1);
-						consumer.accept(readPartition1);
-					} else {
-						gatherFilters.put(entry.getKey(), entry.getValue());
-						total += entry.getValue();
-					}
-				} else {//countIsSlow = false
-					gatherFilters.put(entry.getKey(), entry.getValue());
-					total += entry.getValue();
-					if(total >= maxRecordInPartition) {
-						ReadPartition readPartition1 = getReadPartition(gatherFilters, total);
-						consumer.accept(readPartition1);
-						gatherFilters.clear();
-						total = 0L;
-					}
-				}
-			}
-			PartitionCollector nextSplit = currentPartitionCollector.getNextSplit();
-			PartitionCollector nextIndex = currentPartitionCollector.getNextIndex();
-			if(nextSplit != null) {
-				handleReadPartitionPrivate(nextSplit, gatherFilters, total);
-			} else if(nextIndex != null) {
-				if(!gatherFilters.isEmpty()) {
-					ReadPartition readPartition1 = getReadPartition(gatherFilters, total);
-					consumer.accept(readPartition1);
-					gatherFilters.clear();
-					total = 0L;
-				}
-				handleReadPartitionPrivate(nextIndex, null, null);
-			}
-			currentPartitionCollector = currentPartitionCollector.getSibling();
-			//this.currentPartitionCollector = currentPartitionCollector;
-		}
-		if(!gatherFilters.isEmpty()) {
-			ReadPartition readPartition1 = getReadPartition(gatherFilters, total);
-			consumer.accept(readPartition1);
-			gatherFilters.clear();
-			total = 0L;
+	private void emit(ReadPartition readPartition) {
+		synchronized (consumer) {
+			consumer.accept(readPartition);
 		}
 	}
 
-	private synchronized void handleReadPartitions() {
-		if(rootPartitionCollector.getState() == PartitionCollector.STATE_DONE) {
-			handleReadPartitionPrivate(rootPartitionCollector, null, null);
-			//parallelWorker.finished(() -> {
-			//	if(partitionFuture != null)
-			//		partitionFuture.cancel(true);
-			//	//noinspection ResultOfMethodCallIgnored
-			//	handleReadPartitions();
-			//	if(splitCompleteListener != null)
-			//		splitCompleteListener.completed(id);
-			//	context.getLog().info(id + ": Split job done because worker has finished");
-			//});
+	private interface PartitionProbe<T> {
+		T probe(TapPartitionFilter partitionFilter) throws Throwable;
+	}
+
+	/**
+	 * Gather adjacent final partition filters of one job, emit them as a ReadPartition once the gathered count is enough.
+	 */
+	private class PartitionGather {
+		private final Map<TapPartitionFilter, Long> gatherFilters = new LinkedHashMap<>();
+		private long total = 0L;
+
+		void add(TapPartitionFilter partitionFilter, long count) {
+			if(count < 0 || isNoBoundary(partitionFilter)) {
+				//unknown count or match only partition, make it a partition by itself
+				flush();
+				ReadPartition readPartition = ReadPartition.create().id(UUID.randomUUID().toString().replace("-", "")).partitionFilter(partitionFilter);
+				emit(readPartition);
+				return;
+			}
+			gatherFilters.put(partitionFilter, count);
+			total += count;
+			if(!countIsSlow && total >= maxRecordInPartition)
+				flush();
+		}
+
+		void flush() {
+			if(!gatherFilters.isEmpty()) {
+				emit(getReadPartition(gatherFilters, total));
+				gatherFilters.clear();
+				total = 0L;
+			}
 		}
 	}
 
@@ -405,6 +409,10 @@ public class DatabaseReadPartitionSplitter {
 		return minMaxSplitPieces;
 	}
 
+	public int getSplitParallelism() {
+		return splitParallelism;
+	}
+
 	public DatabaseReadPartitionSplitter id(String id) {
 		this.id = id;
 		return this;
@@ -449,6 +457,11 @@ public class DatabaseReadPartitionSplitter {
 		return this;
 	}
 
+	public DatabaseReadPartitionSplitter splitParallelism(int splitParallelism) {
+		this.splitParallelism = Math.max(1, splitParallelism);
+		return this;
+	}
+
 	public DatabaseReadPartitionSplitter maxRecordRatio(int maxRecordRatio) {
 		this.maxRecordRatio = maxRecordRatio;
 		return this;
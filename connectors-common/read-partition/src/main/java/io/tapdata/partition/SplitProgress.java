@@ -6,11 +6,6 @@ import io.tapdata.pdk.apis.partition.TapPartitionFilter;
  * @author aplomb
  */
 public class SplitProgress {
-	private PartitionCollector partitionCollector;
-	public SplitProgress partitionCollector(PartitionCollector partitionCollector) {
-		this.partitionCollector = partitionCollector;
-		return this;
-	}
 	private long count;
 	public SplitProgress count(long count) {
 		this.count = count;
@@ -54,12 +49,4 @@ public class SplitProgress {
 	public void setPartitionFilter(TapPartitionFilter partitionFilter) {
 		this.partitionFilter = partitionFilter;
 	}
-
-	public PartitionCollector getPartitionCollector() {
-		return partitionCollector;
-	}
-
-	public void setPartitionCollector(PartitionCollector partitionCollector) {
-		this.partitionCollector = partitionCollector;
-	}
 }
@@ -0,0 +1,73 @@
+package io.tapdata.common;
+
+import io.tapdata.entity.utils.DataMap;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * offset for parallel primary key chunk reading
+ * chunk i covers (chunks[i].columnValue, chunks[i+1].columnValue], the last chunk has no upper bound
+ * an unfinished chunk keeps the primary key of its latest row read, it is resumed after that key
+ */
+public class CommonDbChunkOffset implements Serializable {
+
+    private List<CommonDbOffset> chunks;
+    private Set<Integer> finishedChunks;
+    private Map<Integer, DataMap> readKeys;
+
+    public CommonDbChunkOffset() {
+        this(new ArrayList<>(), new HashSet<>());
+    }
+
+    public CommonDbChunkOffset(List<CommonDbOffset> chunks, Set<Integer> finishedChunks) {
+        this(chunks, finishedChunks, new HashMap<>());
+    }
+
+    public CommonDbChunkOffset(List<CommonDbOffset> chunks, Set<Integer> finishedChunks, Map<Integer, DataMap> readKeys) {
+        this.chunks = chunks;
+        this.finishedChunks = finishedChunks;
+        this.readKeys = readKeys;
+    }
+
+    public boolean isFinished(int chunkIndex) {
+        return finishedChunks.contains(chunkIndex);
+    }
+
+    public CommonDbChunkOffset copy() {
+        return new CommonDbChunkOffset(new ArrayList<>(chunks), new HashSet<>(finishedChunks), new HashMap<>(getReadKeys()));
+    }
+
+    public List<CommonDbOffset> getChunks() {
+        return chunks;
+    }
+
+    public void setChunks(List<CommonDbOffset> chunks) {
+        this.chunks = chunks;
+    }
+
+    public Set<Integer> getFinishedChunks() {
+        return finishedChunks;
+    }
+
+    public void setFinishedChunks(Set<Integer> finishedChunks) {
+        this.finishedChunks = finishedChunks;
+    }
+
+    public Map<Integer, DataMap> getReadKeys() {
+        //offsets saved before the read keys were kept have none
+        if (null == readKeys) {
+            readKeys = new HashMap<>();
+        }
+        return readKeys;
+    }
+
+    public void setReadKeys(Map<Integer, DataMap> readKeys) {
+        this.readKeys = readKeys;
+    }
+}
@@ -42,6 +42,11 @@ public class CommonDbConfig implements Serializable {
     private Boolean hashSplit = false;
     private int maxSplit = 20;
     private int batchReadThreadSize = 4;
+    private Boolean chunkSplit = false;
+    private long chunkSize = 1000000L;
+    private Boolean reuseWriteSession = false;
+    private int statementCacheSize = 100;
+    private Boolean planWrite = false;
     private Boolean doubleActive = false;
     private Boolean oldVersionTimezone = false;
     private Boolean createAutoInc = false;
@@ -279,6 +284,46 @@ public class CommonDbConfig implements Serializable {
         this.batchReadThreadSize = batchReadThreadSize;
     }
 
+    public Boolean getChunkSplit() {
+        return chunkSplit;
+    }
+
+    public void setChunkSplit(Boolean chunkSplit) {
+        this.chunkSplit = chunkSplit;
+    }
+
+    public long getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(long chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    public Boolean getReuseWriteSession() {
+        return reuseWriteSession;
+    }
+
+    public void setReuseWriteSession(Boolean reuseWriteSession) {
+        this.reuseWriteSession = reuseWriteSession;
+    }
+
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    public void setStatementCacheSize(int statementCacheSize) {
+        this.statementCacheSize = statementCacheSize;
+    }
+
+    public Boolean getPlanWrite() {
+        return planWrite;
+    }
+
+    public void setPlanWrite(Boolean planWrite) {
+        this.planWrite = planWrite;
+    }
+
     public Boolean getDoubleActive() {
         return doubleActive;
     }
@@ -3,6 +3,8 @@ package io.tapdata.common;
 import io.tapdata.base.ConnectorBase;
 import io.tapdata.common.ddl.DDLSqlGenerator;
 import io.tapdata.common.dml.NormalWriteRecorder;
+import io.tapdata.common.dml.WriteSession;
+import io.tapdata.common.dml.WriteSessionManager;
 import io.tapdata.common.exception.AbstractExceptionCollector;
 import io.tapdata.common.exception.ExceptionCollector;
 import io.tapdata.entity.TapConstraintException;
@@ -39,6 +41,7 @@ import java.sql.SQLException;
 import java.sql.SQLRecoverableException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -53,11 +56,15 @@ public abstract class CommonDbConnector extends ConnectorBase {
 
     //SQL for Primary key sorting area reading
     private final static String FIND_KEY_FROM_OFFSET = "select * from (select %s, row_number() over (order by %s) as tap__rowno from %s ) a where tap__rowno=%s";
-    private final static String wherePattern = "where %s ";
+    //SQL for Primary key chunk boundaries sampling in one scan, for the databases with window functions
+    protected final static String FIND_KEY_BOUNDARIES = "select %s from (select %s, row_number() over (order by %s) as tap__rowno from %s ) a where mod(tap__rowno, %s)=0 order by tap__rowno";
+    private final static String wherePattern = " where %s ";
     //offset for Primary key sorting area reading
     private final static Long offsetSize = 1000000L;
     protected static final int BATCH_ADVANCE_READ_LIMIT = 1000;
     protected Map<String, DataMap> writtenTableMap = new ConcurrentHashMap<>();
+    //row readers of the tables read, shared by the batch read threads
+    protected final CompiledRowReader.Cache rowReaderCache = new CompiledRowReader.Cache();
     protected static final String HAS_UNIQUE_INDEX = "HAS_UNIQUE_INDEX";
     protected static final String HAS_MULTI_UNIQUE_INDEX = "HAS_MULTI_UNIQUE_INDEX";
     protected static final String HAS_AUTO_INCR = "HAS_AUTO_INCR";
@@ -79,6 +86,8 @@ public abstract class CommonDbConnector extends ConnectorBase {
     };
     protected Map<String, Connection> transactionConnectionMap = new ConcurrentHashMap<>();
     protected boolean isTransaction = false;
+    //connections and prepared statements reused by writeRecord when reuseWriteSession is on
+    protected WriteSessionManager writeSessionManager;
 
     @Override
     public int tableCount(TapConnectionContext connectionContext) throws SQLException {
@@ -246,7 +255,10 @@ public abstract class CommonDbConnector extends ConnectorBase {
     //Primary key sorting area reading
     protected void batchReadV3(TapConnectorContext tapConnectorContext, TapTable tapTable, Object offsetState, int eventBatchSize, BiConsumer<List<TapEvent>, Object> eventsOffsetConsumer) throws Throwable {
         List<String> primaryKeys = new ArrayList<>(tapTable.primaryKeys());
-        char escapeChar = commonDbConfig.getEscapeChar();
+        if (offsetState instanceof CommonDbChunkOffset || (EmptyKit.isNull(offsetState) && Boolean.TRUE.equals(commonDbConfig.getChunkSplit()) && EmptyKit.isNotEmpty(primaryKeys))) {
+            batchReadWithChunkSplit(tapTable, (CommonDbChunkOffset) offsetState, eventBatchSize, eventsOffsetConsumer);
+            return;
+        }
         String selectClause = getSelectSql(tapTable);
         CommonDbOffset offset = (CommonDbOffset) offsetState;
         if (EmptyKit.isNull(offset)) {
@@ -258,80 +270,180 @@ public abstract class CommonDbConnector extends ConnectorBase {
             while (isAlive()) {
                 DataMap from = offset.getColumnValue();
                 DataMap to = findPrimaryKeyValue(tapTable, offset.getOffsetSize() + offsetSize);
-                if (EmptyKit.isEmpty(from) && EmptyKit.isEmpty(to)) {
-                    submitInitialReadEvents(selectClause, tapTable, eventBatchSize, eventsOffsetConsumer, offset);
+                submitPrimaryKeyRangeEvents(selectClause, primaryKeys, from, to, tapTable, eventBatchSize, eventsOffsetConsumer, offset);
+                if (EmptyKit.isEmpty(to)) {
                     break;
-                } else if (EmptyKit.isEmpty(from) && EmptyKit.isNotEmpty(to)) {
-                    for (int i = 0; i < primaryKeys.size(); i++) {
-                        StringBuilder whereAppender = new StringBuilder();
-                        whereAppender.append(primaryKeys.stream().limit(i).map(col -> escapeChar + col + escapeChar + "=?").collect(Collectors.joining(" and ")));
-                        if (i > 0) {
-                            whereAppender.append(" and ");
-                        }
-                        if (i == primaryKeys.size() - 1) {
-                            whereAppender.append(escapeChar).append(primaryKeys.get(i)).append(escapeChar).append("<=?");
-                        } else {
-                            whereAppender.append(escapeChar).append(primaryKeys.get(i)).append(escapeChar).append("<?");
-                        }
-                        List<Object> params = primaryKeys.stream().limit(i + 1).map(to::get).collect(Collectors.toList());
-                        submitOffsetReadEvents(selectClause + String.format(wherePattern, whereAppender), params, tapTable, eventBatchSize, eventsOffsetConsumer, offset);
-                    }
-                } else if (EmptyKit.isNotEmpty(from) && EmptyKit.isNotEmpty(to)) {
-                    int sameKeySize = 0;
-                    for (String key : primaryKeys) {
-                        if (Objects.equals(from.get(key), to.get(key))) {
-                            sameKeySize++;
-                        } else {
-                            break;
-                        }
-                    }
-                    for (int i = primaryKeys.size() - 1; i > sameKeySize; i--) {
-                        StringBuilder whereAppender = new StringBuilder();
-                        whereAppender.append(primaryKeys.stream().limit(i).map(col -> escapeChar + col + escapeChar + "=?").collect(Collectors.joining(" and ")));
-                        if (i > 0) {
-                            whereAppender.append(" and ");
-                        }
-                        whereAppender.append(escapeChar).append(primaryKeys.get(i)).append(escapeChar).append(">?");
-                        List<Object> params = primaryKeys.stream().limit(i + 1).map(from::get).collect(Collectors.toList());
-                        submitOffsetReadEvents(selectClause + String.format(wherePattern, whereAppender), params, tapTable, eventBatchSize, eventsOffsetConsumer, offset);
-                    }
-                    StringBuilder whereAppenderMajor = new StringBuilder();
-                    whereAppenderMajor.append(primaryKeys.stream().limit(sameKeySize).map(col -> escapeChar + col + escapeChar + "=?").collect(Collectors.joining(" and ")));
-                    if (sameKeySize > 0) {
-                        whereAppenderMajor.append(" and ");
-                    }
-                    whereAppenderMajor.append(escapeChar).append(primaryKeys.get(sameKeySize)).append(escapeChar).append(">? and ").append(escapeChar).append(primaryKeys.get(sameKeySize)).append(escapeChar).append("<?");
-                    List<Object> paramsMajor = primaryKeys.stream().limit(sameKeySize + 1).map(from::get).collect(Collectors.toList());
-                    paramsMajor.add(to.get(primaryKeys.get(sameKeySize)));
-                    submitOffsetReadEvents(selectClause + String.format(wherePattern, whereAppenderMajor), paramsMajor, tapTable, eventBatchSize, eventsOffsetConsumer, offset);
-                    for (int i = sameKeySize + 1; i <= primaryKeys.size(); i++) {
-                        StringBuilder whereAppender = new StringBuilder();
-                        whereAppender.append(primaryKeys.stream().limit(i).map(col -> escapeChar + col + escapeChar + "=?").collect(Collectors.joining(" and ")));
-                        if (i < primaryKeys.size()) {
-                            whereAppender.append(" and ").append(escapeChar).append(primaryKeys.get(i)).append(escapeChar).append("<?");
-                        }
-                        List<Object> params = primaryKeys.stream().limit(i).map(to::get).collect(Collectors.toList());
-                        if (i < primaryKeys.size()) {
-                            params.add(to.get(primaryKeys.get(i)));
-                        }
-                        submitOffsetReadEvents(selectClause + String.format(wherePattern, whereAppender), params, tapTable, eventBatchSize, eventsOffsetConsumer, offset);
-                    }
+                }
+                offset = new CommonDbOffset(to, offset.getOffsetSize() + offsetSize);
+            }
+        }
+    }
+
+    //read rows whose primary key is in (from, to] in key order, empty from or to means no bound
+    private void submitPrimaryKeyRangeEvents(String selectClause, List<String> primaryKeys, DataMap from, DataMap to, TapTable tapTable, int eventBatchSize, BiConsumer<List<TapEvent>, Object> eventsOffsetConsumer, Object offset) throws Throwable {
+        char escapeChar = commonDbConfig.getEscapeChar();
+        //the conditions below are ascending ranges, ordered in each of them the rows of (from, to] come in key order
+        String orderClause = "order by " + escapeChar + String.join(escapeChar + "," + escapeChar, primaryKeys) + escapeChar;
+        if (EmptyKit.isEmpty(from) && EmptyKit.isEmpty(to)) {
+            submitInitialReadEvents(selectClause + " " + orderClause, tapTable, eventBatchSize, eventsOffsetConsumer, offset);
+        } else if (EmptyKit.isEmpty(from) && EmptyKit.isNotEmpty(to)) {
+            for (int i = 0; i < primaryKeys.size(); i++) {
+                StringBuilder whereAppender = new StringBuilder();
+                whereAppender.append(primaryKeys.stream().limit(i).map(col -> escapeChar + col + escapeChar + "=?").collect(Collectors.joining(" and ")));
+                if (i > 0) {
+                    whereAppender.append(" and ");
+                }
+                if (i == primaryKeys.size() - 1) {
+                    whereAppender.append(escapeChar).append(primaryKeys.get(i)).append(escapeChar).append("<=?");
+                } else {
+                    whereAppender.append(escapeChar).append(primaryKeys.get(i)).append(escapeChar).append("<?");
+                }
+                List<Object> params = primaryKeys.stream().limit(i + 1).map(to::get).collect(Collectors.toList());
+                submitOffsetReadEvents(selectClause + String.format(wherePattern, whereAppender) + orderClause, params, tapTable, eventBatchSize, eventsOffsetConsumer, offset);
+            }
+        } else if (EmptyKit.isNotEmpty(from) && EmptyKit.isNotEmpty(to)) {
+            int sameKeySize = 0;
+            for (String key : primaryKeys) {
+                if (Objects.equals(from.get(key), to.get(key))) {
+                    sameKeySize++;
                 } else {
-                    for (int i = primaryKeys.size() - 1; i >= 0; i--) {
-                        StringBuilder whereAppender = new StringBuilder();
-                        whereAppender.append(primaryKeys.stream().limit(i).map(col -> escapeChar + col + escapeChar + "=?").collect(Collectors.joining(" and ")));
-                        if (i > 0) {
-                            whereAppender.append(" and ");
-                        }
-                        whereAppender.append(escapeChar).append(primaryKeys.get(i)).append(escapeChar).append(">?");
-                        List<Object> params = primaryKeys.stream().limit(i + 1).map(from::get).collect(Collectors.toList());
-                        submitOffsetReadEvents(selectClause + String.format(wherePattern, whereAppender), params, tapTable, eventBatchSize, eventsOffsetConsumer, offset);
-                    }
                     break;
                 }
-                offset = new CommonDbOffset(to, offset.getOffsetSize() + offsetSize);
             }
+            for (int i = primaryKeys.size() - 1; i > sameKeySize; i--) {
+                StringBuilder whereAppender = new StringBuilder();
+                whereAppender.append(primaryKeys.stream().limit(i).map(col -> escapeChar + col + escapeChar + "=?").collect(Collectors.joining(" and ")));
+                if (i > 0) {
+                    whereAppender.append(" and ");
+                }
+                whereAppender.append(escapeChar).append(primaryKeys.get(i)).append(escapeChar).append(">?");
+                List<Object> params = primaryKeys.stream().limit(i + 1).map(from::get).collect(Collectors.toList());
+                submitOffsetReadEvents(selectClause + String.format(wherePattern, whereAppender) + orderClause, params, tapTable, eventBatchSize, eventsOffsetConsumer, offset);
+            }
+            StringBuilder whereAppenderMajor = new StringBuilder();
+            whereAppenderMajor.append(primaryKeys.stream().limit(sameKeySize).map(col -> escapeChar + col + escapeChar + "=?").collect(Collectors.joining(" and ")));
+            if (sameKeySize > 0) {
+                whereAppenderMajor.append(" and ");
+            }
+            whereAppenderMajor.append(escapeChar).append(primaryKeys.get(sameKeySize)).append(escapeChar).append(">? and ").append(escapeChar).append(primaryKeys.get(sameKeySize)).append(escapeChar).append("<?");
+            List<Object> paramsMajor = primaryKeys.stream().limit(sameKeySize + 1).map(from::get).collect(Collectors.toList());
+            paramsMajor.add(to.get(primaryKeys.get(sameKeySize)));
+            submitOffsetReadEvents(selectClause + String.format(wherePattern, whereAppenderMajor) + orderClause, paramsMajor, tapTable, eventBatchSize, eventsOffsetConsumer, offset);
+            for (int i = sameKeySize + 1; i <= primaryKeys.size(); i++) {
+                StringBuilder whereAppender = new StringBuilder();
+                whereAppender.append(primaryKeys.stream().limit(i).map(col -> escapeChar + col + escapeChar + "=?").collect(Collectors.joining(" and ")));
+                if (i < primaryKeys.size()) {
+                    whereAppender.append(" and ").append(escapeChar).append(primaryKeys.get(i)).append(escapeChar).append("<?");
+                }
+                List<Object> params = primaryKeys.stream().limit(i).map(to::get).collect(Collectors.toList());
+                if (i < primaryKeys.size()) {
+                    params.add(to.get(primaryKeys.get(i)));
+                }
+                submitOffsetReadEvents(selectClause + String.format(wherePattern, whereAppender) + orderClause, params, tapTable, eventBatchSize, eventsOffsetConsumer, offset);
+            }
+        } else {
+            for (int i = primaryKeys.size() - 1; i >= 0; i--) {
+                StringBuilder whereAppender = new StringBuilder();
+                whereAppender.append(primaryKeys.stream().limit(i).map(col -> escapeChar + col + escapeChar + "=?").collect(Collectors.joining(" and ")));
+                if (i > 0) {
+                    whereAppender.append(" and ");
+                }
+                whereAppender.append(escapeChar).append(primaryKeys.get(i)).append(escapeChar).append(">?");
+                List<Object> params = primaryKeys.stream().limit(i + 1).map(from::get).collect(Collectors.toList());
+                submitOffsetReadEvents(selectClause + String.format(wherePattern, whereAppender) + orderClause, params, tapTable, eventBatchSize, eventsOffsetConsumer, offset);
+            }
+        }
+    }
+
+    //Primary key chunk reading: all chunk boundaries are sampled in one pass, then chunks are read concurrently
+    protected void batchReadWithChunkSplit(TapTable tapTable, CommonDbChunkOffset chunkOffset, int eventBatchSize, BiConsumer<List<TapEvent>, Object> eventsOffsetConsumer) throws Throwable {
+        List<String> primaryKeys = new ArrayList<>(tapTable.primaryKeys());
+        String selectClause = getSelectSql(tapTable);
+        if (EmptyKit.isNull(chunkOffset)) {
+            chunkOffset = new CommonDbChunkOffset(findPrimaryKeyChunks(tapTable, commonDbConfig.getChunkSize()), new HashSet<>());
+            tapLogger.info("batchRead, table {} is split into {} chunks by primary key", tapTable.getId(), chunkOffset.getChunks().size());
+        }
+        List<CommonDbOffset> chunks = chunkOffset.getChunks();
+        //an unfinished chunk is resumed after its latest key read
+        Map<Integer, DataMap> resumeKeys = new HashMap<>(chunkOffset.getReadKeys());
+        ConcurrentLinkedQueue<Integer> pendingChunks = new ConcurrentLinkedQueue<>();
+        for (int i = 0; i < chunks.size(); i++) {
+            if (!chunkOffset.isFinished(i)) {
+                pendingChunks.add(i);
+            }
+        }
+        if (pendingChunks.isEmpty()) {
+            return;
+        }
+        int threadSize = Math.min(commonDbConfig.getBatchReadThreadSize(), pendingChunks.size());
+        CommonDbChunkOffset finalChunkOffset = chunkOffset;
+        AtomicReference<Throwable> throwable = new AtomicReference<>();
+        CountDownLatch countDownLatch = new CountDownLatch(threadSize);
+        ExecutorService executorService = Executors.newFixedThreadPool(threadSize);
+        try {
+            for (int i = 0; i < threadSize; i++) {
+                executorService.submit(() -> {
+                    try {
+                        Integer chunkIndex;
+                        while (isAlive() && EmptyKit.isNull(throwable.get()) && EmptyKit.isNotNull(chunkIndex = pendingChunks.poll())) {
+                            int index = chunkIndex;
+                            DataMap from = resumeKeys.getOrDefault(index, chunks.get(index).getColumnValue());
+                            DataMap to = index + 1 < chunks.size() ? chunks.get(index + 1).getColumnValue() : new DataMap();
+                            //hold the latest batch back, so that it can carry the finished flag of this chunk
+                            AtomicReference<List<TapEvent>> lastEvents = new AtomicReference<>();
+                            submitPrimaryKeyRangeEvents(selectClause, primaryKeys, from, to, tapTable, eventBatchSize, (events, offset) -> {
+                                List<TapEvent> previous = lastEvents.getAndSet(events);
+                                if (EmptyKit.isNotEmpty(previous)) {
+                                    syncChunkEventSubmit(previous, finalChunkOffset, index, lastReadKey(previous, primaryKeys), eventsOffsetConsumer);
+                                }
+                            }, null);
+                            if (isAlive()) {
+                                syncChunkEventSubmit(lastEvents.get(), finalChunkOffset, index, null, eventsOffsetConsumer);
+                            } else if (EmptyKit.isNotEmpty(lastEvents.get())) {
+                                syncChunkEventSubmit(lastEvents.get(), finalChunkOffset, index, lastReadKey(lastEvents.get(), primaryKeys), eventsOffsetConsumer);
+                            }
+                        }
+                    } catch (Throwable e) {
+                        throwable.set(e);
+                    } finally {
+                        countDownLatch.countDown();
+                    }
+                });
+            }
+            try {
+                countDownLatch.await();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            if (EmptyKit.isNotNull(throwable.get())) {
+                exceptionCollector.collectTerminateByServer(throwable.get());
+                exceptionCollector.collectReadPrivileges("batchReadV3", Collections.emptyList(), throwable.get());
+                exceptionCollector.revealException(throwable.get());
+                throw throwable.get();
+            }
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    //readKey is the latest key read of the chunk, null when the chunk is finished
+    protected synchronized void syncChunkEventSubmit(List<TapEvent> eventList, CommonDbChunkOffset chunkOffset, int chunkIndex, DataMap readKey, BiConsumer<List<TapEvent>, Object> eventsOffsetConsumer) {
+        if (EmptyKit.isNull(readKey)) {
+            chunkOffset.getFinishedChunks().add(chunkIndex);
+            chunkOffset.getReadKeys().remove(chunkIndex);
+        } else {
+            chunkOffset.getReadKeys().put(chunkIndex, readKey);
         }
+        if (EmptyKit.isNotEmpty(eventList)) {
+            eventsOffsetConsumer.accept(eventList, chunkOffset.copy());
+        }
+    }
+
+    private DataMap lastReadKey(List<TapEvent> events, List<String> primaryKeys) {
+        Map<String, Object> after = ((TapInsertRecordEvent) events.get(events.size() - 1)).getAfter();
+        DataMap readKey = new DataMap();
+        primaryKeys.forEach(key -> readKey.put(key, after.get(key)));
+        return readKey;
     }
 
     private void submitInitialReadEvents(String sql, TapTable tapTable, int eventBatchSize, BiConsumer<List<TapEvent>, Object> eventsOffsetConsumer, Object offset) throws Throwable {
@@ -344,11 +456,10 @@ public abstract class CommonDbConnector extends ConnectorBase {
 
     private void allOverResultSet(ResultSet resultSet, TapTable tapTable, int eventBatchSize, BiConsumer<List<TapEvent>, Object> eventsOffsetConsumer, Object offset) throws SQLException {
         List<TapEvent> tapEvents = list();
-        //get all column names
-        List<String> columnNames = DbKit.getColumnsFromResultSet(resultSet);
+        CompiledRowReader rowReader = compileRowReader(resultSet, tapTable);
         try {
             while (isAlive() && resultSet.next()) {
-                DataMap dataMap = DbKit.getRowFromResultSet(resultSet, columnNames);
+                DataMap dataMap = rowReader.read(resultSet);
                 processDataMap(dataMap, tapTable);
                 tapEvents.add(insertRecordEvent(dataMap, tapTable.getId()));
                 if (tapEvents.size() == eventBatchSize) {
@@ -371,6 +482,11 @@ public abstract class CommonDbConnector extends ConnectorBase {
 
     }
 
+    //compiled once per table and result set columns, and used for every row of the result sets reading them
+    protected CompiledRowReader compileRowReader(ResultSet resultSet, TapTable tapTable) throws SQLException {
+        return rowReaderCache.get(resultSet.getMetaData(), tapTable, null);
+    }
+
     private DataMap findPrimaryKeyValue(TapTable tapTable, Long offsetSize) throws Throwable {
         char escapeChar = commonDbConfig.getEscapeChar();
         String primaryKeyString = escapeChar + String.join(escapeChar + "," + escapeChar, tapTable.primaryKeys()) + escapeChar;
@@ -383,6 +499,73 @@ public abstract class CommonDbConnector extends ConnectorBase {
         return dataMap;
     }
 
+    //sample every chunkSize-th primary key, in one scan when the database has a boundaries sql, or else by keyset pages
+    private List<CommonDbOffset> findPrimaryKeyChunks(TapTable tapTable, Long chunkSize) throws Throwable {
+        char escapeChar = commonDbConfig.getEscapeChar();
+        List<String> primaryKeys = new ArrayList<>(tapTable.primaryKeys());
+        String primaryKeyString = escapeChar + String.join(escapeChar + "," + escapeChar, primaryKeys) + escapeChar;
+        String table = getSchemaAndTable(tapTable.getId());
+        List<CommonDbOffset> chunks = new ArrayList<>();
+        chunks.add(new CommonDbOffset(new DataMap(), 0L));
+        String boundariesSql = getKeyBoundariesSql(primaryKeyString, table, chunkSize);
+        if (EmptyKit.isNotBlank(boundariesSql)) {
+            jdbcContext.query(boundariesSql, resultSet -> {
+                List<String> columnNames = DbKit.getColumnsFromResultSet(resultSet);
+                while (isAlive() && resultSet.next()) {
+                    chunks.add(new CommonDbOffset(DataMap.create(DbKit.getRowFromResultSet(resultSet, columnNames)), chunks.size() * chunkSize));
+                }
+            });
+            return chunks;
+        }
+        //every page starts after the latest boundary, so the pages together walk the primary key index once
+        while (isAlive()) {
+            DataMap latest = chunks.get(chunks.size() - 1).getColumnValue();
+            List<Object> params = new ArrayList<>();
+            String whereClause = EmptyKit.isEmpty(latest) ? " " : String.format(wherePattern, afterKeyCondition(primaryKeys, latest, params));
+            DataMap boundary = new DataMap();
+            jdbcContext.prepareQuery("select " + primaryKeyString + " from " + table + whereClause + "order by " + primaryKeyString + getKeySampleClause(chunkSize), params, resultSet -> {
+                if (resultSet.next()) {
+                    boundary.putAll(DataMap.create(DbKit.getRowFromResultSet(resultSet, DbKit.getColumnsFromResultSet(resultSet))));
+                }
+            });
+            if (EmptyKit.isEmpty(boundary)) {
+                break;
+            }
+            chunks.add(new CommonDbOffset(boundary, chunks.size() * chunkSize));
+        }
+        return chunks;
+    }
+
+    /**
+     * SQL sampling every chunkSize-th primary key in key order in one scan,
+     * null means the boundaries are sampled by keyset pages, the databases with window functions may return FIND_KEY_BOUNDARIES
+     */
+    protected String getKeyBoundariesSql(String primaryKeyString, String table, long chunkSize) {
+        return null;
+    }
+
+    //keep the chunkSize-th row of an ordered keyset page, override it for the databases without limit and offset
+    protected String getKeySampleClause(long chunkSize) {
+        return " limit 1 offset " + (chunkSize - 1);
+    }
+
+    //rows after the key in the order of the primary keys, written without row value comparison
+    private String afterKeyCondition(List<String> primaryKeys, DataMap key, List<Object> params) {
+        char escapeChar = commonDbConfig.getEscapeChar();
+        List<String> conditions = new ArrayList<>();
+        for (int i = 0; i < primaryKeys.size(); i++) {
+            StringBuilder condition = new StringBuilder("(");
+            for (int j = 0; j < i; j++) {
+                condition.append(escapeChar).append(primaryKeys.get(j)).append(escapeChar).append("=? and ");
+                params.add(key.get(primaryKeys.get(j)));
+            }
+            condition.append(escapeChar).append(primaryKeys.get(i)).append(escapeChar).append(">?)");
+            params.add(key.get(primaryKeys.get(i)));
+            conditions.add(condition.toString());
+        }
+        return String.join(" or ", conditions);
+    }
+
     protected void clearTable(TapConnectorContext tapConnectorContext, TapClearTableEvent tapClearTableEvent) throws SQLException {
         if (jdbcContext.queryAllTables(Collections.singletonList(tapClearTableEvent.getTableId())).size() >= 1) {
             jdbcContext.execute("truncate table " + getSchemaAndTable(tapClearTableEvent.getTableId()));
@@ -392,6 +575,7 @@ public abstract class CommonDbConnector extends ConnectorBase {
     }
 
     protected void dropTable(TapConnectorContext tapConnectorContext, TapDropTableEvent tapDropTableEvent) throws SQLException {
+        invalidateWriteSession(tapDropTableEvent.getTableId());
         if (jdbcContext.queryAllTables(Collections.singletonList(tapDropTableEvent.getTableId())).size() >= 1) {
             jdbcContext.execute("drop table " + getSchemaAndTable(tapDropTableEvent.getTableId()));
         } else {
@@ -585,6 +769,7 @@ public abstract class CommonDbConnector extends ConnectorBase {
         if (null == sqlList) {
             return;
         }
+        invalidateWriteSession(tapFieldBaseEvent.getTableId());
         try {
             jdbcContext.batchExecute(sqlList);
         } catch (SQLException e) {
@@ -729,7 +914,12 @@ public abstract class CommonDbConnector extends ConnectorBase {
     }
 
     protected void batchReadWithoutOffset(TapConnectorContext tapConnectorContext, TapTable tapTable, Object offsetState, int eventBatchSize, BiConsumer<List<TapEvent>, Object> eventsOffsetConsumer) throws Throwable {
-        if (Boolean.TRUE.equals(commonDbConfig.getHashSplit())) {
+        //a chunk offset is resumed by chunks whatever the current switch is, the finished chunks are skipped
+        if (offsetState instanceof CommonDbChunkOffset) {
+            batchReadWithChunkSplit(tapTable, (CommonDbChunkOffset) offsetState, eventBatchSize, eventsOffsetConsumer);
+        } else if (Boolean.TRUE.equals(commonDbConfig.getChunkSplit()) && EmptyKit.isNotEmpty(tapTable.primaryKeys())) {
+            batchReadWithChunkSplit(tapTable, null, eventBatchSize, eventsOffsetConsumer);
+        } else if (Boolean.TRUE.equals(commonDbConfig.getHashSplit())) {
             batchReadWithHashSplit(tapConnectorContext, tapTable, offsetState, eventBatchSize, eventsOffsetConsumer);
         } else {
             batchReadWithoutHashSplit(tapConnectorContext, tapTable, offsetState, eventBatchSize, eventsOffsetConsumer);
@@ -740,11 +930,10 @@ public abstract class CommonDbConnector extends ConnectorBase {
         String sql = getBatchReadSelectSql(tapTable);
         jdbcContext.query(sql, resultSet -> {
             List<TapEvent> tapEvents = list();
-            //get all column names
-            List<String> columnNames = DbKit.getColumnsFromResultSet(resultSet);
+            CompiledRowReader rowReader = compileRowReader(resultSet, tapTable);
             try {
                 while (isAlive() && resultSet.next()) {
-                    DataMap dataMap = DbKit.getRowFromResultSet(resultSet, columnNames);
+                    DataMap dataMap = rowReader.read(resultSet);
                     processDataMap(dataMap, tapTable);
                     tapEvents.add(insertRecordEvent(dataMap, tapTable.getId()));
                     if (tapEvents.size() == eventBatchSize) {
@@ -780,67 +969,57 @@ public abstract class CommonDbConnector extends ConnectorBase {
 
     protected void batchReadWithHashSplit(TapConnectorContext tapConnectorContext, TapTable tapTable, Object offsetState, int eventBatchSize, BiConsumer<List<TapEvent>, Object> eventsOffsetConsumer) throws Throwable {
         String sql = getBatchReadSelectSql(tapTable);
-        AtomicReference<Throwable> throwable = new AtomicReference<>();
-        CountDownLatch countDownLatch = new CountDownLatch(commonDbConfig.getBatchReadThreadSize());
-        ExecutorService executorService = Executors.newFixedThreadPool(commonDbConfig.getBatchReadThreadSize());
+        SplitEventHandoff eventHandoff = new SplitEventHandoff(commonDbConfig.getBatchReadThreadSize() * 2, eventsOffsetConsumer);
         try {
-            for (int i = 0; i < commonDbConfig.getBatchReadThreadSize(); i++) {
-                final int threadIndex = i;
-                executorService.submit(() -> {
+            eventHandoff.readSplits(commonDbConfig.getBatchReadThreadSize(), commonDbConfig.getMaxSplit(), split -> {
+                String splitSql = sql + " WHERE " + getHashSplitModConditions(tapTable, commonDbConfig.getMaxSplit(), split);
+                tapLogger.info("batchRead, splitSql[{}]: {}", split + 1, splitSql);
+                SplitResumeKey resumeKey = SplitResumeKey.create(tapTable, commonDbConfig.getEscapeChar());
+                int retry = 20;
+                while (retry-- > 0 && isAlive()) {
                     try {
-                        for (int ii = threadIndex; ii < commonDbConfig.getMaxSplit(); ii += commonDbConfig.getBatchReadThreadSize()) {
-                            String splitSql = sql + " WHERE " + getHashSplitModConditions(tapTable, commonDbConfig.getMaxSplit(), ii);
-                            tapLogger.info("batchRead, splitSql[{}]: {}", ii + 1, splitSql);
-                            int retry = 20;
-                            while (retry-- > 0 && isAlive()) {
-                                try {
-                                    jdbcContext.query(splitSql, resultSet -> {
-                                        List<TapEvent> tapEvents = list();
-                                        //get all column names
-                                        List<String> columnNames = DbKit.getColumnsFromResultSet(resultSet);
-                                        while (isAlive() && resultSet.next()) {
-                                            DataMap dataMap = DbKit.getRowFromResultSet(resultSet, columnNames);
-                                            processDataMap(dataMap, tapTable);
-                                            tapEvents.add(insertRecordEvent(dataMap, tapTable.getId()));
-                                            if (tapEvents.size() == eventBatchSize) {
-                                                syncEventSubmit(tapEvents, eventsOffsetConsumer);
-                                                tapEvents = list();
-                                            }
-                                        }
-                                        //last events those less than eventBatchSize
-                                        if (EmptyKit.isNotEmpty(tapEvents)) {
-                                            syncEventSubmit(tapEvents, eventsOffsetConsumer);
-                                        }
-                                    });
-                                    break;
-                                } catch (Exception e) {
-                                    if (retry == 0 || !(e instanceof SQLRecoverableException || e instanceof IOException)) {
-                                        throw e;
+                        ResultSetConsumer resultSetConsumer = resultSet -> {
+                            List<TapEvent> tapEvents = list();
+                            CompiledRowReader rowReader = compileRowReader(resultSet, tapTable);
+                            int[] keyIndexes = EmptyKit.isNull(resumeKey) ? null : resumeKey.columnIndexes(Arrays.asList(rowReader.getColumnNames()));
+                            while (isAlive() && resultSet.next()) {
+                                DataMap dataMap = rowReader.read(resultSet);
+                                processDataMap(dataMap, tapTable);
+                                tapEvents.add(insertRecordEvent(dataMap, tapTable.getId()));
+                                if (tapEvents.size() == eventBatchSize) {
+                                    eventHandoff.offer(tapEvents);
+                                    tapEvents = list();
+                                    if (EmptyKit.isNotNull(resumeKey)) {
+                                        resumeKey.mark(resultSet, keyIndexes);
                                     }
-                                    tapLogger.warn("batchRead, splitSql[{}]: {} failed, retrying...", ii + 1, splitSql);
                                 }
                             }
+                            //last events those less than eventBatchSize
+                            if (EmptyKit.isNotEmpty(tapEvents)) {
+                                eventHandoff.offer(tapEvents);
+                            }
+                        };
+                        if (EmptyKit.isNull(resumeKey)) {
+                            jdbcContext.query(splitSql, resultSetConsumer);
+                        } else if (resumeKey.isResumed()) {
+                            jdbcContext.prepareQuery(resumeKey.resumeSql(splitSql), resumeKey.params(), resultSetConsumer);
+                        } else {
+                            jdbcContext.query(resumeKey.resumeSql(splitSql), resultSetConsumer);
                         }
+                        break;
                     } catch (Exception e) {
-                        throwable.set(e);
-                    } finally {
-                        countDownLatch.countDown();
+                        if (retry == 0 || !(e instanceof SQLRecoverableException || e instanceof IOException)) {
+                            throw e;
+                        }
+                        tapLogger.warn("batchRead, splitSql[{}]: {} failed, retrying{}...", split + 1, splitSql, EmptyKit.isNotNull(resumeKey) && resumeKey.isResumed() ? " after last emitted key" : "");
                     }
-                });
-            }
-            try {
-                countDownLatch.await();
-            } catch (InterruptedException e) {
-                throw new RuntimeException(e);
-            }
-            if (EmptyKit.isNotNull(throwable.get())) {
-                exceptionCollector.collectTerminateByServer(throwable.get());
-                exceptionCollector.collectReadPrivileges("batchReadWithoutOffset", Collections.emptyList(), throwable.get());
-                exceptionCollector.revealException(throwable.get());
-                throw throwable.get();
-            }
-        } finally {
-            executorService.shutdown();
+                }
+            });
+        } catch (Throwable e) {
+            exceptionCollector.collectTerminateByServer(e);
+            exceptionCollector.collectReadPrivileges("batchReadWithoutOffset", Collections.emptyList(), e);
+            exceptionCollector.revealException(e);
+            throw e;
         }
     }
 
@@ -905,6 +1084,26 @@ public abstract class CommonDbConnector extends ConnectorBase {
         });
     }
 
+    protected synchronized WriteSession borrowWriteSession() throws SQLException {
+        if (EmptyKit.isNull(writeSessionManager)) {
+            writeSessionManager = new WriteSessionManager(jdbcContext, commonDbConfig.getStatementCacheSize());
+        }
+        return writeSessionManager.borrow();
+    }
+
+    protected void invalidateWriteSession(String tableId) {
+        if (EmptyKit.isNotNull(writeSessionManager)) {
+            writeSessionManager.invalidateTable(tableId);
+        }
+    }
+
+    protected void closeWriteSession() {
+        if (EmptyKit.isNotNull(writeSessionManager)) {
+            writeSessionManager.close();
+            writeSessionManager = null;
+        }
+    }
+
     protected void beginTransaction(TapConnectorContext connectorContext) throws Throwable {
         isTransaction = true;
     }
@@ -0,0 +1,239 @@
+package io.tapdata.common;
+
+import io.tapdata.entity.schema.TapField;
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.entity.schema.type.TapNumber;
+import io.tapdata.entity.schema.type.TapString;
+import io.tapdata.entity.schema.type.TapType;
+import io.tapdata.entity.utils.DataMap;
+import io.tapdata.kit.EmptyKit;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * row reader of one result set layout, column names and value extractors are computed once by ordinal
+ * the same values as DbKit.getRowFromResultSet are produced, without per row metadata and map resizing
+ * a reader is immutable, so one reader of a table is shared by the result sets and threads reading it, see Cache
+ */
+public class CompiledRowReader {
+
+    private final String[] columnNames;
+    private final ValueExtractor[] extractors;
+
+    private CompiledRowReader(String[] columnNames, ValueExtractor[] extractors) {
+        this.columnNames = columnNames;
+        this.extractors = extractors;
+    }
+
+    public static CompiledRowReader compile(ResultSetMetaData metaData, TapTable tapTable) throws SQLException {
+        return compile(metaData, tapTable, null);
+    }
+
+    /**
+     * @param extractorFactory special extractor of one column, null or null result means getObject with getString fallback
+     */
+    public static CompiledRowReader compile(ResultSetMetaData metaData, TapTable tapTable, ExtractorFactory extractorFactory) throws SQLException {
+        return compile(metaData, columnNames(metaData), tapTable, extractorFactory);
+    }
+
+    private static CompiledRowReader compile(ResultSetMetaData metaData, String[] columnNames, TapTable tapTable, ExtractorFactory extractorFactory) throws SQLException {
+        ValueExtractor[] extractors = new ValueExtractor[columnNames.length];
+        Map<String, TapField> fieldMap = EmptyKit.isNull(tapTable) || EmptyKit.isNull(tapTable.getNameFieldMap()) ? Collections.emptyMap() : tapTable.getNameFieldMap();
+        for (int i = 0; i < columnNames.length; i++) {
+            TapField tapField = fieldMap.get(columnNames[i]);
+            ValueExtractor extractor = null;
+            if (EmptyKit.isNotNull(extractorFactory)) {
+                extractor = extractorFactory.create(metaData, i + 1, columnNames[i], tapField);
+            }
+            extractors[i] = EmptyKit.isNull(extractor) ? typedExtractor(metaData, i + 1, tapField) : extractor;
+        }
+        return new CompiledRowReader(columnNames, extractors);
+    }
+
+    //the same as DbKit.getColumnsFromResultSet
+    private static String[] columnNames(ResultSetMetaData metaData) throws SQLException {
+        String[] columnNames = new String[metaData.getColumnCount()];
+        for (int i = 0; i < columnNames.length; i++) {
+            String label = metaData.getColumnLabel(i + 1);
+            String[] labelArr = label.split("\\.");
+            columnNames[i] = labelArr.length == 1 ? label : labelArr[labelArr.length - 1];
+        }
+        return columnNames;
+    }
+
+    /**
+     * the getter of the jdbc type when the tap type of the field agrees with it, it returns the same class as getObject,
+     * the other columns and the columns without tap type use getObject with getString fallback
+     */
+    private static ValueExtractor typedExtractor(ResultSetMetaData metaData, int index, TapField tapField) throws SQLException {
+        TapType tapType = EmptyKit.isNull(tapField) ? null : tapField.getTapType();
+        if (tapType instanceof TapString) {
+            switch (metaData.getColumnType(index)) {
+                case Types.CHAR:
+                case Types.VARCHAR:
+                case Types.LONGVARCHAR:
+                case Types.NCHAR:
+                case Types.NVARCHAR:
+                case Types.LONGNVARCHAR:
+                    return ResultSet::getString;
+                default:
+            }
+        } else if (tapType instanceof TapNumber && metaData.isSigned(index)) {
+            //unsigned columns are read as a wider class by getObject
+            switch (metaData.getColumnType(index)) {
+                case Types.INTEGER:
+                    return CompiledRowReader::getInteger;
+                case Types.BIGINT:
+                    return CompiledRowReader::getLong;
+                default:
+            }
+        }
+        return CompiledRowReader::getObject;
+    }
+
+    public String[] getColumnNames() {
+        return columnNames;
+    }
+
+    public int indexOf(String columnName) {
+        for (int i = 0; i < columnNames.length; i++) {
+            if (columnNames[i].equals(columnName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * read values of current row into array by ordinal
+     */
+    public Object[] readValues(ResultSet resultSet) throws SQLException {
+        Object[] values = new Object[columnNames.length];
+        for (int i = 0; i < extractors.length; i++) {
+            values[i] = extractors[i].extract(resultSet, i + 1);
+        }
+        return values;
+    }
+
+    public DataMap read(ResultSet resultSet) throws SQLException {
+        return toDataMap(readValues(resultSet));
+    }
+
+    //putAll into an empty map sizes the table once
+    public DataMap toDataMap(Object[] values) {
+        DataMap dataMap = DataMap.create();
+        dataMap.putAll(new RowView(columnNames, values));
+        return dataMap;
+    }
+
+    private static Object getObject(ResultSet resultSet, int index) throws SQLException {
+        try {
+            return resultSet.getObject(index);
+        } catch (Exception e) {
+            return resultSet.getString(index);
+        }
+    }
+
+    private static Object getInteger(ResultSet resultSet, int index) throws SQLException {
+        int value = resultSet.getInt(index);
+        return resultSet.wasNull() ? null : value;
+    }
+
+    private static Object getLong(ResultSet resultSet, int index) throws SQLException {
+        long value = resultSet.getLong(index);
+        return resultSet.wasNull() ? null : value;
+    }
+
+    /**
+     * readers of one connector by table and result set columns, a reader is compiled once and compiled again only when
+     * the columns or their jdbc types change, so short batch reads of the same table do not decide the extractors again
+     */
+    public static class Cache {
+
+        private final Map<String, CompiledRowReader> readers = new ConcurrentHashMap<>();
+
+        public CompiledRowReader get(ResultSetMetaData metaData, TapTable tapTable, ExtractorFactory extractorFactory) throws SQLException {
+            String[] columnNames = columnNames(metaData);
+            StringBuilder key = new StringBuilder(EmptyKit.isNull(tapTable) ? "" : tapTable.getId());
+            for (int i = 0; i < columnNames.length; i++) {
+                key.append('\u0000').append(columnNames[i]).append(':').append(metaData.getColumnType(i + 1));
+            }
+            CompiledRowReader reader = readers.get(key.toString());
+            if (EmptyKit.isNull(reader)) {
+                reader = compile(metaData, columnNames, tapTable, extractorFactory);
+                readers.put(key.toString(), reader);
+            }
+            return reader;
+        }
+
+        public void clear() {
+            readers.clear();
+        }
+
+        public int size() {
+            return readers.size();
+        }
+    }
+
+    @FunctionalInterface
+    public interface ValueExtractor {
+        Object extract(ResultSet resultSet, int index) throws SQLException;
+    }
+
+    @FunctionalInterface
+    public interface ExtractorFactory {
+        ValueExtractor create(ResultSetMetaData metaData, int index, String columnName, TapField tapField) throws SQLException;
+    }
+
+    private static class RowView extends AbstractMap<String, Object> {
+        private final String[] columnNames;
+        private final Object[] values;
+
+        RowView(String[] columnNames, Object[] values) {
+            this.columnNames = columnNames;
+            this.values = values;
+        }
+
+        @Override
+        public int size() {
+            return columnNames.length;
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<Entry<String, Object>>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    return new Iterator<Entry<String, Object>>() {
+                        private int index;
+
+                        @Override
+                        public boolean hasNext() {
+                            return index < columnNames.length;
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            if (index >= columnNames.length) {
+                                throw new NoSuchElementException();
+                            }
+                            Entry<String, Object> entry = new SimpleImmutableEntry<>(columnNames[index], values[index]);
+                            index++;
+                            return entry;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return columnNames.length;
+                }
+            };
+        }
+    }
+}
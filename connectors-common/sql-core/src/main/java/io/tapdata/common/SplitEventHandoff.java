@@ -0,0 +1,123 @@
+package io.tapdata.common;
+
+import io.tapdata.entity.event.TapEvent;
+import io.tapdata.entity.simplify.TapSimplify;
+
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+
+/**
+ * splits are read by many threads, their event batches are handed to the caller thread through a bounded lock-free queue,
+ * so eventsOffsetConsumer is always called by one thread and readers are blocked when it is slow
+ */
+public class SplitEventHandoff {
+
+    private static final long WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final AtomicInteger THREAD_INDEX = new AtomicInteger();
+
+    private final ConcurrentLinkedQueue<List<TapEvent>> queue = new ConcurrentLinkedQueue<>();
+    private final Semaphore permits;
+    private final BiConsumer<List<TapEvent>, Object> eventsOffsetConsumer;
+    private final AtomicReference<Throwable> throwable = new AtomicReference<>();
+    private final AtomicInteger runningReaders = new AtomicInteger();
+    private volatile Thread consumerThread;
+
+    public SplitEventHandoff(int capacity, BiConsumer<List<TapEvent>, Object> eventsOffsetConsumer) {
+        this.permits = new Semaphore(Math.max(capacity, 1));
+        this.eventsOffsetConsumer = eventsOffsetConsumer;
+    }
+
+    /**
+     * read splits [0, splitCount) with threadSize readers, events are consumed by the current thread until all readers finish
+     * readers run on their own pool of at most threadSize threads, which is shut down when the splits are read or failed
+     */
+    public void readSplits(int threadSize, int splitCount, SplitReader splitReader) throws Throwable {
+        consumerThread = Thread.currentThread();
+        ConcurrentLinkedQueue<Integer> pendingSplits = new ConcurrentLinkedQueue<>();
+        for (int i = 0; i < splitCount; i++) {
+            pendingSplits.add(i);
+        }
+        int readerSize = Math.max(1, Math.min(threadSize, splitCount));
+        runningReaders.set(readerSize);
+        ExecutorService splitExecutor = Executors.newFixedThreadPool(readerSize, r -> {
+            Thread thread = new Thread(r, "Batch-Read-Split-" + THREAD_INDEX.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            for (int i = 0; i < readerSize; i++) {
+                splitExecutor.execute(() -> {
+                    try {
+                        Integer split;
+                        while (!isFailed() && null != (split = pendingSplits.poll())) {
+                            splitReader.read(split);
+                        }
+                    } catch (Throwable e) {
+                        throwable.compareAndSet(null, e);
+                    } finally {
+                        runningReaders.decrementAndGet();
+                        LockSupport.unpark(consumerThread);
+                    }
+                });
+            }
+            drain();
+        } finally {
+            splitExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * called by readers, blocked while the queue is full
+     */
+    public void offer(List<TapEvent> events) {
+        try {
+            while (!permits.tryAcquire(WAIT_NANOS, TimeUnit.NANOSECONDS)) {
+                if (isFailed()) {
+                    throw new CancellationException("Batch read of other splits failed");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Batch read split is interrupted");
+        }
+        queue.offer(events);
+        LockSupport.unpark(consumerThread);
+    }
+
+    public boolean isFailed() {
+        return null != throwable.get();
+    }
+
+    private void drain() throws Throwable {
+        while (true) {
+            List<TapEvent> events = queue.poll();
+            if (null != events) {
+                try {
+                    eventsOffsetConsumer.accept(events, TapSimplify.list());
+                } catch (Throwable e) {
+                    throwable.compareAndSet(null, e);
+                    throw e;
+                } finally {
+                    permits.release();
+                }
+                continue;
+            }
+            if (isFailed()) {
+                throw throwable.get();
+            }
+            if (runningReaders.get() == 0 && queue.isEmpty()) {
+                break;
+            }
+            LockSupport.parkNanos(this, WAIT_NANOS);
+        }
+    }
+
+    @FunctionalInterface
+    public interface SplitReader {
+        void read(int split) throws Throwable;
+    }
+}
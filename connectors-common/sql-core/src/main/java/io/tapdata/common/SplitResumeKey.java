@@ -0,0 +1,122 @@
+package io.tapdata.common;
+
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.kit.EmptyKit;
+import io.tapdata.kit.StringKit;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * primary key of the last emitted row of one split, so a retried query continues after this key instead of reading the split from the start
+ * every query of the split is ordered by primary key, so the marked key is a position of the split from the first query on
+ */
+public class SplitResumeKey {
+
+    private final List<String> keyColumns;
+    private final List<String> escapedColumns;
+    private Object[] lastKey;
+
+    private SplitResumeKey(List<String> keyColumns, char escapeChar) {
+        this.keyColumns = keyColumns;
+        this.escapedColumns = keyColumns.stream().map(c -> escapeChar + StringKit.escape(c, escapeChar) + escapeChar).collect(Collectors.toList());
+    }
+
+    /**
+     * @return null when table has no primary key, the split can only be read from the start
+     */
+    public static SplitResumeKey create(TapTable tapTable, char escapeChar) {
+        if (EmptyKit.isNull(tapTable.primaryKeys()) || EmptyKit.isEmpty(tapTable.primaryKeys())) {
+            return null;
+        }
+        return new SplitResumeKey(new ArrayList<>(tapTable.primaryKeys()), escapeChar);
+    }
+
+    public List<String> getKeyColumns() {
+        return keyColumns;
+    }
+
+    public boolean isResumed() {
+        return EmptyKit.isNotNull(lastKey);
+    }
+
+    /**
+     * @param splitSql select sql with where clause of the split
+     * @return splitSql ordered by primary key, after the last key when resumed, params are from params()
+     */
+    public String resumeSql(String splitSql) {
+        StringBuilder sql = new StringBuilder(splitSql);
+        if (isResumed()) {
+            //(k1>?) OR (k1=? AND k2>?) OR ...
+            sql.append(" AND (");
+            for (int i = 0; i < escapedColumns.size(); i++) {
+                if (i > 0) {
+                    sql.append(" OR ");
+                }
+                sql.append("(");
+                for (int j = 0; j < i; j++) {
+                    sql.append(escapedColumns.get(j)).append("=? AND ");
+                }
+                sql.append(escapedColumns.get(i)).append(">?)");
+            }
+            sql.append(")");
+        }
+        return sql.append(" ORDER BY ").append(String.join(",", escapedColumns)).toString();
+    }
+
+    public List<Object> params() {
+        List<Object> params = new ArrayList<>();
+        if (isResumed()) {
+            for (int i = 0; i < lastKey.length; i++) {
+                for (int j = 0; j <= i; j++) {
+                    params.add(lastKey[j]);
+                }
+            }
+        }
+        return params;
+    }
+
+    /**
+     * @return 1-based indexes of key columns, null when some key column is not selected
+     */
+    public int[] columnIndexes(List<String> columnNames) {
+        int[] indexes = new int[keyColumns.size()];
+        for (int i = 0; i < indexes.length; i++) {
+            int index = columnNames.indexOf(keyColumns.get(i));
+            if (index < 0) {
+                return null;
+            }
+            indexes[i] = index + 1;
+        }
+        return indexes;
+    }
+
+    /**
+     * mark the current row of resultSet as the last emitted row
+     */
+    public void mark(ResultSet resultSet, int[] columnIndexes) throws SQLException {
+        if (EmptyKit.isNull(columnIndexes)) {
+            return;
+        }
+        Object[] key = new Object[columnIndexes.length];
+        for (int i = 0; i < columnIndexes.length; i++) {
+            key[i] = resultSet.getObject(columnIndexes[i]);
+        }
+        lastKey = key;
+    }
+
+    /**
+     * mark the row as the last emitted row, its key values must be comparable with the column in sql
+     */
+    public void mark(Map<String, Object> row) {
+        Object[] key = new Object[keyColumns.size()];
+        for (int i = 0; i < key.length; i++) {
+            key[i] = row.get(keyColumns.get(i));
+        }
+        lastKey = key;
+    }
+}
@@ -11,7 +11,6 @@ import io.tapdata.entity.event.dml.TapRecordEvent;
 import io.tapdata.entity.event.dml.TapUpdateRecordEvent;
 import io.tapdata.entity.logger.Log;
 import io.tapdata.entity.schema.TapTable;
-import io.tapdata.kit.DbKit;
 import io.tapdata.kit.EmptyKit;
 import io.tapdata.pdk.apis.entity.ConnectionOptions;
 import io.tapdata.pdk.apis.entity.WriteListResult;
@@ -46,6 +45,7 @@ public class NormalRecordWriter {
     protected boolean largeSql = false;
     protected CommonDbConfig commonDbConfig;
     protected boolean needCloseIdentity = false;
+    protected WriteSession writeSession;
 
     public NormalRecordWriter(JdbcContext jdbcContext, TapTable tapTable) throws SQLException {
         this.commonDbConfig = jdbcContext.getConfig();
@@ -67,6 +67,13 @@ public class NormalRecordWriter {
         isTransaction = true;
     }
 
+    public NormalRecordWriter(JdbcContext jdbcContext, WriteSession writeSession, TapTable tapTable) {
+        this.commonDbConfig = jdbcContext.getConfig();
+        this.connection = writeSession.getConnection();
+        this.writeSession = writeSession;
+        this.tapTable = tapTable;
+    }
+
     public void write(List<TapRecordEvent> tapRecordEvents, Consumer<WriteListResult<TapRecordEvent>> writeListResultConsumer, Supplier<Boolean> isAlive) throws SQLException {
         //result of these events
         WriteListResult<TapRecordEvent> listResult = new WriteListResult<>();
@@ -83,17 +90,27 @@ public class NormalRecordWriter {
             deleteRecorder.setVersion(version);
             deleteRecorder.setDeletePolicy(deletePolicy);
             deleteRecorder.setTapLogger(tapLogger);
+            if (EmptyKit.isNotNull(writeSession)) {
+                insertRecorder.setWriteSession(writeSession, "insert");
+                updateRecorder.setWriteSession(writeSession, "update");
+                deleteRecorder.setWriteSession(writeSession, "delete");
+            }
             //doubleActive
             if (Boolean.TRUE.equals(commonDbConfig.getDoubleActive())) {
                 try (Statement statement = connection.createStatement()) {
                     statement.execute(upsertDoubleActive());
                 }
             }
+            //reorder by key into long runs of the same type, so that fewer batches are flushed
+            if (Boolean.TRUE.equals(commonDbConfig.getPlanWrite())) {
+                tapRecordEvents = new WritePlanner(tapTable).plan(tapRecordEvents);
+            }
             //insert,update,delete events must consecutive, so execute the other two first
             writePart(tapRecordEvents, listResult, isAlive);
             //release resource
 
         } catch (SQLException e) {
+            invalidateSessionIfBroken(e);
             errorHandler(e, null);
             exceptionCollector.revealException(e);
             throw e;
@@ -102,10 +119,18 @@ public class NormalRecordWriter {
             updateRecorder.releaseResource();
             deleteRecorder.releaseResource();
             if (!isTransaction) {
-                if (needCloseIdentity) {
-                    openIdentity();
+                try {
+                    if (needCloseIdentity) {
+                        openIdentity();
+                    }
+                } finally {
+                    //connection of write session is kept by the session given back, until it is invalidated or closed
+                    if (EmptyKit.isNull(writeSession)) {
+                        connection.close();
+                    } else {
+                        writeSession.giveBack();
+                    }
                 }
-                connection.close();
             }
             writeListResultConsumer.accept(listResult
                     .insertedCount(insertRecorder.getAtomicLong().get())
@@ -115,41 +140,18 @@ public class NormalRecordWriter {
     }
 
     protected void writePart(List<TapRecordEvent> tapRecordEvents, WriteListResult<TapRecordEvent> listResult, Supplier<Boolean> isAlive) {
+        //counts of committed pieces, restored when this piece is rolled back
+        long inserted = insertRecorder.getAtomicLong().get();
+        long modified = updateRecorder.getAtomicLong().get();
+        long removed = deleteRecorder.getAtomicLong().get();
         try {
             for (TapRecordEvent recordEvent : tapRecordEvents) {
                 if (null != isAlive && !isAlive.get()) {
                     break;
                 }
-                if (recordEvent instanceof TapInsertRecordEvent) {
-                    updateRecorder.executeBatch(listResult);
-                    deleteRecorder.executeBatch(listResult);
-                    TapInsertRecordEvent insertRecordEvent = (TapInsertRecordEvent) recordEvent;
-                    insertRecorder.addInsertBatch(insertRecordEvent.getAfter(), listResult);
-                    if (EmptyKit.isNotEmpty(autoIncFields)) {
-                        autoIncFields.forEach(field -> {
-                            if (EmptyKit.isNotNull(insertRecordEvent.getAfter().get(field))) {
-                                autoIncMap.put(field, insertRecordEvent.getAfter().get(field));
-                            }
-                        });
-                    }
-                    insertRecorder.addAndCheckCommit(recordEvent, listResult);
-                } else if (recordEvent instanceof TapUpdateRecordEvent) {
-                    insertRecorder.executeBatch(listResult);
-                    deleteRecorder.executeBatch(listResult);
-                    TapUpdateRecordEvent updateRecordEvent = (TapUpdateRecordEvent) recordEvent;
-                    updateRecorder.addUpdateBatch(updateRecordEvent.getAfter(), updateRecordEvent.getBefore(), listResult);
-                    updateRecorder.addAndCheckCommit(recordEvent, listResult);
-                } else if (recordEvent instanceof TapDeleteRecordEvent) {
-                    insertRecorder.executeBatch(listResult);
-                    updateRecorder.executeBatch(listResult);
-                    TapDeleteRecordEvent deleteRecordEvent = (TapDeleteRecordEvent) recordEvent;
-                    deleteRecorder.addDeleteBatch(deleteRecordEvent.getBefore(), listResult);
-                    deleteRecorder.addAndCheckCommit(recordEvent, listResult);
-                }
+                writeEvent(recordEvent, listResult);
             }
-            insertRecorder.executeBatch(listResult);
-            updateRecorder.executeBatch(listResult);
-            deleteRecorder.executeBatch(listResult);
+            flushEvents(listResult);
             //some datasource must be auto commit, error will occur when commit
             if (!connection.getAutoCommit() && !isTransaction) {
                 connection.commit();
@@ -159,15 +161,107 @@ public class NormalRecordWriter {
                 connection.rollback();
             } catch (Exception ignore) {
             }
+            invalidateSessionIfBroken(e);
             exceptionCollector.collectViolateUnique(toJson(tapTable.primaryKeys(true)), null, null, e);
+            int failedIndex = indexOfFailedEvent(tapRecordEvents);
+            clearEvents();
+            insertRecorder.getAtomicLong().set(inserted);
+            updateRecorder.getAtomicLong().set(modified);
+            deleteRecorder.getAtomicLong().set(removed);
             if (tapRecordEvents.size() == 1) {
                 errorHandler(e, tapRecordEvents.get(0));
                 throw new RuntimeException(String.format("Error occurred when retrying write record: %s", tapRecordEvents.get(0)), e);
+            } else if (WriteSession.isConnectionError(e)) {
+                //retrying pieces on a broken connection only multiplies the same error
+                throw new RuntimeException(String.format("Connection error occurred when write records, size: %s", tapRecordEvents.size()), e);
+            } else if (failedIndex >= 0) {
+                //driver reported the failed row, write around it and the row alone
+                tapLogger.info("writeRecord failed, isolate record at: {}, size: {}, error message: {}", failedIndex, tapRecordEvents.size(), e.getMessage());
+                writeIsolated(tapRecordEvents.subList(0, failedIndex), listResult, isAlive);
+                writeIsolated(tapRecordEvents.subList(failedIndex, failedIndex + 1), listResult, isAlive);
+                writeIsolated(tapRecordEvents.subList(failedIndex + 1, tapRecordEvents.size()), listResult, isAlive);
             } else {
-                int eachPieceSize = Math.max(tapRecordEvents.size() / 10, 1);
-                tapLogger.info("writeRecord failed, dismantle them, size: {}, error message: {}", eachPieceSize, e.getMessage());
-                DbKit.splitToPieces(tapRecordEvents, eachPieceSize).forEach(pieces -> writePart(pieces, listResult, isAlive));
+                //bisect, good halves are committed once and only poison records reach the error handler
+                int middle = tapRecordEvents.size() / 2;
+                tapLogger.info("writeRecord failed, bisect them, size: {}, error message: {}", tapRecordEvents.size(), e.getMessage());
+                writeIsolated(tapRecordEvents.subList(0, middle), listResult, isAlive);
+                writeIsolated(tapRecordEvents.subList(middle, tapRecordEvents.size()), listResult, isAlive);
+            }
+        }
+    }
+
+    //add one event to the batch of its recorder, the other recorders are executed first to keep the order
+    protected void writeEvent(TapRecordEvent recordEvent, WriteListResult<TapRecordEvent> listResult) throws SQLException {
+        if (recordEvent instanceof TapInsertRecordEvent) {
+            updateRecorder.executeBatch(listResult);
+            deleteRecorder.executeBatch(listResult);
+            TapInsertRecordEvent insertRecordEvent = (TapInsertRecordEvent) recordEvent;
+            insertRecorder.addInsertBatch(insertRecordEvent.getAfter(), listResult);
+            recordAutoInc(insertRecordEvent);
+            insertRecorder.addAndCheckCommit(recordEvent, listResult);
+        } else if (recordEvent instanceof TapUpdateRecordEvent) {
+            insertRecorder.executeBatch(listResult);
+            deleteRecorder.executeBatch(listResult);
+            TapUpdateRecordEvent updateRecordEvent = (TapUpdateRecordEvent) recordEvent;
+            updateRecorder.addUpdateBatch(updateRecordEvent.getAfter(), updateRecordEvent.getBefore(), listResult);
+            updateRecorder.addAndCheckCommit(recordEvent, listResult);
+        } else if (recordEvent instanceof TapDeleteRecordEvent) {
+            insertRecorder.executeBatch(listResult);
+            updateRecorder.executeBatch(listResult);
+            TapDeleteRecordEvent deleteRecordEvent = (TapDeleteRecordEvent) recordEvent;
+            deleteRecorder.addDeleteBatch(deleteRecordEvent.getBefore(), listResult);
+            deleteRecorder.addAndCheckCommit(recordEvent, listResult);
+        }
+    }
+
+    protected void recordAutoInc(TapInsertRecordEvent insertRecordEvent) {
+        if (EmptyKit.isNotEmpty(autoIncFields)) {
+            autoIncFields.forEach(field -> {
+                if (EmptyKit.isNotNull(insertRecordEvent.getAfter().get(field))) {
+                    autoIncMap.put(field, insertRecordEvent.getAfter().get(field));
+                }
+            });
+        }
+    }
+
+    //execute all unexecuted batches before commit
+    protected void flushEvents(WriteListResult<TapRecordEvent> listResult) throws SQLException {
+        insertRecorder.executeBatch(listResult);
+        updateRecorder.executeBatch(listResult);
+        deleteRecorder.executeBatch(listResult);
+    }
+
+    //discard all unexecuted batches after rollback
+    protected void clearEvents() {
+        insertRecorder.clearBatch();
+        updateRecorder.clearBatch();
+        deleteRecorder.clearBatch();
+    }
+
+    private void writeIsolated(List<TapRecordEvent> tapRecordEvents, WriteListResult<TapRecordEvent> listResult, Supplier<Boolean> isAlive) {
+        if (EmptyKit.isNotEmpty(tapRecordEvents)) {
+            writePart(new ArrayList<>(tapRecordEvents), listResult, isAlive);
+        }
+    }
+
+    private int indexOfFailedEvent(List<TapRecordEvent> tapRecordEvents) {
+        for (NormalWriteRecorder recorder : Arrays.asList(insertRecorder, updateRecorder, deleteRecorder)) {
+            TapRecordEvent failedEvent = recorder.getFailedEvent();
+            if (EmptyKit.isNull(failedEvent)) {
+                continue;
             }
+            for (int i = 0; i < tapRecordEvents.size(); i++) {
+                if (tapRecordEvents.get(i) == failedEvent) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    protected void invalidateSessionIfBroken(SQLException e) {
+        if (EmptyKit.isNotNull(writeSession) && WriteSession.isConnectionError(e)) {
+            writeSession.invalidate();
         }
     }
 
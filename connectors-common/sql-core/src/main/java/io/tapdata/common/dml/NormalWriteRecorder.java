@@ -13,6 +13,7 @@ import io.tapdata.kit.EmptyKit;
 import io.tapdata.kit.StringKit;
 import io.tapdata.pdk.apis.entity.WriteListResult;
 
+import java.sql.BatchUpdateException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
@@ -53,6 +54,8 @@ public abstract class NormalWriteRecorder {
     protected String preparedStatementKey;
     protected Map<String, PreparedStatement> preparedStatementMap = new HashMap<>();
     protected PreparedStatement preparedStatement = null;
+    protected WriteSession writeSession;
+    protected String writeSessionRole;
     protected List<String> largeSqlValues;
     protected boolean largeSql = false;
     protected DMLType dmlType;
@@ -60,6 +63,8 @@ public abstract class NormalWriteRecorder {
     protected final AtomicLong atomicLong = new AtomicLong(0); //record counter
     protected final List<TapRecordEvent> batchCache = TapSimplify.list(); //event cache
     protected int batchCacheSize = 0;
+    protected final List<TapRecordEvent> pendingEvents = TapSimplify.list(); //events of the unexecuted batch
+    protected TapRecordEvent failedEvent; //first failed event of the last executed batch if driver reports it
     protected Log tapLogger;
 
     public NormalWriteRecorder(Connection connection, TapTable tapTable, String schema) {
@@ -123,6 +128,7 @@ public abstract class NormalWriteRecorder {
             try (Statement statement = connection.createStatement()) {
                 statement.execute(getLargeSql());
                 largeSqlValues.clear();
+                pendingEvents.clear();
                 batchCacheSize = 0;
             }
             atomicLong.addAndGet(succeed);
@@ -131,6 +137,7 @@ public abstract class NormalWriteRecorder {
         if (fileInput) {
             fileInput();
             buffer.clear();
+            pendingEvents.clear();
             batchCacheSize = 0;
             atomicLong.addAndGet(succeed);
             return;
@@ -160,11 +167,14 @@ public abstract class NormalWriteRecorder {
                 }
                 preparedStatement.clearBatch();
                 batchCache.clear();
+                pendingEvents.clear();
                 batchCacheSize = 0;
             }
         } catch (SQLException e) {
 //            Map<TapRecordEvent, Throwable> map = batchCache.stream().collect(Collectors.toMap(Function.identity(), (v) -> e));
 //            listResult.addErrors(map);
+            failedEvent = findFailedEvent(e);
+            pendingEvents.clear();
             batchCacheSize = 0;
             throw e;
         }
@@ -174,6 +184,7 @@ public abstract class NormalWriteRecorder {
     //commit when cacheSize >= 1000
     public void addAndCheckCommit(TapRecordEvent recordEvent, WriteListResult<TapRecordEvent> listResult) throws SQLException {
         batchCacheSize++;
+        pendingEvents.add(recordEvent);
         if (updatePolicy == LOG_ON_NONEXISTS && recordEvent instanceof TapUpdateRecordEvent || deletePolicy == LOG_ON_NONEXISTS && recordEvent instanceof TapDeleteRecordEvent) {
             batchCache.add(recordEvent);
         }
@@ -182,15 +193,78 @@ public abstract class NormalWriteRecorder {
         }
     }
 
+    //drivers which stop at the first error report counts of the executed prefix, others mark the failed rows,
+    //a rewritten batch (mysql rewriteBatchedStatements) marks every row failed, such counts tell no position and the batch is bisected
+    protected TapRecordEvent findFailedEvent(SQLException e) {
+        if (!(e instanceof BatchUpdateException)) {
+            return null;
+        }
+        int[] updateCounts = ((BatchUpdateException) e).getUpdateCounts();
+        if (EmptyKit.isNull(updateCounts) || updateCounts.length == 0 || updateCounts.length > pendingEvents.size()) {
+            return null;
+        }
+        int failedIndex = -1;
+        for (int i = 0; i < updateCounts.length; i++) {
+            if (updateCounts[i] == Statement.EXECUTE_FAILED) {
+                failedIndex = i;
+                break;
+            }
+        }
+        if (updateCounts.length < pendingEvents.size()) {
+            return failedIndex < 0 ? pendingEvents.get(updateCounts.length) : null;
+        }
+        if (failedIndex < 0 || Arrays.stream(updateCounts).allMatch(count -> count == Statement.EXECUTE_FAILED)) {
+            return null;
+        }
+        return pendingEvents.get(failedIndex);
+    }
+
+    public TapRecordEvent getFailedEvent() {
+        return failedEvent;
+    }
+
+    //discard the unexecuted batch after failure, the events will be written again
+    public void clearBatch() {
+        if (EmptyKit.isNotNull(preparedStatement)) {
+            try {
+                preparedStatement.clearBatch();
+            } catch (SQLException ignore) {
+            }
+        }
+        Optional.ofNullable(largeSqlValues).ifPresent(List::clear);
+        Optional.ofNullable(buffer).ifPresent(ByteBuf::clear);
+        batchCache.clear();
+        pendingEvents.clear();
+        batchCacheSize = 0;
+        failedEvent = null;
+    }
+
     public void addBatchCacheSize() {
         batchCacheSize++;
     }
 
     public void releaseResource() {
-        preparedStatementMap.forEach((key, value) -> EmptyKit.closeQuietly(value));
+        //statements of write session are kept for the next write
+        if (EmptyKit.isNull(writeSession)) {
+            preparedStatementMap.forEach((key, value) -> EmptyKit.closeQuietly(value));
+        } else {
+            writeSession.release();
+        }
         Optional.ofNullable(buffer).ifPresent(ByteBuf::release);
     }
 
+    public void setWriteSession(WriteSession writeSession, String writeSessionRole) {
+        this.writeSession = writeSession;
+        this.writeSessionRole = writeSessionRole;
+    }
+
+    protected PreparedStatement prepareStatement(String sql) throws SQLException {
+        if (EmptyKit.isNull(writeSession)) {
+            return connection.prepareStatement(sql);
+        }
+        return writeSession.prepareStatement(tapTable.getId(), writeSessionRole, sql);
+    }
+
     public void setVersion(String version) {
         this.version = version;
     }
@@ -241,22 +315,8 @@ public abstract class NormalWriteRecorder {
                 justInsert(after);
             }
         } else {
-            if (hasPk && uniqueCondition.stream().anyMatch(v -> EmptyKit.isNull(after.get(v)))) {
-                tapLogger.warn("primary key has null value, record ignored or string => '': {}", after);
-                boolean canWrite = true;
-                for (Map.Entry<String, Object> entry : after.entrySet()) {
-                    if (uniqueCondition.contains(entry.getKey()) && EmptyKit.isNull(entry.getValue())) {
-                        if (EmptyKit.isNotNull(columnTypeMap.get(entry.getKey())) && columnTypeMap.get(entry.getKey()).toLowerCase().contains("char")) {
-                            after.put(entry.getKey(), "");
-                        } else {
-                            canWrite = false;
-                            break;
-                        }
-                    }
-                }
-                if (!canWrite) {
-                    return;
-                }
+            if (!fillNullPrimaryKey(after)) {
+                return;
             }
             switch (insertPolicy) {
                 case UPDATE_ON_EXISTS:
@@ -284,13 +344,13 @@ public abstract class NormalWriteRecorder {
             preparedStatement = preparedStatementMap.get(preparedStatementKey);
         } else {
             if (EmptyKit.isNull(this.preparedStatementKey)) {
-                preparedStatement = connection.prepareStatement(sql);
+                preparedStatement = prepareStatement(sql);
                 preparedStatementMap.put(preparedStatementKey, preparedStatement);
             } else {
                 executeBatch(listResult);
                 preparedStatement = preparedStatementMap.get(preparedStatementKey);
                 if (EmptyKit.isNull(preparedStatement)) {
-                    preparedStatement = connection.prepareStatement(sql);
+                    preparedStatement = prepareStatement(sql);
                     preparedStatementMap.put(preparedStatementKey, preparedStatement);
                 }
             }
@@ -337,6 +397,24 @@ public abstract class NormalWriteRecorder {
         throw new UnsupportedOperationException("largeInsert is not supported");
     }
 
+    //null of string primary key is written as '', false if the record is ignored
+    protected boolean fillNullPrimaryKey(Map<String, Object> after) {
+        if (!hasPk || uniqueCondition.stream().noneMatch(v -> EmptyKit.isNull(after.get(v)))) {
+            return true;
+        }
+        tapLogger.warn("primary key has null value, record ignored or string => '': {}", after);
+        for (Map.Entry<String, Object> entry : after.entrySet()) {
+            if (uniqueCondition.contains(entry.getKey()) && EmptyKit.isNull(entry.getValue())) {
+                if (EmptyKit.isNotNull(columnTypeMap.get(entry.getKey())) && columnTypeMap.get(entry.getKey()).toLowerCase().contains("char")) {
+                    after.put(entry.getKey(), "");
+                } else {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
     protected String quoteAndEscape(String value) {
         return escapeChar + StringKit.escape(value, escapeChar) + escapeChar;
     }
@@ -351,7 +429,7 @@ public abstract class NormalWriteRecorder {
             String insertSql = "INSERT INTO " + getSchemaAndTable() + " ("
                     + allColumn.stream().map(this::quoteAndEscape).collect(Collectors.joining(", ")) + ") " +
                     "VALUES(" + StringKit.copyString("?", allColumn.size(), ",") + ") ";
-            preparedStatement = connection.prepareStatement(insertSql);
+            preparedStatement = prepareStatement(insertSql);
         }
         preparedStatement.clearParameters();
         int pos = 1;
@@ -406,13 +484,13 @@ public abstract class NormalWriteRecorder {
             preparedStatement = preparedStatementMap.get(preparedStatementKey);
         } else {
             if (EmptyKit.isNull(this.preparedStatementKey)) {
-                preparedStatement = connection.prepareStatement(getUpdateSql(after, before, containsNull));
+                preparedStatement = prepareStatement(getUpdateSql(after, before, containsNull));
                 preparedStatementMap.put(preparedStatementKey, preparedStatement);
             } else {
                 executeBatch(listResult);
                 preparedStatement = preparedStatementMap.get(preparedStatementKey);
                 if (EmptyKit.isNull(preparedStatement)) {
-                    preparedStatement = connection.prepareStatement(getUpdateSql(after, before, containsNull));
+                    preparedStatement = prepareStatement(getUpdateSql(after, before, containsNull));
                     preparedStatementMap.put(preparedStatementKey, preparedStatement);
                 }
             }
@@ -474,13 +552,13 @@ public abstract class NormalWriteRecorder {
             preparedStatement = preparedStatementMap.get(preparedStatementKey);
         } else {
             if (EmptyKit.isNull(this.preparedStatementKey)) {
-                preparedStatement = connection.prepareStatement(getDeleteSql(before, containsNull));
+                preparedStatement = prepareStatement(getDeleteSql(before, containsNull));
                 preparedStatementMap.put(preparedStatementKey, preparedStatement);
             } else {
                 executeBatch(listResult);
                 preparedStatement = preparedStatementMap.get(preparedStatementKey);
                 if (EmptyKit.isNull(preparedStatement)) {
-                    preparedStatement = connection.prepareStatement(getDeleteSql(before, containsNull));
+                    preparedStatement = prepareStatement(getDeleteSql(before, containsNull));
                     preparedStatementMap.put(preparedStatementKey, preparedStatement);
                 }
             }
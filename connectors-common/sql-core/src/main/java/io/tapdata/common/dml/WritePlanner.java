@@ -0,0 +1,176 @@
+package io.tapdata.common.dml;
+
+import io.tapdata.entity.event.dml.TapDeleteRecordEvent;
+import io.tapdata.entity.event.dml.TapInsertRecordEvent;
+import io.tapdata.entity.event.dml.TapRecordEvent;
+import io.tapdata.entity.event.dml.TapUpdateRecordEvent;
+import io.tapdata.entity.schema.TapIndex;
+import io.tapdata.entity.schema.TapIndexField;
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.kit.EmptyKit;
+import io.tapdata.kit.StringKit;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * reorder events of one batch into long runs of the same type, events of the same key keep their order,
+ * consecutive updates of one key are collapsed into one update
+ * events are returned as they are when the order can not be proved safe (no key, key changed, other unique index)
+ */
+public class WritePlanner {
+
+    private final List<String> keyColumns;
+    private final boolean plannable;
+
+    public WritePlanner(TapTable tapTable) {
+        if (EmptyKit.isNotEmpty(tapTable.primaryKeys(false))) {
+            keyColumns = new ArrayList<>(tapTable.primaryKeys(false));
+        } else {
+            keyColumns = new ArrayList<>(tapTable.primaryKeys(true));
+        }
+        //rows of different keys may still conflict on another unique index, such order must be kept
+        plannable = EmptyKit.isNotEmpty(keyColumns) && (EmptyKit.isEmpty(tapTable.getIndexList()) || tapTable.getIndexList().stream()
+                .filter(TapIndex::isUnique).allMatch(index -> new HashSet<>(keyColumns).equals(index.getIndexFields().stream()
+                        .map(TapIndexField::getName).collect(Collectors.toSet()))));
+    }
+
+    public List<TapRecordEvent> plan(List<TapRecordEvent> tapRecordEvents) {
+        if (!plannable || tapRecordEvents.size() <= 1) {
+            return tapRecordEvents;
+        }
+        List<PlannedEvent> plannedEvents = collapse(tapRecordEvents);
+        if (EmptyKit.isNull(plannedEvents)) {
+            return tapRecordEvents;
+        }
+        return formRuns(plannedEvents);
+    }
+
+    //merge an update into the previous update of the same key, key order is always kept
+    private List<PlannedEvent> collapse(List<TapRecordEvent> tapRecordEvents) {
+        List<PlannedEvent> plannedEvents = new ArrayList<>(tapRecordEvents.size());
+        Map<List<String>, PlannedEvent> lastEventMap = new HashMap<>();
+        for (TapRecordEvent recordEvent : tapRecordEvents) {
+            List<String> key = getKey(recordEvent);
+            if (EmptyKit.isNull(key)) {
+                return null;
+            }
+            PlannedEvent last = lastEventMap.get(key);
+            if (recordEvent instanceof TapUpdateRecordEvent && EmptyKit.isNotNull(last) && last.recordEvent instanceof TapUpdateRecordEvent) {
+                last.recordEvent = mergeUpdate((TapUpdateRecordEvent) last.recordEvent, (TapUpdateRecordEvent) recordEvent);
+                continue;
+            }
+            PlannedEvent plannedEvent = new PlannedEvent(recordEvent, plannedEvents.size(), EmptyKit.isNull(last));
+            if (EmptyKit.isNotNull(last)) {
+                last.next = plannedEvent;
+            }
+            plannedEvents.add(plannedEvent);
+            lastEventMap.put(key, plannedEvent);
+        }
+        return plannedEvents;
+    }
+
+    //an event is ready when the previous event of its key is emitted,
+    //each run emits the ready events of the type of the earliest ready event in batch order, the events of its keys becoming ready join the run
+    private List<TapRecordEvent> formRuns(List<PlannedEvent> plannedEvents) {
+        List<TapRecordEvent> result = new ArrayList<>(plannedEvents.size());
+        Map<Class<?>, PriorityQueue<PlannedEvent>> readyMap = new HashMap<>();
+        plannedEvents.stream().filter(plannedEvent -> plannedEvent.first).forEach(plannedEvent -> ready(readyMap, plannedEvent));
+        while (true) {
+            PriorityQueue<PlannedEvent> run = null;
+            for (PriorityQueue<PlannedEvent> ready : readyMap.values()) {
+                if (!ready.isEmpty() && (EmptyKit.isNull(run) || ready.peek().index < run.peek().index)) {
+                    run = ready;
+                }
+            }
+            if (EmptyKit.isNull(run)) {
+                return result;
+            }
+            while (!run.isEmpty()) {
+                PlannedEvent plannedEvent = run.poll();
+                result.add(plannedEvent.recordEvent);
+                if (EmptyKit.isNotNull(plannedEvent.next)) {
+                    ready(readyMap, plannedEvent.next);
+                }
+            }
+        }
+    }
+
+    private void ready(Map<Class<?>, PriorityQueue<PlannedEvent>> readyMap, PlannedEvent plannedEvent) {
+        readyMap.computeIfAbsent(plannedEvent.recordEvent.getClass(), k -> new PriorityQueue<>(Comparator.comparingInt((PlannedEvent e) -> e.index))).add(plannedEvent);
+    }
+
+    //the later event keeps its own metadata (time, info, ...), it only takes the merged before and after
+    private TapUpdateRecordEvent mergeUpdate(TapUpdateRecordEvent first, TapUpdateRecordEvent second) {
+        Map<String, Object> after = new HashMap<>();
+        Optional.ofNullable(first.getAfter()).ifPresent(after::putAll);
+        Optional.ofNullable(second.getAfter()).ifPresent(after::putAll);
+        if (EmptyKit.isNotEmpty(first.getBefore())) {
+            second.setBefore(first.getBefore());
+        }
+        second.setAfter(after);
+        return second;
+    }
+
+    //null means the key can not be decided or is changed by the event
+    private List<String> getKey(TapRecordEvent recordEvent) {
+        if (recordEvent instanceof TapInsertRecordEvent) {
+            return getKey(((TapInsertRecordEvent) recordEvent).getAfter());
+        } else if (recordEvent instanceof TapUpdateRecordEvent) {
+            List<String> beforeKey = getKey(((TapUpdateRecordEvent) recordEvent).getBefore());
+            List<String> afterKey = getKey(((TapUpdateRecordEvent) recordEvent).getAfter());
+            if (EmptyKit.isNotNull(beforeKey) && EmptyKit.isNotNull(afterKey) && !beforeKey.equals(afterKey)) {
+                return null;
+            }
+            return EmptyKit.isNotNull(beforeKey) ? beforeKey : afterKey;
+        } else if (recordEvent instanceof TapDeleteRecordEvent) {
+            return getKey(((TapDeleteRecordEvent) recordEvent).getBefore());
+        }
+        return null;
+    }
+
+    private List<String> getKey(Map<String, Object> data) {
+        if (EmptyKit.isEmpty(data)) {
+            return null;
+        }
+        List<String> key = new ArrayList<>(keyColumns.size());
+        for (String column : keyColumns) {
+            if (!data.containsKey(column)) {
+                return null;
+            }
+            key.add(normalize(data.get(column)));
+        }
+        return key;
+    }
+
+    //same value may arrive as different java types in before and after
+    private String normalize(Object value) {
+        if (EmptyKit.isNull(value)) {
+            return null;
+        }
+        if (value instanceof byte[]) {
+            return StringKit.convertToHexString((byte[]) value);
+        }
+        if (value instanceof Number) {
+            try {
+                return new BigDecimal(value.toString()).stripTrailingZeros().toPlainString();
+            } catch (NumberFormatException ignore) {
+            }
+        }
+        return value.toString();
+    }
+
+    private static class PlannedEvent {
+        private TapRecordEvent recordEvent;
+        private final int index;
+        private final boolean first;
+        private PlannedEvent next;
+
+        PlannedEvent(TapRecordEvent recordEvent, int index, boolean first) {
+            this.recordEvent = recordEvent;
+            this.index = index;
+            this.first = first;
+        }
+    }
+}
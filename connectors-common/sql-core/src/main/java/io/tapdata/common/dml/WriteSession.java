@@ -0,0 +1,126 @@
+package io.tapdata.common.dml;
+
+import io.tapdata.kit.EmptyKit;
+
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * connection and prepared statements kept across writeRecord calls, lent to one writer at a time by WriteSessionManager
+ * statements are cached per table in a bounded LRU, it is not thread safe except markStale
+ */
+public class WriteSession implements AutoCloseable {
+
+    private final Connection connection;
+    private final int statementCacheSize;
+    private final Map<String, Map<String, PreparedStatement>> tableStatementMap = new HashMap<>();
+    //statements evicted while they may still hold a batch, closed when the write is released
+    private final List<PreparedStatement> evictedStatements = new ArrayList<>();
+    private final Set<String> staleTables = ConcurrentHashMap.newKeySet();
+    private volatile boolean valid = true;
+    private final WriteSessionManager manager;
+
+    public WriteSession(Connection connection, int statementCacheSize) {
+        this(connection, statementCacheSize, null);
+    }
+
+    public WriteSession(Connection connection, int statementCacheSize, WriteSessionManager manager) {
+        this.connection = connection;
+        this.statementCacheSize = statementCacheSize;
+        this.manager = manager;
+    }
+
+    public Connection getConnection() {
+        return connection;
+    }
+
+    public boolean isValid() {
+        return valid;
+    }
+
+    public void invalidate() {
+        valid = false;
+    }
+
+    public PreparedStatement prepareStatement(String tableId, String role, String sql) throws SQLException {
+        closeStaleTables();
+        Map<String, PreparedStatement> statementMap = tableStatementMap.computeIfAbsent(tableId, k -> new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() > statementCacheSize) {
+                    evictedStatements.add(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        });
+        //insert, update and delete recorders may generate the same sql, but never share the batch
+        String statementKey = role + "|" + sql;
+        PreparedStatement preparedStatement = statementMap.get(statementKey);
+        if (EmptyKit.isNull(preparedStatement) || preparedStatement.isClosed()) {
+            preparedStatement = connection.prepareStatement(sql);
+            statementMap.put(statementKey, preparedStatement);
+        }
+        return preparedStatement;
+    }
+
+    //called by ddl from any thread, statements of the table will be closed by the owner thread
+    public void markStale(String tableId) {
+        staleTables.add(tableId);
+    }
+
+    //called after each write, statements are left without pending batch
+    public void release() {
+        tableStatementMap.values().forEach(statementMap -> statementMap.values().forEach(this::clearBatchQuietly));
+        evictedStatements.forEach(EmptyKit::closeQuietly);
+        evictedStatements.clear();
+    }
+
+    //called when the writer is released, the session is lent to the next writer by its manager, or closed without manager
+    public void giveBack() {
+        if (EmptyKit.isNull(manager)) {
+            close();
+        } else {
+            manager.giveBack(this);
+        }
+    }
+
+    private void closeStaleTables() {
+        if (staleTables.isEmpty()) {
+            return;
+        }
+        Iterator<String> iterator = staleTables.iterator();
+        while (iterator.hasNext()) {
+            Map<String, PreparedStatement> statementMap = tableStatementMap.remove(iterator.next());
+            if (EmptyKit.isNotNull(statementMap)) {
+                statementMap.values().forEach(EmptyKit::closeQuietly);
+            }
+            iterator.remove();
+        }
+    }
+
+    private void clearBatchQuietly(PreparedStatement preparedStatement) {
+        try {
+            preparedStatement.clearBatch();
+        } catch (SQLException ignore) {
+        }
+    }
+
+    @Override
+    public void close() {
+        valid = false;
+        tableStatementMap.values().forEach(statementMap -> statementMap.values().forEach(EmptyKit::closeQuietly));
+        tableStatementMap.clear();
+        evictedStatements.forEach(EmptyKit::closeQuietly);
+        evictedStatements.clear();
+        EmptyKit.closeQuietly(connection);
+    }
+
+    public static boolean isConnectionError(SQLException e) {
+        if (e instanceof SQLRecoverableException || e instanceof SQLNonTransientConnectionException || e instanceof SQLTransientConnectionException) {
+            return true;
+        }
+        return EmptyKit.isNotNull(e.getSQLState()) && e.getSQLState().startsWith("08");
+    }
+}
@@ -0,0 +1,86 @@
+package io.tapdata.common.dml;
+
+import io.tapdata.common.JdbcContext;
+import io.tapdata.kit.EmptyKit;
+
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * write sessions lent to one writer at a time, like transaction connections
+ * a session is given back when its writer is released and lent again to the next writer, whatever thread it runs on
+ */
+public class WriteSessionManager implements AutoCloseable {
+
+    private final JdbcContext jdbcContext;
+    private final int statementCacheSize;
+    //sessions not lent, the latest given back is lent first
+    private final Deque<WriteSession> idleSessions = new ArrayDeque<>();
+    private final Set<WriteSession> lentSessions = ConcurrentHashMap.newKeySet();
+    private boolean closed;
+
+    public WriteSessionManager(JdbcContext jdbcContext, int statementCacheSize) {
+        this.jdbcContext = jdbcContext;
+        this.statementCacheSize = statementCacheSize;
+    }
+
+    public WriteSession borrow() throws SQLException {
+        WriteSession writeSession;
+        while (EmptyKit.isNotNull(writeSession = pollIdle())) {
+            if (writeSession.isValid() && !writeSession.getConnection().isClosed()) {
+                return writeSession;
+            }
+            lentSessions.remove(writeSession);
+            writeSession.close();
+        }
+        //connection is got out of the lock, the pool may block
+        writeSession = new WriteSession(jdbcContext.getConnection(), statementCacheSize, this);
+        lentSessions.add(writeSession);
+        return writeSession;
+    }
+
+    private synchronized WriteSession pollIdle() {
+        WriteSession writeSession = idleSessions.pollFirst();
+        if (EmptyKit.isNotNull(writeSession)) {
+            lentSessions.add(writeSession);
+        }
+        return writeSession;
+    }
+
+    /**
+     * called when the writer of the session is released, a broken session or one given back after close is closed
+     */
+    public void giveBack(WriteSession writeSession) {
+        if (!lentSessions.remove(writeSession)) {
+            return;
+        }
+        synchronized (this) {
+            if (!closed && writeSession.isValid()) {
+                idleSessions.offerFirst(writeSession);
+                return;
+            }
+        }
+        writeSession.close();
+    }
+
+    public void invalidateTable(String tableId) {
+        lentSessions.forEach(writeSession -> writeSession.markStale(tableId));
+        synchronized (this) {
+            idleSessions.forEach(writeSession -> writeSession.markStale(tableId));
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            idleSessions.forEach(WriteSession::close);
+            idleSessions.clear();
+        }
+        lentSessions.forEach(WriteSession::close);
+        lentSessions.clear();
+    }
+}
@@ -0,0 +1,25 @@
+package io.tapdata.common;
+
+import io.tapdata.entity.utils.DataMap;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+
+public class CommonDbChunkOffsetTest {
+
+    @Test
+    void testCopyIsSnapshot() {
+        CommonDbChunkOffset chunkOffset = new CommonDbChunkOffset(new ArrayList<>(Arrays.asList(
+                new CommonDbOffset(new DataMap(), 0L),
+                new CommonDbOffset(DataMap.create().kv("id", 100), 100L))), new HashSet<>());
+        chunkOffset.getFinishedChunks().add(0);
+        CommonDbChunkOffset snapshot = chunkOffset.copy();
+        chunkOffset.getFinishedChunks().add(1);
+        Assertions.assertTrue(snapshot.isFinished(0));
+        Assertions.assertFalse(snapshot.isFinished(1));
+        Assertions.assertEquals(2, snapshot.getChunks().size());
+    }
+}
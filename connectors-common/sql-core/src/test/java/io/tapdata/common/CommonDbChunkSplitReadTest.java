@@ -0,0 +1,284 @@
+package io.tapdata.common;
+
+import io.tapdata.entity.codec.TapCodecsRegistry;
+import io.tapdata.entity.event.TapEvent;
+import io.tapdata.entity.event.dml.TapInsertRecordEvent;
+import io.tapdata.entity.logger.Log;
+import io.tapdata.entity.schema.TapField;
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.entity.utils.DataMap;
+import io.tapdata.pdk.apis.context.TapConnectionContext;
+import io.tapdata.pdk.apis.entity.ConnectionOptions;
+import io.tapdata.pdk.apis.entity.TestItem;
+import io.tapdata.pdk.apis.functions.ConnectorFunctions;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class CommonDbChunkSplitReadTest {
+
+    private static final Pattern CONDITION = Pattern.compile("\"id\"(<=|>=|<|>|=)\\?");
+
+    private CommonDbConnector connector;
+    private CommonDbConfig config;
+    private JdbcContext jdbcContext;
+    private TapTable tapTable;
+    private List<Integer> ids;
+    private List<String> rangeSqls;
+    private List<Integer> readIds;
+    private List<Object> offsets;
+
+    @BeforeEach
+    void beforeEach() throws SQLException {
+        connector = new CommonDbConnector() {
+            @Override
+            public ConnectionOptions connectionTest(TapConnectionContext connectionContext, Consumer<TestItem> consumer) {
+                return null;
+            }
+
+            @Override
+            public void registerCapabilities(ConnectorFunctions connectorFunctions, TapCodecsRegistry codecRegistry) {
+
+            }
+
+            @Override
+            public void onStart(TapConnectionContext connectionContext) {
+
+            }
+
+            @Override
+            public void onStop(TapConnectionContext connectionContext) {
+
+            }
+        };
+        ((AtomicBoolean) ReflectionTestUtils.getField(connector, "isAlive")).set(true);
+        config = new CommonDbConfig();
+        config.setChunkSplit(true);
+        config.setChunkSize(3);
+        config.setBatchReadThreadSize(2);
+        jdbcContext = mock(JdbcContext.class);
+        ReflectionTestUtils.setField(connector, "commonDbConfig", config);
+        ReflectionTestUtils.setField(connector, "jdbcContext", jdbcContext);
+        ReflectionTestUtils.setField(connector, "tapLogger", mock(Log.class));
+        tapTable = new TapTable("test");
+        tapTable.add(new TapField("id", "int").primaryKeyPos(1));
+        ids = IntStream.rangeClosed(1, 10).boxed().collect(Collectors.toList());
+        rangeSqls = Collections.synchronizedList(new ArrayList<>());
+        readIds = Collections.synchronizedList(new ArrayList<>());
+        offsets = Collections.synchronizedList(new ArrayList<>());
+        //every chunkSize-th key is sampled as a boundary in one scan
+        doAnswer(invocation -> {
+            String sql = invocation.getArgument(0);
+            Assertions.assertTrue(sql.contains("mod(tap__rowno, 3)=0"));
+            ((ResultSetConsumer) invocation.getArgument(1)).accept(resultSet(ids.stream().filter(id -> id % 3 == 0).collect(Collectors.toList())));
+            return null;
+        }).when(jdbcContext).query(anyString(), any(ResultSetConsumer.class));
+        //keyset samples and range queries are answered by applying their conditions to the ids
+        doAnswer(invocation -> {
+            String sql = invocation.getArgument(0);
+            List<Object> params = invocation.getArgument(1);
+            List<Integer> values = ids.stream().filter(id -> matches(sql, params, id)).collect(Collectors.toList());
+            if (sql.endsWith(" limit 1 offset 2")) {
+                values = values.stream().skip(2).limit(1).collect(Collectors.toList());
+            } else {
+                rangeSqls.add(sql);
+            }
+            ((ResultSetConsumer) invocation.getArgument(2)).accept(resultSet(values));
+            return null;
+        }).when(jdbcContext).prepareQuery(anyString(), anyList(), any(ResultSetConsumer.class));
+    }
+
+    private static boolean matches(String sql, List<Object> params, int id) {
+        if (!sql.contains(" where ")) {
+            return params.isEmpty();
+        }
+        Matcher matcher = CONDITION.matcher(sql.substring(sql.indexOf(" where ")));
+        int index = 0;
+        while (matcher.find()) {
+            int value = (Integer) params.get(index++);
+            switch (matcher.group(1)) {
+                case "<=":
+                    if (id > value) return false;
+                    break;
+                case ">=":
+                    if (id < value) return false;
+                    break;
+                case "<":
+                    if (id >= value) return false;
+                    break;
+                case ">":
+                    if (id <= value) return false;
+                    break;
+                default:
+                    if (id != value) return false;
+            }
+        }
+        return index == params.size();
+    }
+
+    private static ResultSet resultSet(List<Integer> values) throws SQLException {
+        ResultSet resultSet = mock(ResultSet.class);
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(metaData.getColumnCount()).thenReturn(1);
+        when(metaData.getColumnLabel(1)).thenReturn("id");
+        when(resultSet.getMetaData()).thenReturn(metaData);
+        AtomicInteger row = new AtomicInteger();
+        when(resultSet.next()).thenAnswer(invocation -> row.incrementAndGet() <= values.size());
+        when(resultSet.getRow()).thenAnswer(invocation -> row.get());
+        when(resultSet.getObject(1)).thenAnswer(invocation -> values.get(row.get() - 1));
+        return resultSet;
+    }
+
+    private void batchRead(Object offsetState) throws Throwable {
+        connector.batchReadWithoutOffset(null, tapTable, offsetState, 2, (events, offset) -> {
+            for (TapEvent event : events) {
+                readIds.add((Integer) ((TapInsertRecordEvent) event).getAfter().get("id"));
+            }
+            offsets.add(offset);
+        });
+    }
+
+    private CommonDbChunkOffset lastOffset() {
+        Assertions.assertFalse(offsets.isEmpty());
+        Object offset = offsets.get(offsets.size() - 1);
+        Assertions.assertTrue(offset instanceof CommonDbChunkOffset);
+        return (CommonDbChunkOffset) offset;
+    }
+
+    @Test
+    @DisplayName("test chunk boundaries cover every key exactly once")
+    void testChunkBoundaries() throws Throwable {
+        batchRead(null);
+        List<Integer> sorted = new ArrayList<>(readIds);
+        Collections.sort(sorted);
+        Assertions.assertEquals(ids, sorted);
+        CommonDbChunkOffset chunkOffset = lastOffset();
+        Assertions.assertEquals(Arrays.asList(null, 3, 6, 9), chunkOffset.getChunks().stream().map(c -> c.getColumnValue().get("id")).collect(Collectors.toList()));
+        Assertions.assertEquals(new HashSet<>(Arrays.asList(0, 1, 2, 3)), chunkOffset.getFinishedChunks());
+        //the boundary key belongs to the chunk it closes
+        Assertions.assertTrue(rangeSqls.stream().anyMatch(sql -> sql.endsWith(" where \"id\"<=? order by \"id\"")));
+        //the boundaries are sampled by keyset pages when the database has no boundaries sql
+        verify(jdbcContext, never()).query(anyString(), any(ResultSetConsumer.class));
+    }
+
+    @Test
+    @DisplayName("test the boundaries sql of a database samples in one scan")
+    void testBoundariesSql() throws Throwable {
+        CommonDbConnector windowConnector = spy(connector);
+        doAnswer(invocation -> String.format(CommonDbConnector.FIND_KEY_BOUNDARIES, invocation.getArgument(0), invocation.getArgument(0), invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2)))
+                .when(windowConnector).getKeyBoundariesSql(anyString(), anyString(), anyLong());
+        windowConnector.batchReadWithoutOffset(null, tapTable, null, 2, (events, offset) -> offsets.add(offset));
+        Assertions.assertEquals(Arrays.asList(null, 3, 6, 9), lastOffset().getChunks().stream().map(c -> c.getColumnValue().get("id")).collect(Collectors.toList()));
+        verify(jdbcContext, times(1)).query(anyString(), any(ResultSetConsumer.class));
+    }
+
+    @Test
+    @DisplayName("test keyset sampling of a composite primary key")
+    void testCompositeKeySample() throws Throwable {
+        TapTable compositeTable = new TapTable("test");
+        compositeTable.add(new TapField("a", "int").primaryKeyPos(1));
+        compositeTable.add(new TapField("b", "int").primaryKeyPos(2));
+        List<String> sqls = new ArrayList<>();
+        List<List<Object>> params = new ArrayList<>();
+        doAnswer(invocation -> {
+            sqls.add(invocation.getArgument(0));
+            params.add(new ArrayList<>(invocation.getArgument(1)));
+            if (sqls.size() == 1) {
+                ResultSet resultSet = mock(ResultSet.class);
+                ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+                when(metaData.getColumnCount()).thenReturn(2);
+                when(metaData.getColumnLabel(1)).thenReturn("a");
+                when(metaData.getColumnLabel(2)).thenReturn("b");
+                when(resultSet.getMetaData()).thenReturn(metaData);
+                when(resultSet.next()).thenReturn(true);
+                when(resultSet.getObject(1)).thenReturn(1);
+                when(resultSet.getObject(2)).thenReturn(7);
+                ((ResultSetConsumer) invocation.getArgument(2)).accept(resultSet);
+            } else {
+                ((ResultSetConsumer) invocation.getArgument(2)).accept(resultSet(Collections.emptyList()));
+            }
+            return null;
+        }).when(jdbcContext).prepareQuery(anyString(), anyList(), any(ResultSetConsumer.class));
+        List<CommonDbOffset> chunks = ReflectionTestUtils.invokeMethod(connector, "findPrimaryKeyChunks", compositeTable, 3L);
+        Assertions.assertEquals(2, chunks.size());
+        Assertions.assertEquals("select \"a\",\"b\" from \"test\" order by \"a\",\"b\" limit 1 offset 2", sqls.get(0));
+        Assertions.assertTrue(sqls.get(1).contains(" where (\"a\">?) or (\"a\"=? and \"b\">?) order by "));
+        Assertions.assertEquals(Arrays.asList(1, 1, 7), params.get(1));
+    }
+
+    @Test
+    @DisplayName("test resume skips the finished chunks without sampling again")
+    void testResume() throws Throwable {
+        List<CommonDbOffset> chunks = new ArrayList<>();
+        chunks.add(new CommonDbOffset(new DataMap(), 0L));
+        for (int id : new int[]{3, 6, 9}) {
+            chunks.add(new CommonDbOffset(DataMap.create().kv("id", id), (long) id));
+        }
+        batchRead(new CommonDbChunkOffset(chunks, new HashSet<>(Arrays.asList(0, 2))));
+        List<Integer> sorted = new ArrayList<>(readIds);
+        Collections.sort(sorted);
+        Assertions.assertEquals(Arrays.asList(4, 5, 6, 10), sorted);
+        Assertions.assertEquals(new HashSet<>(Arrays.asList(0, 1, 2, 3)), lastOffset().getFinishedChunks());
+        verify(jdbcContext, never()).query(anyString(), any(ResultSetConsumer.class));
+    }
+
+    @Test
+    @DisplayName("test resume continues a chunk after its latest key read")
+    void testResumeFromReadKey() throws Throwable {
+        List<CommonDbOffset> chunks = new ArrayList<>();
+        chunks.add(new CommonDbOffset(new DataMap(), 0L));
+        for (int id : new int[]{3, 6, 9}) {
+            chunks.add(new CommonDbOffset(DataMap.create().kv("id", id), (long) id));
+        }
+        Map<Integer, DataMap> readKeys = new HashMap<>();
+        readKeys.put(1, DataMap.create().kv("id", 4));
+        batchRead(new CommonDbChunkOffset(chunks, new HashSet<>(Arrays.asList(0, 2)), readKeys));
+        List<Integer> sorted = new ArrayList<>(readIds);
+        Collections.sort(sorted);
+        Assertions.assertEquals(Arrays.asList(5, 6, 10), sorted);
+        Assertions.assertTrue(lastOffset().getReadKeys().isEmpty());
+    }
+
+    @Test
+    @DisplayName("test a chunk offset is resumed by chunks even when the switch is turned off")
+    void testResumeWithSwitchOff() throws Throwable {
+        config.setChunkSplit(false);
+        List<CommonDbOffset> chunks = new ArrayList<>();
+        chunks.add(new CommonDbOffset(new DataMap(), 0L));
+        chunks.add(new CommonDbOffset(DataMap.create().kv("id", 5), 5L));
+        batchRead(new CommonDbChunkOffset(chunks, new HashSet<>(Collections.singletonList(0))));
+        List<Integer> sorted = new ArrayList<>(readIds);
+        Collections.sort(sorted);
+        Assertions.assertEquals(Arrays.asList(6, 7, 8, 9, 10), sorted);
+    }
+
+    @Test
+    @DisplayName("test the offset of a partial chunk does not mark it finished")
+    void testPartialChunkNotFinished() throws Throwable {
+        config.setBatchReadThreadSize(1);
+        batchRead(null);
+        //batches of 2: chunk 0 has keys 1..3, its first batch is emitted before the chunk is finished
+        Assertions.assertTrue(offsets.get(0) instanceof CommonDbChunkOffset);
+        Assertions.assertFalse(((CommonDbChunkOffset) offsets.get(0)).isFinished(0));
+        Assertions.assertEquals(2, ((CommonDbChunkOffset) offsets.get(0)).getReadKeys().get(0).get("id"));
+        Assertions.assertTrue(((CommonDbChunkOffset) offsets.get(1)).isFinished(0));
+        Assertions.assertFalse(((CommonDbChunkOffset) offsets.get(1)).getReadKeys().containsKey(0));
+    }
+}
@@ -0,0 +1,98 @@
+package io.tapdata.common;
+
+import io.tapdata.entity.utils.DataMap;
+import io.tapdata.kit.DbKit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * rows of one result set read by DbKit.getRowFromResultSet and CompiledRowReader
+ * run with main method, the result set is in memory so only the materialization cost is measured
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompiledRowReaderBenchmark {
+
+    private static final int ROWS = 10000;
+
+    @Param({"10", "50", "200"})
+    private int columnCount;
+
+    private ResultSet resultSet;
+    private int[] cursor;
+
+    @Setup
+    public void setup() {
+        Object[] values = new Object[columnCount];
+        String[] labels = new String[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            labels[i] = "column_" + i;
+            values[i] = i % 3 == 0 ? "value_" + i : i % 3 == 1 ? (Object) (long) i : new BigDecimal(i + ".25");
+        }
+        cursor = new int[1];
+        ResultSetMetaData metaData = (ResultSetMetaData) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{ResultSetMetaData.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getColumnCount":
+                    return columnCount;
+                case "getColumnLabel":
+                case "getColumnName":
+                    return labels[(int) args[0] - 1];
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+        resultSet = (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{ResultSet.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "next":
+                    return ++cursor[0] <= ROWS;
+                case "getRow":
+                    return cursor[0];
+                case "getMetaData":
+                    return metaData;
+                case "getObject":
+                    return values[(int) args[0] - 1];
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    @Benchmark
+    public void dbKit(Blackhole blackhole) throws SQLException {
+        cursor[0] = 0;
+        List<String> columnNames = DbKit.getColumnsFromResultSet(resultSet);
+        while (resultSet.next()) {
+            DataMap dataMap = DbKit.getRowFromResultSet(resultSet, columnNames);
+            blackhole.consume(dataMap);
+        }
+    }
+
+    @Benchmark
+    public void compiledRowReader(Blackhole blackhole) throws SQLException {
+        cursor[0] = 0;
+        CompiledRowReader rowReader = CompiledRowReader.compile(resultSet.getMetaData(), null);
+        while (resultSet.next()) {
+            DataMap dataMap = rowReader.read(resultSet);
+            blackhole.consume(dataMap);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CompiledRowReaderBenchmark.class.getSimpleName()).build()).run();
+    }
+}
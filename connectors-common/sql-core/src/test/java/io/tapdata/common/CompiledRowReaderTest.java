@@ -0,0 +1,98 @@
+package io.tapdata.common;
+
+import io.tapdata.entity.schema.TapField;
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.entity.schema.type.TapNumber;
+import io.tapdata.entity.schema.type.TapString;
+import io.tapdata.entity.utils.DataMap;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import static org.mockito.Mockito.*;
+
+public class CompiledRowReaderTest {
+
+    private ResultSet resultSet;
+    private ResultSetMetaData metaData;
+
+    @BeforeEach
+    void beforeEach() throws SQLException {
+        resultSet = mock(ResultSet.class);
+        metaData = mock(ResultSetMetaData.class);
+        when(metaData.getColumnCount()).thenReturn(3);
+        when(metaData.getColumnLabel(1)).thenReturn("id");
+        when(metaData.getColumnLabel(2)).thenReturn("t.name");
+        when(metaData.getColumnLabel(3)).thenReturn("age");
+        when(resultSet.getObject(1)).thenReturn(1);
+        when(resultSet.getObject(2)).thenReturn("tom");
+        when(resultSet.getObject(3)).thenThrow(new SQLException("unsupported"));
+        when(resultSet.getString(3)).thenReturn("18");
+    }
+
+    @Test
+    void testRead() throws SQLException {
+        CompiledRowReader rowReader = CompiledRowReader.compile(metaData, null);
+        Assertions.assertArrayEquals(new String[]{"id", "name", "age"}, rowReader.getColumnNames());
+        DataMap dataMap = rowReader.read(resultSet);
+        Assertions.assertEquals(3, dataMap.size());
+        Assertions.assertEquals(1, dataMap.get("id"));
+        Assertions.assertEquals("tom", dataMap.get("name"));
+        Assertions.assertEquals("18", dataMap.get("age"));
+        //metadata is read once when compiling
+        rowReader.read(resultSet);
+        verify(metaData, times(1)).getColumnLabel(1);
+    }
+
+    @Test
+    void testExtractorFactory() throws SQLException {
+        CompiledRowReader rowReader = CompiledRowReader.compile(metaData, null, (md, index, columnName, tapField) ->
+                "age".equals(columnName) ? (rs, i) -> Integer.parseInt(rs.getString(i)) : null);
+        Object[] values = rowReader.readValues(resultSet);
+        Assertions.assertArrayEquals(new Object[]{1, "tom", 18}, values);
+        Assertions.assertEquals(2, rowReader.indexOf("age"));
+        Assertions.assertEquals(-1, rowReader.indexOf("none"));
+    }
+
+    @Test
+    void testTypedExtractor() throws SQLException {
+        TapTable tapTable = new TapTable("t");
+        tapTable.add(new TapField("id", "bigint").tapType(new TapNumber()));
+        tapTable.add(new TapField("name", "varchar").tapType(new TapString()));
+        tapTable.add(new TapField("age", "int unsigned").tapType(new TapNumber()));
+        when(metaData.getColumnType(1)).thenReturn(Types.BIGINT);
+        when(metaData.getColumnType(2)).thenReturn(Types.VARCHAR);
+        when(metaData.getColumnType(3)).thenReturn(Types.INTEGER);
+        when(metaData.isSigned(1)).thenReturn(true);
+        when(metaData.isSigned(3)).thenReturn(false);
+        when(resultSet.getLong(1)).thenReturn(1L);
+        when(resultSet.getString(2)).thenReturn("tom");
+        Object[] values = CompiledRowReader.compile(metaData, tapTable).readValues(resultSet);
+        Assertions.assertArrayEquals(new Object[]{1L, "tom", "18"}, values);
+        verify(resultSet, never()).getObject(1);
+        verify(resultSet, never()).getObject(2);
+        //the unsigned column keeps getObject
+        verify(resultSet, times(1)).getObject(3);
+    }
+
+    @Test
+    void testCache() throws SQLException {
+        TapTable tapTable = new TapTable("t");
+        CompiledRowReader.Cache cache = new CompiledRowReader.Cache();
+        CompiledRowReader rowReader = cache.get(metaData, tapTable, null);
+        Assertions.assertSame(rowReader, cache.get(metaData, tapTable, null));
+        Assertions.assertEquals(1, cache.size());
+        //another column list or another column type is compiled apart
+        when(metaData.getColumnType(3)).thenReturn(Types.VARCHAR);
+        Assertions.assertNotSame(rowReader, cache.get(metaData, tapTable, null));
+        when(metaData.getColumnCount()).thenReturn(2);
+        Assertions.assertNotSame(rowReader, cache.get(metaData, tapTable, null));
+        Assertions.assertEquals(3, cache.size());
+        Assertions.assertNotSame(rowReader, cache.get(metaData, new TapTable("other"), null));
+    }
+}
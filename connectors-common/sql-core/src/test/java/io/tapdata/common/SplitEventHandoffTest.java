@@ -0,0 +1,84 @@
+package io.tapdata.common;
+
+import io.tapdata.entity.event.TapEvent;
+import io.tapdata.entity.event.dml.TapInsertRecordEvent;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SplitEventHandoffTest {
+
+    @Test
+    void testConsumeOnCallerThread() throws Throwable {
+        Thread caller = Thread.currentThread();
+        List<TapEvent> consumed = new ArrayList<>();
+        AtomicInteger otherThreadCalls = new AtomicInteger();
+        SplitEventHandoff eventHandoff = new SplitEventHandoff(2, (events, offset) -> {
+            if (Thread.currentThread() != caller) {
+                otherThreadCalls.incrementAndGet();
+            }
+            consumed.addAll(events);
+        });
+        eventHandoff.readSplits(4, 10, split -> {
+            for (int i = 0; i < 20; i++) {
+                eventHandoff.offer(Collections.singletonList(new TapInsertRecordEvent().init()));
+            }
+        });
+        Assertions.assertEquals(200, consumed.size());
+        Assertions.assertEquals(0, otherThreadCalls.get());
+    }
+
+    @Test
+    void testReadersBoundedByThreadSize() throws Throwable {
+        Set<Thread> readers = ConcurrentHashMap.newKeySet();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        SplitEventHandoff eventHandoff = new SplitEventHandoff(2, (events, offset) -> {
+        });
+        eventHandoff.readSplits(3, 30, split -> {
+            readers.add(Thread.currentThread());
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(1);
+            running.decrementAndGet();
+        });
+        Assertions.assertTrue(readers.size() <= 3);
+        Assertions.assertTrue(maxRunning.get() <= 3);
+        //the readers are released after the splits are read
+        for (Thread reader : readers) {
+            reader.join(1000);
+            Assertions.assertFalse(reader.isAlive());
+        }
+    }
+
+    @Test
+    void testReaderFailure() {
+        AtomicInteger readSplits = new AtomicInteger();
+        SplitEventHandoff eventHandoff = new SplitEventHandoff(2, (events, offset) -> {
+        });
+        IllegalStateException exception = Assertions.assertThrows(IllegalStateException.class, () -> eventHandoff.readSplits(1, 5, split -> {
+            readSplits.incrementAndGet();
+            throw new IllegalStateException("split " + split);
+        }));
+        Assertions.assertEquals("split 0", exception.getMessage());
+        Assertions.assertEquals(1, readSplits.get());
+    }
+
+    @Test
+    void testConsumerFailureReleasesReaders() {
+        SplitEventHandoff eventHandoff = new SplitEventHandoff(1, (events, offset) -> {
+            throw new IllegalArgumentException("consume failed");
+        });
+        Assertions.assertThrows(IllegalArgumentException.class, () -> eventHandoff.readSplits(2, 2, split -> {
+            for (int i = 0; i < 100; i++) {
+                eventHandoff.offer(Collections.singletonList(new TapInsertRecordEvent().init()));
+            }
+        }));
+        Assertions.assertTrue(eventHandoff.isFailed());
+    }
+}
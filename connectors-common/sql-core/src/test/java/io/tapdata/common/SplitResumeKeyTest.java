@@ -0,0 +1,49 @@
+package io.tapdata.common;
+
+import io.tapdata.entity.schema.TapTable;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+
+import static org.mockito.Mockito.*;
+
+public class SplitResumeKeyTest {
+
+    @Test
+    void testWithoutPrimaryKey() {
+        TapTable tapTable = mock(TapTable.class);
+        when(tapTable.primaryKeys()).thenReturn(Collections.emptyList());
+        Assertions.assertNull(SplitResumeKey.create(tapTable, '"'));
+    }
+
+    @Test
+    void testResumeSql() throws SQLException {
+        TapTable tapTable = mock(TapTable.class);
+        when(tapTable.primaryKeys()).thenReturn(Arrays.asList("a", "b"));
+        SplitResumeKey resumeKey = SplitResumeKey.create(tapTable, '"');
+        Assertions.assertFalse(resumeKey.isResumed());
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getObject(3)).thenReturn(1);
+        when(resultSet.getObject(1)).thenReturn("k");
+        int[] indexes = resumeKey.columnIndexes(Arrays.asList("b", "c", "a"));
+        Assertions.assertArrayEquals(new int[]{3, 1}, indexes);
+        //the first query is ordered too, so its rows are positions of the split
+        Assertions.assertEquals("SELECT * FROM t WHERE x ORDER BY \"a\",\"b\"", resumeKey.resumeSql("SELECT * FROM t WHERE x"));
+        Assertions.assertTrue(resumeKey.params().isEmpty());
+
+        resumeKey.mark(resultSet, indexes);
+        Assertions.assertTrue(resumeKey.isResumed());
+        Assertions.assertEquals("SELECT * FROM t WHERE x AND ((\"a\">?) OR (\"a\"=? AND \"b\">?)) ORDER BY \"a\",\"b\"", resumeKey.resumeSql("SELECT * FROM t WHERE x"));
+        Assertions.assertEquals(Arrays.asList(1, 1, "k"), resumeKey.params());
+
+        Map<String, Object> row = new HashMap<>();
+        row.put("a", 2);
+        row.put("b", "m");
+        resumeKey.mark(row);
+        Assertions.assertEquals(Arrays.asList(2, 2, "m"), resumeKey.params());
+        Assertions.assertNull(resumeKey.columnIndexes(Collections.singletonList("a")));
+    }
+}
@@ -0,0 +1,106 @@
+package io.tapdata.common.dml;
+
+import io.tapdata.common.exception.ExceptionCollector;
+import io.tapdata.entity.event.dml.TapRecordEvent;
+import io.tapdata.entity.logger.Log;
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.pdk.apis.entity.WriteListResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static io.tapdata.entity.simplify.TapSimplify.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class NormalRecordWriterTest {
+
+    @Nested
+    class WritePartTest {
+
+        NormalRecordWriter writer;
+        NormalWriteRecorder insertRecorder;
+        List<TapRecordEvent> events;
+        TapRecordEvent poison;
+        List<TapRecordEvent> batch;
+        List<List<TapRecordEvent>> committed;
+        int[] flushes;
+
+        @BeforeEach
+        void beforeEach() throws SQLException {
+            writer = mock(NormalRecordWriter.class);
+            insertRecorder = mock(NormalWriteRecorder.class);
+            NormalWriteRecorder updateRecorder = mock(NormalWriteRecorder.class);
+            NormalWriteRecorder deleteRecorder = mock(NormalWriteRecorder.class);
+            for (NormalWriteRecorder recorder : Arrays.asList(insertRecorder, updateRecorder, deleteRecorder)) {
+                when(recorder.getAtomicLong()).thenReturn(new AtomicLong());
+            }
+            doCallRealMethod().when(insertRecorder).findFailedEvent(any());
+            doCallRealMethod().when(insertRecorder).getFailedEvent();
+            TapTable tapTable = mock(TapTable.class);
+            when(tapTable.primaryKeys(true)).thenReturn(Collections.singletonList("id"));
+            Connection connection = mock(Connection.class);
+            when(connection.getAutoCommit()).thenReturn(false);
+            ReflectionTestUtils.setField(writer, "insertRecorder", insertRecorder);
+            ReflectionTestUtils.setField(writer, "updateRecorder", updateRecorder);
+            ReflectionTestUtils.setField(writer, "deleteRecorder", deleteRecorder);
+            ReflectionTestUtils.setField(writer, "tapTable", tapTable);
+            ReflectionTestUtils.setField(writer, "connection", connection);
+            ReflectionTestUtils.setField(writer, "exceptionCollector", mock(ExceptionCollector.class));
+            ReflectionTestUtils.setField(writer, "tapLogger", mock(Log.class));
+            doCallRealMethod().when(writer).writePart(anyList(), any(), any());
+
+            events = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                events.add(insertRecordEvent(map(entry("id", i)), "t"));
+            }
+            poison = events.get(5);
+            batch = new ArrayList<>();
+            committed = new ArrayList<>();
+            flushes = new int[1];
+            doAnswer(invocation -> batch.add(invocation.getArgument(0))).when(writer).writeEvent(any(), any());
+            //a rewritten batch marks every row failed whichever row is wrong
+            doAnswer(invocation -> {
+                flushes[0]++;
+                if (batch.contains(poison)) {
+                    int[] updateCounts = new int[batch.size()];
+                    Arrays.fill(updateCounts, Statement.EXECUTE_FAILED);
+                    BatchUpdateException e = new BatchUpdateException(updateCounts);
+                    ReflectionTestUtils.setField(insertRecorder, "pendingEvents", new ArrayList<>(batch));
+                    ReflectionTestUtils.setField(insertRecorder, "failedEvent", insertRecorder.findFailedEvent(e));
+                    throw e;
+                }
+                return null;
+            }).when(writer).flushEvents(any());
+            doAnswer(invocation -> {
+                batch.clear();
+                ReflectionTestUtils.setField(insertRecorder, "failedEvent", null);
+                return null;
+            }).when(writer).clearEvents();
+            doAnswer(invocation -> {
+                committed.add(new ArrayList<>(batch));
+                batch.clear();
+                return null;
+            }).when(connection).commit();
+        }
+
+        @Test
+        void testBisectRewrittenBatch() {
+            RuntimeException e = assertThrows(RuntimeException.class, () -> writer.writePart(events, new WriteListResult<>(), () -> true));
+            assertTrue(e.getMessage().contains(poison.toString()));
+            //halves are committed once, the all failed counts do not blame the first row
+            assertEquals(Arrays.asList(events.subList(0, 4), events.subList(4, 5)), committed);
+            //8, 0-3, 4-7, 4-5, 4, 5
+            assertEquals(6, flushes[0]);
+        }
+    }
+}
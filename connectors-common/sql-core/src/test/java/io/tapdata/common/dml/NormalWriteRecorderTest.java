@@ -1,19 +1,24 @@
 package io.tapdata.common.dml;
 
+import io.tapdata.entity.event.dml.TapRecordEvent;
 import io.tapdata.pdk.apis.entity.WriteListResult;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.sql.BatchUpdateException;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 import static io.tapdata.entity.simplify.TapSimplify.entry;
 import static io.tapdata.entity.simplify.TapSimplify.map;
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
@@ -74,4 +79,45 @@ public class NormalWriteRecorderTest {
             verify(recorder, times(0)).justUpdate(any(), any(), any());
         }
     }
+
+    @Nested
+    class FindFailedEventTest {
+
+        NormalWriteRecorder recorder;
+        List<TapRecordEvent> pendingEvents;
+
+        @BeforeEach
+        void beforeEach() {
+            recorder = mock(NormalWriteRecorder.class);
+            pendingEvents = Arrays.asList(mock(TapRecordEvent.class), mock(TapRecordEvent.class), mock(TapRecordEvent.class));
+            ReflectionTestUtils.setField(recorder, "pendingEvents", pendingEvents);
+            doCallRealMethod().when(recorder).findFailedEvent(any());
+        }
+
+        @Test
+        void testExecuteFailed() {
+            BatchUpdateException e = new BatchUpdateException(new int[]{1, Statement.EXECUTE_FAILED, 1});
+            assertSame(pendingEvents.get(1), recorder.findFailedEvent(e));
+        }
+
+        @Test
+        void testExecutedPrefix() {
+            BatchUpdateException e = new BatchUpdateException(new int[]{1, 1});
+            assertSame(pendingEvents.get(2), recorder.findFailedEvent(e));
+        }
+
+        @Test
+        void testRewrittenBatch() {
+            BatchUpdateException e = new BatchUpdateException(new int[]{Statement.EXECUTE_FAILED, Statement.EXECUTE_FAILED, Statement.EXECUTE_FAILED});
+            assertNull(recorder.findFailedEvent(e));
+        }
+
+        @Test
+        void testUnknownPosition() {
+            assertNull(recorder.findFailedEvent(new BatchUpdateException(new int[]{Statement.EXECUTE_FAILED})));
+            assertNull(recorder.findFailedEvent(new BatchUpdateException(new int[]{1, 1, 1, 1})));
+            assertNull(recorder.findFailedEvent(new BatchUpdateException(new int[0])));
+            assertNull(recorder.findFailedEvent(new SQLException("error")));
+        }
+    }
 }
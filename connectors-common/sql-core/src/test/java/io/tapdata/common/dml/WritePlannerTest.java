@@ -0,0 +1,107 @@
+package io.tapdata.common.dml;
+
+import io.tapdata.entity.event.dml.TapDeleteRecordEvent;
+import io.tapdata.entity.event.dml.TapInsertRecordEvent;
+import io.tapdata.entity.event.dml.TapRecordEvent;
+import io.tapdata.entity.event.dml.TapUpdateRecordEvent;
+import io.tapdata.entity.schema.TapTable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static io.tapdata.entity.simplify.TapSimplify.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class WritePlannerTest {
+
+    WritePlanner writePlanner;
+
+    @BeforeEach
+    void beforeEach() {
+        TapTable tapTable = mock(TapTable.class);
+        when(tapTable.primaryKeys(false)).thenReturn(Collections.singletonList("id"));
+        writePlanner = new WritePlanner(tapTable);
+    }
+
+    @Test
+    void testFormRuns() {
+        List<TapRecordEvent> events = list(
+                insertRecordEvent(map(entry("id", 1)), "t"),
+                deleteDMLEvent(map(entry("id", 2)), "t"),
+                insertRecordEvent(map(entry("id", 3)), "t"),
+                deleteDMLEvent(map(entry("id", 4)), "t"));
+        List<TapRecordEvent> result = writePlanner.plan(events);
+        assertEquals(4, result.size());
+        assertTrue(result.get(0) instanceof TapInsertRecordEvent);
+        assertTrue(result.get(1) instanceof TapInsertRecordEvent);
+        assertTrue(result.get(2) instanceof TapDeleteRecordEvent);
+        assertTrue(result.get(3) instanceof TapDeleteRecordEvent);
+    }
+
+    @Test
+    void testKeepKeyOrder() {
+        List<TapRecordEvent> events = list(
+                insertRecordEvent(map(entry("id", 1)), "t"),
+                deleteDMLEvent(map(entry("id", 1)), "t"),
+                insertRecordEvent(map(entry("id", 1L)), "t"));
+        List<TapRecordEvent> result = writePlanner.plan(events);
+        assertSame(events.get(0), result.get(0));
+        assertSame(events.get(1), result.get(1));
+        assertSame(events.get(2), result.get(2));
+    }
+
+    @Test
+    void testCollapseUpdate() {
+        List<TapRecordEvent> events = list(
+                updateDMLEvent(map(entry("id", 1)), map(entry("id", 1), entry("a", 1), entry("b", 1)), "t"),
+                insertRecordEvent(map(entry("id", 2)), "t"),
+                updateDMLEvent(map(entry("id", 1)), map(entry("id", 1), entry("b", 2)), "t"));
+        List<TapRecordEvent> result = writePlanner.plan(events);
+        assertEquals(2, result.size());
+        Map<String, Object> after = ((TapUpdateRecordEvent) result.get(0)).getAfter();
+        assertEquals(1, after.get("a"));
+        assertEquals(2, after.get("b"));
+    }
+
+    @Test
+    void testCollapseUpdateKeepsMetadata() {
+        TapUpdateRecordEvent second = updateDMLEvent(map(entry("id", 1)), map(entry("id", 1), entry("b", 2)), "t");
+        second.setReferenceTime(100L);
+        List<TapRecordEvent> events = list(
+                insertRecordEvent(map(entry("id", 2)), "t"),
+                updateDMLEvent(map(entry("id", 1), entry("a", 0)), map(entry("id", 1), entry("a", 1)), "t"),
+                second);
+        List<TapRecordEvent> result = writePlanner.plan(events);
+        assertEquals(2, result.size());
+        //the later event is kept with its own metadata
+        assertSame(second, result.get(1));
+        assertEquals(100L, second.getReferenceTime());
+        assertEquals(0, second.getBefore().get("a"));
+        assertEquals(1, second.getAfter().get("a"));
+    }
+
+    @Test
+    void testRunsKeepKeyOrderAcrossTypes() {
+        List<TapRecordEvent> events = list(
+                insertRecordEvent(map(entry("id", 1)), "t"),
+                deleteDMLEvent(map(entry("id", 1)), "t"),
+                insertRecordEvent(map(entry("id", 2)), "t"),
+                insertRecordEvent(map(entry("id", 1)), "t"),
+                deleteDMLEvent(map(entry("id", 3)), "t"),
+                insertRecordEvent(map(entry("id", 4)), "t"));
+        List<TapRecordEvent> result = writePlanner.plan(events);
+        //inserts of 1, 2, 4, then deletes of 1, 3, then the insert of 1 after its delete
+        assertEquals(Arrays.asList(events.get(0), events.get(2), events.get(5), events.get(1), events.get(4), events.get(3)), result);
+    }
+
+    @Test
+    void testKeyChanged() {
+        List<TapRecordEvent> events = list(
+                insertRecordEvent(map(entry("id", 1)), "t"),
+                updateDMLEvent(map(entry("id", 2)), map(entry("id", 3)), "t"),
+                insertRecordEvent(map(entry("id", 4)), "t"));
+        assertSame(events, writePlanner.plan(events));
+    }
+}
@@ -0,0 +1,66 @@
+package io.tapdata.common.dml;
+
+import io.tapdata.common.JdbcContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class WriteSessionManagerTest {
+
+    JdbcContext jdbcContext;
+    WriteSessionManager writeSessionManager;
+
+    @BeforeEach
+    void beforeEach() throws SQLException {
+        jdbcContext = mock(JdbcContext.class);
+        when(jdbcContext.getConnection()).thenAnswer(invocationOnMock -> mock(Connection.class));
+        writeSessionManager = new WriteSessionManager(jdbcContext, 2);
+    }
+
+    @Test
+    void testLentToOneWriter() throws SQLException {
+        //writers on threads of the same name never share a session
+        WriteSession first = writeSessionManager.borrow();
+        WriteSession second = writeSessionManager.borrow();
+        assertNotSame(first, second);
+        first.giveBack();
+        assertSame(first, writeSessionManager.borrow());
+        verify(jdbcContext, times(2)).getConnection();
+    }
+
+    @Test
+    void testGiveBackTwice() throws SQLException {
+        WriteSession writeSession = writeSessionManager.borrow();
+        writeSession.giveBack();
+        writeSession.giveBack();
+        assertSame(writeSession, writeSessionManager.borrow());
+        assertNotSame(writeSession, writeSessionManager.borrow());
+    }
+
+    @Test
+    void testInvalidSessionClosed() throws SQLException {
+        WriteSession writeSession = writeSessionManager.borrow();
+        writeSession.invalidate();
+        writeSession.giveBack();
+        verify(writeSession.getConnection(), times(1)).close();
+        assertNotSame(writeSession, writeSessionManager.borrow());
+    }
+
+    @Test
+    void testClose() throws SQLException {
+        WriteSession idle = writeSessionManager.borrow();
+        WriteSession lent = writeSessionManager.borrow();
+        idle.giveBack();
+        writeSessionManager.close();
+        verify(idle.getConnection(), times(1)).close();
+        verify(lent.getConnection(), times(1)).close();
+        //given back after close is not lent again
+        lent.giveBack();
+        assertFalse(lent.isValid());
+    }
+}
@@ -0,0 +1,60 @@
+package io.tapdata.common.dml;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class WriteSessionTest {
+
+    Connection connection;
+    WriteSession writeSession;
+
+    @BeforeEach
+    void beforeEach() throws SQLException {
+        connection = mock(Connection.class);
+        when(connection.prepareStatement(anyString())).thenAnswer(invocationOnMock -> mock(PreparedStatement.class));
+        writeSession = new WriteSession(connection, 2);
+    }
+
+    @Test
+    void testReuseStatement() throws SQLException {
+        PreparedStatement first = writeSession.prepareStatement("t1", "insert", "sql1");
+        assertSame(first, writeSession.prepareStatement("t1", "insert", "sql1"));
+        assertNotSame(first, writeSession.prepareStatement("t1", "update", "sql1"));
+        verify(connection, times(2)).prepareStatement("sql1");
+    }
+
+    @Test
+    void testEvictEldest() throws SQLException {
+        PreparedStatement first = writeSession.prepareStatement("t1", "insert", "sql1");
+        writeSession.prepareStatement("t1", "insert", "sql2");
+        writeSession.prepareStatement("t1", "insert", "sql3");
+        verify(first, never()).close();
+        writeSession.release();
+        verify(first, times(1)).close();
+    }
+
+    @Test
+    void testMarkStale() throws SQLException {
+        PreparedStatement first = writeSession.prepareStatement("t1", "insert", "sql1");
+        PreparedStatement other = writeSession.prepareStatement("t2", "insert", "sql1");
+        writeSession.markStale("t1");
+        assertNotSame(first, writeSession.prepareStatement("t1", "insert", "sql1"));
+        assertSame(other, writeSession.prepareStatement("t2", "insert", "sql1"));
+        verify(first, times(1)).close();
+    }
+
+    @Test
+    void testConnectionError() {
+        assertTrue(WriteSession.isConnectionError(new SQLRecoverableException("broken")));
+        assertTrue(WriteSession.isConnectionError(new SQLException("broken", "08S01")));
+        assertFalse(WriteSession.isConnectionError(new SQLException("duplicate", "23000")));
+    }
+}
@@ -0,0 +1,65 @@
+package io.tapdata.connector.streamload;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * pool of direct chunks shared by the stream loaders of one process
+ * at most maxPooled free chunks are kept, the others are left to gc when they are released
+ */
+public class DirectBufferPool {
+
+    public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+    private static final int DEFAULT_MAX_POOLED = 512;
+    private static final Map<Integer, DirectBufferPool> POOLS = new ConcurrentHashMap<>();
+
+    private final int chunkSize;
+    private final int maxPooled;
+    private final ConcurrentLinkedQueue<ByteBuffer> free = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger freeCount = new AtomicInteger();
+
+    public DirectBufferPool(int chunkSize, int maxPooled) {
+        this.chunkSize = chunkSize;
+        this.maxPooled = maxPooled;
+    }
+
+    public static DirectBufferPool shared() {
+        return shared(DEFAULT_CHUNK_SIZE);
+    }
+
+    public static DirectBufferPool shared(int chunkSize) {
+        return POOLS.computeIfAbsent(chunkSize, size -> new DirectBufferPool(size, DEFAULT_MAX_POOLED));
+    }
+
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = free.poll();
+        if (null == buffer) {
+            return ByteBuffer.allocateDirect(chunkSize);
+        }
+        freeCount.decrementAndGet();
+        return buffer;
+    }
+
+    public void release(ByteBuffer buffer) {
+        if (null == buffer || buffer.capacity() != chunkSize) {
+            return;
+        }
+        buffer.clear();
+        if (freeCount.incrementAndGet() <= maxPooled) {
+            free.offer(buffer);
+        } else {
+            freeCount.decrementAndGet();
+        }
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public int getFreeCount() {
+        return freeCount.get();
+    }
+}
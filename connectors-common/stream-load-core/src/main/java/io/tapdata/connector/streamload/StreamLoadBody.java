@@ -0,0 +1,164 @@
+package io.tapdata.connector.streamload;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * body of one stream load, serialized records are appended into pooled direct chunks
+ * once it is sealed, it can be read any times, so a retried load sends the same bytes
+ * chunks go back to the pool when it is released
+ */
+public class StreamLoadBody implements StreamLoadPayload {
+
+    private final DirectBufferPool pool;
+    private final long limit;
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private ByteBuffer current;
+    private long size;
+    private boolean sealed;
+
+    /**
+     * @param limit bytes of the body before a flush is needed
+     */
+    public StreamLoadBody(DirectBufferPool pool, long limit) {
+        this.pool = pool;
+        this.limit = limit;
+    }
+
+    public void write(byte[] bytes) {
+        write(bytes, 0, bytes.length);
+    }
+
+    public void write(byte[] bytes, int offset, int length) {
+        if (sealed) {
+            throw new IllegalStateException("Stream load body is sealed");
+        }
+        while (length > 0) {
+            if (null == current || !current.hasRemaining()) {
+                current = pool.acquire();
+                chunks.add(current);
+            }
+            int n = Math.min(length, current.remaining());
+            current.put(bytes, offset, n);
+            offset += n;
+            length -= n;
+            size += n;
+        }
+    }
+
+    public boolean canWrite(int length) {
+        return size + length <= limit;
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public StreamLoadBody seal() {
+        if (!sealed) {
+            chunks.forEach(ByteBuffer::flip);
+            current = null;
+            sealed = true;
+        }
+        return this;
+    }
+
+    /**
+     * @return a sealed body with the compressed bytes of the source, the source is not released
+     */
+    public static StreamLoadBody compress(StreamLoadPayload source, StreamLoadCompression compression) throws IOException {
+        StreamLoadBody compressed = new StreamLoadBody(DirectBufferPool.shared(), Long.MAX_VALUE);
+        try (OutputStream out = compression.wrap(compressed.asOutputStream()); InputStream in = source.newInputStream()) {
+            byte[] copy = new byte[8192];
+            int n;
+            while ((n = in.read(copy)) > 0) {
+                out.write(copy, 0, n);
+            }
+        } catch (IOException | RuntimeException e) {
+            compressed.release();
+            throw e;
+        }
+        return compressed.seal();
+    }
+
+    @Override
+    public InputStream newInputStream() {
+        seal();
+        List<ByteBuffer> views = new ArrayList<>(chunks.size());
+        chunks.forEach(chunk -> views.add(chunk.duplicate()));
+        return new ChunkInputStream(views);
+    }
+
+    private OutputStream asOutputStream() {
+        return new OutputStream() {
+            @Override
+            public void write(int b) {
+                StreamLoadBody.this.write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                StreamLoadBody.this.write(b, off, len);
+            }
+        };
+    }
+
+    @Override
+    public void release() {
+        chunks.forEach(pool::release);
+        chunks.clear();
+        current = null;
+        size = 0;
+    }
+
+    private static class ChunkInputStream extends InputStream {
+        private final List<ByteBuffer> chunks;
+        private int index;
+
+        ChunkInputStream(List<ByteBuffer> chunks) {
+            this.chunks = chunks;
+        }
+
+        private ByteBuffer chunk() {
+            while (index < chunks.size() && !chunks.get(index).hasRemaining()) {
+                index++;
+            }
+            return index < chunks.size() ? chunks.get(index) : null;
+        }
+
+        @Override
+        public int read() {
+            ByteBuffer chunk = chunk();
+            return null == chunk ? -1 : chunk.get() & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            ByteBuffer chunk = chunk();
+            if (null == chunk) {
+                return -1;
+            }
+            int n = Math.min(len, chunk.remaining());
+            chunk.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            ByteBuffer chunk = chunk();
+            return null == chunk ? 0 : chunk.remaining();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package io.tapdata.connector.streamload;
+
+import net.jpountz.lz4.LZ4FrameOutputStream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * compression of stream load bodies, the header telling the server about it differs between servers, so it is set by the loaders
+ */
+public enum StreamLoadCompression {
+    NONE,
+    GZIP,
+    LZ4_FRAME;
+
+    public OutputStream wrap(OutputStream out) throws IOException {
+        switch (this) {
+            case GZIP:
+                return new GZIPOutputStream(out, 8192);
+            case LZ4_FRAME:
+                return new LZ4FrameOutputStream(out);
+            default:
+                return out;
+        }
+    }
+
+    public static StreamLoadCompression fromValue(String value) {
+        if (null == value) {
+            return NONE;
+        }
+        switch (value.trim().toLowerCase()) {
+            case "gzip":
+            case "gz":
+                return GZIP;
+            case "lz4":
+            case "lz4_frame":
+                return LZ4_FRAME;
+            default:
+                return NONE;
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package io.tapdata.connector.streamload;
+
+import io.tapdata.entity.logger.TapLogger;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * async stream loads shared by starrocks, doris and selectdb
+ * each table keeps at most maxInFlight loads running, a submit is blocked until one of them is finished
+ * a load is compressed and sent on the load threads, failed attempts are retried with the label of the load,
+ * so the server never commits the data of a load twice
+ * batches are reported before their loads are committed, the loader awaits the loads of a table at its checkpoints,
+ * so the reported batches are committed at most one checkpoint interval later, and a failed load fails the next write
+ */
+public class StreamLoadEngine implements AutoCloseable {
+
+    private static final String TAG = StreamLoadEngine.class.getSimpleName();
+
+    private final String name;
+    private final CloseableHttpClient httpClient;
+    private final int maxInFlight;
+    private int maxRetries = 3;
+    private long retryInterval = 1000;
+    private StreamLoadCompression compression = StreamLoadCompression.NONE;
+    private long checkpointInterval = 60000;
+
+    private final StreamLoadLabel labels = new StreamLoadLabel();
+    private final Map<String, TableLoads> tableLoads = new ConcurrentHashMap<>();
+    private final ExecutorService executor;
+
+    private final AtomicLong loadCount = new AtomicLong();
+    private final AtomicLong loadBytes = new AtomicLong();
+    private final AtomicLong sentBytes = new AtomicLong();
+    private final AtomicLong retryCount = new AtomicLong();
+
+    public StreamLoadEngine(String name, CloseableHttpClient httpClient, int maxInFlight) {
+        this.name = name;
+        this.httpClient = httpClient;
+        this.maxInFlight = Math.max(1, maxInFlight);
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, name + "-load-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public StreamLoadEngine maxRetries(int maxRetries) {
+        this.maxRetries = Math.max(0, maxRetries);
+        return this;
+    }
+
+    public StreamLoadEngine retryInterval(long retryInterval) {
+        this.retryInterval = Math.max(0, retryInterval);
+        return this;
+    }
+
+    public StreamLoadEngine compression(StreamLoadCompression compression) {
+        this.compression = null == compression ? StreamLoadCompression.NONE : compression;
+        return this;
+    }
+
+    public StreamLoadEngine checkpointInterval(long checkpointInterval) {
+        this.checkpointInterval = Math.max(0, checkpointInterval);
+        return this;
+    }
+
+    public StreamLoadCompression getCompression() {
+        return compression;
+    }
+
+    /**
+     * the body is owned by the engine after it is submitted, it is released when the load is finished
+     *
+     * @param exclusive the load waits for the running loads of the table, and the next load waits for it,
+     *                  for the loads with updates or deletes which must be applied in order
+     */
+    public <R> CompletableFuture<R> submit(String table, StreamLoadPayload body, StreamLoadHandler<R> handler, boolean exclusive) throws Exception {
+        TableLoads loads = tableLoads.computeIfAbsent(table, t -> new TableLoads(maxInFlight));
+        try {
+            if (exclusive) {
+                await(table);
+            }
+            while (!loads.permits.tryAcquire(100, TimeUnit.MILLISECONDS)) {
+                loads.throwIfFailed();
+            }
+        } catch (Exception e) {
+            body.release();
+            throw e;
+        }
+        String label = labels.next(table);
+        CompletableFuture<R> future = new CompletableFuture<>();
+        loads.add(future);
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(load(label, body, handler));
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    loads.permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            loads.permits.release();
+            body.release();
+            future.completeExceptionally(e);
+        }
+        if (exclusive) {
+            await(table);
+        }
+        return future;
+    }
+
+    private <R> R load(String label, StreamLoadPayload body, StreamLoadHandler<R> handler) throws Exception {
+        StreamLoadPayload payload = body;
+        try {
+            long size = body.size();
+            if (StreamLoadCompression.NONE != compression && size > 0) {
+                payload = StreamLoadBody.compress(body, compression);
+                body.release();
+            }
+            for (int attempt = 1; ; attempt++) {
+                InputStreamEntity entity = new InputStreamEntity(payload.newInputStream(), payload.size());
+                try (CloseableHttpResponse response = httpClient.execute(handler.buildPut(label, entity, compression))) {
+                    R result = handler.handleResponse(label, response);
+                    loadCount.incrementAndGet();
+                    loadBytes.addAndGet(size);
+                    sentBytes.addAndGet(payload.size());
+                    return result;
+                } catch (Exception e) {
+                    if (attempt > maxRetries || !handler.isRetryable(e)) {
+                        throw e;
+                    }
+                    retryCount.incrementAndGet();
+                    TapLogger.warn(TAG, "{} stream load {} failed, retry {}/{} with the same label: {}", name, label, attempt, maxRetries, e.getMessage());
+                    TimeUnit.MILLISECONDS.sleep(retryInterval * attempt);
+                }
+            }
+        } finally {
+            body.release();
+            payload.release();
+        }
+    }
+
+    /**
+     * wait for the submitted loads of the table, the first failure of them is thrown
+     */
+    public void await(String table) throws Exception {
+        TableLoads loads = tableLoads.get(table);
+        if (null != loads) {
+            loads.await();
+        }
+    }
+
+    /**
+     * the checkpoint interval has passed since the loads of the table were last awaited
+     */
+    public boolean isCheckpointDue(String table) {
+        TableLoads loads = tableLoads.get(table);
+        return null != loads && System.currentTimeMillis() - loads.lastCheckpoint >= checkpointInterval;
+    }
+
+    /**
+     * throw the failure of a finished load of the table without waiting for the running ones
+     */
+    public void throwIfFailed(String table) throws Exception {
+        TableLoads loads = tableLoads.get(table);
+        if (null != loads) {
+            loads.throwIfFailed();
+        }
+    }
+
+    public void awaitAll() throws Exception {
+        Exception error = null;
+        for (TableLoads loads : tableLoads.values()) {
+            try {
+                loads.await();
+            } catch (Exception e) {
+                if (null == error) {
+                    error = e;
+                }
+            }
+        }
+        if (null != error) {
+            throw error;
+        }
+    }
+
+    public long getLoadCount() {
+        return loadCount.get();
+    }
+
+    public long getRetryCount() {
+        return retryCount.get();
+    }
+
+    public String metrics() {
+        return String.format("loads: %d, bytes: %d, sent bytes: %d, retries: %d", loadCount.get(), loadBytes.get(), sentBytes.get(), retryCount.get());
+    }
+
+    /**
+     * running loads are given some time to finish, the pending results are dropped
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        tableLoads.clear();
+    }
+
+    private static class TableLoads {
+        private final Semaphore permits;
+        private final List<CompletableFuture<?>> pending = new ArrayList<>();
+        private volatile long lastCheckpoint = System.currentTimeMillis();
+
+        TableLoads(int maxInFlight) {
+            this.permits = new Semaphore(maxInFlight);
+        }
+
+        synchronized void add(CompletableFuture<?> future) {
+            pending.add(future);
+        }
+
+        //fail fast when the loads are blocked by a failed one
+        void throwIfFailed() throws Exception {
+            boolean failed;
+            synchronized (this) {
+                failed = pending.stream().anyMatch(CompletableFuture::isCompletedExceptionally);
+            }
+            if (failed) {
+                await();
+            }
+        }
+
+        void await() throws Exception {
+            List<CompletableFuture<?>> futures;
+            synchronized (this) {
+                futures = new ArrayList<>(pending);
+                pending.clear();
+            }
+            Exception error = null;
+            for (CompletableFuture<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (null == error) {
+                        error = e.getCause() instanceof Exception ? (Exception) e.getCause() : new RuntimeException(e.getCause());
+                    }
+                }
+            }
+            lastCheckpoint = System.currentTimeMillis();
+            if (null != error) {
+                throw error;
+            }
+        }
+    }
+}
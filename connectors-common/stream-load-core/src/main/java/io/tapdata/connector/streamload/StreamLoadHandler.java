@@ -0,0 +1,23 @@
+package io.tapdata.connector.streamload;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPut;
+
+/**
+ * server specific part of a stream load, called on the load threads of the engine
+ */
+public interface StreamLoadHandler<R> {
+
+    /**
+     * called for each attempt with the same label, so a retry is deduplicated by the server
+     */
+    HttpPut buildPut(String label, HttpEntity entity, StreamLoadCompression compression);
+
+    /**
+     * a label used by an earlier attempt should fail the load without a retry, see {@link StreamLoadLabel#isLabelExists}
+     */
+    R handleResponse(String label, CloseableHttpResponse response) throws Exception;
+
+    boolean isRetryable(Throwable e);
+}
@@ -0,0 +1,39 @@
+package io.tapdata.connector.streamload;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * labels of the loads of one engine: tapdata_{table}_{engine id}_{sequence}
+ * a label is fixed when the load is submitted and kept by its retries, the engine id is random per run,
+ * so the label of a load never collides with the loads of another run or task
+ */
+public class StreamLoadLabel {
+
+    private static final int MAX_TABLE_LENGTH = 64;
+    private static final String LABEL_ALREADY_EXISTS = "Label Already Exists";
+
+    private final String engineId;
+    private final AtomicLong sequence = new AtomicLong();
+
+    public StreamLoadLabel() {
+        this.engineId = UUID.randomUUID().toString().replace("-", "").substring(0, 12);
+    }
+
+    public String next(String table) {
+        StringBuilder label = new StringBuilder("tapdata_");
+        for (int i = 0; i < table.length() && i < MAX_TABLE_LENGTH; i++) {
+            char c = table.charAt(i);
+            //label only allows letters, digits, '-' and '_'
+            label.append(c < 128 && (Character.isLetterOrDigit(c) || c == '-' || c == '_') ? c : '_');
+        }
+        return label.append('_').append(engineId).append('_').append(sequence.incrementAndGet()).toString();
+    }
+
+    /**
+     * the label is used by an earlier attempt, which may be committed or not, so the load is failed instead of being retried
+     */
+    public static boolean isLabelExists(String status) {
+        return LABEL_ALREADY_EXISTS.equalsIgnoreCase(status);
+    }
+}
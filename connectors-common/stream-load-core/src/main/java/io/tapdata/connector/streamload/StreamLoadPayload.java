@@ -0,0 +1,19 @@
+package io.tapdata.connector.streamload;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * bytes of one stream load, it must be readable again for a retry
+ */
+public interface StreamLoadPayload {
+
+    long size();
+
+    InputStream newInputStream() throws IOException;
+
+    /**
+     * called by the engine when the load is finished, more than once is allowed
+     */
+    void release();
+}
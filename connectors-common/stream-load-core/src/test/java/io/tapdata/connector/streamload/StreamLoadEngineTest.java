@@ -0,0 +1,209 @@
+package io.tapdata.connector.streamload;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.util.EntityUtils;
+import org.junit.jupiter.api.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class StreamLoadEngineTest {
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[100];
+        int n;
+        while ((n = in.read(buffer)) > 0) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    private static StreamLoadBody body(String text) {
+        StreamLoadBody body = new StreamLoadBody(new DirectBufferPool(16, 8), 1024);
+        body.write(text.getBytes(StandardCharsets.UTF_8));
+        return body;
+    }
+
+    @Nested
+    class BodyTest {
+
+        @Test
+        @DisplayName("test body spans chunks and can be read again")
+        void testReadAgain() throws IOException {
+            DirectBufferPool pool = new DirectBufferPool(16, 8);
+            StreamLoadBody body = new StreamLoadBody(pool, 50);
+            String text = "0123456789abcdefghijklmnopqrstuvwxyz";
+            body.write(text.getBytes(StandardCharsets.UTF_8));
+            Assertions.assertEquals(36, body.size());
+            Assertions.assertTrue(body.canWrite(14));
+            Assertions.assertFalse(body.canWrite(15));
+            Assertions.assertEquals(text, new String(readAll(body.newInputStream()), StandardCharsets.UTF_8));
+            Assertions.assertEquals(text, new String(readAll(body.newInputStream()), StandardCharsets.UTF_8));
+            Assertions.assertThrows(IllegalStateException.class, () -> body.write(new byte[1]));
+            body.release();
+            Assertions.assertEquals(3, pool.getFreeCount());
+        }
+
+        @Test
+        @DisplayName("test gzip body is decompressed to the records")
+        void testGzip() throws IOException {
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; i < 100; i++) {
+                text.append("{\"id\":").append(i).append("}\n");
+            }
+            StreamLoadBody source = body(text.toString());
+            StreamLoadBody compressed = StreamLoadBody.compress(source, StreamLoadCompression.GZIP);
+            source.release();
+            Assertions.assertTrue(compressed.size() < text.length());
+            Assertions.assertEquals(text.toString(), new String(readAll(new GZIPInputStream(compressed.newInputStream())), StandardCharsets.UTF_8));
+            compressed.release();
+        }
+    }
+
+    @Nested
+    class LoadTest {
+
+        CloseableHttpClient httpClient;
+        StreamLoadEngine engine;
+        List<String> labels;
+
+        @BeforeEach
+        void setup() {
+            httpClient = mock(CloseableHttpClient.class);
+            engine = new StreamLoadEngine("test", httpClient, 2).retryInterval(1);
+            labels = new CopyOnWriteArrayList<>();
+        }
+
+        @AfterEach
+        void close() {
+            engine.close();
+        }
+
+        StreamLoadHandler<String> handler() {
+            return new StreamLoadHandler<String>() {
+                @Override
+                public HttpPut buildPut(String label, HttpEntity entity, StreamLoadCompression compression) {
+                    labels.add(label);
+                    HttpPut put = new HttpPut("http://localhost/api/db/t/_stream_load");
+                    put.setEntity(entity);
+                    return put;
+                }
+
+                @Override
+                public String handleResponse(String label, CloseableHttpResponse response) {
+                    return label;
+                }
+
+                @Override
+                public boolean isRetryable(Throwable e) {
+                    return e instanceof IOException;
+                }
+            };
+        }
+
+        @Test
+        @DisplayName("test retried load keeps its label and body")
+        void testRetryWithLabel() throws Exception {
+            AtomicInteger attempts = new AtomicInteger();
+            List<String> bodies = new CopyOnWriteArrayList<>();
+            when(httpClient.execute(any(HttpUriRequest.class))).thenAnswer(invocation -> {
+                bodies.add(EntityUtils.toString(((HttpPut) invocation.getArgument(0)).getEntity()));
+                if (attempts.incrementAndGet() < 3) {
+                    throw new IOException("connection reset");
+                }
+                return mock(CloseableHttpResponse.class);
+            });
+            String label = engine.submit("t", body("a,b\n"), handler(), false).get();
+            engine.await("t");
+            Assertions.assertEquals(3, labels.size());
+            Assertions.assertTrue(labels.stream().allMatch(label::equals));
+            Assertions.assertTrue(bodies.stream().allMatch("a,b\n"::equals));
+            Assertions.assertEquals(2, engine.getRetryCount());
+            Assertions.assertNotEquals(label, engine.submit("t", body("c,d\n"), handler(), false).get());
+        }
+
+        @Test
+        @DisplayName("test labels are unique per engine and table")
+        void testLabelPerEngine() throws Exception {
+            when(httpClient.execute(any(HttpUriRequest.class))).thenAnswer(invocation -> mock(CloseableHttpResponse.class));
+            String first = engine.submit("t.1", body("a,b\n"), handler(), false).get();
+            String second = engine.submit("t.1", body("a,b\n"), handler(), false).get();
+            Assertions.assertTrue(first.startsWith("tapdata_t_1_"));
+            Assertions.assertNotEquals(first, second);
+
+            //the same batch sent again by another run gets another label, so it is never taken as committed
+            try (StreamLoadEngine other = new StreamLoadEngine("other", httpClient, 1)) {
+                Assertions.assertNotEquals(first, other.submit("t.1", body("a,b\n"), handler(), false).get());
+            }
+        }
+
+        @Test
+        @DisplayName("test checkpoint is due after the interval since the loads were awaited")
+        void testCheckpointDue() throws Exception {
+            when(httpClient.execute(any(HttpUriRequest.class))).thenAnswer(invocation -> mock(CloseableHttpResponse.class));
+            engine.checkpointInterval(200);
+            Assertions.assertFalse(engine.isCheckpointDue("t"));
+            engine.submit("t", body("a,b\n"), handler(), false);
+            Assertions.assertFalse(engine.isCheckpointDue("t"));
+            TimeUnit.MILLISECONDS.sleep(300);
+            Assertions.assertTrue(engine.isCheckpointDue("t"));
+            engine.await("t");
+            Assertions.assertFalse(engine.isCheckpointDue("t"));
+        }
+
+        @Test
+        @DisplayName("test loads in flight are limited per table and failure is thrown by await")
+        void testInFlight() throws Exception {
+            CountDownLatch release = new CountDownLatch(1);
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger maxRunning = new AtomicInteger();
+            when(httpClient.execute(any(HttpUriRequest.class))).thenAnswer(invocation -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                release.await(5, TimeUnit.SECONDS);
+                running.decrementAndGet();
+                throw new IllegalStateException("too many filtered rows");
+            });
+            engine.submit("t", body("1\n"), handler(), false);
+            engine.submit("t", body("2\n"), handler(), false);
+            List<Exception> errors = new CopyOnWriteArrayList<>();
+            Thread submitter = new Thread(() -> {
+                try {
+                    engine.submit("t", body("3\n"), handler(), false);
+                } catch (Exception e) {
+                    errors.add(e);
+                }
+            });
+            submitter.start();
+            TimeUnit.MILLISECONDS.sleep(200);
+            Assertions.assertTrue(submitter.isAlive());
+            release.countDown();
+            submitter.join(5000);
+            Assertions.assertEquals(2, maxRunning.get());
+            //the blocked submit may see the failure first
+            try {
+                engine.await("t");
+            } catch (Exception e) {
+                errors.add(e);
+            }
+            Assertions.assertEquals(1, errors.size());
+            Assertions.assertInstanceOf(IllegalStateException.class, errors.get(0));
+        }
+    }
+}
@@ -2,6 +2,7 @@ package io.tapdata.connector.activemq;
 
 import com.google.common.collect.Lists;
 import io.tapdata.common.AbstractMqService;
+import io.tapdata.common.MqBatchPusher;
 import io.tapdata.common.constant.MqOp;
 import io.tapdata.connector.activemq.config.ActivemqConfig;
 import io.tapdata.constant.MqTestItem;
@@ -240,57 +241,56 @@ public class ActivemqService extends AbstractMqService {
         List<List<String>> tablesList = Lists.partition(tableList, (tableList.size() - 1) / concurrency + 1);
         executorService = Executors.newFixedThreadPool(tablesList.size());
         CountDownLatch countDownLatch = new CountDownLatch(tablesList.size());
-        tablesList.forEach(tables -> executorService.submit(() -> {
-            List<TapEvent> list = TapSimplify.list();
-            Map<String, MessageConsumer> consumerMap = new HashMap<>();
-            int err = 0;
-            while (consuming.get() && err < 10) {
-                for (String tableName : tables) {
-                    try {
-                        MessageConsumer messageConsumer = consumerMap.get(tableName);
-                        if (EmptyKit.isNull(messageConsumer)) {
-                            Destination destination = session.createQueue(tableName);
-                            messageConsumer = session.createConsumer(destination);
-                            consumerMap.put(tableName, messageConsumer);
-                        }
-                        Message message = messageConsumer.receive(SINGLE_MAX_LOAD_TIMEOUT / 2);
-                        if (EmptyKit.isNull(message)) {
-                            continue;
-                        }
-                        makeMessage(message, list, tableName);
-                        if (list.size() >= eventBatchSize) {
-                            eventsOffsetConsumer.accept(list, TapSimplify.list());
-                            list = TapSimplify.list();
+        try (MqBatchPusher<TapEvent> batchPusher = new MqBatchPusher<TapEvent>("activemq-stream", eventsOffsetConsumer, TapSimplify::list)
+                .batchSize(eventBatchSize).maxDelay(SINGLE_MAX_LOAD_TIMEOUT / 2).start()) {
+            tablesList.forEach(tables -> executorService.submit(() -> {
+                List<TapEvent> list = TapSimplify.list();
+                Map<String, MessageConsumer> consumerMap = new HashMap<>();
+                int err = 0;
+                while (consuming.get() && err < 10) {
+                    for (String tableName : tables) {
+                        try {
+                            MessageConsumer messageConsumer = consumerMap.get(tableName);
+                            if (EmptyKit.isNull(messageConsumer)) {
+                                Destination destination = session.createQueue(tableName);
+                                messageConsumer = session.createConsumer(destination);
+                                consumerMap.put(tableName, messageConsumer);
+                            }
+                            Message message = messageConsumer.receive(SINGLE_MAX_LOAD_TIMEOUT / 2);
+                            if (EmptyKit.isNull(message)) {
+                                continue;
+                            }
+                            makeMessage(message, list, tableName);
+                            batchPusher.addAll(list, null);
+                            list.clear();
+                        } catch (Exception e) {
+                            TapLogger.error(TAG, "error occur when consume queue: {}", tableName, e);
+                            err++;
                         }
-                    } catch (Exception e) {
-                        TapLogger.error(TAG, "error occur when consume queue: {}", tableName, e);
-                        err++;
                     }
+                    TapSimplify.sleep(50);
                 }
-                TapSimplify.sleep(50);
-            }
-            if (EmptyKit.isNotEmpty(list)) {
-                eventsOffsetConsumer.accept(list, TapSimplify.list());
-            }
-            consumerMap.forEach((key, value) -> {
-                try {
-                    value.close();
-                } catch (JMSException e) {
-                    throw new RuntimeException(e);
+                consumerMap.forEach((key, value) -> {
+                    try {
+                        value.close();
+                    } catch (JMSException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+                countDownLatch.countDown();
+                if (err >= 10) {
+                    consuming.set(false);
+                    throw new RuntimeException("Stream Read error!");
                 }
-            });
-            countDownLatch.countDown();
-            if (err >= 10) {
-                consuming.set(false);
-                throw new RuntimeException("Stream Read error!");
+            }));
+            try {
+                countDownLatch.await();
+            } catch (InterruptedException e) {
+                TapLogger.error(TAG, "error occur when await", e);
             }
-        }));
-        try {
-            countDownLatch.await();
-        } catch (InterruptedException e) {
-            TapLogger.error(TAG, "error occur when await", e);
+        } finally {
+            session.close();
         }
-        session.close();
     }
 
     private void makeMessage(Message message, List<TapEvent> list, String tableName) throws JMSException {
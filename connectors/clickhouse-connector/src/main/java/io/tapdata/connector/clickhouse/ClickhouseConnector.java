@@ -6,6 +6,7 @@ import io.tapdata.connector.clickhouse.bean.ClickhouseColumn;
 import io.tapdata.connector.clickhouse.config.ClickhouseConfig;
 import io.tapdata.connector.clickhouse.ddl.sqlmaker.ClickhouseDDLSqlGenerator;
 import io.tapdata.connector.clickhouse.ddl.sqlmaker.ClickhouseSqlMaker;
+import io.tapdata.connector.clickhouse.dml.CdcVersionGenerator;
 import io.tapdata.connector.clickhouse.dml.ClickhouseBatchWriter;
 import io.tapdata.connector.clickhouse.dml.ClickhouseRecordWriter;
 import io.tapdata.connector.clickhouse.dml.TapTableWriter;
@@ -249,10 +250,12 @@ public class ClickhouseConnector extends CommonDbConnector {
         }
         sqlList.add("OPTIMIZE TABLE `" + clickhouseConfig.getDatabase() + "`.`" + tapFieldBaseEvent.getTableId() + "` FINAL");
         jdbcContext.batchExecute(sqlList);
+        clickhouseJdbcContext.removeRowBinaryEncoder(tapFieldBaseEvent.getTableId());
     }
 
     protected CreateTableOptions createTableV2(TapConnectorContext tapConnectorContext, TapCreateTableEvent tapCreateTableEvent) throws SQLException {
         TapTable tapTable = tapCreateTableEvent.getTable();
+        clickhouseJdbcContext.removeRowBinaryEncoder(tapTable.getId());
         CreateTableOptions createTableOptions = new CreateTableOptions();
         if (clickhouseJdbcContext.queryAllTables(Collections.singletonList(tapTable.getId())).size() > 0) {
             createTableOptions.setTableExists(true);
@@ -261,17 +264,28 @@ public class ClickhouseConnector extends CommonDbConnector {
         StringBuilder sql = new StringBuilder("CREATE TABLE IF NOT EXISTS ");
         sql.append(TapTableWriter.sqlQuota(".", clickhouseConfig.getDatabase(), tapTable.getId()));
         sql.append("(").append(commonSqlMaker.buildColumnDefinition(tapTable, true));
-        if (clickhouseConfig.getMixFastWrite()) {
+        Collection<String> primaryKeys = tapTable.primaryKeys(true);
+        boolean versionCdc = isVersionCdc(primaryKeys);
+        if (versionCdc) {
+            sql.append(",").append(TapTableWriter.sqlQuota(CdcVersionGenerator.VERSION_COLUMN)).append(" UInt64, ")
+                    .append(TapTableWriter.sqlQuota(CdcVersionGenerator.IS_DELETED_COLUMN)).append(" UInt8 DEFAULT 0");
+        } else if (clickhouseConfig.getMixFastWrite()) {
             sql.append(",is_deleted UInt8 DEFAULT 0, version DateTime DEFAULT now(), delete_time DateTime DEFAULT now()");
         } else {
             sql.setLength(sql.length() - 1);
         }
 
         // primary key
-        Collection<String> primaryKeys = tapTable.primaryKeys(true);
         if (EmptyKit.isNotEmpty(primaryKeys)) {
             sql.append(") ENGINE = ReplacingMergeTree");
-            if (clickhouseConfig.getMixFastWrite()) {
+            if (versionCdc) {
+                //is_deleted parameter of ReplacingMergeTree is supported since 23.2, otherwise deleted rows are filtered by _is_deleted = 0
+                sql.append("(").append(TapTableWriter.sqlQuota(CdcVersionGenerator.VERSION_COLUMN));
+                if (supportIsDeleted()) {
+                    sql.append(", ").append(TapTableWriter.sqlQuota(CdcVersionGenerator.IS_DELETED_COLUMN));
+                }
+                sql.append(")");
+            } else if (clickhouseConfig.getMixFastWrite()) {
                 sql.append("(`version`)");
             }
             sql.append(" PRIMARY KEY (").append(TapTableWriter.sqlQuota(",", primaryKeys)).append(")");
@@ -286,7 +300,7 @@ public class ClickhouseConnector extends CommonDbConnector {
             sql.append(" ORDER BY tuple()");
         }
 
-        if (clickhouseConfig.getMixFastWrite()) {
+        if (!versionCdc && clickhouseConfig.getMixFastWrite()) {
             sql.append(" TTL delete_time + INTERVAL 1 SECOND DELETE WHERE is_deleted = 1");
         }
 
@@ -303,6 +317,17 @@ public class ClickhouseConnector extends CommonDbConnector {
         return createTableOptions;
     }
 
+    private boolean isVersionCdc(Collection<String> primaryKeys) {
+        return Boolean.TRUE.equals(clickhouseConfig.getVersionCdc()) && EmptyKit.isNotEmpty(primaryKeys);
+    }
+
+    private boolean supportIsDeleted() {
+        String[] versions = clickhouseVersion.split("\\.");
+        int major = Integer.parseInt(versions[0]);
+        int minor = versions.length > 1 ? Integer.parseInt(versions[1]) : 0;
+        return major > 23 || major == 23 && minor >= 2;
+    }
+
     private void writeRecord(TapConnectorContext tapConnectorContext, List<TapRecordEvent> tapRecordEvents, TapTable tapTable, Consumer<WriteListResult<TapRecordEvent>> consumer) throws Throwable {
         synchronized (this) {
             if (EmptyKit.isNull(lastMergeTime)) {
@@ -330,6 +355,10 @@ public class ClickhouseConnector extends CommonDbConnector {
     }
 
     private void startMergeThreadIfNeeded(TapConnectorContext tapConnectorContext, TapTable tapTable) {
+        //versions are collapsed by background merges and FINAL reads, optimize is not needed
+        if (isVersionCdc(tapTable.primaryKeys(true))) {
+            return;
+        }
         if (!tapTableMap.containsKey(tapTable.getId())) {
             tapTableMap.put(tapTable.getId(), tapTable);
         }
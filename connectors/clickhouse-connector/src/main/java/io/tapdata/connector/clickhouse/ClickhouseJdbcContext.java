@@ -2,6 +2,8 @@ package io.tapdata.connector.clickhouse;
 
 import io.tapdata.common.JdbcContext;
 import io.tapdata.connector.clickhouse.config.ClickhouseConfig;
+import io.tapdata.connector.clickhouse.dml.CdcVersionGenerator;
+import io.tapdata.connector.clickhouse.dml.ClickhouseRowBinaryEncoder;
 import io.tapdata.entity.logger.TapLogger;
 import io.tapdata.entity.utils.DataMap;
 import io.tapdata.kit.DbKit;
@@ -9,15 +11,21 @@ import io.tapdata.kit.EmptyKit;
 import io.tapdata.kit.StringKit;
 
 import java.sql.*;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 public class ClickhouseJdbcContext extends JdbcContext {
 
     private final static String TAG = ClickhouseJdbcContext.class.getSimpleName();
     private String clickhouseVersion;
+    //table -> columns -> encoder, empty if the table can not be written in RowBinary
+    private final Map<String, Map<List<String>, Optional<ClickhouseRowBinaryEncoder>>> rowBinaryEncoders = new ConcurrentHashMap<>();
+    private volatile ZoneId serverZoneId;
+    //tables whose max version has seeded the cdc version generator
+    private final Set<String> versionSeededTables = ConcurrentHashMap.newKeySet();
 
     public ClickhouseJdbcContext(ClickhouseConfig config) {
         super(config);
@@ -82,6 +90,51 @@ public class ClickhouseJdbcContext extends JdbcContext {
         return null;
     }
 
+    /**
+     * encoder of the columns built from the types on server, it is kept until the table is changed
+     *
+     * @return null if the table can not be written in RowBinary
+     */
+    public ClickhouseRowBinaryEncoder getRowBinaryEncoder(String tableName, List<String> columns) throws SQLException {
+        Map<List<String>, Optional<ClickhouseRowBinaryEncoder>> encoders = rowBinaryEncoders.computeIfAbsent(tableName, k -> new ConcurrentHashMap<>());
+        Optional<ClickhouseRowBinaryEncoder> encoder = encoders.get(columns);
+        if (null == encoder) {
+            if (null == serverZoneId) {
+                String timeZone = queryTimeZone();
+                serverZoneId = EmptyKit.isBlank(timeZone) ? ZoneId.systemDefault() : ZoneId.of(timeZone);
+            }
+            Map<String, String> columnTypes = new HashMap<>();
+            query(String.format(CK_COLUMN_TYPE, getConfig().getDatabase(), tableName), resultSet -> {
+                while (resultSet.next()) {
+                    columnTypes.put(resultSet.getString(1), resultSet.getString(2));
+                }
+            });
+            encoder = Optional.ofNullable(ClickhouseRowBinaryEncoder.create(columns, columnTypes, serverZoneId));
+            if (!encoder.isPresent()) {
+                TapLogger.info(TAG, "Table {} has columns which can not be written in RowBinary, jdbc batch is used", tableName);
+            }
+            encoders.put(new ArrayList<>(columns), encoder);
+        }
+        return encoder.orElse(null);
+    }
+
+    public void removeRowBinaryEncoder(String tableName) {
+        rowBinaryEncoders.remove(tableName);
+    }
+
+    /**
+     * the versions written next are greater than the stored ones, even if the clock is behind the host which wrote them
+     */
+    public void seedCdcVersion(String tableName) throws SQLException {
+        if (versionSeededTables.contains(tableName)) {
+            return;
+        }
+        AtomicLong maxVersion = new AtomicLong();
+        queryWithNext(String.format(CK_MAX_VERSION, CdcVersionGenerator.VERSION_COLUMN, getConfig().getDatabase(), tableName), resultSet -> maxVersion.set(resultSet.getLong(1)));
+        CdcVersionGenerator.seed(maxVersion.get());
+        versionSeededTables.add(tableName);
+    }
+
     @Override
     public Long queryTimestamp() throws SQLException {
         AtomicReference<Timestamp> currentTime = new AtomicReference<>();
@@ -90,6 +143,7 @@ public class ClickhouseJdbcContext extends JdbcContext {
     }
 
     public static final String DATABASE_TIMEZONE_SQL = "SELECT timeZone()";
+    private final static String CK_MAX_VERSION = "SELECT max(`%s`) FROM `%s`.`%s`";
     private final static String CK_ALL_TABLE = "select name `tableName`, comment `tableComment` from system.tables where database='%s' %s";
     private final static String CK_ALL_TABLE_20 = "select name `tableName` from system.tables where database='%s' %s";
     private final static String CK_ALL_COLUMN =
@@ -106,6 +160,7 @@ public class ClickhouseJdbcContext extends JdbcContext {
                     "from system.columns \n" +
                     "where database='%s' %s\n" +
                     "order by table,position";
+    private final static String CK_COLUMN_TYPE = "select name, type from system.columns where database='%s' and table='%s'";
     private final static String CK_TABLE_INFO = "select * from system.tables where name ='%s' and database='%s' ";
 
     private final static String CK_CURRENT_TIME = "SELECT NOW64()";
@@ -10,6 +10,7 @@ public class ClickhouseConfig extends CommonDbConfig implements Serializable {
 
     private Integer mergeMinutes = 60;
     private Boolean mixFastWrite = false;
+    private Boolean versionCdc = false;
 
     public ClickhouseConfig() {
         setDbType("clickhouse");
@@ -43,4 +44,12 @@ public class ClickhouseConfig extends CommonDbConfig implements Serializable {
         this.mixFastWrite = mixFastWrite;
     }
 
+    public Boolean getVersionCdc() {
+        return versionCdc;
+    }
+
+    public void setVersionCdc(Boolean versionCdc) {
+        this.versionCdc = versionCdc;
+    }
+
 }
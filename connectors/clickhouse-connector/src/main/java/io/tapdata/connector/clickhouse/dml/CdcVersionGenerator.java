@@ -0,0 +1,28 @@
+package io.tapdata.connector.clickhouse.dml;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * versions of the rows written in version cdc mode, ReplacingMergeTree keeps the row of the max version per key
+ * version is the epoch microseconds with a counter for the same microsecond, it is seeded with the max version of a table
+ * when the table is first written, so it keeps increasing over the stored rows even if the clock steps back
+ */
+public class CdcVersionGenerator {
+
+    public static final String VERSION_COLUMN = "_version";
+    public static final String IS_DELETED_COLUMN = "_is_deleted";
+
+    private static final AtomicLong LAST_VERSION = new AtomicLong();
+
+    private CdcVersionGenerator() {
+    }
+
+    public static void seed(long version) {
+        LAST_VERSION.accumulateAndGet(version, Math::max);
+    }
+
+    public static long next() {
+        long now = System.currentTimeMillis() * 1000;
+        return LAST_VERSION.updateAndGet(last -> Math.max(last + 1, now));
+    }
+}
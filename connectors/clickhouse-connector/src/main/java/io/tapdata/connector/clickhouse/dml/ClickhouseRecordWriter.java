@@ -1,21 +1,23 @@
 package io.tapdata.connector.clickhouse.dml;
 
+import io.netty.buffer.PooledByteBufAllocator;
 import io.tapdata.common.JdbcContext;
 import io.tapdata.common.dml.NormalRecordWriter;
 import io.tapdata.connector.clickhouse.ClickhouseExceptionCollector;
+import io.tapdata.connector.clickhouse.ClickhouseJdbcContext;
 import io.tapdata.connector.clickhouse.config.ClickhouseConfig;
 import io.tapdata.entity.event.dml.TapDeleteRecordEvent;
 import io.tapdata.entity.event.dml.TapInsertRecordEvent;
 import io.tapdata.entity.event.dml.TapRecordEvent;
 import io.tapdata.entity.event.dml.TapUpdateRecordEvent;
+import io.tapdata.entity.logger.TapLogger;
 import io.tapdata.entity.schema.TapTable;
 import io.tapdata.kit.EmptyKit;
+import io.tapdata.pdk.apis.entity.ConnectionOptions;
 import io.tapdata.pdk.apis.entity.WriteListResult;
 
 import java.sql.SQLException;
-import java.util.Collections;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
@@ -23,13 +25,36 @@ import static io.tapdata.entity.simplify.TapSimplify.toJson;
 
 public class ClickhouseRecordWriter extends NormalRecordWriter {
 
+    private static final String TAG = ClickhouseRecordWriter.class.getSimpleName();
+
+    //tables with primary keys are ReplacingMergeTree(_version, _is_deleted) in version cdc mode, all events but partial updates are inserted
+    private final boolean versionCdc;
+    private final Collection<String> primaryKeys;
+    private long versionInserted;
+    private long versionModified;
+    private long versionRemoved;
+    //inserts are streamed in RowBinary when file input is enabled, null if the table has columns of unsupported types
+    private ClickhouseRowBinaryEncoder rowBinaryEncoder;
+
     public ClickhouseRecordWriter(JdbcContext jdbcContext, TapTable tapTable) throws SQLException {
         super(jdbcContext, tapTable);
         exceptionCollector = new ClickhouseExceptionCollector();
         insertRecorder = new ClickhouseWriteRecorder(connection, tapTable, jdbcContext.getConfig().getSchema());
-        if (((ClickhouseConfig) commonDbConfig).getMixFastWrite()) {
+        primaryKeys = tapTable.primaryKeys(true);
+        versionCdc = Boolean.TRUE.equals(((ClickhouseConfig) commonDbConfig).getVersionCdc()) && EmptyKit.isNotEmpty(primaryKeys);
+        if (versionCdc) {
+            ((ClickhouseWriteRecorder) insertRecorder).addVersionColumns();
+            ((ClickhouseJdbcContext) jdbcContext).seedCdcVersion(tapTable.getId());
+        } else if (((ClickhouseConfig) commonDbConfig).getMixFastWrite()) {
             ((ClickhouseWriteRecorder) insertRecorder).addIsDeleted();
         }
+        if (Boolean.TRUE.equals(commonDbConfig.getEnableFileInput())) {
+            try {
+                rowBinaryEncoder = ((ClickhouseJdbcContext) jdbcContext).getRowBinaryEncoder(tapTable.getId(), ((ClickhouseWriteRecorder) insertRecorder).getAllColumn());
+            } catch (SQLException e) {
+                TapLogger.warn(TAG, "Query column types of table {} failed, jdbc batch is used: {}", tapTable.getId(), e.getMessage());
+            }
+        }
         updateRecorder = new ClickhouseWriteRecorder(connection, tapTable, jdbcContext.getConfig().getSchema());
         deleteRecorder = new ClickhouseWriteRecorder(connection, tapTable, jdbcContext.getConfig().getSchema());
     }
@@ -39,10 +64,16 @@ public class ClickhouseRecordWriter extends NormalRecordWriter {
         WriteListResult<TapRecordEvent> listResult = new WriteListResult<>();
         try {
             insertRecorder.setVersion(version);
-            insertRecorder.setInsertPolicy(insertPolicy);
+            //every version is a new row, the latest one wins on merge
+            insertRecorder.setInsertPolicy(versionCdc ? "just_insert" : insertPolicy);
+            //upsert of clickhouse is insert too
+            if (null != rowBinaryEncoder && (versionCdc || !ConnectionOptions.DML_INSERT_POLICY_IGNORE_ON_EXISTS.equals(insertPolicy))) {
+                ((ClickhouseWriteRecorder) insertRecorder).enableRowBinary(rowBinaryEncoder, PooledByteBufAllocator.DEFAULT.directBuffer(commonDbConfig.getBufferCapacity().intValue()));
+            }
             insertRecorder.setTapLogger(tapLogger);
             updateRecorder.setVersion(version);
-            updateRecorder.setUpdatePolicy(updatePolicy);
+            //partial updates of version cdc are applied to the current row, a partial row can not be inserted
+            updateRecorder.setUpdatePolicy(versionCdc ? ConnectionOptions.DML_UPDATE_POLICY_IGNORE_ON_NON_EXISTS : updatePolicy);
             updateRecorder.setTapLogger(tapLogger);
             deleteRecorder.setVersion(version);
             deleteRecorder.setTapLogger(tapLogger);
@@ -51,7 +82,9 @@ public class ClickhouseRecordWriter extends NormalRecordWriter {
                 if (null != isAlive && !isAlive.get()) {
                     break;
                 }
-                if (((ClickhouseConfig) commonDbConfig).getMixFastWrite()) {
+                if (versionCdc) {
+                    addVersionRow(recordEvent, listResult);
+                } else if (((ClickhouseConfig) commonDbConfig).getMixFastWrite()) {
                     Map<String, Object> data;
                     if (recordEvent instanceof TapInsertRecordEvent) {
                         data = ((TapInsertRecordEvent) recordEvent).getAfter();
@@ -116,11 +149,67 @@ public class ClickhouseRecordWriter extends NormalRecordWriter {
             if (!isTransaction) {
                 connection.close();
             }
-            writeListResultConsumer.accept(listResult
-                    .insertedCount(insertRecorder.getAtomicLong().get())
-                    .modifiedCount(updateRecorder.getAtomicLong().get())
-                    .removedCount(deleteRecorder.getAtomicLong().get()));
+            if (versionCdc) {
+                //the rows are inserted in one batch, nothing is written when it fails
+                boolean written = insertRecorder.getAtomicLong().get() > 0;
+                writeListResultConsumer.accept(listResult
+                        .insertedCount(written ? versionInserted : 0)
+                        .modifiedCount((written ? versionModified : 0) + updateRecorder.getAtomicLong().get())
+                        .removedCount(written ? versionRemoved : 0));
+            } else {
+                writeListResultConsumer.accept(listResult
+                        .insertedCount(insertRecorder.getAtomicLong().get())
+                        .modifiedCount(updateRecorder.getAtomicLong().get())
+                        .removedCount(deleteRecorder.getAtomicLong().get()));
+            }
+        }
+    }
+
+    private void addVersionRow(TapRecordEvent recordEvent, WriteListResult<TapRecordEvent> listResult) throws SQLException {
+        if (recordEvent instanceof TapInsertRecordEvent) {
+            addVersionRow(((TapInsertRecordEvent) recordEvent).getAfter(), false, listResult);
+            versionInserted++;
+        } else if (recordEvent instanceof TapUpdateRecordEvent) {
+            Map<String, Object> before = ((TapUpdateRecordEvent) recordEvent).getBefore();
+            Map<String, Object> after = ((TapUpdateRecordEvent) recordEvent).getAfter();
+            if (EmptyKit.isEmpty(after)) {
+                return;
+            }
+            //the whole row is written, fields missing in after are taken from before
+            Map<String, Object> data = new HashMap<>();
+            if (EmptyKit.isNotEmpty(before)) {
+                data.putAll(before);
+            }
+            data.putAll(after);
+            //a new version of a partial row would reset the missing columns to their defaults, so it is updated by ALTER UPDATE after the rows before it
+            if (!data.keySet().containsAll(tapTable.getNameFieldMap().keySet())) {
+                insertRecorder.executeBatch(listResult);
+                updateRecorder.addUpdateBatch(after, before, listResult);
+                return;
+            }
+            //the row of the old key is deleted when primary key is changed
+            if (EmptyKit.isNotEmpty(before) && primaryKeys.stream().anyMatch(k -> before.containsKey(k) && after.containsKey(k) && !Objects.equals(before.get(k), after.get(k)))) {
+                addVersionRow(before, true, listResult);
+            }
+            addVersionRow(data, false, listResult);
+            versionModified++;
+        } else if (recordEvent instanceof TapDeleteRecordEvent) {
+            addVersionRow(((TapDeleteRecordEvent) recordEvent).getBefore(), true, listResult);
+            versionRemoved++;
+        }
+    }
+
+    private void addVersionRow(Map<String, Object> data, boolean deleted, WriteListResult<TapRecordEvent> listResult) throws SQLException {
+        if (EmptyKit.isEmpty(data)) {
+            return;
         }
+        //partial updates before this row are applied first, so an older ALTER UPDATE never overwrites the newer version
+        updateRecorder.executeBatch(listResult);
+        Map<String, Object> row = new HashMap<>(data);
+        row.put(CdcVersionGenerator.VERSION_COLUMN, CdcVersionGenerator.next());
+        row.put(CdcVersionGenerator.IS_DELETED_COLUMN, deleted ? 1 : 0);
+        insertRecorder.addInsertBatch(row, listResult);
+        insertRecorder.addBatchCacheSize();
     }
 
 }
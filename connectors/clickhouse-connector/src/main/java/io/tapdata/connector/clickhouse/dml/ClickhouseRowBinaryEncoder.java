@@ -0,0 +1,321 @@
+package io.tapdata.connector.clickhouse.dml;
+
+import io.netty.buffer.ByteBuf;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * rows encoded in RowBinary format of clickhouse, the encoders of the columns are built once from the types of the table on server
+ * a table with a column of unsupported type (Array, Map, Tuple, Enum...) has no encoder, it is written by jdbc batch
+ * null of a column which is not Nullable is written as the default value of the type, as input_format_null_as_default does
+ */
+public class ClickhouseRowBinaryEncoder {
+
+    private static final Pattern DATETIME64 = Pattern.compile("DateTime64\\((\\d+)(?:,\\s*'(.+)')?\\)");
+    private static final Pattern DATETIME = Pattern.compile("DateTime(?:\\('(.+)'\\))?");
+    private static final Pattern DECIMAL = Pattern.compile("Decimal\\((\\d+),\\s*(\\d+)\\)");
+    private static final Pattern DECIMAL_N = Pattern.compile("Decimal(32|64|128|256)\\((\\d+)\\)");
+    private static final Pattern FIXED_STRING = Pattern.compile("FixedString\\((\\d+)\\)");
+
+    private final List<String> columns;
+    private final ColumnEncoder[] encoders;
+
+    private ClickhouseRowBinaryEncoder(List<String> columns, ColumnEncoder[] encoders) {
+        this.columns = columns;
+        this.encoders = encoders;
+    }
+
+    /**
+     * @param columnTypes types of the table on server, column -> type
+     * @param zoneId      time zone of server, for the datetime columns without time zone
+     * @return null if any column is missing or its type is not supported
+     */
+    public static ClickhouseRowBinaryEncoder create(List<String> columns, Map<String, String> columnTypes, ZoneId zoneId) {
+        ColumnEncoder[] encoders = new ColumnEncoder[columns.size()];
+        for (int i = 0; i < columns.size(); i++) {
+            String type = columnTypes.get(columns.get(i));
+            encoders[i] = null == type ? null : encoder(type.trim(), zoneId);
+            if (null == encoders[i]) {
+                return null;
+            }
+        }
+        return new ClickhouseRowBinaryEncoder(Collections.unmodifiableList(new ArrayList<>(columns)), encoders);
+    }
+
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    public void encode(Map<String, Object> row, ByteBuf out) {
+        for (int i = 0; i < encoders.length; i++) {
+            String column = columns.get(i);
+            try {
+                encoders[i].encode(out, row.get(column));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Column " + column + " can not be encoded in RowBinary: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    static ColumnEncoder encoder(String type, ZoneId zoneId) {
+        if (type.startsWith("Nullable(")) {
+            ColumnEncoder inner = encoder(type.substring(9, type.length() - 1), zoneId);
+            if (null == inner) {
+                return null;
+            }
+            return (out, value) -> {
+                if (null == value) {
+                    out.writeByte(1);
+                } else {
+                    out.writeByte(0);
+                    inner.encode(out, value);
+                }
+            };
+        }
+        //LowCardinality is transparent in RowBinary
+        if (type.startsWith("LowCardinality(")) {
+            return encoder(type.substring(15, type.length() - 1), zoneId);
+        }
+        switch (type) {
+            case "Int8":
+            case "UInt8":
+            case "Bool":
+                return (out, value) -> out.writeByte((int) toLong(value));
+            case "Int16":
+            case "UInt16":
+                return (out, value) -> out.writeShortLE((int) toLong(value));
+            case "Int32":
+            case "UInt32":
+                return (out, value) -> out.writeIntLE((int) toLong(value));
+            case "Int64":
+            case "UInt64":
+                return (out, value) -> out.writeLongLE(toLong(value));
+            case "Int128":
+            case "UInt128":
+                return (out, value) -> writeBigInteger(out, toBigInteger(value), 16);
+            case "Int256":
+            case "UInt256":
+                return (out, value) -> writeBigInteger(out, toBigInteger(value), 32);
+            case "Float32":
+                return (out, value) -> out.writeFloatLE(null == value ? 0 : (float) toDouble(value));
+            case "Float64":
+                return (out, value) -> out.writeDoubleLE(toDouble(value));
+            case "String":
+                return (out, value) -> writeString(out, toBytes(value));
+            case "UUID":
+                return (out, value) -> {
+                    UUID uuid = null == value ? new UUID(0, 0) : value instanceof UUID ? (UUID) value : UUID.fromString(String.valueOf(value));
+                    out.writeLongLE(uuid.getMostSignificantBits());
+                    out.writeLongLE(uuid.getLeastSignificantBits());
+                };
+            case "Date":
+                return (out, value) -> out.writeShortLE((int) toLocalDate(value, zoneId).toEpochDay());
+            case "Date32":
+                return (out, value) -> out.writeIntLE((int) toLocalDate(value, zoneId).toEpochDay());
+            default:
+                return parameterizedEncoder(type, zoneId);
+        }
+    }
+
+    private static ColumnEncoder parameterizedEncoder(String type, ZoneId zoneId) {
+        Matcher matcher = FIXED_STRING.matcher(type);
+        if (matcher.matches()) {
+            int length = Integer.parseInt(matcher.group(1));
+            return (out, value) -> {
+                byte[] bytes = toBytes(value);
+                if (bytes.length > length) {
+                    throw new IllegalArgumentException("value is too long for " + type);
+                }
+                out.writeBytes(bytes);
+                out.writeZero(length - bytes.length);
+            };
+        }
+        matcher = DECIMAL.matcher(type);
+        if (matcher.matches()) {
+            return decimalEncoder(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+        }
+        matcher = DECIMAL_N.matcher(type);
+        if (matcher.matches()) {
+            int bits = Integer.parseInt(matcher.group(1));
+            return decimalEncoder(bits == 32 ? 9 : bits == 64 ? 18 : bits == 128 ? 38 : 76, Integer.parseInt(matcher.group(2)));
+        }
+        matcher = DATETIME64.matcher(type);
+        if (matcher.matches()) {
+            int precision = Integer.parseInt(matcher.group(1));
+            ZoneId columnZone = null == matcher.group(2) ? zoneId : ZoneId.of(matcher.group(2));
+            long scale = BigInteger.TEN.pow(precision).longValue();
+            long nanosPerTick = BigInteger.TEN.pow(9 - precision).longValue();
+            return (out, value) -> {
+                Instant instant = toInstant(value, columnZone);
+                out.writeLongLE(instant.getEpochSecond() * scale + instant.getNano() / nanosPerTick);
+            };
+        }
+        matcher = DATETIME.matcher(type);
+        if (matcher.matches()) {
+            ZoneId columnZone = null == matcher.group(1) ? zoneId : ZoneId.of(matcher.group(1));
+            return (out, value) -> out.writeIntLE((int) toInstant(value, columnZone).getEpochSecond());
+        }
+        return null;
+    }
+
+    //unscaled value of the scale in 4, 8, 16 or 32 bytes by the precision
+    private static ColumnEncoder decimalEncoder(int precision, int scale) {
+        int width = precision <= 9 ? 4 : precision <= 18 ? 8 : precision <= 38 ? 16 : 32;
+        return (out, value) -> {
+            BigInteger unscaled = null == value ? BigInteger.ZERO : toBigDecimal(value).setScale(scale, RoundingMode.HALF_UP).unscaledValue();
+            if (width == 4) {
+                out.writeIntLE(unscaled.intValueExact());
+            } else if (width == 8) {
+                out.writeLongLE(unscaled.longValueExact());
+            } else {
+                writeBigInteger(out, unscaled, width);
+            }
+        };
+    }
+
+    //two's complement in little endian
+    private static void writeBigInteger(ByteBuf out, BigInteger value, int width) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length > width + 1 || bytes.length == width + 1 && bytes[0] != 0) {
+            throw new ArithmeticException("value " + value + " is out of " + width * 8 + " bits");
+        }
+        byte padding = (byte) (value.signum() < 0 ? 0xFF : 0);
+        for (int i = 0; i < width; i++) {
+            int index = bytes.length - 1 - i;
+            out.writeByte(index >= 0 ? bytes[index] : padding);
+        }
+    }
+
+    private static void writeString(ByteBuf out, byte[] bytes) {
+        int length = bytes.length;
+        while ((length & ~0x7F) != 0) {
+            out.writeByte((length & 0x7F) | 0x80);
+            length >>>= 7;
+        }
+        out.writeByte(length);
+        out.writeBytes(bytes);
+    }
+
+    private static long toLong(Object value) {
+        if (null == value) {
+            return 0;
+        } else if (value instanceof BigInteger || value instanceof BigDecimal) {
+            return toBigInteger(value).longValue();
+        } else if (value instanceof Number) {
+            return ((Number) value).longValue();
+        } else if (value instanceof Boolean) {
+            return (Boolean) value ? 1 : 0;
+        }
+        String text = String.valueOf(value).trim();
+        if ("true".equalsIgnoreCase(text)) {
+            return 1;
+        } else if ("false".equalsIgnoreCase(text)) {
+            return 0;
+        }
+        return toBigInteger(text).longValue();
+    }
+
+    private static double toDouble(Object value) {
+        if (null == value) {
+            return 0;
+        } else if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        } else if (value instanceof Boolean) {
+            return (Boolean) value ? 1 : 0;
+        }
+        return Double.parseDouble(String.valueOf(value).trim());
+    }
+
+    private static BigDecimal toBigDecimal(Object value) {
+        if (value instanceof BigDecimal) {
+            return (BigDecimal) value;
+        } else if (value instanceof BigInteger) {
+            return new BigDecimal((BigInteger) value);
+        } else if (value instanceof Boolean) {
+            return (Boolean) value ? BigDecimal.ONE : BigDecimal.ZERO;
+        }
+        return new BigDecimal(String.valueOf(value).trim());
+    }
+
+    private static BigInteger toBigInteger(Object value) {
+        if (null == value) {
+            return BigInteger.ZERO;
+        } else if (value instanceof BigInteger) {
+            return (BigInteger) value;
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return BigInteger.valueOf(((Number) value).longValue());
+        }
+        return toBigDecimal(value).toBigInteger();
+    }
+
+    private static byte[] toBytes(Object value) {
+        if (null == value) {
+            return new byte[0];
+        } else if (value instanceof byte[]) {
+            return (byte[]) value;
+        }
+        return String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static LocalDate toLocalDate(Object value, ZoneId zoneId) {
+        if (null == value) {
+            return LocalDate.ofEpochDay(0);
+        } else if (value instanceof LocalDate) {
+            return (LocalDate) value;
+        } else if (value instanceof java.sql.Date) {
+            return ((java.sql.Date) value).toLocalDate();
+        } else if (value instanceof Timestamp) {
+            return ((Timestamp) value).toLocalDateTime().toLocalDate();
+        } else if (value instanceof LocalDateTime) {
+            return ((LocalDateTime) value).toLocalDate();
+        } else if (value instanceof Date) {
+            return ((Date) value).toInstant().atZone(zoneId).toLocalDate();
+        }
+        String text = String.valueOf(value).trim();
+        return LocalDate.parse(text.length() > 10 ? text.substring(0, 10) : text);
+    }
+
+    private static Instant toInstant(Object value, ZoneId zoneId) {
+        if (null == value) {
+            return Instant.EPOCH;
+        } else if (value instanceof Timestamp) {
+            return ((Timestamp) value).toInstant();
+        } else if (value instanceof java.sql.Date) {
+            return ((java.sql.Date) value).toLocalDate().atStartOfDay(zoneId).toInstant();
+        } else if (value instanceof Date) {
+            return ((Date) value).toInstant();
+        } else if (value instanceof Instant) {
+            return (Instant) value;
+        } else if (value instanceof LocalDateTime) {
+            return ((LocalDateTime) value).atZone(zoneId).toInstant();
+        } else if (value instanceof LocalDate) {
+            return ((LocalDate) value).atStartOfDay(zoneId).toInstant();
+        } else if (value instanceof ZonedDateTime) {
+            return ((ZonedDateTime) value).toInstant();
+        } else if (value instanceof OffsetDateTime) {
+            return ((OffsetDateTime) value).toInstant();
+        }
+        String text = String.valueOf(value).trim();
+        if (text.length() <= 10) {
+            return LocalDate.parse(text).atStartOfDay(zoneId).toInstant();
+        }
+        return LocalDateTime.parse(text.replace(' ', 'T')).atZone(zoneId).toInstant();
+    }
+
+    interface ColumnEncoder {
+        void encode(ByteBuf out, Object value);
+    }
+}
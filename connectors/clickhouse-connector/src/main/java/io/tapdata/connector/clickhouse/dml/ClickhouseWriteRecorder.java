@@ -1,5 +1,6 @@
 package io.tapdata.connector.clickhouse.dml;
 
+import io.netty.buffer.ByteBuf;
 import io.tapdata.common.dml.NormalWriteRecorder;
 import io.tapdata.connector.clickhouse.config.ClickhouseConfig;
 import io.tapdata.entity.event.dml.TapInsertRecordEvent;
@@ -8,15 +9,24 @@ import io.tapdata.entity.schema.TapTable;
 import io.tapdata.kit.DbKit;
 import io.tapdata.kit.EmptyKit;
 import io.tapdata.pdk.apis.entity.WriteListResult;
+import ru.yandex.clickhouse.ClickHouseStatement;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
 public class ClickhouseWriteRecorder extends NormalWriteRecorder {
 
+    private static final int SEND_CHUNK_SIZE = 64 * 1024;
+
+    //inserts are encoded into the buffer and sent in one RowBinary stream when the batch is executed
+    private ClickhouseRowBinaryEncoder rowBinaryEncoder;
+    private int flushBytes;
+
     public ClickhouseWriteRecorder(Connection connection, TapTable tapTable, String schema) {
         super(connection, tapTable, schema);
         setEscapeChar('`');
@@ -26,6 +36,64 @@ public class ClickhouseWriteRecorder extends NormalWriteRecorder {
         allColumn.add("is_deleted");
     }
 
+    public void addVersionColumns() {
+        allColumn.add(CdcVersionGenerator.VERSION_COLUMN);
+        allColumn.add(CdcVersionGenerator.IS_DELETED_COLUMN);
+    }
+
+    public List<String> getAllColumn() {
+        return allColumn;
+    }
+
+    public void enableRowBinary(ClickhouseRowBinaryEncoder rowBinaryEncoder, ByteBuf buffer) {
+        this.rowBinaryEncoder = rowBinaryEncoder;
+        this.flushBytes = buffer.capacity();
+        enableFileInput(buffer);
+    }
+
+    @Override
+    public void addInsertBatch(Map<String, Object> after, WriteListResult<TapRecordEvent> listResult) throws SQLException {
+        if (!fileInput || EmptyKit.isEmpty(after)) {
+            super.addInsertBatch(after, listResult);
+            return;
+        }
+        if (!fillNullPrimaryKey(after)) {
+            return;
+        }
+        //the buffer is sent before it grows beyond the capacity
+        if (buffer.readableBytes() >= flushBytes) {
+            executeBatch(listResult);
+        }
+        try {
+            fileInsert(after);
+        } catch (IllegalArgumentException e) {
+            throw new SQLException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    protected void fileInsert(Map<String, Object> after) {
+        rowBinaryEncoder.encode(after, buffer);
+    }
+
+    @Override
+    protected void fileInput() throws SQLException {
+        String insertSql = "INSERT INTO " + getSchemaAndTable() + " ("
+                + rowBinaryEncoder.getColumns().stream().map(this::quoteAndEscape).collect(Collectors.joining(", ")) + ")";
+        try (Statement statement = connection.createStatement()) {
+            statement.unwrap(ClickHouseStatement.class).sendRowBinaryStream(insertSql, stream -> {
+                byte[] chunk = new byte[Math.min(SEND_CHUNK_SIZE, buffer.readableBytes())];
+                while (buffer.readableBytes() > 0) {
+                    if (buffer.readableBytes() < chunk.length) {
+                        chunk = new byte[buffer.readableBytes()];
+                    }
+                    buffer.readBytes(chunk);
+                    stream.writeBytes(chunk);
+                }
+            });
+        }
+    }
+
     @Override
     public void addAndCheckCommit(TapRecordEvent recordEvent, WriteListResult<TapRecordEvent> listResult) throws SQLException {
         if (recordEvent instanceof TapInsertRecordEvent) {
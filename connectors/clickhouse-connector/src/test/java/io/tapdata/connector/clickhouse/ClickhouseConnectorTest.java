@@ -1,18 +1,26 @@
 package io.tapdata.connector.clickhouse;
 
 import io.tapdata.common.ResultSetConsumer;
+import io.tapdata.connector.clickhouse.config.ClickhouseConfig;
+import io.tapdata.connector.clickhouse.ddl.sqlmaker.ClickhouseSqlMaker;
 import io.tapdata.entity.codec.TapCodecsRegistry;
+import io.tapdata.entity.event.ddl.table.TapCreateTableEvent;
+import io.tapdata.entity.schema.TapField;
+import io.tapdata.entity.schema.TapTable;
 import io.tapdata.entity.utils.DataMap;
 import io.tapdata.pdk.apis.context.TapConnectionContext;
 import io.tapdata.pdk.apis.functions.ConnectorFunctions;
 import io.tapdata.pdk.apis.functions.connection.TableInfo;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 
 class ClickhouseConnectorTest {
 
@@ -41,4 +49,30 @@ class ClickhouseConnectorTest {
         Assertions.assertTrue(total_rows == actualData.getNumOfRows());
 
     }
+
+    @Test
+    void testCreateTableWithVersionCdc() throws SQLException {
+        ClickhouseConnector clickhouseConnector = new ClickhouseConnector();
+        ClickhouseConfig clickhouseConfig = new ClickhouseConfig();
+        clickhouseConfig.setDatabase("db");
+        clickhouseConfig.setVersionCdc(true);
+        ClickhouseJdbcContext clickhouseJdbcContext = mock(ClickhouseJdbcContext.class);
+        when(clickhouseJdbcContext.queryAllTables(any(List.class))).thenReturn(new ArrayList<>());
+        ReflectionTestUtils.setField(clickhouseConnector, "clickhouseConfig", clickhouseConfig);
+        ReflectionTestUtils.setField(clickhouseConnector, "clickhouseJdbcContext", clickhouseJdbcContext);
+        ReflectionTestUtils.setField(clickhouseConnector, "clickhouseVersion", "23.8");
+        ReflectionTestUtils.setField(clickhouseConnector, "commonSqlMaker", new ClickhouseSqlMaker().withVersion("23.8"));
+        TapTable tapTable = new TapTable("t");
+        tapTable.add(new TapField("id", "Int64").isPrimaryKey(true).primaryKeyPos(1));
+        tapTable.add(new TapField("name", "String"));
+        TapCreateTableEvent createTableEvent = new TapCreateTableEvent();
+        createTableEvent.setTable(tapTable);
+        clickhouseConnector.createTableV2(null, createTableEvent);
+        ArgumentCaptor<List<String>> captor = ArgumentCaptor.forClass(List.class);
+        verify(clickhouseJdbcContext).batchExecute(captor.capture());
+        String sql = captor.getValue().get(0);
+        Assertions.assertTrue(sql.contains("`_version` UInt64, `_is_deleted` UInt8 DEFAULT 0"));
+        Assertions.assertTrue(sql.contains("ENGINE = ReplacingMergeTree(`_version`, `_is_deleted`) PRIMARY KEY (`id`)"));
+        Assertions.assertFalse(sql.contains("TTL"));
+    }
 }
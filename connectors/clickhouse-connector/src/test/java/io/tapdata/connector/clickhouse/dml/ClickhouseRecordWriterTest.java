@@ -0,0 +1,122 @@
+package io.tapdata.connector.clickhouse.dml;
+
+import io.tapdata.entity.event.dml.TapRecordEvent;
+import io.tapdata.entity.event.dml.TapUpdateRecordEvent;
+import io.tapdata.entity.schema.TapField;
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.pdk.apis.entity.WriteListResult;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class ClickhouseRecordWriterTest {
+
+    @Nested
+    class VersionCdcTest {
+
+        ClickhouseRecordWriter writer;
+        ClickhouseWriteRecorder insertRecorder;
+        ClickhouseWriteRecorder updateRecorder;
+        WriteListResult<TapRecordEvent> listResult;
+
+        @BeforeEach
+        void beforeEach() {
+            TapTable tapTable = new TapTable("t");
+            tapTable.add(new TapField("id", "Int64").isPrimaryKey(true).primaryKeyPos(1));
+            tapTable.add(new TapField("name", "String"));
+            tapTable.add(new TapField("age", "Int32"));
+            writer = mock(ClickhouseRecordWriter.class);
+            insertRecorder = mock(ClickhouseWriteRecorder.class);
+            updateRecorder = mock(ClickhouseWriteRecorder.class);
+            ReflectionTestUtils.setField(writer, "tapTable", tapTable);
+            ReflectionTestUtils.setField(writer, "versionCdc", true);
+            ReflectionTestUtils.setField(writer, "primaryKeys", Collections.singletonList("id"));
+            ReflectionTestUtils.setField(writer, "insertRecorder", insertRecorder);
+            ReflectionTestUtils.setField(writer, "updateRecorder", updateRecorder);
+            listResult = new WriteListResult<>();
+        }
+
+        private Map<String, Object> row(Object... keyValues) {
+            Map<String, Object> row = new HashMap<>();
+            for (int i = 0; i < keyValues.length; i += 2) {
+                row.put((String) keyValues[i], keyValues[i + 1]);
+            }
+            return row;
+        }
+
+        private void addVersionRow(TapRecordEvent recordEvent) {
+            ReflectionTestUtils.invokeMethod(writer, "addVersionRow", recordEvent, listResult);
+        }
+
+        @Test
+        @DisplayName("test update with the whole row is a new version")
+        @SuppressWarnings("unchecked")
+        void testFullUpdate() throws Exception {
+            addVersionRow(TapUpdateRecordEvent.create().before(row("id", 1L, "name", "a", "age", 1)).after(row("id", 1L, "name", "b")));
+            ArgumentCaptor<Map<String, Object>> captor = ArgumentCaptor.forClass(Map.class);
+            verify(insertRecorder).addInsertBatch(captor.capture(), any());
+            Map<String, Object> inserted = captor.getValue();
+            Assertions.assertEquals("b", inserted.get("name"));
+            Assertions.assertEquals(1, inserted.get("age"));
+            Assertions.assertEquals(0, inserted.get(CdcVersionGenerator.IS_DELETED_COLUMN));
+            Assertions.assertNotNull(inserted.get(CdcVersionGenerator.VERSION_COLUMN));
+            verify(updateRecorder, never()).addUpdateBatch(any(), any(), any());
+            Assertions.assertEquals(1L, ReflectionTestUtils.getField(writer, "versionModified"));
+        }
+
+        @Test
+        @DisplayName("test partial update is applied by ALTER UPDATE after the pending versions")
+        void testPartialUpdate() throws Exception {
+            Map<String, Object> before = row("id", 1L);
+            Map<String, Object> after = row("id", 1L, "name", "b");
+            addVersionRow(TapUpdateRecordEvent.create().before(before).after(after));
+            verify(insertRecorder, never()).addInsertBatch(any(), any());
+            InOrder inOrder = inOrder(insertRecorder, updateRecorder);
+            inOrder.verify(insertRecorder).executeBatch(listResult);
+            inOrder.verify(updateRecorder).addUpdateBatch(after, before, listResult);
+            Assertions.assertEquals(0L, ReflectionTestUtils.getField(writer, "versionModified"));
+        }
+
+        @Test
+        @DisplayName("test partial update is applied before a later version of the same key")
+        void testPartialThenFullUpdate() throws Exception {
+            Map<String, Object> before = row("id", 1L);
+            Map<String, Object> after = row("id", 1L, "name", "b");
+            addVersionRow(TapUpdateRecordEvent.create().before(before).after(after));
+            addVersionRow(TapUpdateRecordEvent.create().before(row("id", 1L, "name", "b", "age", 1)).after(row("id", 1L, "name", "c")));
+            InOrder inOrder = inOrder(insertRecorder, updateRecorder);
+            inOrder.verify(updateRecorder).addUpdateBatch(after, before, listResult);
+            inOrder.verify(updateRecorder).executeBatch(listResult);
+            inOrder.verify(insertRecorder).addInsertBatch(any(), any());
+            Assertions.assertEquals(1L, ReflectionTestUtils.getField(writer, "versionModified"));
+        }
+    }
+
+    @Nested
+    class VersionGeneratorTest {
+
+        @Test
+        @DisplayName("test versions are greater than the seeded max version of the table")
+        void testSeed() {
+            long stored = CdcVersionGenerator.next() + 1000000000L;
+            CdcVersionGenerator.seed(stored);
+            Assertions.assertTrue(CdcVersionGenerator.next() > stored);
+            //a smaller max version does not move the versions back
+            long last = CdcVersionGenerator.next();
+            CdcVersionGenerator.seed(1L);
+            Assertions.assertTrue(CdcVersionGenerator.next() > last);
+        }
+    }
+}
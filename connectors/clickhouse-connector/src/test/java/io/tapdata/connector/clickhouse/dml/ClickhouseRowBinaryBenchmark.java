@@ -0,0 +1,116 @@
+package io.tapdata.connector.clickhouse.dml;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.yandex.clickhouse.ClickHouseStatement;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * one batch of rows inserted by jdbc batch and by RowBinary stream, and the encoding cost of RowBinary alone
+ * run with main method against a clickhouse server, -Dclickhouse.url=jdbc:clickhouse://host:8123/db, the table is recreated in setup
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ClickhouseRowBinaryBenchmark {
+
+    private static final String TABLE = "row_binary_benchmark";
+    private static final List<String> COLUMNS = Arrays.asList("id", "name", "amount", "created", "updated", "remark");
+    private static final String COLUMN_DEFINITION = "id Int64, name String, amount Decimal(18, 4), created Date, updated DateTime64(3), remark Nullable(String)";
+
+    @Param({"1000", "10000"})
+    private int batchSize;
+
+    private Connection connection;
+    private List<Map<String, Object>> rows;
+    private ClickhouseRowBinaryEncoder encoder;
+    private ByteBuf buffer;
+
+    @Setup
+    public void setup() throws SQLException {
+        connection = DriverManager.getConnection(System.getProperty("clickhouse.url", "jdbc:clickhouse://localhost:8123/default"));
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + TABLE);
+            statement.execute("CREATE TABLE " + TABLE + " (" + COLUMN_DEFINITION + ") ENGINE = MergeTree ORDER BY id");
+        }
+        rows = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("id", (long) i);
+            row.put("name", "name_" + i);
+            row.put("amount", new BigDecimal(i + ".1234"));
+            row.put("created", LocalDate.of(2024, 1, 1).plusDays(i % 365));
+            row.put("updated", new Timestamp(1700000000000L + i));
+            row.put("remark", i % 2 == 0 ? null : "remark_" + i);
+            rows.add(row);
+        }
+        Map<String, String> columnTypes = new HashMap<>();
+        for (String definition : COLUMN_DEFINITION.split(", (?=[a-z])")) {
+            columnTypes.put(definition.substring(0, definition.indexOf(' ')), definition.substring(definition.indexOf(' ') + 1));
+        }
+        encoder = ClickhouseRowBinaryEncoder.create(COLUMNS, columnTypes, ZoneOffset.UTC);
+        buffer = PooledByteBufAllocator.DEFAULT.directBuffer(1024 * 1024);
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        buffer.release();
+        connection.close();
+    }
+
+    @Benchmark
+    public void encode(Blackhole blackhole) {
+        buffer.clear();
+        for (Map<String, Object> row : rows) {
+            encoder.encode(row, buffer);
+        }
+        blackhole.consume(buffer.readableBytes());
+    }
+
+    @Benchmark
+    public void jdbcBatch() throws SQLException {
+        try (PreparedStatement preparedStatement = connection.prepareStatement("INSERT INTO " + TABLE + " (" + String.join(", ", COLUMNS) + ") VALUES(?,?,?,?,?,?)")) {
+            for (Map<String, Object> row : rows) {
+                int pos = 1;
+                for (String column : COLUMNS) {
+                    preparedStatement.setObject(pos++, row.get(column));
+                }
+                preparedStatement.addBatch();
+            }
+            preparedStatement.executeBatch();
+        }
+    }
+
+    @Benchmark
+    public void rowBinary() throws SQLException {
+        buffer.clear();
+        for (Map<String, Object> row : rows) {
+            encoder.encode(row, buffer);
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.unwrap(ClickHouseStatement.class).sendRowBinaryStream("INSERT INTO " + TABLE + " (" + String.join(", ", COLUMNS) + ")", stream -> {
+                byte[] bytes = new byte[buffer.readableBytes()];
+                buffer.readBytes(bytes);
+                stream.writeBytes(bytes);
+            });
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ClickhouseRowBinaryBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,106 @@
+package io.tapdata.connector.clickhouse.dml;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.*;
+
+public class ClickhouseRowBinaryEncoderTest {
+
+    private static String encode(String type, Object value) {
+        ByteBuf out = Unpooled.buffer();
+        ClickhouseRowBinaryEncoder.encoder(type, ZoneOffset.UTC).encode(out, value);
+        return ByteBufUtil.hexDump(out);
+    }
+
+    @Test
+    @DisplayName("test numbers are little endian")
+    void testNumbers() {
+        Assertions.assertEquals("ff", encode("Int8", -1));
+        Assertions.assertEquals("c8", encode("UInt8", 200));
+        Assertions.assertEquals("01", encode("Bool", true));
+        Assertions.assertEquals("3412", encode("Int16", 0x1234));
+        Assertions.assertEquals("78563412", encode("UInt32", 0x12345678L));
+        Assertions.assertEquals("0100000000000000", encode("Int64", "1"));
+        Assertions.assertEquals("ffffffffffffffff", encode("UInt64", new BigInteger("18446744073709551615")));
+        Assertions.assertEquals("feffffffffffffffffffffffffffffff", encode("Int128", -2));
+        Assertions.assertEquals("0000803f", encode("Float32", 1.0));
+        Assertions.assertEquals("000000000000f03f", encode("Float64", 1));
+    }
+
+    @Test
+    @DisplayName("test decimal is unscaled value of its width")
+    void testDecimal() {
+        Assertions.assertEquals("39300000", encode("Decimal(9, 2)", new BigDecimal("123.45")));
+        Assertions.assertEquals("3930000000000000", encode("Decimal64(2)", "123.45"));
+        Assertions.assertEquals("c7cfffffffffffffffffffffffffffff", encode("Decimal(20, 2)", -123.45));
+        Assertions.assertThrows(ArithmeticException.class, () -> encode("Decimal(4, 2)", new BigDecimal("1234567890")));
+    }
+
+    @Test
+    @DisplayName("test strings, nullable and low cardinality")
+    void testStrings() {
+        Assertions.assertEquals("03616263", encode("String", "abc"));
+        Assertions.assertEquals("00", encode("String", null));
+        Assertions.assertEquals("6162000000", encode("FixedString(5)", "ab"));
+        Assertions.assertEquals("01", encode("Nullable(String)", null));
+        Assertions.assertEquals("000161", encode("Nullable(String)", "a"));
+        Assertions.assertEquals("000161", encode("LowCardinality(Nullable(String))", "a"));
+        char[] chars = new char[200];
+        Arrays.fill(chars, 'x');
+        Assertions.assertTrue(encode("String", new String(chars)).startsWith("c801"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> encode("FixedString(1)", "ab"));
+    }
+
+    @Test
+    @DisplayName("test date and time")
+    void testDateTime() {
+        Assertions.assertEquals("0100", encode("Date", LocalDate.of(1970, 1, 2)));
+        Assertions.assertEquals("ffffffff", encode("Date32", "1969-12-31"));
+        Assertions.assertEquals("3c000000", encode("DateTime", new Timestamp(60000)));
+        Assertions.assertEquals("3c000000", encode("DateTime", "1970-01-01 00:01:00"));
+        Assertions.assertEquals("00000000", encode("DateTime('Asia/Shanghai')", "1970-01-01 08:00:00"));
+        Timestamp timestamp = new Timestamp(1500);
+        timestamp.setNanos(500_123_000);
+        Assertions.assertEquals("dc05000000000000", encode("DateTime64(3)", timestamp));
+        Assertions.assertEquals("dbe3160000000000", encode("DateTime64(6)", timestamp));
+    }
+
+    @Test
+    @DisplayName("test uuid is two little endian halves")
+    void testUuid() {
+        Assertions.assertEquals("07060504030201000f0e0d0c0b0a0908", encode("UUID", UUID.fromString("00010203-0405-0607-0809-0a0b0c0d0e0f")));
+    }
+
+    @Test
+    @DisplayName("test rows of the columns, unsupported types have no encoder")
+    void testCreate() {
+        Map<String, String> columnTypes = new HashMap<>();
+        columnTypes.put("id", "Int32");
+        columnTypes.put("name", "Nullable(String)");
+        columnTypes.put("tags", "Array(String)");
+        ClickhouseRowBinaryEncoder encoder = ClickhouseRowBinaryEncoder.create(Arrays.asList("id", "name"), columnTypes, ZoneId.of("UTC"));
+        Assertions.assertNotNull(encoder);
+        Map<String, Object> row = new HashMap<>();
+        row.put("id", 1);
+        ByteBuf out = Unpooled.buffer();
+        encoder.encode(row, out);
+        row.put("name", "a");
+        encoder.encode(row, out);
+        Assertions.assertEquals("0100000001" + "01000000000161", ByteBufUtil.hexDump(out));
+        Assertions.assertNull(ClickhouseRowBinaryEncoder.create(Arrays.asList("id", "tags"), columnTypes, ZoneId.of("UTC")));
+        Assertions.assertNull(ClickhouseRowBinaryEncoder.create(Arrays.asList("id", "missing"), columnTypes, ZoneId.of("UTC")));
+        row.put("id", "x");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> encoder.encode(row, Unpooled.buffer()));
+    }
+}
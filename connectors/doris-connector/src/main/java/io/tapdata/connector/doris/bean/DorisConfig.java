@@ -27,6 +27,8 @@ public class DorisConfig extends CommonDbConfig {
     private Boolean useHTTPS =false;
 
     private Integer backendNum;
+    private Integer streamLoadConcurrency = 2;
+    private String streamLoadCompression = "none";
 
     //customize
     public DorisConfig() {
@@ -125,6 +127,22 @@ public class DorisConfig extends CommonDbConfig {
         this.backendNum = backendNum;
     }
 
+    public Integer getStreamLoadConcurrency() {
+        return streamLoadConcurrency;
+    }
+
+    public void setStreamLoadConcurrency(Integer streamLoadConcurrency) {
+        this.streamLoadConcurrency = streamLoadConcurrency;
+    }
+
+    public String getStreamLoadCompression() {
+        return streamLoadCompression;
+    }
+
+    public void setStreamLoadCompression(String streamLoadCompression) {
+        this.streamLoadCompression = streamLoadCompression;
+    }
+
     public Boolean getUseHTTPS() {
         return useHTTPS;
     }
@@ -4,9 +4,9 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import io.tapdata.connector.doris.DorisJdbcContext;
 import io.tapdata.connector.doris.bean.DorisConfig;
 import io.tapdata.connector.doris.streamload.exception.DorisRetryableException;
-import io.tapdata.connector.doris.streamload.exception.DorisRuntimeException;
 import io.tapdata.connector.doris.streamload.exception.StreamLoadException;
 import io.tapdata.connector.doris.streamload.rest.models.RespContent;
+import io.tapdata.connector.streamload.*;
 import io.tapdata.entity.event.dml.TapDeleteRecordEvent;
 import io.tapdata.entity.event.dml.TapInsertRecordEvent;
 import io.tapdata.entity.event.dml.TapRecordEvent;
@@ -15,14 +15,14 @@ import io.tapdata.entity.logger.TapLogger;
 import io.tapdata.entity.schema.TapTable;
 import io.tapdata.pdk.apis.entity.WriteListResult;
 import org.apache.commons.collections4.CollectionUtils;
+import org.apache.http.HttpEntity;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPut;
-import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.entity.AbstractHttpEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.util.EntityUtils;
 
 import java.io.IOException;
-import java.net.URLEncoder;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
@@ -40,11 +40,14 @@ public class DorisStreamLoader {
 
     private static final String HTTPS_LOAD_URL_PATTERN = "https://%s/api/%s/%s/_stream_load";
     private static final String HTTP_LOAD_URL_PATTERN = "http://%s/api/%s/%s/_stream_load";
-    private static final String LABEL_PREFIX_PATTERN = "tapdata_%s_%s";
 
     private final DorisConfig dorisConfig;
     private final CloseableHttpClient httpClient;
-    private final RecordStream recordStream;
+    private final StreamLoadEngine streamLoadEngine;
+    private final int bodyLimit;
+    private StreamLoadBody loadBody;
+    //loads with updates or deletes are not run together with the others of the table
+    private boolean loadHasChanges;
 
     private boolean loadBatchFirstRecord;
     private AtomicInteger lastEventFlag;
@@ -62,12 +65,24 @@ public class DorisStreamLoader {
         } else {
             writeByteBufferCapacity = writeByteBufferCapacity * 1024;
         }
-        this.recordStream = new RecordStream(writeByteBufferCapacity, Constants.CACHE_BUFFER_COUNT);
+        this.bodyLimit = writeByteBufferCapacity;
         this.loadBatchFirstRecord = true;
         this.lastEventFlag = new AtomicInteger(0);
         this.dataColumns = new AtomicReference<>();
         initMessageSerializer();
         this.metrics = new Metrics();
+        this.streamLoadEngine = new StreamLoadEngine(TAG, httpClient, Optional.ofNullable(dorisConfig.getStreamLoadConcurrency()).orElse(1))
+                .compression(initCompression());
+    }
+
+    //compress_type of doris only works with csv
+    private StreamLoadCompression initCompression() {
+        StreamLoadCompression compression = StreamLoadCompression.fromValue(dorisConfig.getStreamLoadCompression());
+        if (StreamLoadCompression.NONE != compression && DorisConfig.WriteFormat.csv != dorisConfig.getWriteFormatEnum()) {
+            TapLogger.info(TAG, "Doris stream load compression {} is ignored for {} format", compression, dorisConfig.getWriteFormatEnum());
+            return StreamLoadCompression.NONE;
+        }
+        return compression;
     }
 
     private void initMessageSerializer() {
@@ -88,22 +103,34 @@ public class DorisStreamLoader {
             TapLogger.debug(TAG, "Batch events length is: {}", tapRecordEvents.size());
             WriteListResult<TapRecordEvent> listResult = writeListResult();
             this.tapTable = table;
+            //a failed load of the earlier batches fails the task before more data is sent
+            streamLoadEngine.throwIfFailed(table.getId());
             boolean isAgg = DorisTableType.Aggregate.toString().equals(dorisConfig.getUniqueKeyType());
             for (TapRecordEvent tapRecordEvent : tapRecordEvents) {
                 byte[] bytes = messageSerializer.serialize(table, tapRecordEvent, isAgg);
                 if (needFlush(tapRecordEvent, bytes.length, isAgg)) {
-                    flush(table, listResult);
+                    flush(table);
                 }
                 if (lastEventFlag.get() == 0) {
                     startLoad(tapRecordEvent);
                 }
                 writeRecord(bytes);
+                if (!(tapRecordEvent instanceof TapInsertRecordEvent)) {
+                    loadHasChanges = true;
+                }
                 metrics.increase(tapRecordEvent);
             }
-            flush(table, listResult);
+            flush(table);
+            //the loads run on while the next batches are built, they are awaited at the checkpoints of the table
+            if (streamLoadEngine.isCheckpointDue(table.getId())) {
+                streamLoadEngine.await(table.getId());
+            }
+            metrics.writeIntoResultList(listResult);
+            metrics.clear();
             writeListResultConsumer.accept(listResult);
         } catch (Throwable e) {
-            recordStream.init();
+            resetLoad();
+            metrics.clear();
             throw e;
         }
     }
@@ -112,17 +139,18 @@ public class DorisStreamLoader {
         if (loadBatchFirstRecord) {
             loadBatchFirstRecord = false;
         } else {
-            recordStream.write(messageSerializer.lineEnd());
+            loadBody.write(messageSerializer.lineEnd());
         }
-        recordStream.write(record);
+        loadBody.write(record);
     }
 
     public void startLoad(final TapRecordEvent recordEvent) throws IOException {
-        recordStream.startInput();
-        recordStream.write(messageSerializer.batchStart());
+        loadBody = new StreamLoadBody(DirectBufferPool.shared(), bodyLimit);
+        loadBody.write(messageSerializer.batchStart());
         lastEventFlag.set(OperationType.getOperationFlag(recordEvent));
         dataColumns.set(getDataColumns(recordEvent));
         loadBatchFirstRecord = true;
+        loadHasChanges = false;
     }
 
     private Set<String> getDataColumns(TapRecordEvent recordEvent) {
@@ -136,54 +164,18 @@ public class DorisStreamLoader {
         return Collections.emptySet();
     }
 
-    public RespContent put(final TapTable table) throws StreamLoadException, DorisRetryableException {
-        DorisConfig.WriteFormat writeFormat = dorisConfig.getWriteFormatEnum();
-        try {
-            final String loadUrl = buildLoadUrl(dorisConfig.getDorisHttp(), dorisConfig.getDatabase(), table.getId());
-            final String prefix = buildPrefix(URLEncoder.encode(table.getId()).replace("%", ""));
-
-            String label = prefix + "-" + UUID.randomUUID();
-            List<String> columns = new ArrayList<>();
-            for (String col : tapTable.getNameFieldMap().keySet()) {
-                if (dataColumns.get().contains(col) || DorisTableType.Aggregate.toString().equals(dorisConfig.getUniqueKeyType())) {
-                    columns.add("`" + col + "`");
-                }
+    private LoadHandler newLoadHandler(final TapTable table) {
+        List<String> columns = new ArrayList<>();
+        for (String col : table.getNameFieldMap().keySet()) {
+            if (dataColumns.get().contains(col) || DorisTableType.Aggregate.toString().equals(dorisConfig.getUniqueKeyType())) {
+                columns.add("`" + col + "`");
             }
-            // add the DORIS_DELETE_SIGN at the end of the column
-            columns.add(Constants.DORIS_DELETE_SIGN);
-            HttpPutBuilder putBuilder = new HttpPutBuilder();
-            InputStreamEntity entity = new InputStreamEntity(recordStream, recordStream.getContentLength());
-            entity.setContentEncoding("UTF-8");
-            entity.setContentType("application/json");
-            putBuilder.setUrl(loadUrl)
-                    // 前端表单传出来的值和tdd json加载的值可能有差别，如前端传的pwd可能是null，tdd的是空字符串
-                    .baseAuth(dorisConfig.getUser(), dorisConfig.getPassword())
-                    .addCommonHeader()
-                    .addFormat(writeFormat)
-                    .addColumns(columns)
-                    .setLabel(label)
-                    .setEntity(entity);
-            Collection<String> primaryKeys = table.primaryKeys(true);
-            if (CollectionUtils.isEmpty(primaryKeys)) {
-                putBuilder.enableAppend();
-            } else {
-                if (DorisTableType.Unique.toString().equals(dorisConfig.getUniqueKeyType())) {
-                    putBuilder.enableDelete();
-                    putBuilder.addPartialHeader();
-                } else {
-                    putBuilder.enableAppend();
-                }
-            }
-            HttpPut httpPut = putBuilder.build();
-            TapLogger.debug(TAG, "Call stream load http api, url: {}, headers: {}", loadUrl, putBuilder.header);
-            try (CloseableHttpResponse execute = httpClient.execute(httpPut)) {
-                return handlePreCommitResponse(execute);
-            }
-        } catch (DorisRetryableException e) {
-            throw e;
-        } catch (Exception e) {
-            throw new StreamLoadException(String.format("Call stream load error: %s", e.getMessage()), e);
         }
+        // add the DORIS_DELETE_SIGN at the end of the column
+        columns.add(Constants.DORIS_DELETE_SIGN);
+        Collection<String> primaryKeys = table.primaryKeys(true);
+        boolean enableDelete = CollectionUtils.isNotEmpty(primaryKeys) && DorisTableType.Unique.toString().equals(dorisConfig.getUniqueKeyType());
+        return new LoadHandler(buildLoadUrl(dorisConfig.getDorisHttp(), dorisConfig.getDatabase(), table.getId()), columns, enableDelete);
     }
 
     public RespContent handlePreCommitResponse(CloseableHttpResponse response) throws Exception {
@@ -195,6 +187,10 @@ public class DorisStreamLoader {
 
         TapLogger.debug(TAG, "Stream load Result {}", loadResult);
         RespContent respContent = OBJECT_MAPPER.readValue(loadResult, RespContent.class);
+        //the label is used by an earlier attempt, it may be committed or not, so it is not retried
+        if (StreamLoadLabel.isLabelExists(respContent.getStatus())) {
+            throw new StreamLoadException("Stream load label is used by an earlier attempt, existing job status: " + respContent.getExistingJobStatus() + " | Error: " + loadResult);
+        }
         if (!respContent.isSuccess() && !"Publish Timeout".equals(respContent.getStatus())) {
             if (respContent.getMessage().toLowerCase().contains("too many filtered rows")
                     || respContent.getMessage().toLowerCase().contains("access denied")) {
@@ -205,38 +201,45 @@ public class DorisStreamLoader {
         return respContent;
     }
 
-    public RespContent flush(TapTable table) throws DorisRetryableException {
-        return flush(table, null);
-    }
-
-    public RespContent flush(TapTable table, WriteListResult<TapRecordEvent> listResult) throws DorisRetryableException {
+    /**
+     * submit the current load, it is committed when the loads of the table are awaited
+     */
+    public void flush(TapTable table) throws Exception {
         // the stream is not started yet, no response to get
         if (lastEventFlag.get() == 0) {
-            return null;
+            return;
         }
         try {
-            recordStream.write(messageSerializer.batchEnd());
-            recordStream.endInput();
-            RespContent respContent = put(table);
-            TapLogger.info(TAG, "Execute stream load response: " + respContent);
-            if (null != listResult) {
-                metrics.writeIntoResultList(listResult);
-                metrics.clear();
-            }
-            return respContent;
-        } catch (DorisRetryableException e) {
-            throw e;
-        } catch (Exception e) {
-            throw new DorisRuntimeException(e);
+            loadBody.write(messageSerializer.batchEnd());
+            LoadHandler handler = newLoadHandler(table);
+            StreamLoadBody body = loadBody;
+            loadBody = null;
+            streamLoadEngine.submit(table.getId(), body, handler, loadHasChanges)
+                    .thenAccept(respContent -> TapLogger.info(TAG, "Execute stream load response: " + respContent));
         } finally {
             lastEventFlag.set(0);
-            recordStream.setContentLength(0L);
         }
     }
 
+    private void resetLoad() {
+        if (null != loadBody) {
+            loadBody.release();
+            loadBody = null;
+        }
+        lastEventFlag.set(0);
+    }
+
     public void shutdown() {
         try {
-//            this.stopLoad();
+            resetLoad();
+            //the reported batches are committed before the engine is closed
+            this.streamLoadEngine.awaitAll();
+            TapLogger.info(TAG, "All stream loads completed on stop, {}", streamLoadEngine.metrics());
+        } catch (Exception e) {
+            TapLogger.error(TAG, "Stream loads failed on stop: {}", e.getMessage());
+        }
+        try {
+            this.streamLoadEngine.close();
             this.httpClient.close();
         } catch (Exception ignored) {
         }
@@ -249,19 +252,64 @@ public class DorisStreamLoader {
             return String.format(HTTP_LOAD_URL_PATTERN, dorisHttp, database, tableName);
     }
 
-    private String buildPrefix(final String tableName) {
-        return String.format(LABEL_PREFIX_PATTERN, Thread.currentThread().getId(), tableName);
-    }
-
     protected boolean needFlush(TapRecordEvent recordEvent, int length, boolean noNeed) {
         int lastEventType = lastEventFlag.get();
         return lastEventType > 0 && !getDataColumns(recordEvent).equals(dataColumns.get()) && !noNeed
-                || !recordStream.canWrite(length);
+                || null != loadBody && !loadBody.canWrite(length);
     }
 
-    private void stopLoad() throws DorisRetryableException {
-        if (null != tapTable) {
-            flush(tapTable);
+    private class LoadHandler implements StreamLoadHandler<RespContent> {
+        private final String loadUrl;
+        private final List<String> columns;
+        private final boolean enableDelete;
+
+        LoadHandler(String loadUrl, List<String> columns, boolean enableDelete) {
+            this.loadUrl = loadUrl;
+            this.columns = columns;
+            this.enableDelete = enableDelete;
+        }
+
+        @Override
+        public HttpPut buildPut(String label, HttpEntity entity, StreamLoadCompression compression) {
+            ((AbstractHttpEntity) entity).setContentEncoding("UTF-8");
+            ((AbstractHttpEntity) entity).setContentType("application/json");
+            HttpPutBuilder putBuilder = new HttpPutBuilder();
+            putBuilder.setUrl(loadUrl)
+                    // 前端表单传出来的值和tdd json加载的值可能有差别，如前端传的pwd可能是null，tdd的是空字符串
+                    .baseAuth(dorisConfig.getUser(), dorisConfig.getPassword())
+                    .addCommonHeader()
+                    .addFormat(dorisConfig.getWriteFormatEnum())
+                    .addColumns(columns)
+                    .setLabel(label)
+                    .setEntity(entity);
+            if (enableDelete) {
+                putBuilder.enableDelete();
+                putBuilder.addPartialHeader();
+            } else {
+                putBuilder.enableAppend();
+            }
+            switch (compression) {
+                case GZIP:
+                    putBuilder.addHeader("compress_type", "gz");
+                    break;
+                case LZ4_FRAME:
+                    putBuilder.addHeader("compress_type", "lz4");
+                    break;
+                default:
+                    break;
+            }
+            TapLogger.debug(TAG, "Call stream load http api, url: {}, headers: {}", loadUrl, putBuilder.header);
+            return putBuilder.build();
+        }
+
+        @Override
+        public RespContent handleResponse(String label, CloseableHttpResponse response) throws Exception {
+            return handlePreCommitResponse(response);
+        }
+
+        @Override
+        public boolean isRetryable(Throwable e) {
+            return e instanceof DorisRetryableException || e instanceof IOException;
         }
     }
 
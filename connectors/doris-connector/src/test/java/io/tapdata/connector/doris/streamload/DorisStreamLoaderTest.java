@@ -1,6 +1,7 @@
 package io.tapdata.connector.doris.streamload;
 
 import io.tapdata.connector.doris.bean.DorisConfig;
+import io.tapdata.connector.streamload.StreamLoadBody;
 import io.tapdata.entity.event.dml.TapInsertRecordEvent;
 import org.junit.jupiter.api.*;
 import org.springframework.test.util.ReflectionTestUtils;
@@ -18,55 +19,55 @@ public class DorisStreamLoaderTest {
     class NeedFlushTest {
 
         DorisStreamLoader dorisStreamLoader;
-        RecordStream recordStream;
+        StreamLoadBody loadBody;
 
         @BeforeEach
         void setup() {
             dorisStreamLoader = mock(DorisStreamLoader.class);
             doCallRealMethod().when(dorisStreamLoader).needFlush(any(), anyInt(), anyBoolean());
-            recordStream = mock(RecordStream.class);
+            loadBody = mock(StreamLoadBody.class);
         }
 
         @Test
         void testReachLastEvent() {
             ReflectionTestUtils.setField(dorisStreamLoader, "lastEventFlag", new AtomicInteger(0));
-            ReflectionTestUtils.setField(dorisStreamLoader, "recordStream", recordStream);
-            when(recordStream.canWrite(anyInt())).thenReturn(true);
+            ReflectionTestUtils.setField(dorisStreamLoader, "loadBody", loadBody);
+            when(loadBody.canWrite(anyInt())).thenReturn(true);
             Assertions.assertFalse(dorisStreamLoader.needFlush(new TapInsertRecordEvent().init().after(Collections.emptyMap()), 1, false));
         }
 
         @Test
         void testCannotWrite() {
             ReflectionTestUtils.setField(dorisStreamLoader, "lastEventFlag", new AtomicInteger(0));
-            ReflectionTestUtils.setField(dorisStreamLoader, "recordStream", recordStream);
-            when(recordStream.canWrite(anyInt())).thenReturn(false);
+            ReflectionTestUtils.setField(dorisStreamLoader, "loadBody", loadBody);
+            when(loadBody.canWrite(anyInt())).thenReturn(false);
             Assertions.assertTrue(dorisStreamLoader.needFlush(new TapInsertRecordEvent().init().after(Collections.emptyMap()), 1, false));
         }
 
         @Test
         void testNoAgg1() {
             ReflectionTestUtils.setField(dorisStreamLoader, "lastEventFlag", new AtomicInteger(1));
-            ReflectionTestUtils.setField(dorisStreamLoader, "recordStream", recordStream);
+            ReflectionTestUtils.setField(dorisStreamLoader, "loadBody", loadBody);
             ReflectionTestUtils.setField(dorisStreamLoader, "dataColumns", new AtomicReference<>(Collections.emptySet()));
-            when(recordStream.canWrite(anyInt())).thenReturn(true);
+            when(loadBody.canWrite(anyInt())).thenReturn(true);
             Assertions.assertFalse(dorisStreamLoader.needFlush(new TapInsertRecordEvent().init().after(Collections.emptyMap()), 1, false));
         }
 
         @Test
         void testNoAgg2() {
             ReflectionTestUtils.setField(dorisStreamLoader, "lastEventFlag", new AtomicInteger(1));
-            ReflectionTestUtils.setField(dorisStreamLoader, "recordStream", recordStream);
+            ReflectionTestUtils.setField(dorisStreamLoader, "loadBody", loadBody);
             ReflectionTestUtils.setField(dorisStreamLoader, "dataColumns", new AtomicReference<>(Collections.singleton("id")));
-            when(recordStream.canWrite(anyInt())).thenReturn(true);
+            when(loadBody.canWrite(anyInt())).thenReturn(true);
             Assertions.assertTrue(dorisStreamLoader.needFlush(new TapInsertRecordEvent().init().after(Collections.emptyMap()), 1, false));
         }
 
         @Test
         void testIsAgg() {
             ReflectionTestUtils.setField(dorisStreamLoader, "lastEventFlag", new AtomicInteger(1));
-            ReflectionTestUtils.setField(dorisStreamLoader, "recordStream", recordStream);
+            ReflectionTestUtils.setField(dorisStreamLoader, "loadBody", loadBody);
             ReflectionTestUtils.setField(dorisStreamLoader, "dataColumns", new AtomicReference<>(Collections.singleton("id")));
-            when(recordStream.canWrite(anyInt())).thenReturn(true);
+            when(loadBody.canWrite(anyInt())).thenReturn(true);
             Assertions.assertFalse(dorisStreamLoader.needFlush(new TapInsertRecordEvent().init().after(Collections.emptyMap()), 1, true));
         }
     }
@@ -10,6 +10,9 @@ import io.tapdata.kafka.constants.KafkaAcksType;
 import io.tapdata.kafka.constants.KafkaConcurrentReadMode;
 import io.tapdata.kafka.constants.KafkaSchemaMode;
 import io.tapdata.kafka.constants.KafkaSerialization;
+import io.tapdata.kafka.serialization.binary.LocalSchemaRegistry;
+import io.tapdata.kafka.serialization.binary.SchemaRegistry;
+import io.tapdata.kafka.service.KafkaSchemaStore;
 import io.tapdata.pdk.apis.context.TapConnectionContext;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.kafka.clients.CommonClientConfigs;
@@ -35,6 +38,9 @@ public class KafkaConfig extends BasicConfig implements
     IConnectionACL,
     ConnectionExtParams {
 
+    private final KafkaSchemaStore binarySchemaStore = new KafkaSchemaStore(this);
+    private final SchemaRegistry binarySchemaRegistry = new LocalSchemaRegistry(binarySchemaStore);
+
     public KafkaConfig(TapConnectionContext context) {
         super(context);
     }
@@ -74,6 +80,25 @@ public class KafkaConfig extends BasicConfig implements
         return KafkaSerialization.fromString(valueSerializer);
     }
 
+    /**
+     * 标准结构模式的值序列化方式，默认 JSON
+     */
+    public KafkaSerialization getConnectionStandardSerialization() {
+        String standardSerialization = connectionConfigGet("standardSerialization", KafkaSerialization.JSON_OBJECT.getType());
+        return KafkaSerialization.fromString(standardSerialization);
+    }
+
+    /**
+     * 本任务的结构化二进制结构，生产者和消费者共用，新版本保存在结构主题中
+     */
+    public SchemaRegistry getBinarySchemaRegistry() {
+        return binarySchemaRegistry;
+    }
+
+    public KafkaSchemaStore getBinarySchemaStore() {
+        return binarySchemaStore;
+    }
+
     public KafkaAcksType getConnectionAcksType() {
         String acksTypeStr = connectionConfigGet("acksType", KafkaAcksType.WRITE_MOST_ISR.getValue());
         return KafkaAcksType.fromValue(acksTypeStr);
@@ -3,6 +3,8 @@ package io.tapdata.kafka.constants;
 import io.tapdata.kafka.KafkaConfig;
 import io.tapdata.kafka.serialization.JsonDeserializer;
 import io.tapdata.kafka.serialization.JsonSerializer;
+import io.tapdata.kafka.serialization.SchemaBinaryDeserializer;
+import io.tapdata.kafka.serialization.SchemaBinarySerializer;
 import io.tapdata.kafka.serialization.StandardDeserializer;
 import io.tapdata.kafka.serialization.StandardSerializer;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
@@ -23,13 +25,23 @@ public enum KafkaSchemaMode {
         @Override
         public void setSerializer(KafkaConfig kafkaConfig, Properties props) {
             props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class.getName());
-            props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StandardSerializer.class.getName());
+            if (KafkaSerialization.SCHEMA_BINARY == kafkaConfig.getConnectionStandardSerialization()) {
+                props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, SchemaBinarySerializer.class.getName());
+                props.put(SchemaBinarySerializer.REGISTRY_CONFIG, kafkaConfig.getBinarySchemaRegistry());
+            } else {
+                props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StandardSerializer.class.getName());
+            }
         }
 
         @Override
         public void setDeserializer(KafkaConfig kafkaConfig, Properties props) {
             props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class.getName());
-            props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StandardDeserializer.class.getName());
+            if (KafkaSerialization.SCHEMA_BINARY == kafkaConfig.getConnectionStandardSerialization()) {
+                props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, SchemaBinaryDeserializer.class.getName());
+                props.put(SchemaBinarySerializer.REGISTRY_CONFIG, kafkaConfig.getBinarySchemaRegistry());
+            } else {
+                props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StandardDeserializer.class.getName());
+            }
         }
     },
     ORIGINAL() {
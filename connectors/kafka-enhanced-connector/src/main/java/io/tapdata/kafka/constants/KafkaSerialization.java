@@ -11,6 +11,7 @@ public enum KafkaSerialization {
     JSON_ARRAY("JsonArray", "ARRAY", true, "Json"),
     JSON_OBJECT("JsonObject", "MAP", true, "Json"),
     BINARY("Binary", "BINARY", true),
+    SCHEMA_BINARY("SchemaBinary", "BINARY", true),
     STRING("String", "STRING"),
 //    TEXT("Text", "TEXT", "String"),
 //    ARRAY("Array", "ARRAY", "ByteArray"),
@@ -8,6 +8,7 @@ import io.tapdata.entity.event.dml.TapUpdateRecordEvent;
 import io.tapdata.entity.schema.TapTable;
 import io.tapdata.kafka.KafkaEnhancedConnector;
 import io.tapdata.kafka.constants.KafkaSchemaMode;
+import io.tapdata.kafka.constants.KafkaSerialization;
 import io.tapdata.kafka.AbsSchemaMode;
 import io.tapdata.kafka.IKafkaService;
 import io.tapdata.kafka.utils.KafkaUtils;
@@ -79,6 +80,9 @@ public class StandardSchemaMode extends AbsSchemaMode {
     public List<ProducerRecord<Object, Object>> fromTapEvent(TapTable table, TapEvent tapEvent) {
         String topic = topic(table, tapEvent);
         Long ts = tapEvent.getTime();
+        if (KafkaSerialization.SCHEMA_BINARY == kafkaService.getConfig().getConnectionStandardSerialization()) {
+            kafkaService.getConfig().getBinarySchemaRegistry().register(topic, table);
+        }
 
         Map<String, Object> data;
         Headers headers = new RecordHeaders();
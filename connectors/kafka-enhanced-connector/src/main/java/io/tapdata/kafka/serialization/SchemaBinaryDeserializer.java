@@ -0,0 +1,43 @@
+package io.tapdata.kafka.serialization;
+
+import io.tapdata.entity.event.TapEvent;
+import io.tapdata.kafka.serialization.binary.BinaryEventCodec;
+import io.tapdata.kafka.serialization.binary.SchemaRegistry;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.util.Map;
+
+/**
+ * TapData 标准事件的结构化二进制反序列器，非二进制消息按 JSON 反序列化，结构未注册的二进制消息直接报错
+ */
+public class SchemaBinaryDeserializer implements Deserializer<TapEvent> {
+
+    private SchemaRegistry registry;
+    private final StandardDeserializer standardDeserializer = new StandardDeserializer();
+
+    public SchemaBinaryDeserializer() {
+    }
+
+    public SchemaBinaryDeserializer(SchemaRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        Object configRegistry = configs.get(SchemaBinarySerializer.REGISTRY_CONFIG);
+        if (configRegistry instanceof SchemaRegistry) {
+            this.registry = (SchemaRegistry) configRegistry;
+        }
+    }
+
+    @Override
+    public TapEvent deserialize(String topic, byte[] bytes) {
+        if (BinaryEventCodec.isFramed(bytes)) {
+            if (null == registry) {
+                throw new IllegalStateException("Binary schema registry is not configured, topic: " + topic);
+            }
+            return BinaryEventCodec.decode(registry, topic, bytes);
+        }
+        return standardDeserializer.deserialize(topic, bytes);
+    }
+}
@@ -0,0 +1,59 @@
+package io.tapdata.kafka.serialization;
+
+import io.tapdata.entity.event.TapEvent;
+import io.tapdata.entity.event.dml.TapDeleteRecordEvent;
+import io.tapdata.entity.event.dml.TapInsertRecordEvent;
+import io.tapdata.entity.event.dml.TapRecordEvent;
+import io.tapdata.entity.event.dml.TapUpdateRecordEvent;
+import io.tapdata.kafka.serialization.binary.BinaryEventCodec;
+import io.tapdata.kafka.serialization.binary.BinarySchema;
+import io.tapdata.kafka.serialization.binary.SchemaRegistry;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.util.Map;
+
+/**
+ * TapData 标准事件的结构化二进制序列器，结构由目标表生成并注册，未注册结构的事件按 JSON 序列化
+ */
+public class SchemaBinarySerializer implements Serializer<Object> {
+
+    /**
+     * 任务的结构注册中心，随生产者和消费者的配置传入
+     */
+    public static final String REGISTRY_CONFIG = "tapdata.binary.schema.registry";
+
+    private SchemaRegistry registry;
+    private final StandardSerializer standardSerializer = new StandardSerializer();
+    private final BinarySerializer binarySerializer = new BinarySerializer();
+
+    public SchemaBinarySerializer() {
+    }
+
+    public SchemaBinarySerializer(SchemaRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        Object configRegistry = configs.get(REGISTRY_CONFIG);
+        if (configRegistry instanceof SchemaRegistry) {
+            this.registry = (SchemaRegistry) configRegistry;
+        }
+    }
+
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        if (!(data instanceof TapEvent)) {
+            return binarySerializer.serialize(topic, data);
+        }
+        if (null != registry && (data instanceof TapInsertRecordEvent || data instanceof TapUpdateRecordEvent || data instanceof TapDeleteRecordEvent)) {
+            TapRecordEvent recordEvent = (TapRecordEvent) data;
+            BinarySchema schema = registry.getLatest(topic, recordEvent.getTableId());
+            if (null != schema) {
+                Long opTs = null != recordEvent.getReferenceTime() ? recordEvent.getReferenceTime() : System.currentTimeMillis();
+                return BinaryEventCodec.encode(schema, recordEvent, recordEvent.getTime(), opTs, StandardSerializer.getNamespaces(recordEvent));
+            }
+        }
+        return standardSerializer.serialize(topic, (TapEvent) data);
+    }
+}
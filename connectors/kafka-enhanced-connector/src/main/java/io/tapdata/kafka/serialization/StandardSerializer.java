@@ -75,7 +75,7 @@ public class StandardSerializer implements Serializer<TapEvent> {
         StandardEventUtils.setData(map, recordEvent);
     }
 
-    private List<String> getNamespaces(TapBaseEvent tapBaseEvent) {
+    static List<String> getNamespaces(TapBaseEvent tapBaseEvent) {
         if (null == tapBaseEvent) {
             return null;
         }
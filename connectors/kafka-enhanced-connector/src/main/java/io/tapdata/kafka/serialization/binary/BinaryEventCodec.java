@@ -0,0 +1,373 @@
+package io.tapdata.kafka.serialization.binary;
+
+import io.tapdata.base.ConnectorBase;
+import io.tapdata.entity.event.dml.TapDeleteRecordEvent;
+import io.tapdata.entity.event.dml.TapInsertRecordEvent;
+import io.tapdata.entity.event.dml.TapRecordEvent;
+import io.tapdata.entity.event.dml.TapUpdateRecordEvent;
+import io.tapdata.entity.schema.value.DateTime;
+import io.tapdata.kafka.utils.KafkaUtils;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * 标准事件的二进制编解码
+ * <pre>
+ * 消息头：0xC3 0x01 + 结构编号 + 8 字节结构指纹（小端）+ table
+ * 消息体：op, ts, opTs, namespaces, before, after
+ * 行数据：字段数 + (字段位置, 值类型, 值)*，不在结构中的字段位置为 -1 并带上字段名
+ * 值类型：0 空值, 1 结构类型, 2 字符串
+ * </pre>
+ * 整数使用 zig-zag 变长编码，字符串和字节使用长度前缀
+ */
+public class BinaryEventCodec {
+    private static final byte MAGIC_0 = (byte) 0xC3;
+    private static final byte MAGIC_1 = (byte) 0x01;
+    // 魔数、编号、指纹和表名长度的最小字节数
+    private static final int MIN_HEADER_SIZE = 12;
+    private static final int OP_INSERT = 1;
+    private static final int OP_UPDATE = 2;
+    private static final int OP_DELETE = 3;
+    private static final int VALUE_NULL = 0;
+    private static final int VALUE_TYPED = 1;
+    private static final int VALUE_STRING = 2;
+    private static final int MAX_REUSE_SIZE = 1 << 20;
+    private static final ThreadLocal<Writer> WRITER = ThreadLocal.withInitial(Writer::new);
+
+    private BinaryEventCodec() {
+    }
+
+    public static boolean isFramed(byte[] bytes) {
+        return null != bytes && bytes.length >= MIN_HEADER_SIZE && bytes[0] == MAGIC_0 && bytes[1] == MAGIC_1;
+    }
+
+    public static byte[] encode(BinarySchema schema, TapRecordEvent event, Long ts, Long opTs, List<String> namespaces) {
+        Writer writer = WRITER.get().reset();
+        writer.writeByte(MAGIC_0);
+        writer.writeByte(MAGIC_1);
+        writer.writeLong(schema.getId());
+        writer.writeFixedLong(schema.getFingerprint());
+        writer.writeString(event.getTableId());
+        Map<String, Object> before = null;
+        Map<String, Object> after = null;
+        if (event instanceof TapInsertRecordEvent) {
+            writer.writeLong(OP_INSERT);
+            after = ((TapInsertRecordEvent) event).getAfter();
+        } else if (event instanceof TapUpdateRecordEvent) {
+            writer.writeLong(OP_UPDATE);
+            before = ((TapUpdateRecordEvent) event).getBefore();
+            after = ((TapUpdateRecordEvent) event).getAfter();
+        } else if (event instanceof TapDeleteRecordEvent) {
+            writer.writeLong(OP_DELETE);
+            before = ((TapDeleteRecordEvent) event).getBefore();
+        } else {
+            throw new IllegalArgumentException(String.format("TapEvent type '%s'", event.getClass().getName()));
+        }
+        writer.writeNullableLong(ts);
+        writer.writeNullableLong(opTs);
+        if (null == namespaces) {
+            writer.writeLong(-1);
+        } else {
+            writer.writeLong(namespaces.size());
+            namespaces.forEach(writer::writeString);
+        }
+        writeRow(writer, schema, before);
+        writeRow(writer, schema, after);
+        return writer.toByteArray();
+    }
+
+    /**
+     * @throws IllegalStateException 主题中没有注册消息的结构
+     */
+    public static TapRecordEvent decode(SchemaRegistry registry, String topic, byte[] bytes) {
+        Reader reader = new Reader(bytes, 2);
+        int id = (int) reader.readLong();
+        long fingerprint = reader.readFixedLong();
+        String table = reader.readString();
+        BinarySchema schema = registry.get(topic, table, id, fingerprint);
+        if (null == schema) {
+            throw new IllegalStateException(String.format("Unknown binary schema of topic '%s' table '%s', id: %d, fingerprint: %016x", topic, table, id, fingerprint));
+        }
+        int op = (int) reader.readLong();
+        Long ts = reader.readNullableLong();
+        Long opTs = reader.readNullableLong();
+        List<String> namespaces = null;
+        int namespaceSize = (int) reader.readLong();
+        if (namespaceSize >= 0) {
+            namespaces = new ArrayList<>(namespaceSize);
+            for (int i = 0; i < namespaceSize; i++) {
+                namespaces.add(reader.readString());
+            }
+        }
+        Map<String, Object> before = readRow(reader, schema);
+        Map<String, Object> after = readRow(reader, schema);
+
+        TapRecordEvent recordEvent;
+        switch (op) {
+            case OP_INSERT:
+                recordEvent = TapInsertRecordEvent.create().after(after);
+                break;
+            case OP_UPDATE:
+                recordEvent = TapUpdateRecordEvent.create().before(before).after(after);
+                break;
+            case OP_DELETE:
+                recordEvent = TapDeleteRecordEvent.create().before(before);
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported op: " + op);
+        }
+        recordEvent.setTime(ts);
+        recordEvent.setReferenceTime(opTs);
+        recordEvent.setTableId(table);
+        recordEvent.setNamespaces(namespaces);
+        return recordEvent;
+    }
+
+    private static void writeRow(Writer writer, BinarySchema schema, Map<String, Object> data) {
+        if (null == data) {
+            writer.writeLong(-1);
+            return;
+        }
+        writer.writeLong(data.size());
+        for (Map.Entry<String, Object> en : data.entrySet()) {
+            Integer index = schema.indexOf(en.getKey());
+            if (null == index) {
+                writer.writeLong(-1);
+                writer.writeString(en.getKey());
+                writeValue(writer, BinaryFieldType.JSON, en.getValue());
+            } else {
+                writer.writeLong(index);
+                writeValue(writer, schema.getFieldType(index), en.getValue());
+            }
+        }
+    }
+
+    private static Map<String, Object> readRow(Reader reader, BinarySchema schema) {
+        int size = (int) reader.readLong();
+        if (size < 0) {
+            return null;
+        }
+        Map<String, Object> data = new LinkedHashMap<>(Math.max(16, size * 4 / 3 + 1));
+        for (int i = 0; i < size; i++) {
+            int index = (int) reader.readLong();
+            if (index < 0) {
+                String name = reader.readString();
+                data.put(name, readValue(reader, BinaryFieldType.JSON));
+            } else {
+                data.put(schema.getFieldName(index), readValue(reader, schema.getFieldType(index)));
+            }
+        }
+        return data;
+    }
+
+    private static void writeValue(Writer writer, BinaryFieldType type, Object value) {
+        if (null == value) {
+            writer.writeLong(VALUE_NULL);
+            return;
+        }
+        switch (type) {
+            case BOOLEAN:
+                if (value instanceof Boolean) {
+                    writer.writeLong(VALUE_TYPED);
+                    writer.writeByte((byte) ((Boolean) value ? 1 : 0));
+                    return;
+                }
+                break;
+            case LONG:
+                if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                    writer.writeLong(VALUE_TYPED);
+                    writer.writeLong(((Number) value).longValue());
+                    return;
+                }
+                break;
+            case DOUBLE:
+                if (value instanceof Double || value instanceof Float) {
+                    writer.writeLong(VALUE_TYPED);
+                    writer.writeFixedLong(Double.doubleToLongBits(((Number) value).doubleValue()));
+                    return;
+                }
+                break;
+            case DECIMAL:
+                if (value instanceof BigDecimal) {
+                    writer.writeLong(VALUE_TYPED);
+                    writer.writeString(((BigDecimal) value).toPlainString());
+                    return;
+                } else if (value instanceof Number) {
+                    writer.writeLong(VALUE_TYPED);
+                    writer.writeString(value.toString());
+                    return;
+                }
+                break;
+            case BYTES:
+                if (value instanceof byte[]) {
+                    writer.writeLong(VALUE_TYPED);
+                    writer.writeBytes((byte[]) value);
+                    return;
+                }
+                break;
+            case DATETIME:
+                if (value instanceof DateTime) {
+                    writer.writeLong(VALUE_STRING);
+                    writer.writeString(ConnectorBase.formatTapDateTime((DateTime) value, "yyyy-MM-dd HH:mm:ss.SSSSSS"));
+                    return;
+                }
+                break;
+            case JSON:
+                if (!(value instanceof String)) {
+                    writer.writeLong(VALUE_TYPED);
+                    writer.writeBytes(KafkaUtils.toJsonBytes(value));
+                    return;
+                }
+                break;
+            default:
+                break;
+        }
+        // 与结构类型不符的值以字符串保存
+        writer.writeLong(VALUE_STRING);
+        writer.writeString(value.toString());
+    }
+
+    private static Object readValue(Reader reader, BinaryFieldType type) {
+        int valueType = (int) reader.readLong();
+        if (VALUE_NULL == valueType) {
+            return null;
+        } else if (VALUE_STRING == valueType) {
+            return reader.readString();
+        }
+        switch (type) {
+            case BOOLEAN:
+                return reader.readByte() != 0;
+            case LONG:
+                return reader.readLong();
+            case DOUBLE:
+                return Double.longBitsToDouble(reader.readFixedLong());
+            case DECIMAL:
+                return new BigDecimal(reader.readString());
+            case BYTES:
+                return reader.readBytes();
+            case JSON:
+                return KafkaUtils.parseObject(reader.readBytes(), Object.class);
+            default:
+                return reader.readString();
+        }
+    }
+
+    private static class Writer {
+        private byte[] buf = new byte[1024];
+        private int pos;
+
+        Writer reset() {
+            if (buf.length > MAX_REUSE_SIZE) {
+                buf = new byte[1024];
+            }
+            pos = 0;
+            return this;
+        }
+
+        private void ensure(int size) {
+            if (pos + size > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length << 1, pos + size));
+            }
+        }
+
+        void writeByte(byte b) {
+            ensure(1);
+            buf[pos++] = b;
+        }
+
+        void writeLong(long v) {
+            ensure(10);
+            long n = (v << 1) ^ (v >> 63);
+            while ((n & ~0x7FL) != 0) {
+                buf[pos++] = (byte) ((n & 0x7F) | 0x80);
+                n >>>= 7;
+            }
+            buf[pos++] = (byte) n;
+        }
+
+        void writeNullableLong(Long v) {
+            if (null == v) {
+                writeLong(VALUE_NULL);
+            } else {
+                writeLong(VALUE_TYPED);
+                writeLong(v);
+            }
+        }
+
+        void writeFixedLong(long v) {
+            ensure(8);
+            for (int i = 0; i < 8; i++) {
+                buf[pos++] = (byte) (v >>> (i * 8));
+            }
+        }
+
+        void writeBytes(byte[] bytes) {
+            writeLong(bytes.length);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buf, pos, bytes.length);
+            pos += bytes.length;
+        }
+
+        void writeString(String s) {
+            writeBytes(s.getBytes(StandardCharsets.UTF_8));
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, pos);
+        }
+    }
+
+    private static class Reader {
+        private final byte[] buf;
+        private int pos;
+
+        Reader(byte[] buf, int pos) {
+            this.buf = buf;
+            this.pos = pos;
+        }
+
+        byte readByte() {
+            return buf[pos++];
+        }
+
+        long readLong() {
+            long n = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buf[pos++];
+                n |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return (n >>> 1) ^ -(n & 1);
+        }
+
+        Long readNullableLong() {
+            return VALUE_NULL == readLong() ? null : readLong();
+        }
+
+        long readFixedLong() {
+            long v = 0;
+            for (int i = 0; i < 8; i++) {
+                v |= (buf[pos++] & 0xFFL) << (i * 8);
+            }
+            return v;
+        }
+
+        byte[] readBytes() {
+            int length = (int) readLong();
+            byte[] bytes = Arrays.copyOfRange(buf, pos, pos + length);
+            pos += length;
+            return bytes;
+        }
+
+        String readString() {
+            int length = (int) readLong();
+            String s = new String(buf, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+            return s;
+        }
+    }
+}
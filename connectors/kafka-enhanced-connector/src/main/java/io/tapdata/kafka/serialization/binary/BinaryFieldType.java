@@ -0,0 +1,41 @@
+package io.tapdata.kafka.serialization.binary;
+
+import io.tapdata.entity.schema.TapField;
+import io.tapdata.entity.schema.type.*;
+
+/**
+ * 二进制字段类型，由 TapField 的类型推导
+ */
+public enum BinaryFieldType {
+    BOOLEAN,
+    LONG,
+    DOUBLE,
+    DECIMAL,
+    STRING,
+    BYTES,
+    DATETIME,
+    JSON,
+    ;
+
+    public static BinaryFieldType of(TapField field) {
+        TapType tapType = field.getTapType();
+        if (tapType instanceof TapBoolean) {
+            return BOOLEAN;
+        } else if (tapType instanceof TapNumber) {
+            TapNumber tapNumber = (TapNumber) tapType;
+            if (null != tapNumber.getBit() && tapNumber.getBit() <= 64) {
+                return LONG;
+            } else if (Boolean.FALSE.equals(tapNumber.getFixed())) {
+                return DOUBLE;
+            }
+            return DECIMAL;
+        } else if (tapType instanceof TapString) {
+            return STRING;
+        } else if (tapType instanceof TapBinary) {
+            return BYTES;
+        } else if (tapType instanceof TapDateTime || tapType instanceof TapDate || tapType instanceof TapTime || tapType instanceof TapYear) {
+            return DATETIME;
+        }
+        return JSON;
+    }
+}
@@ -0,0 +1,125 @@
+package io.tapdata.kafka.serialization.binary;
+
+import io.tapdata.entity.schema.TapField;
+import io.tapdata.entity.schema.TapTable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 表结构对应的二进制结构，字段按位置编码，指纹只由字段名和类型决定
+ * 编号由注册中心在主题和表内分配，结构每变化一次编号加一
+ */
+public class BinarySchema {
+    private static final long EMPTY_FINGERPRINT = 0xc15d213aa4d7a795L;
+    private static final long[] FINGERPRINT_TABLE = new long[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            long fp = i;
+            for (int j = 0; j < 8; j++) {
+                fp = (fp >>> 1) ^ (EMPTY_FINGERPRINT & -(fp & 1L));
+            }
+            FINGERPRINT_TABLE[i] = fp;
+        }
+    }
+
+    private final int id;
+    private final String[] fieldNames;
+    private final BinaryFieldType[] fieldTypes;
+    private final Map<String, Integer> fieldIndexes;
+    private final String canonical;
+    private final long fingerprint;
+
+    public BinarySchema(String[] fieldNames, BinaryFieldType[] fieldTypes) {
+        this(0, fieldNames, fieldTypes);
+    }
+
+    public BinarySchema(int id, String[] fieldNames, BinaryFieldType[] fieldTypes) {
+        this.id = id;
+        this.fieldNames = fieldNames;
+        this.fieldTypes = fieldTypes;
+        this.fieldIndexes = new HashMap<>();
+        StringBuilder sb = new StringBuilder("{\"fields\":[");
+        for (int i = 0; i < fieldNames.length; i++) {
+            fieldIndexes.put(fieldNames[i], i);
+            if (i > 0) sb.append(',');
+            sb.append("{\"name\":\"").append(fieldNames[i]).append("\",\"type\":\"").append(fieldTypes[i]).append("\"}");
+        }
+        this.canonical = sb.append("]}").toString();
+        this.fingerprint = fingerprint(canonical.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static BinarySchema of(TapTable table) {
+        LinkedHashMap<String, TapField> fieldMap = table.getNameFieldMap();
+        int size = null == fieldMap ? 0 : fieldMap.size();
+        String[] fieldNames = new String[size];
+        BinaryFieldType[] fieldTypes = new BinaryFieldType[size];
+        if (size > 0) {
+            int i = 0;
+            for (Map.Entry<String, TapField> en : fieldMap.entrySet()) {
+                fieldNames[i] = en.getKey();
+                fieldTypes[i++] = BinaryFieldType.of(en.getValue());
+            }
+        }
+        return new BinarySchema(fieldNames, fieldTypes);
+    }
+
+    /**
+     * 字段名和字段类型的摘要，不生成结构即可判断表结构是否变化
+     */
+    public static long structureHash(TapTable table) {
+        long hash = 1;
+        LinkedHashMap<String, TapField> fieldMap = table.getNameFieldMap();
+        if (null != fieldMap) {
+            for (Map.Entry<String, TapField> en : fieldMap.entrySet()) {
+                hash = 31 * hash + en.getKey().hashCode();
+                hash = 31 * hash + BinaryFieldType.of(en.getValue()).ordinal();
+            }
+        }
+        return hash;
+    }
+
+    public BinarySchema withId(int id) {
+        return new BinarySchema(id, fieldNames, fieldTypes);
+    }
+
+    // CRC-64-AVRO
+    static long fingerprint(byte[] bytes) {
+        long fp = EMPTY_FINGERPRINT;
+        for (byte b : bytes) {
+            fp = (fp >>> 8) ^ FINGERPRINT_TABLE[(int) (fp ^ b) & 0xff];
+        }
+        return fp;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public int size() {
+        return fieldNames.length;
+    }
+
+    public String getFieldName(int index) {
+        return fieldNames[index];
+    }
+
+    public BinaryFieldType getFieldType(int index) {
+        return fieldTypes[index];
+    }
+
+    public Integer indexOf(String fieldName) {
+        return fieldIndexes.get(fieldName);
+    }
+
+    public String getCanonical() {
+        return canonical;
+    }
+
+    public long getFingerprint() {
+        return fingerprint;
+    }
+}
@@ -0,0 +1,135 @@
+package io.tapdata.kafka.serialization.binary;
+
+import io.tapdata.entity.schema.TapTable;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * 进程内结构注册中心，每个任务的连接配置持有一个，结构按主题和表区分
+ * 配置了结构存储时，新版本先保存再使用，未注册的指纹从存储中读取，其他任务写入的消息也能解码
+ */
+public class LocalSchemaRegistry implements SchemaRegistry {
+
+    private final Map<String, Versions> topicTableVersions = new ConcurrentHashMap<>();
+    private final SchemaStore store;
+
+    public LocalSchemaRegistry() {
+        this(null);
+    }
+
+    public LocalSchemaRegistry(SchemaStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public BinarySchema register(String topic, TapTable table) {
+        return versions(topic, table.getId()).register(table, schema -> {
+            if (null != store) {
+                store.save(topic, table.getId(), schema);
+            }
+        });
+    }
+
+    @Override
+    public BinarySchema getLatest(String topic, String tableId) {
+        if (null == tableId) {
+            return null;
+        }
+        Versions versions = topicTableVersions.get(key(topic, tableId));
+        return null == versions ? null : versions.latest.schema;
+    }
+
+    @Override
+    public BinarySchema get(String topic, String tableId, int id, long fingerprint) {
+        BinarySchema schema = find(topic, tableId, id, fingerprint);
+        if (null == schema && null != store) {
+            store.load(topic, (storedTableId, stored) -> versions(topic, storedTableId).add(stored));
+            schema = find(topic, tableId, id, fingerprint);
+        }
+        return schema;
+    }
+
+    private BinarySchema find(String topic, String tableId, int id, long fingerprint) {
+        Versions versions = topicTableVersions.get(key(topic, tableId));
+        BinarySchema schema = null == versions ? null : versions.get(id, fingerprint);
+        // 消费端以主题为表，注册的是与主题同名的表
+        if (null == schema && !topic.equals(tableId)) {
+            versions = topicTableVersions.get(key(topic, topic));
+            schema = null == versions ? null : versions.get(id, fingerprint);
+        }
+        return schema;
+    }
+
+    private Versions versions(String topic, String tableId) {
+        return topicTableVersions.computeIfAbsent(key(topic, tableId), k -> new Versions());
+    }
+
+    private static String key(String topic, String tableId) {
+        return topic + "\u0000" + tableId;
+    }
+
+    private static class Latest {
+        private final long structureHash;
+        private final BinarySchema schema;
+
+        Latest(long structureHash, BinarySchema schema) {
+            this.structureHash = structureHash;
+            this.schema = schema;
+        }
+    }
+
+    /**
+     * 一个主题中一张表的结构版本
+     */
+    private static class Versions {
+        private final Map<Integer, BinarySchema> idSchemas = new ConcurrentHashMap<>();
+        private final Map<Long, BinarySchema> fingerprintSchemas = new ConcurrentHashMap<>();
+        private volatile Latest latest = new Latest(0, null);
+        private int maxId;
+
+        BinarySchema register(TapTable table, Consumer<BinarySchema> saver) {
+            long structureHash = BinarySchema.structureHash(table);
+            Latest current = latest;
+            if (null != current.schema && current.structureHash == structureHash) {
+                return current.schema;
+            }
+            synchronized (this) {
+                BinarySchema schema = BinarySchema.of(table);
+                // 改回之前的结构时沿用原编号
+                BinarySchema registered = fingerprintSchemas.get(schema.getFingerprint());
+                if (null == registered) {
+                    registered = schema.withId(maxId + 1);
+                    // 保存失败时不使用新版本，消息中不会出现读不到的结构
+                    saver.accept(registered);
+                    put(registered);
+                }
+                latest = new Latest(structureHash, registered);
+                return registered;
+            }
+        }
+
+        // 从存储读取的结构，不改变最后注册的版本
+        synchronized void add(BinarySchema schema) {
+            if (!fingerprintSchemas.containsKey(schema.getFingerprint())) {
+                put(schema);
+            }
+        }
+
+        private void put(BinarySchema schema) {
+            idSchemas.putIfAbsent(schema.getId(), schema);
+            fingerprintSchemas.put(schema.getFingerprint(), schema);
+            maxId = Math.max(maxId, schema.getId());
+        }
+
+        // 其他任务注册的结构编号不同，按指纹查找
+        BinarySchema get(int id, long fingerprint) {
+            BinarySchema schema = idSchemas.get(id);
+            if (null != schema && schema.getFingerprint() == fingerprint) {
+                return schema;
+            }
+            return fingerprintSchemas.get(fingerprint);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package io.tapdata.kafka.serialization.binary;
+
+import io.tapdata.entity.schema.TapTable;
+
+/**
+ * 二进制结构注册中心，结构按主题和表区分
+ */
+public interface SchemaRegistry {
+
+    /**
+     * 注册表结构，字段名或字段类型变化时生成新版本
+     *
+     * @param topic 主题
+     * @param table 表
+     * @return 表当前版本的结构
+     */
+    BinarySchema register(String topic, TapTable table);
+
+    /**
+     * @param topic   主题
+     * @param tableId 表名
+     * @return 最后注册的结构，未注册返回 null
+     */
+    BinarySchema getLatest(String topic, String tableId);
+
+    /**
+     * @param topic       主题
+     * @param tableId     表名
+     * @param id          结构编号
+     * @param fingerprint 结构指纹
+     * @return 指纹一致的结构，未注册返回 null
+     */
+    BinarySchema get(String topic, String tableId, int id, long fingerprint);
+}
@@ -0,0 +1,27 @@
+package io.tapdata.kafka.serialization.binary;
+
+import java.util.function.BiConsumer;
+
+/**
+ * 结构的持久化存储，注册中心注册新版本时保存，遇到未注册的指纹时读取
+ * 消费者不依赖生产者所在任务的注册中心即可解码
+ */
+public interface SchemaStore {
+
+    /**
+     * 保存结构，返回前结构已持久化
+     *
+     * @param topic   主题
+     * @param tableId 表名
+     * @param schema  结构
+     */
+    void save(String topic, String tableId, BinarySchema schema);
+
+    /**
+     * 读取主题保存过的全部结构
+     *
+     * @param topic    主题
+     * @param consumer 表名和结构
+     */
+    void load(String topic, BiConsumer<String, BinarySchema> consumer);
+}
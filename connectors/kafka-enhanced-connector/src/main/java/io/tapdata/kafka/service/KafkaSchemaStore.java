@@ -0,0 +1,183 @@
+package io.tapdata.kafka.service;
+
+import com.alibaba.fastjson.JSONObject;
+import io.tapdata.entity.mapping.TapEntry;
+import io.tapdata.kafka.KafkaConfig;
+import io.tapdata.kafka.serialization.binary.BinaryFieldType;
+import io.tapdata.kafka.serialization.binary.BinarySchema;
+import io.tapdata.kafka.serialization.binary.SchemaStore;
+import io.tapdata.kafka.utils.KafkaUtils;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.config.TopicConfig;
+import org.apache.kafka.common.errors.TopicExistsException;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * 结构化二进制的结构存储，保存在压缩主题中，键为主题、表名和指纹，同一结构只保留一条
+ * 消费者从该主题读取生产者注册的结构，与生产者是否在同一任务无关
+ */
+public class KafkaSchemaStore implements SchemaStore, AutoCloseable {
+
+    public static final String SCHEMA_TOPIC = "_tapdata_binary_schemas";
+    private static final long LOAD_TIMEOUT_MS = TimeUnit.SECONDS.toMillis(30);
+
+    private final KafkaConfig config;
+    private volatile boolean topicReady;
+    private KafkaProducer<String, byte[]> producer;
+
+    public KafkaSchemaStore(KafkaConfig config) {
+        this.config = config;
+    }
+
+    @Override
+    public void save(String topic, String tableId, BinarySchema schema) {
+        ensureTopic();
+        try {
+            producer().send(new ProducerRecord<>(SCHEMA_TOPIC, key(topic, tableId, schema), encode(tableId, schema))).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Save binary schema interrupted, topic: " + topic + ", table: " + tableId, e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Save binary schema failed, topic: " + topic + ", table: " + tableId, e.getCause());
+        }
+    }
+
+    @Override
+    public void load(String topic, BiConsumer<String, BinarySchema> consumer) {
+        ensureTopic();
+        String prefix = topic + "\u0000";
+        try (KafkaConsumer<String, byte[]> kafkaConsumer = new KafkaConsumer<>(buildConsumerConfig())) {
+            List<TopicPartition> partitions = new ArrayList<>();
+            for (PartitionInfo info : kafkaConsumer.partitionsFor(SCHEMA_TOPIC)) {
+                partitions.add(new TopicPartition(info.topic(), info.partition()));
+            }
+            kafkaConsumer.assign(partitions);
+            kafkaConsumer.seekToBeginning(partitions);
+            Map<TopicPartition, Long> endOffsets = kafkaConsumer.endOffsets(partitions);
+            long deadline = System.currentTimeMillis() + LOAD_TIMEOUT_MS;
+            while (!isEnd(kafkaConsumer, endOffsets)) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw new RuntimeException("Load binary schemas timeout, topic: " + topic);
+                }
+                for (ConsumerRecord<String, byte[]> record : kafkaConsumer.poll(Duration.ofSeconds(1))) {
+                    if (null != record.key() && record.key().startsWith(prefix) && null != record.value()) {
+                        TapEntry<String, BinarySchema> stored = decode(record.value());
+                        consumer.accept(stored.getKey(), stored.getValue());
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean isEnd(KafkaConsumer<?, ?> kafkaConsumer, Map<TopicPartition, Long> endOffsets) {
+        for (Map.Entry<TopicPartition, Long> en : endOffsets.entrySet()) {
+            if (kafkaConsumer.position(en.getKey()) < en.getValue()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void ensureTopic() {
+        if (topicReady) {
+            return;
+        }
+        synchronized (this) {
+            if (topicReady) {
+                return;
+            }
+            try (AdminClient adminClient = AdminClient.create(config.buildAdminConfig())) {
+                NewTopic newTopic = new NewTopic(SCHEMA_TOPIC, Optional.of(1), Optional.empty())
+                    .configs(Collections.singletonMap(TopicConfig.CLEANUP_POLICY_CONFIG, TopicConfig.CLEANUP_POLICY_COMPACT));
+                adminClient.createTopics(Collections.singleton(newTopic)).all().get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Create binary schema topic interrupted: " + SCHEMA_TOPIC, e);
+            } catch (ExecutionException e) {
+                if (!(e.getCause() instanceof TopicExistsException)) {
+                    throw new RuntimeException("Create binary schema topic failed: " + SCHEMA_TOPIC, e.getCause());
+                }
+            }
+            topicReady = true;
+        }
+    }
+
+    private synchronized KafkaProducer<String, byte[]> producer() {
+        if (null == producer) {
+            Properties props = config.buildAdminConfig();
+            props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class.getName());
+            props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class.getName());
+            props.put(ProducerConfig.ACKS_CONFIG, "all");
+            producer = new KafkaProducer<>(props);
+        }
+        return producer;
+    }
+
+    private Properties buildConsumerConfig() {
+        Properties props = config.buildAdminConfig();
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class.getName());
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        return props;
+    }
+
+    public static String key(String topic, String tableId, BinarySchema schema) {
+        return topic + "\u0000" + tableId + "\u0000" + Long.toHexString(schema.getFingerprint());
+    }
+
+    public static byte[] encode(String tableId, BinarySchema schema) {
+        List<Map<String, String>> fields = new ArrayList<>();
+        for (int i = 0; i < schema.size(); i++) {
+            Map<String, String> field = new LinkedHashMap<>();
+            field.put("name", schema.getFieldName(i));
+            field.put("type", schema.getFieldType(i).name());
+            fields.add(field);
+        }
+        Map<String, Object> value = new LinkedHashMap<>();
+        value.put("table", tableId);
+        value.put("id", schema.getId());
+        value.put("fields", fields);
+        return KafkaUtils.toJsonBytes(value);
+    }
+
+    /**
+     * @return 表名和结构
+     */
+    public static TapEntry<String, BinarySchema> decode(byte[] value) {
+        JSONObject json = KafkaUtils.parseObject(value, JSONObject.class);
+        List<JSONObject> fields = json.getJSONArray("fields").toJavaList(JSONObject.class);
+        String[] fieldNames = new String[fields.size()];
+        BinaryFieldType[] fieldTypes = new BinaryFieldType[fields.size()];
+        for (int i = 0; i < fields.size(); i++) {
+            fieldNames[i] = fields.get(i).getString("name");
+            fieldTypes[i] = BinaryFieldType.valueOf(fields.get(i).getString("type"));
+        }
+        return new TapEntry<>(json.getString("table"), new BinarySchema(json.getIntValue("id"), fieldNames, fieldTypes));
+    }
+
+    @Override
+    public synchronized void close() {
+        if (null != producer) {
+            producer.close();
+            producer = null;
+        }
+    }
+}
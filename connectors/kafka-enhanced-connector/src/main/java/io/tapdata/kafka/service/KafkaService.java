@@ -20,6 +20,7 @@ import io.tapdata.exception.TapPdkTerminateByServerEx;
 import io.tapdata.exception.TapRuntimeException;
 import io.tapdata.exception.runtime.TapPdkSkippableDataEx;
 import io.tapdata.kafka.*;
+import io.tapdata.kafka.constants.KafkaSerialization;
 import io.tapdata.kafka.constants.ProducerRecordWrapper;
 import io.tapdata.kafka.data.KafkaOffset;
 import io.tapdata.kafka.data.KafkaTopicOffset;
@@ -124,6 +125,7 @@ public class KafkaService implements IKafkaService {
             Set<String> topics = getAdminService().listTopics();
             int i = 0;
             for (String topic : topics) {
+                if (KafkaSchemaStore.SCHEMA_TOPIC.equals(topic)) continue;
                 tableNames.add(topic);
                 if (0 != i && i % batchSize == 0) {
                     consumer.accept(tableNames);
@@ -187,6 +189,7 @@ public class KafkaService implements IKafkaService {
             // 参数设置
             boolean isEarliest = true;
             String topic = table.getId();
+            registerBinarySchemas(Collections.singletonList(topic));
             int concurrentSize = config.getNodeMaxConcurrentSize();
             long batchMaxDelay = config.getNodeBatchMaxDelay();
             Duration timeout = Duration.ofMillis(batchMaxDelay);
@@ -307,6 +310,7 @@ public class KafkaService implements IKafkaService {
 
             // 补全分区信息（如：全量过程为主题添加了分区）
             KafkaOffsetUtils.fillPartitions(this, tables, streamOffset, true);
+            registerBinarySchemas(tables);
 
             BiConsumer<List<TapEvent>, Object> convertConsumer = getFieldTypeConverterConsumer(consumer);
 
@@ -479,7 +483,7 @@ public class KafkaService implements IKafkaService {
                 }
                 executorService.shutdown();
             }
-        }, adminService, kafkaProducer);
+        }, adminService, kafkaProducer, config.getBinarySchemaStore());
     }
 
 
@@ -503,6 +507,21 @@ public class KafkaService implements IKafkaService {
         return allTables;
     }
 
+    /**
+     * 结构化二进制消息按指纹查找结构，消费前注册源表的结构
+     */
+    private void registerBinarySchemas(List<String> tables) {
+        if (KafkaSerialization.SCHEMA_BINARY != getConfig().getConnectionStandardSerialization() || null == getConfig().tapConnectorContext()) {
+            return;
+        }
+        for (String table : tables) {
+            TapTable tapTable = getConfig().tapConnectorContext().getTableMap().get(table);
+            if (null != tapTable) {
+                getConfig().getBinarySchemaRegistry().register(table, tapTable);
+            }
+        }
+    }
+
     private BiConsumer<List<TapEvent>, Object> getFieldTypeConverterConsumer(BiConsumer<List<TapEvent>, Object> consumer) {
         Map<String, List<TapEntry<String, Function<Object, Object>>>> allTableConvert = new ConcurrentHashMap<>();
         return (tapEvents, o) -> {
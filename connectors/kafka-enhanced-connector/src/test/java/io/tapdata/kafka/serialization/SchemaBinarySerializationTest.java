@@ -0,0 +1,312 @@
+package io.tapdata.kafka.serialization;
+
+import io.tapdata.entity.event.TapEvent;
+import io.tapdata.entity.event.dml.TapDeleteRecordEvent;
+import io.tapdata.entity.event.dml.TapInsertRecordEvent;
+import io.tapdata.entity.event.dml.TapRecordEvent;
+import io.tapdata.entity.event.dml.TapUpdateRecordEvent;
+import io.tapdata.entity.mapping.TapEntry;
+import io.tapdata.entity.schema.TapField;
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.entity.schema.type.TapBinary;
+import io.tapdata.entity.schema.type.TapBoolean;
+import io.tapdata.entity.schema.type.TapNumber;
+import io.tapdata.entity.schema.type.TapString;
+import io.tapdata.kafka.serialization.binary.BinaryEventCodec;
+import io.tapdata.kafka.serialization.binary.BinarySchema;
+import io.tapdata.kafka.serialization.binary.LocalSchemaRegistry;
+import io.tapdata.kafka.serialization.binary.SchemaRegistry;
+import io.tapdata.kafka.serialization.binary.SchemaStore;
+import io.tapdata.kafka.service.KafkaSchemaStore;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+public class SchemaBinarySerializationTest {
+
+    private static final String TOPIC = "users_topic";
+
+    private static TapTable usersTable() {
+        TapTable table = new TapTable("users");
+        table.add(new TapField("id", "bigint").tapType(new TapNumber().bit(64)));
+        table.add(new TapField("name", "varchar(64)").tapType(new TapString()));
+        table.add(new TapField("amount", "decimal(10,2)").tapType(new TapNumber().precision(10).scale(2).fixed(true)));
+        table.add(new TapField("score", "double").tapType(new TapNumber().fixed(false)));
+        table.add(new TapField("active", "boolean").tapType(new TapBoolean()));
+        table.add(new TapField("payload", "blob").tapType(new TapBinary()));
+        return table;
+    }
+
+    private static Map<String, Object> row(long id, String name) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", id);
+        row.put("name", name);
+        return row;
+    }
+
+    private static SchemaBinarySerializer serializer(SchemaRegistry registry) {
+        SchemaBinarySerializer serializer = new SchemaBinarySerializer();
+        serializer.configure(Collections.singletonMap(SchemaBinarySerializer.REGISTRY_CONFIG, registry), false);
+        return serializer;
+    }
+
+    private static SchemaBinaryDeserializer deserializer(SchemaRegistry registry) {
+        SchemaBinaryDeserializer deserializer = new SchemaBinaryDeserializer();
+        deserializer.configure(Collections.singletonMap(SchemaBinarySerializer.REGISTRY_CONFIG, registry), false);
+        return deserializer;
+    }
+
+    private static <T extends TapRecordEvent> T tableEvent(T recordEvent) {
+        recordEvent.setTableId("users");
+        recordEvent.setReferenceTime(1000L);
+        recordEvent.setTime(2000L);
+        return recordEvent;
+    }
+
+    @Nested
+    class RoundTripTest {
+
+        LocalSchemaRegistry registry;
+
+        @BeforeEach
+        void beforeEach() {
+            registry = new LocalSchemaRegistry();
+            registry.register(TOPIC, usersTable());
+        }
+
+        @Test
+        @DisplayName("test insert keeps the values and their types")
+        void testInsert() {
+            Map<String, Object> after = row(1L, "a");
+            after.put("amount", new BigDecimal("12.50"));
+            after.put("score", 1.5D);
+            after.put("active", true);
+            after.put("payload", new byte[]{1, 2, 3});
+            after.put("extra", "not in table");
+            after.put("empty", null);
+            byte[] bytes = serializer(registry).serialize(TOPIC, tableEvent(TapInsertRecordEvent.create().after(after)));
+            Assertions.assertTrue(BinaryEventCodec.isFramed(bytes));
+
+            TapEvent tapEvent = deserializer(registry).deserialize(TOPIC, bytes);
+            Assertions.assertTrue(tapEvent instanceof TapInsertRecordEvent);
+            TapInsertRecordEvent insertRecordEvent = (TapInsertRecordEvent) tapEvent;
+            Assertions.assertEquals("users", insertRecordEvent.getTableId());
+            Assertions.assertEquals(1000L, insertRecordEvent.getReferenceTime());
+            Assertions.assertEquals(2000L, insertRecordEvent.getTime());
+            Map<String, Object> decoded = insertRecordEvent.getAfter();
+            Assertions.assertEquals(after.keySet(), decoded.keySet());
+            Assertions.assertEquals(1L, decoded.get("id"));
+            Assertions.assertEquals("a", decoded.get("name"));
+            Assertions.assertEquals(new BigDecimal("12.50"), decoded.get("amount"));
+            Assertions.assertEquals(1.5D, decoded.get("score"));
+            Assertions.assertEquals(true, decoded.get("active"));
+            Assertions.assertArrayEquals(new byte[]{1, 2, 3}, (byte[]) decoded.get("payload"));
+            Assertions.assertEquals("not in table", decoded.get("extra"));
+            Assertions.assertNull(decoded.get("empty"));
+        }
+
+        @Test
+        @DisplayName("test update and delete keep before and after")
+        void testUpdateAndDelete() {
+            SchemaBinarySerializer serializer = serializer(registry);
+            SchemaBinaryDeserializer deserializer = deserializer(registry);
+            TapUpdateRecordEvent updateRecordEvent = tableEvent(TapUpdateRecordEvent.create().before(row(1L, "a")).after(row(1L, "b")));
+            updateRecordEvent.setNamespaces(Arrays.asList("db", "users"));
+            TapEvent updated = deserializer.deserialize(TOPIC, serializer.serialize(TOPIC, updateRecordEvent));
+            Assertions.assertTrue(updated instanceof TapUpdateRecordEvent);
+            Assertions.assertEquals(row(1L, "a"), ((TapUpdateRecordEvent) updated).getBefore());
+            Assertions.assertEquals(row(1L, "b"), ((TapUpdateRecordEvent) updated).getAfter());
+            Assertions.assertEquals(Arrays.asList("db", "users"), ((TapUpdateRecordEvent) updated).getNamespaces());
+
+            TapEvent deleted = deserializer.deserialize(TOPIC, serializer.serialize(TOPIC, tableEvent(TapDeleteRecordEvent.create().before(row(2L, "c")))));
+            Assertions.assertTrue(deleted instanceof TapDeleteRecordEvent);
+            Assertions.assertEquals(row(2L, "c"), ((TapDeleteRecordEvent) deleted).getBefore());
+        }
+
+        @Test
+        @DisplayName("test events of unregistered tables are json and read by the standard deserializer")
+        void testJsonFallbackOfUnregisteredTable() {
+            TapInsertRecordEvent insertRecordEvent = TapInsertRecordEvent.create().after(row(1L, "a"));
+            insertRecordEvent.setTableId("orders");
+            byte[] bytes = serializer(registry).serialize(TOPIC, insertRecordEvent);
+            Assertions.assertFalse(BinaryEventCodec.isFramed(bytes));
+            TapEvent tapEvent = deserializer(registry).deserialize(TOPIC, bytes);
+            Assertions.assertTrue(tapEvent instanceof TapInsertRecordEvent);
+            Assertions.assertEquals("orders", ((TapInsertRecordEvent) tapEvent).getTableId());
+        }
+
+        @Test
+        @DisplayName("test binary message of an unknown schema fails instead of falling back")
+        void testUnknownSchema() {
+            byte[] bytes = serializer(registry).serialize(TOPIC, tableEvent(TapInsertRecordEvent.create().after(row(1L, "a"))));
+            IllegalStateException e = Assertions.assertThrows(IllegalStateException.class, () -> deserializer(new LocalSchemaRegistry()).deserialize(TOPIC, bytes));
+            Assertions.assertTrue(e.getMessage().contains("users"));
+            //the same table in another topic is another schema
+            Assertions.assertThrows(IllegalStateException.class, () -> deserializer(registry).deserialize("other_topic", bytes));
+            Assertions.assertThrows(IllegalStateException.class, () -> new SchemaBinaryDeserializer().deserialize(TOPIC, bytes));
+        }
+
+        @Test
+        @DisplayName("test consumer resolves the schema by the table named after the topic")
+        void testConsumerTableOfTopic() {
+            byte[] bytes = serializer(registry).serialize(TOPIC, tableEvent(TapInsertRecordEvent.create().after(row(1L, "a"))));
+            TapTable topicTable = usersTable();
+            topicTable.setId(TOPIC);
+            LocalSchemaRegistry consumerRegistry = new LocalSchemaRegistry();
+            consumerRegistry.register(TOPIC, topicTable);
+            TapEvent tapEvent = deserializer(consumerRegistry).deserialize(TOPIC, bytes);
+            Assertions.assertEquals(row(1L, "a"), ((TapInsertRecordEvent) tapEvent).getAfter());
+        }
+    }
+
+    @Nested
+    class SchemaEvolutionTest {
+
+        @Test
+        @DisplayName("test any field or type change registers a new version")
+        void testRegisterOnChange() {
+            LocalSchemaRegistry registry = new LocalSchemaRegistry();
+            TapTable table = usersTable();
+            BinarySchema v1 = registry.register(TOPIC, table);
+            Assertions.assertEquals(1, v1.getId());
+            Assertions.assertSame(v1, registry.register(TOPIC, table));
+
+            //field added to the same table instance
+            table.add(new TapField("email", "varchar(64)").tapType(new TapString()));
+            BinarySchema v2 = registry.register(TOPIC, table);
+            Assertions.assertEquals(2, v2.getId());
+            Assertions.assertNotEquals(v1.getFingerprint(), v2.getFingerprint());
+
+            //type changed, field count is the same
+            TapTable retyped = usersTable();
+            retyped.add(new TapField("email", "bigint").tapType(new TapNumber().bit(64)));
+            BinarySchema v3 = registry.register(TOPIC, retyped);
+            Assertions.assertEquals(3, v3.getId());
+            Assertions.assertEquals(v2.size(), v3.size());
+            Assertions.assertSame(v3, registry.getLatest(TOPIC, "users"));
+
+            //back to the first structure
+            Assertions.assertSame(v1, registry.register(TOPIC, usersTable()));
+            Assertions.assertNull(registry.getLatest("other_topic", "users"));
+        }
+
+        @Test
+        @DisplayName("test messages of old and new versions are decoded by their own schema")
+        void testDecodeAcrossVersions() {
+            LocalSchemaRegistry registry = new LocalSchemaRegistry();
+            SchemaBinarySerializer serializer = serializer(registry);
+            TapTable table = usersTable();
+            registry.register(TOPIC, table);
+            byte[] v1Bytes = serializer.serialize(TOPIC, tableEvent(TapInsertRecordEvent.create().after(row(1L, "a"))));
+
+            table.add(new TapField("email", "varchar(64)").tapType(new TapString()));
+            registry.register(TOPIC, table);
+            Map<String, Object> after = row(2L, "b");
+            after.put("email", "b@tapdata.io");
+            byte[] v2Bytes = serializer.serialize(TOPIC, tableEvent(TapInsertRecordEvent.create().after(after)));
+
+            SchemaBinaryDeserializer deserializer = deserializer(registry);
+            Assertions.assertEquals(row(1L, "a"), ((TapInsertRecordEvent) deserializer.deserialize(TOPIC, v1Bytes)).getAfter());
+            Assertions.assertEquals(after, ((TapInsertRecordEvent) deserializer.deserialize(TOPIC, v2Bytes)).getAfter());
+
+            //a consumer knowing the new structure only can not read the old messages
+            LocalSchemaRegistry consumerRegistry = new LocalSchemaRegistry();
+            consumerRegistry.register(TOPIC, table);
+            SchemaBinaryDeserializer consumerDeserializer = deserializer(consumerRegistry);
+            Assertions.assertEquals(after, ((TapInsertRecordEvent) consumerDeserializer.deserialize(TOPIC, v2Bytes)).getAfter());
+            Assertions.assertThrows(IllegalStateException.class, () -> consumerDeserializer.deserialize(TOPIC, v1Bytes));
+        }
+    }
+
+    @Nested
+    class SchemaStoreTest {
+
+        /**
+         * 与结构主题相同的键和值，只保留在内存中
+         */
+        class MemorySchemaStore implements SchemaStore {
+            final Map<String, byte[]> records = new LinkedHashMap<>();
+            int loads;
+
+            @Override
+            public void save(String topic, String tableId, BinarySchema schema) {
+                records.put(KafkaSchemaStore.key(topic, tableId, schema), KafkaSchemaStore.encode(tableId, schema));
+            }
+
+            @Override
+            public void load(String topic, BiConsumer<String, BinarySchema> consumer) {
+                loads++;
+                records.forEach((key, value) -> {
+                    if (key.startsWith(topic + "\u0000")) {
+                        TapEntry<String, BinarySchema> stored = KafkaSchemaStore.decode(value);
+                        consumer.accept(stored.getKey(), stored.getValue());
+                    }
+                });
+            }
+        }
+
+        @Test
+        @DisplayName("test consumer without the producer registry decodes every version from the store")
+        void testConsumerWithoutProducerRegistry() {
+            MemorySchemaStore store = new MemorySchemaStore();
+            LocalSchemaRegistry producerRegistry = new LocalSchemaRegistry(store);
+            SchemaBinarySerializer serializer = serializer(producerRegistry);
+            TapTable table = usersTable();
+            producerRegistry.register(TOPIC, table);
+            producerRegistry.register(TOPIC, table);
+            byte[] v1Bytes = serializer.serialize(TOPIC, tableEvent(TapInsertRecordEvent.create().after(row(1L, "a"))));
+
+            table.add(new TapField("email", "varchar(64)").tapType(new TapString()));
+            producerRegistry.register(TOPIC, table);
+            Map<String, Object> after = row(2L, "b");
+            after.put("email", "b@tapdata.io");
+            byte[] v2Bytes = serializer.serialize(TOPIC, tableEvent(TapInsertRecordEvent.create().after(after)));
+            Assertions.assertEquals(2, store.records.size());
+
+            //another task, nothing registered
+            SchemaBinaryDeserializer deserializer = deserializer(new LocalSchemaRegistry(store));
+            Assertions.assertEquals(row(1L, "a"), ((TapInsertRecordEvent) deserializer.deserialize(TOPIC, v1Bytes)).getAfter());
+            Assertions.assertEquals(after, ((TapInsertRecordEvent) deserializer.deserialize(TOPIC, v2Bytes)).getAfter());
+            Assertions.assertEquals(1, store.loads);
+
+            //schemas of another topic are not loaded
+            Assertions.assertThrows(IllegalStateException.class, () -> deserializer.deserialize("other_topic", v1Bytes));
+        }
+
+        @Test
+        @DisplayName("test a version not saved is not used")
+        void testSaveFailure() {
+            MemorySchemaStore store = new MemorySchemaStore() {
+                @Override
+                public void save(String topic, String tableId, BinarySchema schema) {
+                    throw new RuntimeException("not saved");
+                }
+            };
+            LocalSchemaRegistry registry = new LocalSchemaRegistry(store);
+            Assertions.assertThrows(RuntimeException.class, () -> registry.register(TOPIC, usersTable()));
+            Assertions.assertNull(registry.getLatest(TOPIC, "users"));
+            byte[] bytes = serializer(registry).serialize(TOPIC, tableEvent(TapInsertRecordEvent.create().after(row(1L, "a"))));
+            Assertions.assertFalse(BinaryEventCodec.isFramed(bytes));
+        }
+
+        @Test
+        @DisplayName("test stored schema keeps the id, fields and fingerprint")
+        void testEncodeAndDecode() {
+            BinarySchema schema = BinarySchema.of(usersTable()).withId(3);
+            TapEntry<String, BinarySchema> stored = KafkaSchemaStore.decode(KafkaSchemaStore.encode("users", schema));
+            Assertions.assertEquals("users", stored.getKey());
+            Assertions.assertEquals(3, stored.getValue().getId());
+            Assertions.assertEquals(schema.getCanonical(), stored.getValue().getCanonical());
+            Assertions.assertEquals(schema.getFingerprint(), stored.getValue().getFingerprint());
+        }
+    }
+}
@@ -1744,6 +1744,7 @@ public class MongodbConnector extends ConnectorBase {
 			mongodbStreamReader.onDestroy();
 			mongodbStreamReader = null;
 		}
+		writerMap.values().forEach(MongodbWriter::closeLanes);
 
 		if (mongoClient != null) {
 			mongoClient.close();
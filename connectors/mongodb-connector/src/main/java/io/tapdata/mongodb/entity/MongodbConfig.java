@@ -55,6 +55,10 @@ public class MongodbConfig extends CommonDbConfig {
 	private boolean timeSeriesCollection;
 	private String writeConcern = "w1";
 
+	private boolean batchChangeStream; //drain whole getMore batches of change stream
+	private int streamMaxAwaitTime = 1000; //ms, how long an idle getMore waits on server
+	private int writeLanes = 1; //concurrent bulk writes of one batch, split by key
+
 	public boolean isSyncIndex() {
 		return syncIndex;
 	}
@@ -269,4 +273,28 @@ public class MongodbConfig extends CommonDbConfig {
 	public void setWriteConcern(String writeConcern) {
 		this.writeConcern = writeConcern;
 	}
+
+	public boolean isBatchChangeStream() {
+		return batchChangeStream;
+	}
+
+	public void setBatchChangeStream(boolean batchChangeStream) {
+		this.batchChangeStream = batchChangeStream;
+	}
+
+	public int getStreamMaxAwaitTime() {
+		return streamMaxAwaitTime;
+	}
+
+	public void setStreamMaxAwaitTime(int streamMaxAwaitTime) {
+		this.streamMaxAwaitTime = streamMaxAwaitTime;
+	}
+
+	public int getWriteLanes() {
+		return writeLanes;
+	}
+
+	public void setWriteLanes(int writeLanes) {
+		this.writeLanes = writeLanes;
+	}
 }
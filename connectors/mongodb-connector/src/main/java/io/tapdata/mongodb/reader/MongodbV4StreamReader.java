@@ -11,6 +11,7 @@ import com.mongodb.client.model.changestream.*;
 import io.tapdata.common.concurrent.ConcurrentProcessor;
 import io.tapdata.common.concurrent.TapExecutors;
 import io.tapdata.entity.event.TapEvent;
+import io.tapdata.entity.event.control.HeartbeatEvent;
 import io.tapdata.entity.event.dml.TapDeleteRecordEvent;
 import io.tapdata.entity.event.dml.TapInsertRecordEvent;
 import io.tapdata.entity.event.dml.TapRecordEvent;
@@ -36,6 +37,10 @@ import org.bson.io.ByteBufferBsonInput;
 import java.nio.ByteBuffer;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
@@ -50,6 +55,10 @@ import static java.util.Collections.singletonList;
 public class MongodbV4StreamReader implements MongodbStreamReader {
 
     public static final String TAG = MongodbV4StreamReader.class.getSimpleName();
+    private static final int DECODE_PARALLELISM = 8;
+    //smaller batches are decoded on the reading thread
+    private static final int DECODE_SLICE_MIN = 64;
+    private static final long HEARTBEAT_INTERVAL_MS = 3000;
 
     private final AtomicBoolean running = new AtomicBoolean(false);
     private MongoClient mongoClient;
@@ -125,9 +134,17 @@ public class MongodbV4StreamReader implements MongodbStreamReader {
             if (isPreImage) {
                 changeStream.fullDocumentBeforeChange(fullDocumentBeforeChangeOption);
             }
+            if (mongodbConfig.isBatchChangeStream()) {
+                int maxAwaitTime = mongodbConfig.getStreamMaxAwaitTime() > 0 ? mongodbConfig.getStreamMaxAwaitTime() : 1000;
+                changeStream.maxAwaitTime(maxAwaitTime, TimeUnit.MILLISECONDS).batchSize(eventBatchSize);
+            }
             consumer.streamReadStarted();
             AtomicReference<Exception> throwableAtomicReference = new AtomicReference<>();
             try (final MongoChangeStreamCursor<ChangeStreamDocument<RawBsonDocument>> streamCursor = changeStream.cursor()) {
+                if (mongodbConfig.isBatchChangeStream()) {
+                    readBatches(streamCursor, eventBatchSize, consumer);
+                    continue;
+                }
                 consumeStreamEventThread = new Thread(() -> {
                     List<TapEvent> events = list();
                     OffsetEvent lastOffsetEvent = null;
@@ -230,32 +247,153 @@ public class MongodbV4StreamReader implements MongodbStreamReader {
         }
     }
 
-    private OffsetEvent emit(ChangeStreamDocument<RawBsonDocument> event) {
-        MongoNamespace mongoNamespace = event.getNamespace();
-        String collectionName = null;
-        if (mongoNamespace != null) {
-            collectionName = mongoNamespace.getCollectionName();
+    /**
+     * drains whole getMore batches, an idle cursor waits on the server for maxAwaitTime instead of being polled.
+     * events of one batch are decoded in parallel and handed over in order, the last part of a batch carries
+     * the post batch resume token, so idle or filtered streams still move their offset
+     */
+    protected void readBatches(MongoChangeStreamCursor<ChangeStreamDocument<RawBsonDocument>> streamCursor, int eventBatchSize, StreamReadConsumer consumer) {
+        ExecutorService decodeExecutor = Executors.newFixedThreadPool(DECODE_PARALLELISM, r -> {
+            Thread thread = new Thread(r, "MongodbV4StreamReader-Decoder");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            BsonDocument lastToken = null;
+            long lastSendTime = 0;
+            List<ChangeStreamDocument<RawBsonDocument>> batch = new ArrayList<>();
+            while (running.get()) {
+                ChangeStreamDocument<RawBsonDocument> event = streamCursor.tryNext();
+                if (null == event) {
+                    BsonDocument token = streamCursor.getResumeToken();
+                    if (null != token && !token.equals(lastToken) && System.currentTimeMillis() - lastSendTime >= HEARTBEAT_INTERVAL_MS) {
+                        consumer.accept(list(heartbeat(token)), token);
+                        lastToken = token;
+                        lastSendTime = System.currentTimeMillis();
+                    }
+                    continue;
+                }
+                batch.clear();
+                //双活过滤依赖事件顺序，解码前顺序处理
+                do {
+                    if (!dropDoubleActive(event)) {
+                        batch.add(event);
+                    }
+                } while (streamCursor.available() > 0 && null != (event = streamCursor.tryNext()));
+                BsonDocument batchToken = streamCursor.getResumeToken();
+                List<TapEvent> events = list();
+                Object lastOffset = null;
+                List<OffsetEvent> offsetEvents = decodeBatch(batch, decodeExecutor);
+                for (int i = 0; i < offsetEvents.size(); i++) {
+                    OffsetEvent offsetEvent = offsetEvents.get(i);
+                    if (null == offsetEvent) {
+                        continue;
+                    }
+                    events.add(offsetEvent.getEvent());
+                    lastOffset = offsetEvent.getOffset();
+                    //the last part is sent with the batch token
+                    if (events.size() >= eventBatchSize && i < offsetEvents.size() - 1) {
+                        consumer.accept(events, lastOffset);
+                        events = list();
+                    }
+                }
+                if (!events.isEmpty()) {
+                    consumer.accept(events, null != batchToken ? batchToken : lastOffset);
+                    lastToken = batchToken;
+                    lastSendTime = System.currentTimeMillis();
+                }
+            }
+        } finally {
+            decodeExecutor.shutdownNow();
         }
-        if (collectionName == null) {
+    }
+
+    protected List<OffsetEvent> decodeBatch(List<ChangeStreamDocument<RawBsonDocument>> batch, ExecutorService decodeExecutor) {
+        int slices = Math.min(DECODE_PARALLELISM, batch.size() / DECODE_SLICE_MIN);
+        if (slices <= 1) {
+            return decode(batch);
+        }
+        int sliceSize = (batch.size() + slices - 1) / slices;
+        List<CompletableFuture<List<OffsetEvent>>> futures = new ArrayList<>(slices);
+        for (int start = 0; start < batch.size(); start += sliceSize) {
+            List<ChangeStreamDocument<RawBsonDocument>> slice = batch.subList(start, Math.min(start + sliceSize, batch.size()));
+            futures.add(CompletableFuture.supplyAsync(() -> decode(slice), decodeExecutor));
+        }
+        List<OffsetEvent> offsetEvents = new ArrayList<>(batch.size());
+        try {
+            for (CompletableFuture<List<OffsetEvent>> future : futures) {
+                offsetEvents.addAll(future.join());
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+        return offsetEvents;
+    }
+
+    private List<OffsetEvent> decode(List<ChangeStreamDocument<RawBsonDocument>> events) {
+        List<OffsetEvent> offsetEvents = new ArrayList<>(events.size());
+        for (ChangeStreamDocument<RawBsonDocument> event : events) {
+            offsetEvents.add(decode(event));
+        }
+        return offsetEvents;
+    }
+
+    //resume token keeps the cluster time in its first bytes: 0x82, seconds, increment
+    private HeartbeatEvent heartbeat(BsonDocument token) {
+        long referenceTime = System.currentTimeMillis();
+        BsonValue data = token.get("_data");
+        if (null != data && data.isString() && data.asString().getValue().startsWith("82") && data.asString().getValue().length() >= 10) {
+            referenceTime = Long.parseLong(data.asString().getValue().substring(2, 10), 16) * 1000L;
+        }
+        HeartbeatEvent heartbeatEvent = new HeartbeatEvent().referenceTime(referenceTime);
+        heartbeatEvent.setTime(referenceTime);
+        return heartbeatEvent;
+    }
+
+    private OffsetEvent emit(ChangeStreamDocument<RawBsonDocument> event) {
+        if (dropDoubleActive(event)) {
             return null;
         }
+        return decode(event);
+    }
+
+    private boolean dropDoubleActive(ChangeStreamDocument<RawBsonDocument> event) {
+        if (!Boolean.TRUE.equals(mongodbConfig.getDoubleActive())) {
+            return false;
+        }
+        MongoNamespace mongoNamespace = event.getNamespace();
         BsonDocument transactionDocument = event.getLsid();
         //双活情形下，需要过滤_tap_double_active记录的同事务数据
-        if (Boolean.TRUE.equals(mongodbConfig.getDoubleActive()) && EmptyKit.isNotNull(transactionDocument)) {
+        if (mongoNamespace != null && EmptyKit.isNotNull(transactionDocument)) {
             String transactionId = transactionDocument.getBinary("id").asUuid().toString();
-            if ("_tap_double_active".equals(collectionName)) {
+            if ("_tap_double_active".equals(mongoNamespace.getCollectionName())) {
                 dropTransactionId = transactionId;
-                return null;
+                return true;
             } else {
                 if (null != dropTransactionId) {
                     if (dropTransactionId.equals(transactionId)) {
-                        return null;
+                        return true;
                     } else {
                         dropTransactionId = null;
                     }
                 }
             }
         }
+        return false;
+    }
+
+    protected OffsetEvent decode(ChangeStreamDocument<RawBsonDocument> event) {
+        MongoNamespace mongoNamespace = event.getNamespace();
+        String collectionName = null;
+        if (mongoNamespace != null) {
+            collectionName = mongoNamespace.getCollectionName();
+        }
+        if (collectionName == null) {
+            return null;
+        }
         OffsetEvent offsetEvent = null;
         OperationType operationType = event.getOperationType();
         Document fullDocumentBeforeChange = null;
@@ -0,0 +1,176 @@
+package io.tapdata.mongodb.util;
+
+import io.tapdata.entity.utils.cache.KVMap;
+import org.bson.BsonDocument;
+import org.bson.BsonInt64;
+import org.bson.BsonNull;
+import org.bson.BsonString;
+import org.bson.ByteBuf;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.codecs.DocumentCodec;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pre-images of deleted documents looked up by one writer, kept in raw bson.
+ * The stream readers of other tasks find them in the global state map only, so they are saved there as raw bson bytes
+ * before the deletes are written, and earlier when the buffered bytes exceed the limit.
+ * A saved pre-image is not removed when it is read, so a replay or another reader finds it again,
+ * it is evicted when it is older than the ttl or when the saved bytes exceed the limit, the oldest first.
+ */
+public class MongodbDeleteCache {
+
+	public static final long DEFAULT_MAX_BYTES = 64 * 1024 * 1024L;
+	public static final long DEFAULT_TTL_MS = TimeUnit.HOURS.toMillis(24);
+
+	private final KVMap<Object> globalStateMap;
+	private final long maxBytes;
+	private final long ttlMs;
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+	private long usedBytes;
+	//keys of the saved pre-images in save order, with their save time and bytes
+	private final LinkedHashMap<String, long[]> savedKeys = new LinkedHashMap<>();
+	private long savedBytes;
+
+	public MongodbDeleteCache(KVMap<Object> globalStateMap) {
+		this(globalStateMap, DEFAULT_MAX_BYTES, DEFAULT_TTL_MS);
+	}
+
+	public MongodbDeleteCache(KVMap<Object> globalStateMap, long maxBytes, long ttlMs) {
+		this.globalStateMap = globalStateMap;
+		this.maxBytes = maxBytes;
+		this.ttlMs = ttlMs;
+	}
+
+	public void put(String key, Entry entry) {
+		boolean full;
+		synchronized (this) {
+			Entry old = entries.put(key, entry);
+			if (null != old) {
+				usedBytes -= old.size();
+			}
+			usedBytes += entry.size();
+			full = usedBytes > maxBytes;
+		}
+		if (full) {
+			flush();
+		}
+	}
+
+	/**
+	 * Save the buffered pre-images into the global state map, then evict the expired and the oldest over the limit
+	 */
+	public void flush() {
+		List<Map.Entry<String, Entry>> saves;
+		synchronized (this) {
+			if (entries.isEmpty()) {
+				return;
+			}
+			saves = new ArrayList<>(entries.entrySet());
+			entries.clear();
+			usedBytes = 0;
+		}
+		//state map may be remote, save out of the lock
+		long now = System.currentTimeMillis();
+		for (Map.Entry<String, Entry> save : saves) {
+			byte[] bytes = save.getValue().toBytes();
+			globalStateMap.put(save.getKey(), bytes);
+			synchronized (this) {
+				long[] old = savedKeys.remove(save.getKey());
+				if (null != old) {
+					savedBytes -= old[1];
+				}
+				savedKeys.put(save.getKey(), new long[]{now, bytes.length});
+				savedBytes += bytes.length;
+			}
+		}
+		evict(now);
+	}
+
+	protected void evict(long now) {
+		List<String> evictions = new ArrayList<>();
+		synchronized (this) {
+			Iterator<Map.Entry<String, long[]>> iterator = savedKeys.entrySet().iterator();
+			while (iterator.hasNext()) {
+				Map.Entry<String, long[]> saved = iterator.next();
+				if (now - saved.getValue()[0] < ttlMs && savedBytes <= maxBytes) {
+					break;
+				}
+				iterator.remove();
+				savedBytes -= saved.getValue()[1];
+				evictions.add(saved.getKey());
+			}
+		}
+		evictions.forEach(globalStateMap::remove);
+	}
+
+	public synchronized long getUsedBytes() {
+		return usedBytes;
+	}
+
+	public synchronized long getSavedBytes() {
+		return savedBytes;
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Pre-image saved by flush, an older one saved as json is still read
+	 */
+	public static Document decode(Object saved, long ttlMs) {
+		Document document;
+		if (saved instanceof byte[]) {
+			document = new RawBsonDocument((byte[]) saved).decode(new DocumentCodec());
+		} else if (saved instanceof String) {
+			document = Document.parse((String) saved);
+		} else {
+			return null;
+		}
+		Object timestamp = document.get("timestamp");
+		if (timestamp instanceof Number && System.currentTimeMillis() - ((Number) timestamp).longValue() >= ttlMs) {
+			return null;
+		}
+		return document;
+	}
+
+	public static class Entry {
+		private final String mongodbUri;
+		private final String collectionName;
+		private final long timestamp;
+		private final RawBsonDocument data;
+
+		public Entry(String mongodbUri, String collectionName, RawBsonDocument data) {
+			this.mongodbUri = mongodbUri;
+			this.collectionName = collectionName;
+			this.timestamp = System.currentTimeMillis();
+			this.data = data;
+		}
+
+		public int size() {
+			return data.getByteBuffer().remaining();
+		}
+
+		//the same fields as the document saved into state map before, the raw data is not decoded
+		public byte[] toBytes() {
+			BsonDocument document = new BsonDocument()
+					.append("mongodbUri", new BsonString(mongodbUri))
+					.append("_id", data.containsKey("_id") ? data.get("_id") : BsonNull.VALUE)
+					.append("collectionName", new BsonString(collectionName))
+					.append("timestamp", new BsonInt64(timestamp))
+					.append("data", data);
+			ByteBuf buffer = new RawBsonDocument(document, new BsonDocumentCodec()).getByteBuffer();
+			byte[] bytes = new byte[buffer.remaining()];
+			buffer.get(bytes);
+			return bytes;
+		}
+	}
+}
@@ -10,7 +10,13 @@ import io.tapdata.mongodb.MongodbUtil;
 import io.tapdata.utils.AppType;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.collections4.MapUtils;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonValue;
 import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -25,75 +31,94 @@ import java.util.Map;
 public class MongodbLookupUtil {
 
 		private static final String DELETE_CACHE_KEY_PREFIX = "Delete_Cache_";
+		private static final int LOOKUP_CHUNK_SIZE = 1000;
 
+		/**
+		 * Pre-images are in the global state map when this method returns, so look up before the deletes are written
+		 */
 		public static void lookUpAndSaveDeleteMessage(List<TapRecordEvent> tapRecordEvents,
-																									KVMap<Object> globalStateMap,
+																									MongodbDeleteCache deleteCache,
 																									ConnectionString connectionString,
 																									Collection<String> pks,
 																									MongoCollection<Document> mongoCollection) throws Exception {
-				String validate = lookupAndSaveValidate(tapRecordEvents, globalStateMap, connectionString, mongoCollection);
+				String validate = lookupAndSaveValidate(tapRecordEvents, deleteCache, connectionString, mongoCollection);
 				if (EmptyKit.isNotBlank(validate)) {
 						throw new IllegalArgumentException(validate);
 				}
 
-				// look up oneone delete documents
-				List<Document> lookupDocuments = lookupDocuments(tapRecordEvents, connectionString, pks, mongoCollection);
-
-				if (CollectionUtils.isEmpty(lookupDocuments)) {
-						return;
-				}
-
-				for (Document lookupDocument : lookupDocuments) {
-						globalStateMap.put(DELETE_CACHE_KEY_PREFIX + "_" + lookupDocument.getString("mongodbUri") + "_" + lookupDocument.getString("collectionName") + "_" + lookupDocument.get("_id"), lookupDocument.toJson());
-				}
-		}
-
-		private static List<Document> lookupDocuments(List<TapRecordEvent> tapRecordEvents,
-																									ConnectionString connectionString,
-																									Collection<String> pks,
-																									MongoCollection<Document> mongoCollection) throws Exception {
-				List<Document> lookupDocuments = new ArrayList<>();
-
 				String mongodbUri = MongodbUtil.getSimpleMongodbUri(connectionString);
 				mongodbUri = handleMongodbUriSpecialChar(mongodbUri);
-
-			if (EmptyKit.isBlank(mongodbUri)) {
+				if (EmptyKit.isBlank(mongodbUri)) {
 						throw new Exception(String.format("Cannot get mongodb uri from target connection, connection uri: %s", connectionString));
 				}
+				String collectionName = mongoCollection.getNamespace().getCollectionName();
 
-				for (TapRecordEvent tapRecordEvent : tapRecordEvents) {
-						if (tapRecordEvent instanceof TapDeleteRecordEvent) {
-								final Map<String, Object> deleteRow = ((TapDeleteRecordEvent) tapRecordEvent).getBefore();
-								if (MapUtils.isEmpty(deleteRow)) {
-										continue;
-								}
-
-								if (CollectionUtils.isEmpty(pks)) {
-										continue;
-								}
+				// look up delete documents in chunks
+				for (RawBsonDocument lookupDocument : lookupDocuments(tapRecordEvents, pks, mongoCollection)) {
+						Object id = decodeId(lookupDocument);
+						deleteCache.put(DELETE_CACHE_KEY_PREFIX + "_" + mongodbUri + "_" + collectionName + "_" + id,
+										new MongodbDeleteCache.Entry(mongodbUri, collectionName, lookupDocument));
+				}
+				deleteCache.flush();
+		}
 
+		/**
+		 * Single key is looked up by $in, composite keys by $or, LOOKUP_CHUNK_SIZE deleted records in one query
+		 */
+		protected static List<RawBsonDocument> lookupDocuments(List<TapRecordEvent> tapRecordEvents,
+																													 Collection<String> pks,
+																													 MongoCollection<Document> mongoCollection) {
+				List<RawBsonDocument> lookupDocuments = new ArrayList<>();
+				if (CollectionUtils.isEmpty(pks)) {
+						return lookupDocuments;
+				}
+				MongoCollection<RawBsonDocument> rawCollection = mongoCollection.withDocumentClass(RawBsonDocument.class);
+				List<Object> filters = new ArrayList<>();
+				for (TapRecordEvent tapRecordEvent : tapRecordEvents) {
+						if (!(tapRecordEvent instanceof TapDeleteRecordEvent)) {
+								continue;
+						}
+						final Map<String, Object> deleteRow = ((TapDeleteRecordEvent) tapRecordEvent).getBefore();
+						if (MapUtils.isEmpty(deleteRow)) {
+								continue;
+						}
+						if (pks.size() == 1) {
+								filters.add(MapUtil.getValueByKey(deleteRow, pks.iterator().next()));
+						} else {
 								Document lookupFilter = new Document();
-								pks.forEach(pk -> {
-										Object value = MapUtil.getValueByKey(deleteRow, pk);
-										lookupFilter.append(pk, value);
-								});
-								Document lookupDocument = mongoCollection.find(lookupFilter).limit(1).iterator().tryNext();
-								if (lookupDocument != null) {
-										Document mongodbDeleteCache = new Document()
-														.append("mongodbUri", mongodbUri)
-														.append("_id", lookupDocument.get("_id"))
-														.append("collectionName", mongoCollection.getNamespace().getCollectionName())
-														.append("timestamp", System.currentTimeMillis())
-														.append("data", lookupDocument);
-
-										lookupDocuments.add(mongodbDeleteCache);
-								}
+								pks.forEach(pk -> lookupFilter.append(pk, MapUtil.getValueByKey(deleteRow, pk)));
+								filters.add(lookupFilter);
 						}
-
+						if (filters.size() >= LOOKUP_CHUNK_SIZE) {
+								lookupChunk(rawCollection, pks, filters, lookupDocuments);
+								filters = new ArrayList<>();
+						}
+				}
+				if (!filters.isEmpty()) {
+						lookupChunk(rawCollection, pks, filters, lookupDocuments);
 				}
 				return lookupDocuments;
 		}
 
+		private static void lookupChunk(MongoCollection<RawBsonDocument> rawCollection, Collection<String> pks, List<Object> filters, List<RawBsonDocument> lookupDocuments) {
+				Document lookupFilter;
+				if (pks.size() == 1) {
+						lookupFilter = new Document(pks.iterator().next(), new Document("$in", filters));
+				} else {
+						lookupFilter = new Document("$or", filters);
+				}
+				rawCollection.find(lookupFilter).into(lookupDocuments);
+		}
+
+		//same _id object as the one in change stream, it is a part of the cache key
+		private static Object decodeId(RawBsonDocument document) {
+				BsonValue id = document.get("_id");
+				if (null == id) {
+						return null;
+				}
+				return new DocumentCodec().decode(new BsonDocumentReader(new BsonDocument("_id", id)), DecoderContext.builder().build()).get("_id");
+		}
+
 	private static String handleMongodbUriSpecialChar(String mongodbUri) {
 		mongodbUri = mongodbUri.replaceAll(":", "_")
 				.replaceAll("/", "_");
@@ -101,15 +126,15 @@ public class MongodbLookupUtil {
 	}
 
 	private static String lookupAndSaveValidate(List<TapRecordEvent> tapRecordEvents,
-																								KVMap<Object> globalKVMap,
+																								MongodbDeleteCache deleteCache,
 																								ConnectionString connectionString,
 																								MongoCollection<Document> mongoCollection) {
 				if (CollectionUtils.isEmpty(tapRecordEvents)) {
 						return "Missing input args messages";
 				}
 
-				if (globalKVMap == null) {
-						return "Missing input args client global KV map";
+				if (deleteCache == null) {
+						return "Missing input args delete cache";
 				}
 
 				if (connectionString == null) {
@@ -135,11 +160,9 @@ public class MongodbLookupUtil {
 				String mongodbUri = MongodbUtil.getSimpleMongodbUri(connectionString);
 				mongodbUri = handleMongodbUriSpecialChar(mongodbUri);
 
-				final String json = (String) globalStateMap.get(DELETE_CACHE_KEY_PREFIX + "_" + mongodbUri + "_" + collectionName + "_" + id);
-				if (EmptyKit.isNotBlank(json)) {
-						return Document.parse(json);
-				}
-				return null;
+				String key = DELETE_CACHE_KEY_PREFIX + "_" + mongodbUri + "_" + collectionName + "_" + id;
+				// the pre-image is kept for a replay or another reader, it is evicted by the writer
+				return MongodbDeleteCache.decode(globalStateMap.get(key), MongodbDeleteCache.DEFAULT_TTL_MS);
 
 		}
 
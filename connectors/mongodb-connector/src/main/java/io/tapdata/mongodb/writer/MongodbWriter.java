@@ -22,6 +22,7 @@ import io.tapdata.kit.EmptyKit;
 import io.tapdata.mongodb.MongodbUtil;
 import io.tapdata.mongodb.entity.MongodbConfig;
 import io.tapdata.mongodb.reader.MongodbV4StreamReader;
+import io.tapdata.mongodb.util.MongodbDeleteCache;
 import io.tapdata.mongodb.util.MongodbLookupUtil;
 import io.tapdata.mongodb.writer.error.BulkWriteErrorCodeHandlerEnum;
 import io.tapdata.mongodb.writer.error.IgnoreWriteModel;
@@ -43,6 +44,11 @@ import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
@@ -59,6 +65,7 @@ public class MongodbWriter {
 	protected MongoClient mongoClient;
 	private MongoDatabase mongoDatabase;
 	private KVMap<Object> globalStateMap;
+	private final MongodbDeleteCache deleteCache;
 	private ConnectionString connectionString;
 	private MongodbConfig mongodbConfig;
 	private final Log tapLogger;
@@ -74,9 +81,13 @@ public class MongodbWriter {
 	private static final long CLEANUP_INTERVAL_MS = 60 * 60 * 1000; // 1 hour
 	private static final int ERROR_FILE_RETENTION_DAYS = 7; // Keep error files for 7 days
 	private static final int ERROR_FILE_MAX_COUNT = 100; // Keep at most 100 error files
+	// Smaller batches are not worth to be split into lanes
+	private static final int LANE_MIN_EVENTS = 64;
+	private ExecutorService laneExecutor;
 
 	public MongodbWriter(KVMap<Object> globalStateMap, MongodbConfig mongodbConfig, MongoClient mongoClient, Log tapLogger, Map<String, Set<String>> shardKeyMap, Map<String, ClientSession> sessionMap) {
 		this.globalStateMap = globalStateMap;
+		this.deleteCache = new MongodbDeleteCache(globalStateMap);
 		this.mongoClient = mongoClient;
 		this.mongoDatabase = mongoClient.getDatabase(mongodbConfig.getDatabase());
 		this.connectionString = new ConnectionString(mongodbConfig.getUri());
@@ -148,20 +159,214 @@ public class MongodbWriter {
 
 		// daas data will cache local
 		if (!is_cloud && mongodbConfig.isEnableSaveDeleteData()) {
-			MongodbLookupUtil.lookUpAndSaveDeleteMessage(tapRecordEvents, this.globalStateMap, this.connectionString, pks, collection);
+			MongodbLookupUtil.lookUpAndSaveDeleteMessage(tapRecordEvents, this.deleteCache, this.connectionString, pks, collection);
 		}
-		BulkWriteModel bulkWriteModel = buildBulkWriteModel(tapRecordEvents, table, inserted, updated, deleted, pks);
+		if (canWriteInLanes(tapRecordEvents, pks, session)) {
+			laneWrite(table, collection, tapRecordEvents, pks, inserted, updated, deleted);
+		} else {
+			BulkWriteModel bulkWriteModel = buildBulkWriteModel(tapRecordEvents, table, inserted, updated, deleted, pks);
+
+			if (bulkWriteModel.isEmpty()) {
+				throw new RuntimeException("Bulk write data failed, write model list is empty, received record size: " + tapRecordEvents.size());
+			}
+			bulkWrite(collection, bulkWriteModel, session, false);
+		}
+
+		//Need to tell incremental engine the write result
+		writeListResultConsumer.accept(writeListResult
+				.insertedCount(inserted.get())
+				.modifiedCount(updated.get())
+				.removedCount(deleted.get()));
+	}
+
+	/**
+	 * Lanes are used without transaction session and merge events, a session can not be shared by threads
+	 */
+	protected boolean canWriteInLanes(List<TapRecordEvent> tapRecordEvents, Collection<String> pks, ClientSession session) {
+		if (mongodbConfig.getWriteLanes() <= 1 || null != session || CollectionUtils.isEmpty(pks) || tapRecordEvents.size() < LANE_MIN_EVENTS) {
+			return false;
+		}
+		for (TapRecordEvent recordEvent : tapRecordEvents) {
+			Map<String, Object> info = recordEvent.getInfo();
+			if (MapUtils.isNotEmpty(info) && info.containsKey(MergeInfo.EVENT_INFO_KEY)) {
+				return false;
+			}
+		}
+		return true;
+	}
 
-		if (bulkWriteModel.isEmpty()) {
+	/**
+	 * Events are hashed by key into lanes and the lanes are written concurrently,
+	 * events of one key are in the same lane, so their order is kept by the lane.
+	 * An update changing the key is a barrier: the events before it are written first, then the update alone,
+	 * so the later events of the new key, which may hash to another lane, are not written before it.
+	 */
+	protected void laneWrite(TapTable table, MongoCollection<Document> collection, List<TapRecordEvent> tapRecordEvents, Collection<String> pks,
+							 AtomicLong inserted, AtomicLong updated, AtomicLong deleted) throws Throwable {
+		boolean written = false;
+		List<TapRecordEvent> segment = new ArrayList<>();
+		for (TapRecordEvent recordEvent : tapRecordEvents) {
+			if (!changesKey(recordEvent, pks)) {
+				segment.add(recordEvent);
+				continue;
+			}
+			written |= writeLanes(table, collection, segment, pks, inserted, updated, deleted);
+			segment = new ArrayList<>();
+			BulkWriteModel bulkWriteModel = buildBulkWriteModel(Collections.singletonList(recordEvent), table, inserted, updated, deleted, pks);
+			if (!bulkWriteModel.isEmpty()) {
+				bulkWrite(collection, bulkWriteModel, null, false);
+				written = true;
+			}
+		}
+		written |= writeLanes(table, collection, segment, pks, inserted, updated, deleted);
+		if (!written) {
 			throw new RuntimeException("Bulk write data failed, write model list is empty, received record size: " + tapRecordEvents.size());
 		}
+	}
+
+	/**
+	 * A lane is written unordered when each of its keys has only one write model
+	 *
+	 * @return false when no write model is built from the events
+	 */
+	private boolean writeLanes(TapTable table, MongoCollection<Document> collection, List<TapRecordEvent> tapRecordEvents, Collection<String> pks,
+							   AtomicLong inserted, AtomicLong updated, AtomicLong deleted) throws Throwable {
+		if (tapRecordEvents.isEmpty()) {
+			return false;
+		}
+		int laneCount = mongodbConfig.getWriteLanes();
+		List<List<TapRecordEvent>> laneEvents = new ArrayList<>(laneCount);
+		List<Set<Object>> laneKeys = new ArrayList<>(laneCount);
+		boolean[] repeatedKey = new boolean[laneCount];
+		for (int i = 0; i < laneCount; i++) {
+			laneEvents.add(new ArrayList<>());
+			laneKeys.add(new HashSet<>());
+		}
+		for (TapRecordEvent recordEvent : tapRecordEvents) {
+			Object key = laneKey(recordEvent, pks);
+			int lane = Math.floorMod(key.hashCode(), laneCount);
+			laneEvents.get(lane).add(recordEvent);
+			if (!laneKeys.get(lane).add(key)) {
+				repeatedKey[lane] = true;
+			}
+		}
+		List<Future<?>> futures = new ArrayList<>(laneCount);
+		for (int i = 0; i < laneCount; i++) {
+			List<TapRecordEvent> events = laneEvents.get(i);
+			if (events.isEmpty()) {
+				continue;
+			}
+			BulkWriteModel bulkWriteModel = buildBulkWriteModel(events, table, inserted, updated, deleted, pks);
+			if (bulkWriteModel.isEmpty()) {
+				continue;
+			}
+			boolean unordered = !repeatedKey[i] && bulkWriteModel.getAllOpWriteModels().size() == events.size();
+			futures.add(getLaneExecutor(laneCount).submit(() -> {
+				bulkWrite(collection, bulkWriteModel, null, unordered);
+				return null;
+			}));
+		}
+		Throwable throwable = null;
+		for (Future<?> future : futures) {
+			try {
+				future.get();
+			} catch (ExecutionException e) {
+				if (null == throwable) {
+					throwable = e.getCause();
+				}
+			}
+		}
+		if (null != throwable) {
+			throw throwable;
+		}
+		return !futures.isEmpty();
+	}
+
+	/**
+	 * An update whose after has the whole key and the key differs from the before
+	 */
+	protected boolean changesKey(TapRecordEvent recordEvent, Collection<String> pks) {
+		if (!(recordEvent instanceof TapUpdateRecordEvent)) {
+			return false;
+		}
+		Map<String, Object> before = ((TapUpdateRecordEvent) recordEvent).getBefore();
+		Map<String, Object> after = ((TapUpdateRecordEvent) recordEvent).getAfter();
+		if (MapUtils.isEmpty(before) || MapUtils.isEmpty(after)) {
+			return false;
+		}
+		Collection<String> keyFields = pks.contains("_id") ? Collections.singletonList("_id") : pks;
+		for (String field : keyFields) {
+			if (!after.containsKey(field)) {
+				return false;
+			}
+		}
+		return !recordKey(before, pks).equals(recordKey(after, pks));
+	}
+
+	/**
+	 * Key values of the write filter, numbers are compared by text so 1 and 1L are in the same lane
+	 */
+	protected Object laneKey(TapRecordEvent recordEvent, Collection<String> pks) {
+		Map<String, Object> info = recordEvent.getInfo();
+		if (MapUtils.isNotEmpty(info) && null != info.get("$op")) {
+			return String.valueOf(info.get("_id"));
+		}
+		Map<String, Object> record = null;
+		if (recordEvent instanceof TapInsertRecordEvent) {
+			record = ((TapInsertRecordEvent) recordEvent).getAfter();
+		} else if (recordEvent instanceof TapUpdateRecordEvent) {
+			record = ((TapUpdateRecordEvent) recordEvent).getBefore();
+			if (MapUtils.isEmpty(record)) {
+				record = ((TapUpdateRecordEvent) recordEvent).getAfter();
+			}
+		} else if (recordEvent instanceof TapDeleteRecordEvent) {
+			record = ((TapDeleteRecordEvent) recordEvent).getBefore();
+		}
+		if (null == record) {
+			return "";
+		}
+		return recordKey(record, pks);
+	}
+
+	private Object recordKey(Map<String, Object> record, Collection<String> pks) {
+		// Delete of sharded collection may only have _id, see getPkFilter
+		if (pks.contains("_id")) {
+			return String.valueOf(record.get("_id"));
+		}
+		List<String> key = new ArrayList<>(pks.size());
+		for (String pk : pks) {
+			key.add(String.valueOf(record.get(pk)));
+		}
+		return key;
+	}
+
+	private ExecutorService getLaneExecutor(int laneCount) {
+		if (null == laneExecutor) {
+			AtomicInteger threadIndex = new AtomicInteger();
+			String writerThread = Thread.currentThread().getName();
+			laneExecutor = Executors.newFixedThreadPool(laneCount, r -> {
+				Thread thread = new Thread(r, writerThread + "-lane-" + threadIndex.getAndIncrement());
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		return laneExecutor;
+	}
+
+	public void closeLanes() {
+		if (null != laneExecutor) {
+			laneExecutor.shutdownNow();
+			laneExecutor = null;
+		}
+	}
 
+	private void bulkWrite(MongoCollection<Document> collection, BulkWriteModel bulkWriteModel, ClientSession session, boolean unordered) {
 		BulkWriteOptions bulkWriteOptions;
 		AtomicReference<RuntimeException> mongoBulkWriteException = new AtomicReference<>();
 		boolean errorContextDumped = false;
 
 		while (!bulkWriteModel.isEmpty()) {
-			bulkWriteOptions = buildBulkWriteOptions(bulkWriteModel);
+			bulkWriteOptions = unordered ? new BulkWriteOptions().ordered(false) : buildBulkWriteOptions(bulkWriteModel);
 			try {
 				List<WriteModel<Document>> writeModels = bulkWriteModel.getWriteModels();
 				if (EmptyKit.isNotNull(session)) {
@@ -193,12 +398,6 @@ public class MongodbWriter {
 				}
 			}
 		}
-
-		//Need to tell incremental engine the write result
-		writeListResultConsumer.accept(writeListResult
-				.insertedCount(inserted.get())
-				.modifiedCount(updated.get())
-				.removedCount(deleted.get()));
 	}
 
 	protected void removeOidIfNeed(List<TapRecordEvent> tapRecordEvents, Collection<String> pks) {
@@ -712,6 +911,8 @@ public class MongodbWriter {
 	}
 
 	public void onDestroy() {
+		closeLanes();
+		deleteCache.flush();
 		if (mongoClient != null) {
 			mongoClient.close();
 		}
@@ -1,17 +1,35 @@
 package io.tapdata.mongodb.reader;
 
 import com.mongodb.MongoException;
+import com.mongodb.client.MongoChangeStreamCursor;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import io.tapdata.entity.event.TapEvent;
+import io.tapdata.entity.event.control.HeartbeatEvent;
+import io.tapdata.entity.event.dml.TapInsertRecordEvent;
+import io.tapdata.mongodb.entity.MongodbConfig;
+import io.tapdata.pdk.apis.consumer.StreamReadConsumer;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
 import org.bson.Document;
+import org.bson.RawBsonDocument;
 import org.junit.jupiter.api.*;
+import org.mockito.ArgumentCaptor;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
@@ -78,4 +96,114 @@ class MongodbV4StreamReaderTest {
 		}
 
 	}
-}
\ No newline at end of file
+
+	@Nested
+	class ReadBatchesTest {
+		AtomicBoolean running;
+		MongodbV4StreamReader mongodbV4StreamReader;
+		MongoChangeStreamCursor<ChangeStreamDocument<RawBsonDocument>> streamCursor;
+		StreamReadConsumer consumer;
+
+		@BeforeEach
+		@SuppressWarnings("unchecked")
+		void setUp() {
+			running = new AtomicBoolean(true);
+			mongodbV4StreamReader = spy(new MongodbV4StreamReader());
+			ReflectionTestUtils.setField(mongodbV4StreamReader, "running", running);
+			ReflectionTestUtils.setField(mongodbV4StreamReader, "mongodbConfig", new MongodbConfig());
+			streamCursor = mock(MongoChangeStreamCursor.class);
+			consumer = mock(StreamReadConsumer.class);
+		}
+
+		private BsonDocument token(String data) {
+			return new BsonDocument("_data", new BsonString(data));
+		}
+
+		@Test
+		@SuppressWarnings("unchecked")
+		void testBatchWithPostBatchResumeToken() {
+			ChangeStreamDocument<RawBsonDocument> first = mock(ChangeStreamDocument.class);
+			ChangeStreamDocument<RawBsonDocument> second = mock(ChangeStreamDocument.class);
+			TapInsertRecordEvent firstEvent = TapInsertRecordEvent.create();
+			TapInsertRecordEvent secondEvent = TapInsertRecordEvent.create();
+			doReturn(new MongodbV4StreamReader.OffsetEvent(firstEvent, token("8265000001"))).when(mongodbV4StreamReader).decode(first);
+			doReturn(new MongodbV4StreamReader.OffsetEvent(secondEvent, token("8265000002"))).when(mongodbV4StreamReader).decode(second);
+			when(streamCursor.tryNext()).thenReturn(first, second).thenAnswer(invocation -> {
+				running.set(false);
+				return null;
+			});
+			when(streamCursor.available()).thenReturn(1, 0);
+			BsonDocument batchToken = token("8265000009");
+			when(streamCursor.getResumeToken()).thenReturn(batchToken);
+
+			mongodbV4StreamReader.readBatches(streamCursor, 100, consumer);
+
+			ArgumentCaptor<List<TapEvent>> eventsCaptor = ArgumentCaptor.forClass(List.class);
+			verify(consumer, times(1)).accept(eventsCaptor.capture(), eq(batchToken));
+			Assertions.assertEquals(Arrays.asList(firstEvent, secondEvent), eventsCaptor.getValue());
+		}
+
+		@Test
+		@SuppressWarnings("unchecked")
+		void testBatchSplitByEventBatchSize() {
+			ChangeStreamDocument<RawBsonDocument> first = mock(ChangeStreamDocument.class);
+			ChangeStreamDocument<RawBsonDocument> second = mock(ChangeStreamDocument.class);
+			BsonDocument firstToken = token("8265000001");
+			doReturn(new MongodbV4StreamReader.OffsetEvent(TapInsertRecordEvent.create(), firstToken)).when(mongodbV4StreamReader).decode(first);
+			doReturn(new MongodbV4StreamReader.OffsetEvent(TapInsertRecordEvent.create(), token("8265000002"))).when(mongodbV4StreamReader).decode(second);
+			when(streamCursor.tryNext()).thenReturn(first, second).thenAnswer(invocation -> {
+				running.set(false);
+				return null;
+			});
+			when(streamCursor.available()).thenReturn(1, 0);
+			BsonDocument batchToken = token("8265000009");
+			when(streamCursor.getResumeToken()).thenReturn(batchToken);
+
+			mongodbV4StreamReader.readBatches(streamCursor, 1, consumer);
+
+			verify(consumer, times(1)).accept(anyList(), eq(firstToken));
+			verify(consumer, times(1)).accept(anyList(), eq(batchToken));
+		}
+
+		@Test
+		@SuppressWarnings("unchecked")
+		void testIdleCursorSendsHeartbeat() {
+			when(streamCursor.tryNext()).thenReturn(null).thenAnswer(invocation -> {
+				running.set(false);
+				return null;
+			});
+			BsonDocument idleToken = token("82650000010000000104");
+			when(streamCursor.getResumeToken()).thenReturn(idleToken);
+
+			mongodbV4StreamReader.readBatches(streamCursor, 100, consumer);
+
+			ArgumentCaptor<List<TapEvent>> eventsCaptor = ArgumentCaptor.forClass(List.class);
+			//the same token is not reported again
+			verify(consumer, times(1)).accept(eventsCaptor.capture(), eq(idleToken));
+			HeartbeatEvent heartbeatEvent = (HeartbeatEvent) eventsCaptor.getValue().get(0);
+			Assertions.assertEquals(Long.valueOf(0x65000001L * 1000L), heartbeatEvent.getReferenceTime());
+			verify(mongodbV4StreamReader, never()).decode(any());
+		}
+
+		@Test
+		@SuppressWarnings("unchecked")
+		void testDecodeBatchKeepsOrder() {
+			List<ChangeStreamDocument<RawBsonDocument>> batch = new ArrayList<>();
+			for (int i = 0; i < 300; i++) {
+				ChangeStreamDocument<RawBsonDocument> document = mock(ChangeStreamDocument.class);
+				doReturn(new MongodbV4StreamReader.OffsetEvent(TapInsertRecordEvent.create(), i)).when(mongodbV4StreamReader).decode(document);
+				batch.add(document);
+			}
+			ExecutorService decodeExecutor = Executors.newFixedThreadPool(4);
+			try {
+				List<MongodbV4StreamReader.OffsetEvent> offsetEvents = mongodbV4StreamReader.decodeBatch(batch, decodeExecutor);
+				Assertions.assertEquals(300, offsetEvents.size());
+				for (int i = 0; i < 300; i++) {
+					Assertions.assertEquals(i, offsetEvents.get(i).getOffset());
+				}
+			} finally {
+				decodeExecutor.shutdownNow();
+			}
+		}
+	}
+}
@@ -0,0 +1,96 @@
+package io.tapdata.mongodb.util;
+
+import io.tapdata.entity.utils.cache.KVMap;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Class io.tapdata.mongodb.util.MongodbDeleteCache Test")
+class MongodbDeleteCacheTest {
+
+	private MongodbDeleteCache.Entry entry(int id) {
+		RawBsonDocument data = RawBsonDocument.parse(new Document("_id", id).append("name", "name" + id).toJson());
+		return new MongodbDeleteCache.Entry("mongodb_//localhost_27017_test", "coll", data);
+	}
+
+	@Test
+	@DisplayName("test flush saves the raw bson document into state map and releases it")
+	@SuppressWarnings("unchecked")
+	void testFlush() {
+		KVMap<Object> globalStateMap = mock(KVMap.class);
+		MongodbDeleteCache deleteCache = new MongodbDeleteCache(globalStateMap, 1024 * 1024, MongodbDeleteCache.DEFAULT_TTL_MS);
+		deleteCache.put("key1", entry(1));
+		verify(globalStateMap, never()).put(anyString(), any());
+		deleteCache.flush();
+		ArgumentCaptor<Object> bytesCaptor = ArgumentCaptor.forClass(Object.class);
+		verify(globalStateMap, times(1)).put(eq("key1"), bytesCaptor.capture());
+		Document document = MongodbDeleteCache.decode(bytesCaptor.getValue(), MongodbDeleteCache.DEFAULT_TTL_MS);
+		assertEquals(1, document.get("_id"));
+		assertEquals("coll", document.get("collectionName"));
+		assertEquals("name1", ((Document) document.get("data")).get("name"));
+		assertEquals(0, deleteCache.size());
+		assertEquals(0, deleteCache.getUsedBytes());
+		//nothing is saved twice
+		deleteCache.flush();
+		verify(globalStateMap, times(1)).put(anyString(), any());
+	}
+
+	@Test
+	@DisplayName("test buffered entries are saved when the limit is exceeded")
+	@SuppressWarnings("unchecked")
+	void testFlushOnLimit() {
+		KVMap<Object> globalStateMap = mock(KVMap.class);
+		int entrySize = entry(1).size();
+		MongodbDeleteCache deleteCache = new MongodbDeleteCache(globalStateMap, entrySize * 2L, MongodbDeleteCache.DEFAULT_TTL_MS);
+		deleteCache.put("key1", entry(1));
+		deleteCache.put("key2", entry(2));
+		//the same key replaces the buffered one
+		deleteCache.put("key2", entry(2));
+		assertEquals(2, deleteCache.size());
+		assertEquals(entrySize * 2L, deleteCache.getUsedBytes());
+		verify(globalStateMap, never()).put(anyString(), any());
+		deleteCache.put("key3", entry(3));
+		assertEquals(0, deleteCache.size());
+		verify(globalStateMap, times(3)).put(anyString(), any(byte[].class));
+	}
+
+	@Test
+	@DisplayName("test saved pre-images over the limit are evicted from state map, the oldest first")
+	@SuppressWarnings("unchecked")
+	void testEvictBySize() {
+		KVMap<Object> globalStateMap = mock(KVMap.class);
+		int savedSize = entry(1).toBytes().length;
+		MongodbDeleteCache deleteCache = new MongodbDeleteCache(globalStateMap, savedSize * 2L, MongodbDeleteCache.DEFAULT_TTL_MS);
+		deleteCache.put("key1", entry(1));
+		deleteCache.flush();
+		deleteCache.put("key2", entry(2));
+		deleteCache.flush();
+		verify(globalStateMap, never()).remove(anyString());
+		deleteCache.put("key3", entry(3));
+		deleteCache.flush();
+		verify(globalStateMap, times(1)).remove("key1");
+		assertEquals(savedSize * 2L, deleteCache.getSavedBytes());
+	}
+
+	@Test
+	@DisplayName("test expired pre-images are evicted from state map and not read")
+	@SuppressWarnings("unchecked")
+	void testEvictByTtl() {
+		KVMap<Object> globalStateMap = mock(KVMap.class);
+		MongodbDeleteCache deleteCache = new MongodbDeleteCache(globalStateMap, 1024 * 1024, 0L);
+		MongodbDeleteCache.Entry entry = entry(1);
+		deleteCache.put("key1", entry);
+		deleteCache.flush();
+		verify(globalStateMap, times(1)).remove("key1");
+		assertEquals(0, deleteCache.getSavedBytes());
+		assertNull(MongodbDeleteCache.decode(entry.toBytes(), 0L));
+	}
+}
@@ -0,0 +1,114 @@
+package io.tapdata.mongodb.util;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoNamespace;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import io.tapdata.entity.event.dml.TapDeleteRecordEvent;
+import io.tapdata.entity.event.dml.TapInsertRecordEvent;
+import io.tapdata.entity.event.dml.TapRecordEvent;
+import io.tapdata.entity.utils.cache.KVMap;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Class io.tapdata.mongodb.util.MongodbLookupUtil Test")
+class MongodbLookupUtilTest {
+
+	private MongoCollection<Document> mongoCollection;
+	private MongoCollection<RawBsonDocument> rawCollection;
+	private FindIterable<RawBsonDocument> findIterable;
+	private KVMap<Object> globalStateMap;
+	private ConnectionString connectionString;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void setUp() {
+		System.setProperty("app_type", "DAAS");
+		mongoCollection = mock(MongoCollection.class);
+		rawCollection = mock(MongoCollection.class);
+		findIterable = mock(FindIterable.class);
+		globalStateMap = mock(KVMap.class);
+		connectionString = new ConnectionString("mongodb://localhost:27017/test");
+		when(mongoCollection.withDocumentClass(RawBsonDocument.class)).thenReturn(rawCollection);
+		when(mongoCollection.getNamespace()).thenReturn(new MongoNamespace("test", "lookupColl"));
+		when(rawCollection.find(any(Bson.class))).thenReturn(findIterable);
+	}
+
+	@Test
+	@DisplayName("test deleted documents are looked up by one $in query and saved before return")
+	@SuppressWarnings("unchecked")
+	void testLookUpAndSaveDeleteMessage() throws Exception {
+		when(findIterable.into(any(List.class))).thenAnswer(invocation -> {
+			List<RawBsonDocument> target = invocation.getArgument(0);
+			target.add(RawBsonDocument.parse(new Document("_id", 1).append("name", "a").toJson()));
+			target.add(RawBsonDocument.parse(new Document("_id", 2).append("name", "b").toJson()));
+			return target;
+		});
+		List<TapRecordEvent> events = new ArrayList<>();
+		events.add(TapDeleteRecordEvent.create().before(new Document("_id", 1)));
+		events.add(TapInsertRecordEvent.create().after(new Document("_id", 3)));
+		events.add(TapDeleteRecordEvent.create().before(new Document("_id", 2)));
+		MongodbDeleteCache deleteCache = new MongodbDeleteCache(globalStateMap);
+		MongodbLookupUtil.lookUpAndSaveDeleteMessage(events, deleteCache, connectionString, Collections.singletonList("_id"), mongoCollection);
+
+		ArgumentCaptor<Bson> filterCaptor = ArgumentCaptor.forClass(Bson.class);
+		verify(rawCollection, times(1)).find(filterCaptor.capture());
+		assertEquals(new Document("_id", new Document("$in", Arrays.asList(1, 2))), filterCaptor.getValue());
+		//readers of other tasks find them in state map only
+		ArgumentCaptor<String> keyCaptor = ArgumentCaptor.forClass(String.class);
+		verify(globalStateMap, times(2)).put(keyCaptor.capture(), any(byte[].class));
+		assertTrue(keyCaptor.getAllValues().get(1).endsWith("_lookupColl_2"));
+		assertEquals(0, deleteCache.size());
+	}
+
+	@Test
+	@DisplayName("test pre-image is read from state map and kept for another reader")
+	void testFindDeleteCacheByOid() {
+		RawBsonDocument data = RawBsonDocument.parse(new Document("_id", 2).append("name", "b").toJson());
+		byte[] saved = new MongodbDeleteCache.Entry("mongodb_//localhost_27017_test", "lookupColl", data).toBytes();
+		when(globalStateMap.get(anyString())).thenReturn(saved);
+		for (int i = 0; i < 2; i++) {
+			Map cache = MongodbLookupUtil.findDeleteCacheByOid(connectionString, "lookupColl", 2, globalStateMap);
+			assertNotNull(cache);
+			assertEquals(2, cache.get("_id"));
+			assertEquals("b", ((Document) cache.get("data")).get("name"));
+		}
+		verify(globalStateMap, never()).remove(anyString());
+	}
+
+	@Test
+	@DisplayName("test pre-image saved as json before is still read")
+	void testFindJsonDeleteCache() {
+		Document saved = new Document("_id", 2).append("collectionName", "lookupColl").append("data", new Document("_id", 2).append("name", "b"));
+		when(globalStateMap.get(anyString())).thenReturn(saved.toJson());
+		Map cache = MongodbLookupUtil.findDeleteCacheByOid(connectionString, "lookupColl", 2, globalStateMap);
+		assertEquals("b", ((Document) cache.get("data")).get("name"));
+	}
+
+	@Test
+	@DisplayName("test composite keys are looked up by $or")
+	void testLookupCompositeKeys() {
+		List<TapRecordEvent> events = new ArrayList<>();
+		events.add(TapDeleteRecordEvent.create().before(new Document("a", 1).append("b", 2)));
+		MongodbLookupUtil.lookupDocuments(events, Arrays.asList("a", "b"), mongoCollection);
+		ArgumentCaptor<Bson> filterCaptor = ArgumentCaptor.forClass(Bson.class);
+		verify(rawCollection, times(1)).find(filterCaptor.capture());
+		assertEquals(new Document("$or", Collections.singletonList(new Document("a", 1).append("b", 2))), filterCaptor.getValue());
+	}
+}
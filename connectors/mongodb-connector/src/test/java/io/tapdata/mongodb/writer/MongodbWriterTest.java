@@ -1,6 +1,9 @@
 package io.tapdata.mongodb.writer;
 
+import com.mongodb.client.ClientSession;
 import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
 import com.mongodb.client.model.UpdateManyModel;
 import com.mongodb.client.model.UpdateOptions;
 import com.mongodb.client.model.WriteModel;
@@ -27,7 +30,9 @@ import java.util.*;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.Mockito.mock;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
 
 /**
  * @author samuel
@@ -664,4 +669,119 @@ class MongodbWriterTest {
 			assertTrue(update.containsKey("$unset"));
 		}
 	}
-}
\ No newline at end of file
+
+	@Nested
+	@DisplayName("Method laneWrite test")
+	class laneWriteTest {
+
+		private TapTable tapTable;
+		private List<String> pks;
+
+		@BeforeEach
+		void setUp() {
+			tapTable = new TapTable("test");
+			tapTable.putField("id", new TapField("id", "int"));
+			tapTable.putField("f1", new TapField("f1", "int"));
+			pks = new ArrayList<>();
+			pks.add("id");
+			mongodbConfig.setWriteLanes(4);
+		}
+
+		private List<TapRecordEvent> inserts(int count) {
+			List<TapRecordEvent> events = new ArrayList<>();
+			for (int i = 0; i < count; i++) {
+				events.add(TapInsertRecordEvent.create().after(new Document("id", i).append("f1", i)));
+			}
+			return events;
+		}
+
+		@Test
+		@DisplayName("test events of one key have the same lane key")
+		void testLaneKey() {
+			Object insertKey = mongodbWriter.laneKey(TapInsertRecordEvent.create().after(new Document("id", 1).append("f1", 1)), pks);
+			Object updateKey = mongodbWriter.laneKey(TapUpdateRecordEvent.create().before(new Document("id", 1L)).after(new Document("id", 1L).append("f1", 2)), pks);
+			Object deleteKey = mongodbWriter.laneKey(TapDeleteRecordEvent.create().before(new Document("id", 1)), pks);
+			assertEquals(insertKey, updateKey);
+			assertEquals(insertKey, deleteKey);
+			List<String> shardPks = Arrays.asList("_id", "sk");
+			assertEquals(mongodbWriter.laneKey(TapInsertRecordEvent.create().after(new Document("_id", 1).append("sk", 2)), shardPks),
+					mongodbWriter.laneKey(TapDeleteRecordEvent.create().before(new Document("_id", 1)), shardPks));
+		}
+
+		@Test
+		@DisplayName("test lanes are not used for small batch, session and merge events")
+		void testCanWriteInLanes() {
+			assertTrue(mongodbWriter.canWriteInLanes(inserts(64), pks, null));
+			assertFalse(mongodbWriter.canWriteInLanes(inserts(10), pks, null));
+			assertFalse(mongodbWriter.canWriteInLanes(inserts(64), pks, mock(ClientSession.class)));
+			assertFalse(mongodbWriter.canWriteInLanes(inserts(64), new ArrayList<>(), null));
+			List<TapRecordEvent> mergeEvents = inserts(64);
+			mergeEvents.get(0).addInfo(MergeInfo.EVENT_INFO_KEY, new MergeInfo());
+			assertFalse(mongodbWriter.canWriteInLanes(mergeEvents, pks, null));
+			mongodbConfig.setWriteLanes(1);
+			assertFalse(mongodbWriter.canWriteInLanes(inserts(64), pks, null));
+		}
+
+		@Test
+		@DisplayName("test lane with repeated key is written ordered")
+		@SuppressWarnings("unchecked")
+		void testLaneWrite() throws Throwable {
+			MongoCollection<Document> collection = mock(MongoCollection.class);
+			//write models are cleared after written, so they are counted on call
+			List<Integer> modelSizes = Collections.synchronizedList(new ArrayList<>());
+			List<Boolean> ordered = Collections.synchronizedList(new ArrayList<>());
+			when(collection.bulkWrite(anyList(), any(BulkWriteOptions.class))).thenAnswer(invocation -> {
+				modelSizes.add(((List<?>) invocation.getArgument(0)).size());
+				ordered.add(((BulkWriteOptions) invocation.getArgument(1)).isOrdered());
+				return null;
+			});
+			List<TapRecordEvent> events = inserts(100);
+			events.add(TapUpdateRecordEvent.create().before(new Document("id", 5)).after(new Document("id", 5).append("f1", 50)));
+			AtomicLong inserted = new AtomicLong();
+			AtomicLong updated = new AtomicLong();
+			try {
+				mongodbWriter.laneWrite(tapTable, collection, events, pks, inserted, updated, new AtomicLong());
+			} finally {
+				mongodbWriter.closeLanes();
+			}
+			assertEquals(4, modelSizes.size());
+			assertEquals(101, modelSizes.stream().mapToInt(Integer::intValue).sum());
+			assertEquals(1, ordered.stream().filter(Boolean::booleanValue).count());
+			assertEquals(100, inserted.get());
+			assertEquals(1, updated.get());
+		}
+
+		@Test
+		@DisplayName("test update changing the key is written alone after the events before it")
+		@SuppressWarnings("unchecked")
+		void testKeyChangeBarrier() throws Throwable {
+			MongoCollection<Document> collection = mock(MongoCollection.class);
+			List<Integer> modelSizes = Collections.synchronizedList(new ArrayList<>());
+			when(collection.bulkWrite(anyList(), any(BulkWriteOptions.class))).thenAnswer(invocation -> {
+				modelSizes.add(((List<?>) invocation.getArgument(0)).size());
+				return null;
+			});
+			List<TapRecordEvent> events = inserts(100);
+			events.add(TapUpdateRecordEvent.create().before(new Document("id", 5)).after(new Document("id", 500).append("f1", 5)));
+			events.add(TapUpdateRecordEvent.create().before(new Document("id", 500)).after(new Document("id", 500).append("f1", 50)));
+			try {
+				mongodbWriter.laneWrite(tapTable, collection, events, pks, new AtomicLong(), new AtomicLong(), new AtomicLong());
+			} finally {
+				mongodbWriter.closeLanes();
+			}
+			assertEquals(6, modelSizes.size());
+			assertEquals(100, modelSizes.subList(0, 4).stream().mapToInt(Integer::intValue).sum());
+			assertEquals(Arrays.asList(1, 1), modelSizes.subList(4, 6));
+		}
+
+		@Test
+		@DisplayName("test only updates with a different whole key change the key")
+		void testChangesKey() {
+			assertTrue(mongodbWriter.changesKey(TapUpdateRecordEvent.create().before(new Document("id", 1)).after(new Document("id", 2)), pks));
+			assertFalse(mongodbWriter.changesKey(TapUpdateRecordEvent.create().before(new Document("id", 1)).after(new Document("id", 1L).append("f1", 2)), pks));
+			//partial after without the key
+			assertFalse(mongodbWriter.changesKey(TapUpdateRecordEvent.create().before(new Document("id", 1)).after(new Document("f1", 2)), pks));
+			assertFalse(mongodbWriter.changesKey(TapInsertRecordEvent.create().after(new Document("id", 1)), pks));
+		}
+	}
+}
@@ -3,7 +3,10 @@ package io.tapdata.connector.mysql;
 import com.mysql.cj.exceptions.StatementIsClosedException;
 import io.debezium.type.TapIllegalDate;
 import io.tapdata.common.CommonDbConnector;
+import io.tapdata.common.CompiledRowReader;
 import io.tapdata.common.ResultSetConsumer;
+import io.tapdata.common.SplitEventHandoff;
+import io.tapdata.common.SplitResumeKey;
 import io.tapdata.common.SqlExecuteCommandFunction;
 import io.tapdata.common.ddl.type.DDLParserType;
 import io.tapdata.common.dml.NormalRecordWriter;
@@ -58,20 +61,22 @@ import io.tapdata.pdk.apis.partition.TapPartitionFilter;
 import io.tapdata.pdk.apis.partition.splitter.StringCaseInsensitiveSplitter;
 import io.tapdata.pdk.apis.partition.splitter.TypeSplitterMap;
 
+import java.io.IOException;
+import java.math.BigDecimal;
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.util.*;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 /**
  * @author samuel
@@ -96,7 +101,13 @@ public class MysqlConnector extends CommonDbConnector {
     protected long autoStartValue = 1;
 
     protected final AtomicBoolean started = new AtomicBoolean(false);
+    //readers returning IllegalDateString, kept apart from the common readers of the same tables
+    protected final CompiledRowReader.Cache mysqlRowReaderCache = new CompiledRowReader.Cache();
     public static final String MASTER_NODE_KEY = "MASTER_NODE";
+    private static final String PARTITION_CHECKPOINT_PREFIX = "PARTITION_CHECKPOINT_";
+    private static final String PARTITION_MARKER_PREFIX = "PARTITION_MARKER_";
+    private static final long PARTITION_CHECKPOINT_INTERVAL = 10000L;
+    protected long partitionCheckpointInterval = PARTITION_CHECKPOINT_INTERVAL;
     public java.util.HashMap<String, MysqlJdbcContextV2> contextMapForMasterSlave;
 
 
@@ -141,7 +152,7 @@ public class MysqlConnector extends CommonDbConnector {
                 }
             }
             this.mysqlWriter = new MysqlSqlBatchWriter(mysqlJdbcContext, this::isAlive);
-            this.mysqlReader = new MysqlReader(mysqlJdbcContext, tapLogger, this::isAlive);
+            this.mysqlReader = createMysqlReader();
             this.dbTimeZone = mysqlJdbcContext.queryTimeZone();
             if (mysqlConfig.getOldVersionTimezone()) {
                 this.timeZone = dbTimeZone;
@@ -291,8 +302,8 @@ public class MysqlConnector extends CommonDbConnector {
         connectorFunctions.supportExecuteCommandFunction((a, b, c) -> SqlExecuteCommandFunction.executeCommand(a, b, () -> mysqlJdbcContext.getConnection(), this::isAlive, c));
         connectorFunctions.supportExecuteCommandV2Function(this::executeCommandV2);
         connectorFunctions.supportGetTableInfoFunction(this::getTableInfo);
-        //connectorFunctions.supportQueryFieldMinMaxValueFunction(this::minMaxValue);
-        //connectorFunctions.supportGetReadPartitionsFunction(this::getReadPartitions);
+        connectorFunctions.supportQueryFieldMinMaxValueFunction(this::minMaxValue);
+        connectorFunctions.supportGetReadPartitionsFunction(this::getReadPartitions);
         connectorFunctions.supportRunRawCommandFunction(this::runRawCommand);
         connectorFunctions.supportTransactionBeginFunction(this::beginTransaction);
         connectorFunctions.supportTransactionCommitFunction(this::commitTransaction);
@@ -302,6 +313,14 @@ public class MysqlConnector extends CommonDbConnector {
 
     }
 
+    //native cdc reads binlog without debezium, it is opt-in by nativeCdc
+    protected MysqlReader createMysqlReader() {
+        if (Boolean.TRUE.equals(mysqlConfig.getNativeCdc())) {
+            return new MysqlBinlogReader(mysqlJdbcContext, tapLogger, this::isAlive);
+        }
+        return new MysqlReader(mysqlJdbcContext, tapLogger, this::isAlive);
+    }
+
     private void rollback(TapConnectorContext tapConnectorContext) {
     }
 
@@ -312,14 +331,112 @@ public class MysqlConnector extends CommonDbConnector {
     }
 
     private void getReadPartitions(TapConnectorContext connectorContext, TapTable table, GetReadPartitionOptions options) throws Throwable {
+        KVMap<Object> stateMap = connectorContext.getStateMap();
+        Consumer<ReadPartition> partitionConsumer = options.getConsumer();
         DatabaseReadPartitionSplitter.calculateDatabaseReadPartitions(connectorContext, table, options)
+                .consumer(readPartition -> {
+                    //only the queries of the emitted partitions are read as checkpointed partitions
+                    if (EmptyKit.isNotNull(stateMap)) {
+                        stateMap.put(PARTITION_MARKER_PREFIX + partitionKey(table, readPartition.getPartitionFilter()), readPartition.getId());
+                    }
+                    partitionConsumer.accept(readPartition);
+                })
+                .countByPartitionFilter(this::countByAdvanceFilter)
+                .splitParallelism(commonDbConfig.getBatchReadThreadSize())
                 .queryFieldMinMaxValue(this::minMaxValue)
                 .typeSplitterMap(options.getTypeSplitterMap().registerSplitter(TypeSplitterMap.TYPE_STRING, StringCaseInsensitiveSplitter.INSTANCE))
                 .startSplitting();
     }
 
-    private void partitionRead(TapConnectorContext connectorContext, TapTable table, ReadPartition readPartition, int eventBatchSize, Consumer<List<TapEvent>> consumer) {
+    /**
+     * the engine reads each partition of getReadPartitions by queryByAdvanceFilter with the boundaries of the partition,
+     * such a query is read with an index range scan (streaming) ordered by the split field,
+     * the last split value is checkpointed into state map, so that a restarted partition continues from it,
+     * and the marker and the checkpoint are removed when the partition is finished
+     */
+    protected void partitionRead(TapConnectorContext connectorContext, TapTable table, TapAdvanceFilter filter, int batchSize, Consumer<FilterResults> consumer) throws Throwable {
+        KVMap<Object> stateMap = connectorContext.getStateMap();
+        String splitField = filter.getOperators().get(0).getKey();
+        TapPartitionFilter readFilter = TapPartitionFilter.create().fromAdvanceFilter(filter);
+        String partitionKey = partitionKey(table, readFilter);
+        String checkpointKey = PARTITION_CHECKPOINT_PREFIX + partitionKey;
+        Object checkpoint = stateMap.get(checkpointKey);
+        if (EmptyKit.isNotNull(checkpoint) && !isInPartition(checkpoint, readFilter)) {
+            tapLogger.warn("partitionRead, checkpoint {} is out of the partition {} of table {}, the partition is read from the beginning", checkpoint, partitionKey, table.getId());
+            stateMap.remove(checkpointKey);
+            checkpoint = null;
+        }
+        if (EmptyKit.isNotNull(checkpoint)) {
+            //rows equal to the checkpoint may not be all emitted, so read them again
+            readFilter.leftBoundary(QueryOperator.gte(splitField, checkpoint));
+            tapLogger.info("partitionRead, partition of table {} continues from {} >= {}", table.getId(), splitField, checkpoint);
+        }
+        String sql = new MysqlMaker().selectSql(connectorContext, table, readFilter) + String.format(" ORDER BY `%s`", splitField);
+        AtomicLong lastCheckpointTime = new AtomicLong(System.currentTimeMillis());
+        queryFilterResults(sql, table, batchSize, filterResults -> {
+            consumer.accept(filterResults);
+            if (System.currentTimeMillis() - lastCheckpointTime.get() >= partitionCheckpointInterval) {
+                List<Map<String, Object>> results = filterResults.getResults();
+                Object lastValue = results.get(results.size() - 1).get(splitField);
+                if (EmptyKit.isNotNull(lastValue)) {
+                    stateMap.put(checkpointKey, lastValue);
+                    lastCheckpointTime.set(System.currentTimeMillis());
+                }
+            }
+        });
+        if (isAlive()) {
+            stateMap.remove(checkpointKey);
+            stateMap.remove(PARTITION_MARKER_PREFIX + partitionKey);
+        }
+    }
 
+    //a query of one read partition is marked by getReadPartitions, and has the boundaries of one field
+    protected boolean isPartitionQuery(TapConnectorContext connectorContext, TapTable table, TapAdvanceFilter filter) {
+        KVMap<Object> stateMap = connectorContext.getStateMap();
+        if (EmptyKit.isNull(stateMap) || EmptyKit.isEmpty(filter.getOperators())) {
+            return false;
+        }
+        return EmptyKit.isNotNull(stateMap.get(PARTITION_MARKER_PREFIX + partitionKey(table, TapPartitionFilter.create().fromAdvanceFilter(filter))));
+    }
+
+    protected String partitionKey(TapTable table, TapPartitionFilter partitionFilter) {
+        return table.getId() + "_" + partitionFilter.getMatch() + "_" + Stream.of(partitionFilter.getLeftBoundary(), partitionFilter.getRightBoundary())
+                .filter(Objects::nonNull).map(operator -> commonSqlMaker.queryOperatorToString(operator, "`")).collect(Collectors.joining(","));
+    }
+
+    //a checkpoint out of the boundaries is not of this partition, e.g. a checkpoint of an earlier split
+    protected static boolean isInPartition(Object value, TapPartitionFilter partitionFilter) {
+        return isInBoundary(value, partitionFilter.getLeftBoundary()) && isInBoundary(value, partitionFilter.getRightBoundary());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static boolean isInBoundary(Object value, QueryOperator boundary) {
+        if (EmptyKit.isNull(boundary)) {
+            return true;
+        }
+        Object boundaryValue = boundary.getValue();
+        int compared;
+        if (value instanceof Number && boundaryValue instanceof Number) {
+            compared = new BigDecimal(value.toString()).compareTo(new BigDecimal(boundaryValue.toString()));
+        } else if (value instanceof String && boundaryValue instanceof String) {
+            //partitions of strings are split case insensitively
+            compared = ((String) value).compareToIgnoreCase((String) boundaryValue);
+        } else if (value instanceof Comparable && EmptyKit.isNotNull(boundaryValue) && value.getClass() == boundaryValue.getClass()) {
+            compared = ((Comparable<Object>) value).compareTo(boundaryValue);
+        } else {
+            return false;
+        }
+        int operator = boundary.getOperator();
+        if (operator == QueryOperator.GT) {
+            return compared > 0;
+        } else if (operator == QueryOperator.GTE) {
+            return compared >= 0;
+        } else if (operator == QueryOperator.LT) {
+            return compared < 0;
+        } else if (operator == QueryOperator.LTE) {
+            return compared <= 0;
+        }
+        return false;
     }
 
     private FieldMinMaxValue minMaxValue(TapConnectorContext tapConnectorContext, TapTable tapTable, TapAdvanceFilter tapPartitionFilter, String fieldName) {
@@ -378,7 +495,7 @@ public class MysqlConnector extends CommonDbConnector {
                         if (EmptyKit.isNotNull(mysqlReader)) {
                             EmptyKit.closeQuietly(mysqlReader);
                         }
-                        mysqlReader = new MysqlReader(mysqlJdbcContext, tapLogger, this::isAlive);
+                        mysqlReader = createMysqlReader();
                     }
                 }
             } catch (Throwable ignore) {
@@ -420,6 +537,7 @@ public class MysqlConnector extends CommonDbConnector {
             Optional.ofNullable(this.mysqlReader).ifPresent(MysqlReader::close);
         } catch (Exception ignored) {
         }
+        closeWriteSession();
         if (null != mysqlJdbcContext) {
             try {
                 this.mysqlJdbcContext.close();
@@ -564,6 +682,11 @@ public class MysqlConnector extends CommonDbConnector {
                     .setUpdatePolicy(updateDmlPolicy)
                     .setTapLogger(tapLogger);
 
+        } else if (Boolean.TRUE.equals(mysqlConfig.getReuseWriteSession())) {
+            mysqlRecordWriter = new MysqlRecordWriter(mysqlJdbcContext, borrowWriteSession(), tapTable)
+                    .setInsertPolicy(insertDmlPolicy)
+                    .setUpdatePolicy(updateDmlPolicy)
+                    .setTapLogger(tapLogger);
         } else {
             mysqlRecordWriter = new MysqlRecordWriter(mysqlJdbcContext, tapTable)
                     .setInsertPolicy(insertDmlPolicy)
@@ -638,29 +761,7 @@ public class MysqlConnector extends CommonDbConnector {
                 } else if (null == value) {
                     data.put(columnName, null);
                 } else {
-                    if ("TIME".equalsIgnoreCase(metaData.getColumnTypeName(i + 1))) {
-                        data.put(columnName, string);
-                    } else if ("YEAR".equalsIgnoreCase(metaData.getColumnTypeName(i + 1))) {
-                        data.put(columnName, resultSet.getInt(i + 1));
-                    } else if ("TIMESTAMP".equalsIgnoreCase(metaData.getColumnTypeName(i + 1))) {
-                        data.put(columnName, ((Timestamp) value).toLocalDateTime().atZone(ZoneOffset.UTC));
-                    } else if ("DATE".equalsIgnoreCase(metaData.getColumnTypeName(i + 1))) {
-                        if (mysqlConfig.getOldVersionTimezone()) {
-                            data.put(columnName, resultSet.getString(i + 1));
-                        } else if (value instanceof java.sql.Date) {
-                            data.put(columnName, ((java.sql.Date) value).toLocalDate().atStartOfDay());
-                        } else {
-                            data.put(columnName, value);
-                        }
-                    } else if ("DATETIME".equalsIgnoreCase(metaData.getColumnTypeName(i + 1)) && value instanceof LocalDateTime) {
-                        if (mysqlConfig.getOldVersionTimezone()) {
-                            data.put(columnName, ((LocalDateTime) value).toInstant(ZoneOffset.ofTotalSeconds(TimeZone.getDefault().getRawOffset() / 1000)));
-                        } else {
-                            data.put(columnName, ((LocalDateTime) value).minusHours(zoneOffsetHour));
-                        }
-                    } else {
-                        data.put(columnName, value);
-                    }
+                    data.put(columnName, convertDateValue(resultSet, i + 1, metaData.getColumnTypeName(i + 1), value, string));
                 }
             }
         }
@@ -670,6 +771,56 @@ public class MysqlConnector extends CommonDbConnector {
         return data;
     }
 
+    //value of date/time column which is not null and legal
+    protected Object convertDateValue(ResultSet resultSet, int index, String columnTypeName, Object value, String string) throws SQLException {
+        if ("TIME".equalsIgnoreCase(columnTypeName)) {
+            return string;
+        } else if ("YEAR".equalsIgnoreCase(columnTypeName)) {
+            return resultSet.getInt(index);
+        } else if ("TIMESTAMP".equalsIgnoreCase(columnTypeName)) {
+            return ((Timestamp) value).toLocalDateTime().atZone(ZoneOffset.UTC);
+        } else if ("DATE".equalsIgnoreCase(columnTypeName)) {
+            if (mysqlConfig.getOldVersionTimezone()) {
+                return resultSet.getString(index);
+            } else if (value instanceof java.sql.Date) {
+                return ((java.sql.Date) value).toLocalDate().atStartOfDay();
+            }
+            return value;
+        } else if ("DATETIME".equalsIgnoreCase(columnTypeName) && value instanceof LocalDateTime) {
+            if (mysqlConfig.getOldVersionTimezone()) {
+                return ((LocalDateTime) value).toInstant(ZoneOffset.ofTotalSeconds(TimeZone.getDefault().getRawOffset() / 1000));
+            }
+            return ((LocalDateTime) value).minusHours(zoneOffsetHour);
+        }
+        return value;
+    }
+
+    /**
+     * the same values as filterTimeForMysql, column kinds are decided once by ordinal and the reader is kept for the table,
+     * illegal dates are returned as IllegalDateString and converted with the record event
+     */
+    protected CompiledRowReader compileMysqlRowReader(ResultSetMetaData metaData, TapTable tapTable, Set<String> dateTypeSet) throws SQLException {
+        return mysqlRowReaderCache.get(metaData, tapTable, (md, index, columnName, tapField) -> {
+            if (!dateTypeSet.contains(columnName)) {
+                return null;
+            }
+            String columnTypeName = md.getColumnTypeName(index);
+            return (rs, i) -> {
+                Object value;
+                try {
+                    value = rs.getObject(i);
+                } catch (Exception e) {
+                    value = null;
+                }
+                String string = rs.getString(i);
+                if (null == value) {
+                    return EmptyKit.isNull(string) ? null : new IllegalDateString(string);
+                }
+                return convertDateValue(rs, i, columnTypeName, value, string);
+            };
+        });
+    }
+
     protected static Object buildIllegalDate(TapRecordEvent recordEvent, IllegalDateConsumer illegalDateConsumer,
                                              String valueS, List<String> illegalDateFieldName, String columnName) {
         Object value;
@@ -689,6 +840,14 @@ public class MysqlConnector extends CommonDbConnector {
         return value;
     }
 
+    protected static class IllegalDateString {
+        private final String value;
+
+        IllegalDateString(String value) {
+            this.value = value;
+        }
+    }
+
     protected interface IllegalDateConsumer {
         void containsIllegalDate(TapRecordEvent event, boolean containsIllegalDate);
 
@@ -708,25 +867,36 @@ public class MysqlConnector extends CommonDbConnector {
     }
 
     protected ResultSetConsumer resultSetConsumer(TapTable tapTable, int eventBatchSize, BiConsumer<List<TapEvent>, Object> eventsOffsetConsumer) {
+        IllegalDateConsumer illegalDateConsumer = new IllegalDateConsumer() {
+            @Override
+            public void containsIllegalDate(TapRecordEvent event, boolean containsIllegalDate) {
+                event.setContainsIllegalDate(containsIllegalDate);
+            }
+
+            @Override
+            public void buildIllegalDateFieldName(TapRecordEvent event, List<String> illegalDateFieldName) {
+                ((TapInsertRecordEvent) event).setAfterIllegalDateFieldName(illegalDateFieldName);
+            }
+        };
         return resultSet -> {
             List<TapEvent> tapEvents = list();
-            //get all column names
             Set<String> dateTypeSet = dateFields(tapTable);
-            ResultSetMetaData metaData = resultSet.getMetaData();
+            CompiledRowReader rowReader = compileMysqlRowReader(resultSet.getMetaData(), tapTable, dateTypeSet);
+            String[] columnNames = rowReader.getColumnNames();
+            int[] dateIndexes = IntStream.range(0, columnNames.length).filter(i -> dateTypeSet.contains(columnNames[i])).toArray();
             while (isAlive() && resultSet.next()) {
                 TapInsertRecordEvent tapInsertRecordEvent = new TapInsertRecordEvent().init();
-                Map<String, Object> data = filterTimeForMysql(resultSet, metaData, dateTypeSet, tapInsertRecordEvent, new IllegalDateConsumer() {
-                    @Override
-                    public void containsIllegalDate(TapRecordEvent event, boolean containsIllegalDate) {
-                        event.setContainsIllegalDate(containsIllegalDate);
-                    }
-
-                    @Override
-                    public void buildIllegalDateFieldName(TapRecordEvent event, List<String> illegalDateFieldName) {
-                        ((TapInsertRecordEvent) event).setAfterIllegalDateFieldName(illegalDateFieldName);
+                Object[] values = rowReader.readValues(resultSet);
+                List<String> illegalDateFieldName = new ArrayList<>();
+                for (int dateIndex : dateIndexes) {
+                    if (values[dateIndex] instanceof IllegalDateString) {
+                        values[dateIndex] = buildIllegalDate(tapInsertRecordEvent, illegalDateConsumer, ((IllegalDateString) values[dateIndex]).value, illegalDateFieldName, columnNames[dateIndex]);
                     }
-                });
-                tapInsertRecordEvent.after(data).table(tapTable.getId());
+                }
+                if (!illegalDateFieldName.isEmpty()) {
+                    illegalDateConsumer.buildIllegalDateFieldName(tapInsertRecordEvent, illegalDateFieldName);
+                }
+                tapInsertRecordEvent.after(rowReader.toDataMap(values)).table(tapTable.getId());
                 tapEvents.add(tapInsertRecordEvent);
                 if (tapEvents.size() == eventBatchSize) {
                     eventsOffsetConsumer.accept(tapEvents, new HashMap<>());
@@ -752,40 +922,62 @@ public class MysqlConnector extends CommonDbConnector {
     @Override
     protected void batchReadWithHashSplit(TapConnectorContext tapConnectorContext, TapTable tapTable, Object offsetState, int eventBatchSize, BiConsumer<List<TapEvent>, Object> eventsOffsetConsumer) throws Throwable {
         String sql = getBatchReadSelectSql(tapTable);
-        AtomicReference<Throwable> throwable = new AtomicReference<>();
-        CountDownLatch countDownLatch = new CountDownLatch(commonDbConfig.getBatchReadThreadSize());
-        ExecutorService executorService = Executors.newFixedThreadPool(commonDbConfig.getBatchReadThreadSize());
+        SplitEventHandoff eventHandoff = new SplitEventHandoff(commonDbConfig.getBatchReadThreadSize() * 2, eventsOffsetConsumer);
         try {
-            for (int i = 0; i < commonDbConfig.getBatchReadThreadSize(); i++) {
-                final int threadIndex = i;
-                executorService.submit(() -> {
-                    try {
-                        for (int ii = threadIndex; ii < commonDbConfig.getMaxSplit(); ii += commonDbConfig.getBatchReadThreadSize()) {
-                            String splitSql = sql + " WHERE " + getHashSplitModConditions(tapTable, commonDbConfig.getMaxSplit(), ii);
-                            tapLogger.info("batchRead, splitSql[{}]: {}", ii + 1, splitSql);
-                            mysqlJdbcContext.queryWithStream(splitSql, resultSetConsumer(tapTable, eventBatchSize, eventsOffsetConsumer));
-                        }
-                    } catch (Throwable e) {
-                        throwable.set(e);
-                    } finally {
-                        countDownLatch.countDown();
+            eventHandoff.readSplits(commonDbConfig.getBatchReadThreadSize(), commonDbConfig.getMaxSplit(), split -> {
+                String splitSql = sql + " WHERE " + getHashSplitModConditions(tapTable, commonDbConfig.getMaxSplit(), split);
+                tapLogger.info("batchRead, splitSql[{}]: {}", split + 1, splitSql);
+                SplitResumeKey resumeKey = SplitResumeKey.create(tapTable, commonDbConfig.getEscapeChar());
+                //date key is converted when reading, it can not be bound as the resume key
+                if (EmptyKit.isNotNull(resumeKey) && resumeKey.getKeyColumns().stream().anyMatch(dateFields(tapTable)::contains)) {
+                    resumeKey = null;
+                }
+                readSplitWithRetry(tapTable, eventBatchSize, eventHandoff, splitSql, split, resumeKey);
+            });
+        } catch (Throwable e) {
+            exceptionCollector.collectTerminateByServer(e);
+            exceptionCollector.collectReadPrivileges("batchReadWithoutOffset", Collections.emptyList(), e);
+            exceptionCollector.revealException(e);
+            throw e;
+        }
+    }
+
+    private void readSplitWithRetry(TapTable tapTable, int eventBatchSize, SplitEventHandoff eventHandoff, String splitSql, int split, SplitResumeKey resumeKey) throws Throwable {
+        int retry = 20;
+        while (true) {
+            try {
+                ResultSetConsumer resultSetConsumer = resultSetConsumer(tapTable, eventBatchSize, (events, offset) -> {
+                    if (EmptyKit.isNotNull(resumeKey)) {
+                        resumeKey.mark(((TapInsertRecordEvent) events.get(events.size() - 1)).getAfter());
                     }
+                    eventHandoff.offer(events);
                 });
+                if (EmptyKit.isNull(resumeKey)) {
+                    mysqlJdbcContext.queryWithStream(splitSql, resultSetConsumer);
+                } else {
+                    mysqlJdbcContext.queryWithStream(resumeKey.resumeSql(splitSql), resumeKey.params(), resultSetConsumer);
+                }
+                return;
+            } catch (Throwable e) {
+                if (--retry <= 0 || !isAlive() || !isRecoverable(e)) {
+                    throw e;
+                }
+                tapLogger.warn("batchRead, splitSql[{}]: {} failed, retrying{}...", split + 1, splitSql, EmptyKit.isNotNull(resumeKey) && resumeKey.isResumed() ? " after last emitted key" : "");
             }
-            try {
-                countDownLatch.await();
-            } catch (InterruptedException e) {
-                throw new RuntimeException(e);
+        }
+    }
+
+    //streaming query wraps the driver exception
+    private static boolean isRecoverable(Throwable throwable) {
+        for (Throwable e = throwable; EmptyKit.isNotNull(e); e = e.getCause()) {
+            if (e instanceof SQLRecoverableException || e instanceof IOException) {
+                return true;
             }
-            if (EmptyKit.isNotNull(throwable.get())) {
-                exceptionCollector.collectTerminateByServer(throwable.get());
-                exceptionCollector.collectReadPrivileges("batchReadWithoutOffset", Collections.emptyList(), throwable.get());
-                exceptionCollector.revealException(throwable.get());
-                throw throwable.get();
+            if (e.getCause() == e) {
+                break;
             }
-        } finally {
-            executorService.shutdown();
         }
+        return false;
     }
 
     protected void batchReadWithoutHashSplit(TapConnectorContext tapConnectorContext, TapTable tapTable, Object offsetState, int eventBatchSize, BiConsumer<List<TapEvent>, Object> eventsOffsetConsumer) throws Throwable {
@@ -795,8 +987,16 @@ public class MysqlConnector extends CommonDbConnector {
 
     @Override
     protected void queryByAdvanceFilterWithOffset(TapConnectorContext connectorContext, TapAdvanceFilter filter, TapTable table, Consumer<FilterResults> consumer) throws Throwable {
-        String sql = commonSqlMaker.buildSelectClause(table, filter, false) + getSchemaAndTable(table.getId()) + commonSqlMaker.buildSqlByAdvanceFilter(filter);
         int batchSize = null != filter.getBatchSize() && filter.getBatchSize().compareTo(0) > 0 ? filter.getBatchSize() : BATCH_ADVANCE_READ_LIMIT;
+        if (isPartitionQuery(connectorContext, table, filter)) {
+            partitionRead(connectorContext, table, filter, batchSize, consumer);
+            return;
+        }
+        String sql = commonSqlMaker.buildSelectClause(table, filter, false) + getSchemaAndTable(table.getId()) + commonSqlMaker.buildSqlByAdvanceFilter(filter);
+        queryFilterResults(sql, table, batchSize, consumer);
+    }
+
+    private void queryFilterResults(String sql, TapTable table, int batchSize, Consumer<FilterResults> consumer) throws Throwable {
         mysqlJdbcContext.queryWithStream(sql, resultSet -> {
             FilterResults filterResults = new FilterResults();
             //get all column names
@@ -936,6 +1136,7 @@ public class MysqlConnector extends CommonDbConnector {
     }
 
     protected void dropTable(TapConnectorContext tapConnectorContext, TapDropTableEvent tapDropTableEvent) throws SQLException {
+        invalidateWriteSession(tapDropTableEvent.getTableId());
         if (jdbcContext.queryAllTables(Collections.singletonList(tapDropTableEvent.getTableId())).size() >= 1) {
             List<String> sqls = new ArrayList<>();
             sqls.add("SET FOREIGN_KEY_CHECKS=0");
@@ -5,6 +5,7 @@ import io.tapdata.common.CommonDbConfig;
 import io.tapdata.common.CommonDbConnector;
 import io.tapdata.common.CommonSqlMaker;
 import io.tapdata.common.JdbcContext;
+import io.tapdata.common.ResultSetConsumer;
 import io.tapdata.common.exception.ExceptionCollector;
 import io.tapdata.connector.mysql.config.MysqlConfig;
 import io.tapdata.connector.mysql.entity.MysqlBinlogPosition;
@@ -16,10 +17,15 @@ import io.tapdata.entity.logger.Log;
 import io.tapdata.entity.schema.TapField;
 import io.tapdata.entity.schema.TapTable;
 import io.tapdata.entity.schema.type.TapNumber;
+import io.tapdata.entity.utils.DataMap;
+import io.tapdata.entity.utils.cache.KVMap;
 import io.tapdata.pdk.apis.context.TapConnectorContext;
+import io.tapdata.pdk.apis.entity.FilterResults;
+import io.tapdata.pdk.apis.entity.QueryOperator;
 import io.tapdata.pdk.apis.entity.TapAdvanceFilter;
 import io.tapdata.pdk.apis.functions.ConnectorFunctions;
 import io.tapdata.pdk.apis.functions.connector.common.vo.TapHashResult;
+import io.tapdata.pdk.apis.partition.TapPartitionFilter;
 import io.tapdata.utils.UnitTestUtils;
 import org.junit.jupiter.api.*;
 import org.mockito.Mockito;
@@ -31,6 +37,7 @@ import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
@@ -378,4 +385,133 @@ public class MysqlConnectorTest {
             Assertions.assertTrue(actualData.getPosition() == position);
         }
     }
+
+    @Nested
+    class PartitionReadTest {
+        MysqlConnector connector;
+        MysqlJdbcContextV2 mysqlJdbcContext;
+        TapConnectorContext connectorContext;
+        Map<String, Object> state;
+        TapTable tapTable;
+        AtomicBoolean alive;
+        List<String> sqls;
+        List<Object> readIds;
+
+        @BeforeEach
+        void setUp() throws Throwable {
+            connector = new MysqlConnector();
+            mysqlJdbcContext = mock(MysqlJdbcContextV2.class);
+            ReflectionTestUtils.setField(connector, "mysqlJdbcContext", mysqlJdbcContext);
+            ReflectionTestUtils.setField(connector, "commonSqlMaker", new CommonSqlMaker('`'));
+            ReflectionTestUtils.setField(connector, "tapLogger", mock(Log.class));
+            connector.partitionCheckpointInterval = 0L;
+            alive = (AtomicBoolean) ReflectionTestUtils.getField(connector, "isAlive");
+            alive.set(true);
+            state = new HashMap<>();
+            KVMap<Object> stateMap = mock(KVMap.class);
+            when(stateMap.get(anyString())).thenAnswer(invocation -> state.get(invocation.<String>getArgument(0)));
+            doAnswer(invocation -> state.put(invocation.getArgument(0), invocation.getArgument(1))).when(stateMap).put(anyString(), any());
+            when(stateMap.remove(anyString())).thenAnswer(invocation -> state.remove(invocation.<String>getArgument(0)));
+            connectorContext = mock(TapConnectorContext.class);
+            when(connectorContext.getStateMap()).thenReturn(stateMap);
+            when(connectorContext.getConnectionConfig()).thenReturn(DataMap.create().kv("database", "db"));
+            tapTable = new TapTable("t");
+            LinkedHashMap<String, TapField> map = new LinkedHashMap<>();
+            buildNumberTapField("id", map);
+            tapTable.setNameFieldMap(map);
+            sqls = new ArrayList<>();
+            readIds = new ArrayList<>();
+        }
+
+        //ids are streamed until the stop id, when the task is stopped
+        void stubRows(List<Integer> ids, Integer stopAfter) throws Throwable {
+            doAnswer(invocation -> {
+                sqls.add(invocation.getArgument(0));
+                ResultSet resultSet = mock(ResultSet.class);
+                ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+                when(metaData.getColumnCount()).thenReturn(1);
+                when(metaData.getColumnName(1)).thenReturn("id");
+                when(resultSet.getMetaData()).thenReturn(metaData);
+                int[] row = {0};
+                when(resultSet.next()).thenAnswer(i -> {
+                    if (null != stopAfter && row[0] == stopAfter) {
+                        alive.set(false);
+                        return false;
+                    }
+                    return ++row[0] <= ids.size();
+                });
+                when(resultSet.getObject(1)).thenAnswer(i -> ids.get(row[0] - 1));
+                ((ResultSetConsumer) invocation.getArgument(1)).accept(resultSet);
+                return null;
+            }).when(mysqlJdbcContext).queryWithStream(anyString(), any(ResultSetConsumer.class));
+        }
+
+        TapAdvanceFilter partitionFilter() {
+            return TapAdvanceFilter.create().op(QueryOperator.gte("id", 10)).op(QueryOperator.lt("id", 20)).batchSize(2);
+        }
+
+        //marks the filter as a partition emitted by getReadPartitions
+        TapAdvanceFilter mark(TapAdvanceFilter filter) {
+            state.put("PARTITION_MARKER_" + connector.partitionKey(tapTable, TapPartitionFilter.create().fromAdvanceFilter(filter)), "partition");
+            return filter;
+        }
+
+        String checkpointKey(TapAdvanceFilter filter) {
+            return "PARTITION_CHECKPOINT_" + connector.partitionKey(tapTable, TapPartitionFilter.create().fromAdvanceFilter(filter));
+        }
+
+        void read(TapAdvanceFilter filter) throws Throwable {
+            connector.queryByAdvanceFilterWithOffset(connectorContext, filter, tapTable, (FilterResults filterResults) ->
+                    filterResults.getResults().forEach(row -> readIds.add(row.get("id"))));
+        }
+
+        @Test
+        void testResumeFromCheckpoint() throws Throwable {
+            stubRows(Arrays.asList(10, 11, 12, 13, 14), 3);
+            read(mark(partitionFilter()));
+            assertEquals(Arrays.asList(10, 11, 12), readIds);
+            assertTrue(sqls.get(0).contains("`id`>=10") && sqls.get(0).endsWith(" ORDER BY `id`"));
+            //the stopped partition keeps its marker and its last emitted value
+            assertEquals(2, state.size());
+            assertEquals(12, state.get(checkpointKey(partitionFilter())));
+
+            alive.set(true);
+            readIds.clear();
+            stubRows(Arrays.asList(12, 13, 14), null);
+            read(partitionFilter());
+            assertEquals(Arrays.asList(12, 13, 14), readIds);
+            assertTrue(sqls.get(1).contains("`id`>=12") && sqls.get(1).contains("`id`<20"));
+            //the finished partition removes its marker and its checkpoint
+            assertTrue(state.isEmpty());
+        }
+
+        @Test
+        void testPartitionsHaveOwnCheckpoints() throws Throwable {
+            stubRows(Arrays.asList(10, 11), 1);
+            read(mark(partitionFilter()));
+            alive.set(true);
+            read(mark(TapAdvanceFilter.create().op(QueryOperator.gte("id", 20)).batchSize(2)));
+            assertEquals(10, state.get(checkpointKey(partitionFilter())));
+            assertEquals(10, state.get(checkpointKey(TapAdvanceFilter.create().op(QueryOperator.gte("id", 20)))));
+        }
+
+        @Test
+        void testCheckpointOutOfPartition() throws Throwable {
+            state.put(checkpointKey(partitionFilter()), 25);
+            stubRows(Arrays.asList(10, 11, 12), null);
+            read(mark(partitionFilter()));
+            assertEquals(Arrays.asList(10, 11, 12), readIds);
+            assertTrue(sqls.get(0).contains("`id`>=10") && sqls.get(0).contains("`id`<20"));
+            assertTrue(state.isEmpty());
+        }
+
+        @Test
+        void testUnmarkedQueryIsNotCheckpointed() throws Throwable {
+            stubRows(Arrays.asList(10, 11, 12), null);
+            read(partitionFilter());
+            assertEquals(Arrays.asList(10, 11, 12), readIds);
+            assertFalse(sqls.get(0).contains("ORDER BY `id`"));
+            assertTrue(state.isEmpty());
+        }
+    }
 }
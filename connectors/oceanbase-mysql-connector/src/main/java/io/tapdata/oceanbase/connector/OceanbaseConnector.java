@@ -428,57 +428,23 @@ public class OceanbaseConnector extends MysqlConnector {
         }
     }
 
-    protected Map<String, Object> filterTimeForMysql(
-            ResultSet resultSet, ResultSetMetaData metaData, Set<String> dateTypeSet, TapRecordEvent recordEvent,
-            IllegalDateConsumer illegalDateConsumer) throws SQLException {
-        Map<String, Object> data = new HashMap<>();
-        List<String> illegalDateFieldName = new ArrayList<>();
-        for (int i = 0; i < metaData.getColumnCount(); i++) {
-            String columnName = metaData.getColumnName(i + 1);
-            if (!dateTypeSet.contains(columnName)) {
-                data.put(columnName, resultSet.getObject(i + 1));
-            } else {
-                Object value;
-                try {
-                    value = resultSet.getObject(i + 1);
-                } catch (Exception e) {
-                    value = null;
-                }
-                String string = resultSet.getString(i + 1);
-                //非法时间
-                if (EmptyKit.isNull(value) && EmptyKit.isNotNull(string)) {
-                    if (null == illegalDateConsumer || null == recordEvent) {
-                        data.put(columnName, null);
-                    } else {
-                        data.put(columnName, buildIllegalDate(recordEvent, illegalDateConsumer, string, illegalDateFieldName, columnName));
-                    }
-                } else if (null == value) {
-                    data.put(columnName, null);
-                } else {
-                    if ("TIME".equalsIgnoreCase(metaData.getColumnTypeName(i + 1))) {
-                        data.put(columnName, string);
-                    } else if ("YEAR".equalsIgnoreCase(metaData.getColumnTypeName(i + 1))) {
-                        data.put(columnName, resultSet.getInt(i + 1));
-                    } else if ("TIMESTAMP".equalsIgnoreCase(metaData.getColumnTypeName(i + 1))) {
-                        data.put(columnName, ((Timestamp) value).toLocalDateTime().atZone(ZoneOffset.UTC));
-                    } else if ("DATE".equalsIgnoreCase(metaData.getColumnTypeName(i + 1))) {
-                        if (value instanceof java.sql.Date) {
-                            data.put(columnName, ((java.sql.Date) value).toLocalDate().atStartOfDay());
-                        } else {
-                            data.put(columnName, value);
-                        }
-                    } else if ("DATETIME".equalsIgnoreCase(metaData.getColumnTypeName(i + 1)) && value instanceof Timestamp) {
-                        data.put(columnName, ((Timestamp) value).toLocalDateTime().minusHours(zoneOffsetHour));
-                    } else {
-                        data.put(columnName, value);
-                    }
-                }
+    @Override
+    protected Object convertDateValue(ResultSet resultSet, int index, String columnTypeName, Object value, String string) throws SQLException {
+        if ("TIME".equalsIgnoreCase(columnTypeName)) {
+            return string;
+        } else if ("YEAR".equalsIgnoreCase(columnTypeName)) {
+            return resultSet.getInt(index);
+        } else if ("TIMESTAMP".equalsIgnoreCase(columnTypeName)) {
+            return ((Timestamp) value).toLocalDateTime().atZone(ZoneOffset.UTC);
+        } else if ("DATE".equalsIgnoreCase(columnTypeName)) {
+            if (value instanceof java.sql.Date) {
+                return ((java.sql.Date) value).toLocalDate().atStartOfDay();
             }
+            return value;
+        } else if ("DATETIME".equalsIgnoreCase(columnTypeName) && value instanceof Timestamp) {
+            return ((Timestamp) value).toLocalDateTime().minusHours(zoneOffsetHour);
         }
-        if (null != illegalDateConsumer && null != recordEvent && !EmptyKit.isEmpty(illegalDateFieldName)) {
-            illegalDateConsumer.buildIllegalDateFieldName(recordEvent, illegalDateFieldName);
-        }
-        return data;
+        return value;
     }
 
 }
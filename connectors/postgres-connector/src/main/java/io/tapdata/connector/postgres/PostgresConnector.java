@@ -4,9 +4,14 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.util.concurrent.AtomicDouble;
 import io.tapdata.common.CommonDbConnector;
+import io.tapdata.common.ResultSetConsumer;
+import io.tapdata.common.SplitEventHandoff;
+import io.tapdata.common.SplitResumeKey;
 import io.tapdata.common.SqlExecuteCommandFunction;
 import io.tapdata.common.dml.NormalRecordWriter;
 import io.tapdata.connector.postgres.bean.PostgresColumn;
+import io.tapdata.connector.postgres.cdc.DebeziumCdcRunner;
+import io.tapdata.connector.postgres.cdc.PgOutputCdcRunner;
 import io.tapdata.connector.postgres.cdc.PostgresCdcRunner;
 import io.tapdata.connector.postgres.cdc.WalLogMinerV2;
 import io.tapdata.connector.postgres.cdc.WalPgtoMiner;
@@ -67,9 +72,6 @@ import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.util.*;
 import java.util.concurrent.CopyOnWriteArraySet;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
@@ -88,7 +90,7 @@ public class PostgresConnector extends CommonDbConnector {
     protected PostgresConfig postgresConfig;
     protected PostgresJdbcContext postgresJdbcContext;
     private PostgresTest postgresTest;
-    private PostgresCdcRunner cdcRunner; //only when task start-pause this variable can be shared
+    private DebeziumCdcRunner cdcRunner; //only when task start-pause this variable can be shared
     private Object slotName; //must be stored in stateMap
     protected String postgresVersion;
     protected PostgresPartitionContext postgresPartitionContext;
@@ -323,7 +325,9 @@ public class PostgresConnector extends CommonDbConnector {
             "where relnamespace=(select oid from pg_namespace where nspname='%s') and relname in (%s)";
 
     private void testReplicateIdentity(KVReadOnlyMap<TapTable> tableMap) {
-        if ("pgoutput".equals(postgresConfig.getLogPluginName())) {
+        //native pgoutput decodes the old tuple itself, so its before depends on the identity only
+        boolean nativePgoutput = useNativePgoutput();
+        if ("pgoutput".equals(postgresConfig.getLogPluginName()) && !nativePgoutput) {
             tapLogger.warn("The pgoutput plugin may cause before of data loss, if you need, please use another plugin instead, such as wal2json");
             return;
         }
@@ -342,6 +346,7 @@ public class PostgresConnector extends CommonDbConnector {
         }
         List<String> noPrimaryOrFull = new ArrayList<>(); //无主键表且identity不为full
         List<String> primaryNotDefaultOrFull = new ArrayList<>(); //有主键表但identity不为full也不为default
+        List<String> primaryDefault = new ArrayList<>(); //有主键表identity为default，pgoutput只有主键列的before
         try {
             postgresJdbcContext.query(String.format(PG_REPLICATE_IDENTITY, postgresConfig.getSchema(), StringKit.joinString(tableList, "'", ",")), resultSet -> {
                 while (resultSet.next()) {
@@ -351,6 +356,9 @@ public class PostgresConnector extends CommonDbConnector {
                     if (hasPrimary.contains(resultSet.getString("relname")) && !"f".equals(resultSet.getString("relreplident")) && !"d".equals(resultSet.getString("relreplident"))) {
                         primaryNotDefaultOrFull.add(resultSet.getString("relname"));
                     }
+                    if (nativePgoutput && hasPrimary.contains(resultSet.getString("relname")) && "d".equals(resultSet.getString("relreplident"))) {
+                        primaryDefault.add(resultSet.getString("relname"));
+                    }
                 }
             });
         } catch (Exception e) {
@@ -362,6 +370,9 @@ public class PostgresConnector extends CommonDbConnector {
         if (EmptyKit.isNotEmpty(primaryNotDefaultOrFull)) {
             tapLogger.warn("The following tables have a primary key, but the identity is not full or default, which may cause before of data loss: {}", String.join(",", primaryNotDefaultOrFull));
         }
+        if (EmptyKit.isNotEmpty(primaryDefault)) {
+            tapLogger.warn("The following tables have a primary key and the identity is default, before of update and delete only has the primary key: {}", String.join(",", primaryDefault));
+        }
     }
 
     private Object getStreamOffsetFromString(TapConnectorContext connectorContext, String offset) {
@@ -381,6 +392,7 @@ public class PostgresConnector extends CommonDbConnector {
                 cdcRunner.closeCdcRunner();
             }
         });
+        closeWriteSession();
         EmptyKit.closeQuietly(postgresTest);
         EmptyKit.closeQuietly(postgresJdbcContext);
     }
@@ -525,6 +537,12 @@ public class PostgresConnector extends CommonDbConnector {
                     .setUpdatePolicy(updateDmlPolicy)
                     .setDeletePolicy(deleteDmlPolicy)
                     .setTapLogger(tapLogger);
+        } else if (Boolean.TRUE.equals(postgresConfig.getReuseWriteSession())) {
+            postgresRecordWriter = new PostgresRecordWriter(postgresJdbcContext, borrowWriteSession(), tapTable, (hasUniqueIndex && !hasMultiUniqueIndex) ? postgresVersion : "90500")
+                    .setInsertPolicy(insertDmlPolicy)
+                    .setUpdatePolicy(updateDmlPolicy)
+                    .setDeletePolicy(deleteDmlPolicy)
+                    .setTapLogger(tapLogger);
         } else {
             postgresRecordWriter = new PostgresRecordWriter(postgresJdbcContext, tapTable, (hasUniqueIndex && !hasMultiUniqueIndex) ? postgresVersion : "90500")
                     .setInsertPolicy(insertDmlPolicy)
@@ -618,24 +636,45 @@ public class PostgresConnector extends CommonDbConnector {
                         .registerConsumer(consumer, recordSize)
                         .startMiner(this::isAlive);
             }
+        } else if (useNativePgoutput()) {
+            PgOutputCdcRunner pgOutputCdcRunner = new PgOutputCdcRunner(postgresJdbcContext, tapLogger);
+            cdcRunner = pgOutputCdcRunner;
+            testReplicateIdentity(nodeContext.getTableMap());
+            buildSlot(nodeContext, true);
+            pgOutputCdcRunner.useSlot(slotName.toString()).watch(tableList, nodeContext.getTableMap()).offset(offsetState)
+                    .registerConsumer(consumer, recordSize).supplierIsAlive(this::isAlive);
+            pgOutputCdcRunner.startCdcRunner();
+            throwCdcException(pgOutputCdcRunner.getThrowable().get());
         } else {
-            cdcRunner = new PostgresCdcRunner(postgresJdbcContext, nodeContext);
+            PostgresCdcRunner postgresCdcRunner = new PostgresCdcRunner(postgresJdbcContext, nodeContext);
+            cdcRunner = postgresCdcRunner;
             testReplicateIdentity(nodeContext.getTableMap());
             buildSlot(nodeContext, true);
-            cdcRunner.useSlot(slotName.toString()).watch(tableList).offset(offsetState).registerConsumer(consumer, recordSize);
-            cdcRunner.startCdcRunner();
-            if (EmptyKit.isNotNull(cdcRunner) && EmptyKit.isNotNull(cdcRunner.getThrowable().get())) {
-                Throwable throwable = ErrorKit.getLastCause(cdcRunner.getThrowable().get());
-                if (throwable instanceof SQLException) {
-                    exceptionCollector.collectTerminateByServer(throwable);
-                    exceptionCollector.collectCdcConfigInvalid(throwable);
-                    exceptionCollector.revealException(throwable);
-                }
-                throw throwable;
-            }
+            postgresCdcRunner.useSlot(slotName.toString()).watch(tableList).offset(offsetState).registerConsumer(consumer, recordSize);
+            postgresCdcRunner.startCdcRunner();
+            throwCdcException(postgresCdcRunner.getThrowable().get());
         }
     }
 
+    //pgoutput is decoded from replication stream directly, postgres before 10 has no pgoutput
+    private boolean useNativePgoutput() {
+        return "pgoutput".equals(postgresConfig.getLogPluginName()) && Boolean.TRUE.equals(postgresConfig.getNativePgoutput())
+                && Integer.parseInt(postgresVersion) >= 100000;
+    }
+
+    private void throwCdcException(Throwable cdcThrowable) throws Throwable {
+        if (EmptyKit.isNull(cdcThrowable)) {
+            return;
+        }
+        Throwable throwable = ErrorKit.getLastCause(cdcThrowable);
+        if (throwable instanceof SQLException) {
+            exceptionCollector.collectTerminateByServer(throwable);
+            exceptionCollector.collectCdcConfigInvalid(throwable);
+            exceptionCollector.revealException(throwable);
+        }
+        throw throwable;
+    }
+
     private void flushOffset(TapConnectorContext connectorContext, Object offset) {
         if (EmptyKit.isNotNull(cdcRunner)) {
             if (offset instanceof PostgresOffset) {
@@ -692,21 +731,23 @@ public class PostgresConnector extends CommonDbConnector {
                         .registerConsumer(consumer, batchSize)
                         .startMiner(this::isAlive);
             }
+        } else if (useNativePgoutput()) {
+            PgOutputCdcRunner pgOutputCdcRunner = new PgOutputCdcRunner(postgresJdbcContext, tapLogger);
+            cdcRunner = pgOutputCdcRunner;
+            testReplicateIdentity(nodeContext.getTableMap());
+            buildSlot(nodeContext, true);
+            pgOutputCdcRunner.useSlot(slotName.toString()).watch(schemaTableMap, nodeContext.getTableMap()).offset(offsetState)
+                    .registerConsumer(consumer, batchSize).supplierIsAlive(this::isAlive);
+            pgOutputCdcRunner.startCdcRunner();
+            throwCdcException(pgOutputCdcRunner.getThrowable().get());
         } else {
-            cdcRunner = new PostgresCdcRunner(postgresJdbcContext, nodeContext);
+            PostgresCdcRunner postgresCdcRunner = new PostgresCdcRunner(postgresJdbcContext, nodeContext);
+            cdcRunner = postgresCdcRunner;
             testReplicateIdentity(nodeContext.getTableMap());
             buildSlot(nodeContext, true);
-            cdcRunner.useSlot(slotName.toString()).watch(schemaTableMap).offset(offsetState).registerConsumer(consumer, batchSize);
-            cdcRunner.startCdcRunner();
-            if (EmptyKit.isNotNull(cdcRunner) && EmptyKit.isNotNull(cdcRunner.getThrowable().get())) {
-                Throwable throwable = ErrorKit.getLastCause(cdcRunner.getThrowable().get());
-                if (throwable instanceof SQLException) {
-                    exceptionCollector.collectTerminateByServer(throwable);
-                    exceptionCollector.collectCdcConfigInvalid(throwable);
-                    exceptionCollector.revealException(throwable);
-                }
-                throw throwable;
-            }
+            postgresCdcRunner.useSlot(slotName.toString()).watch(schemaTableMap).offset(offsetState).registerConsumer(consumer, batchSize);
+            postgresCdcRunner.startCdcRunner();
+            throwCdcException(postgresCdcRunner.getThrowable().get());
         }
     }
 
@@ -1001,69 +1042,60 @@ public class PostgresConnector extends CommonDbConnector {
 
     protected void batchReadWithHashSplit(TapConnectorContext tapConnectorContext, TapTable tapTable, Object offsetState, int eventBatchSize, BiConsumer<List<TapEvent>, Object> eventsOffsetConsumer) throws Throwable {
         String sql = getBatchReadSelectSql(tapTable);
-        AtomicReference<Throwable> throwable = new AtomicReference<>();
-        CountDownLatch countDownLatch = new CountDownLatch(commonDbConfig.getBatchReadThreadSize());
-        ExecutorService executorService = Executors.newFixedThreadPool(commonDbConfig.getBatchReadThreadSize());
+        Map<String, String> typeAndName = new HashMap<>();
+        tapTable.getNameFieldMap().forEach((key, value) -> {
+            typeAndName.put(key, value.getDataType());
+        });
+        SplitEventHandoff eventHandoff = new SplitEventHandoff(commonDbConfig.getBatchReadThreadSize() * 2, eventsOffsetConsumer);
         try {
-            for (int i = 0; i < commonDbConfig.getBatchReadThreadSize(); i++) {
-                final int threadIndex = i;
-                executorService.submit(() -> {
+            eventHandoff.readSplits(commonDbConfig.getBatchReadThreadSize(), commonDbConfig.getMaxSplit(), split -> {
+                String splitSql = sql + " WHERE " + getHashSplitModConditions(tapTable, commonDbConfig.getMaxSplit(), split);
+                tapLogger.info("batchRead, splitSql[{}]: {}", split + 1, splitSql);
+                SplitResumeKey resumeKey = SplitResumeKey.create(tapTable, commonDbConfig.getEscapeChar());
+                int retry = 20;
+                while (retry-- > 0 && isAlive()) {
                     try {
-                        for (int ii = threadIndex; ii < commonDbConfig.getMaxSplit(); ii += commonDbConfig.getBatchReadThreadSize()) {
-                            String splitSql = sql + " WHERE " + getHashSplitModConditions(tapTable, commonDbConfig.getMaxSplit(), ii);
-                            tapLogger.info("batchRead, splitSql[{}]: {}", ii + 1, splitSql);
-                            int retry = 20;
-                            while (retry-- > 0 && isAlive()) {
-                                try {
-                                    jdbcContext.query(splitSql, resultSet -> {
-                                        List<TapEvent> tapEvents = list();
-                                        //get all column names
-                                        List<String> columnNames = DbKit.getColumnsFromResultSet(resultSet);
-                                        Map<String, String> typeAndName = new HashMap<>();
-                                        tapTable.getNameFieldMap().forEach((key, value) -> {
-                                            typeAndName.put(key, value.getDataType());
-                                        });
-                                        while (isAlive() && resultSet.next()) {
-                                            tapEvents.add(insertRecordEvent(filterTimeForPG(resultSet, typeAndName, columnNames), tapTable.getId()));
-                                            if (tapEvents.size() == eventBatchSize) {
-                                                syncEventSubmit(tapEvents, eventsOffsetConsumer);
-                                                tapEvents = list();
-                                            }
-                                        }
-                                        //last events those less than eventBatchSize
-                                        if (EmptyKit.isNotEmpty(tapEvents)) {
-                                            syncEventSubmit(tapEvents, eventsOffsetConsumer);
-                                        }
-                                    });
-                                    break;
-                                } catch (Exception e) {
-                                    if (retry == 0 || !(e instanceof SQLRecoverableException || e instanceof IOException)) {
-                                        throw e;
+                        ResultSetConsumer resultSetConsumer = resultSet -> {
+                            List<TapEvent> tapEvents = list();
+                            //get all column names
+                            List<String> columnNames = DbKit.getColumnsFromResultSet(resultSet);
+                            int[] keyIndexes = EmptyKit.isNull(resumeKey) ? null : resumeKey.columnIndexes(columnNames);
+                            while (isAlive() && resultSet.next()) {
+                                tapEvents.add(insertRecordEvent(filterTimeForPG(resultSet, typeAndName, columnNames), tapTable.getId()));
+                                if (tapEvents.size() == eventBatchSize) {
+                                    eventHandoff.offer(tapEvents);
+                                    tapEvents = list();
+                                    if (EmptyKit.isNotNull(resumeKey)) {
+                                        resumeKey.mark(resultSet, keyIndexes);
                                     }
-                                    tapLogger.warn("batchRead, splitSql[{}]: {} failed, retrying...", ii + 1, splitSql);
                                 }
                             }
+                            //last events those less than eventBatchSize
+                            if (EmptyKit.isNotEmpty(tapEvents)) {
+                                eventHandoff.offer(tapEvents);
+                            }
+                        };
+                        if (EmptyKit.isNull(resumeKey)) {
+                            jdbcContext.query(splitSql, resultSetConsumer);
+                        } else if (resumeKey.isResumed()) {
+                            jdbcContext.prepareQuery(resumeKey.resumeSql(splitSql), resumeKey.params(), resultSetConsumer);
+                        } else {
+                            jdbcContext.query(resumeKey.resumeSql(splitSql), resultSetConsumer);
                         }
+                        break;
                     } catch (Exception e) {
-                        throwable.set(e);
-                    } finally {
-                        countDownLatch.countDown();
+                        if (retry == 0 || !(e instanceof SQLRecoverableException || e instanceof IOException)) {
+                            throw e;
+                        }
+                        tapLogger.warn("batchRead, splitSql[{}]: {} failed, retrying{}...", split + 1, splitSql, EmptyKit.isNotNull(resumeKey) && resumeKey.isResumed() ? " after last emitted key" : "");
                     }
-                });
-            }
-            try {
-                countDownLatch.await();
-            } catch (InterruptedException e) {
-                throw new RuntimeException(e);
-            }
-            if (EmptyKit.isNotNull(throwable.get())) {
-                exceptionCollector.collectTerminateByServer(throwable.get());
-                exceptionCollector.collectReadPrivileges("batchReadWithoutOffset", Collections.emptyList(), throwable.get());
-                exceptionCollector.revealException(throwable.get());
-                throw throwable.get();
-            }
-        } finally {
-            executorService.shutdown();
+                }
+            });
+        } catch (Throwable e) {
+            exceptionCollector.collectTerminateByServer(e);
+            exceptionCollector.collectReadPrivileges("batchReadWithoutOffset", Collections.emptyList(), e);
+            exceptionCollector.revealException(e);
+            throw e;
         }
     }
 
@@ -1137,6 +1169,11 @@ public class PostgresConnector extends CommonDbConnector {
         return "abs(('x' || MD5(CONCAT_WS(',', \"" + String.join("\", \"", pks) + "\")))::bit(64)::bigint)";
     }
 
+    @Override
+    protected String getKeyBoundariesSql(String primaryKeyString, String table, long chunkSize) {
+        return String.format(FIND_KEY_BOUNDARIES, primaryKeyString, primaryKeyString, primaryKeyString, table, chunkSize);
+    }
+
     public void discoverPartitionInfoByParentName(TapConnectorContext connectorContext, List<TapTable> table, Consumer<Collection<TapPartitionResult>> consumer) throws SQLException {
         postgresPartitionContext.discoverPartitionInfoByParentName(connectorContext, table, consumer);
     }
@@ -1183,6 +1220,7 @@ public class PostgresConnector extends CommonDbConnector {
     }
 
     protected void dropTable(TapConnectorContext tapConnectorContext, TapDropTableEvent tapDropTableEvent) throws SQLException {
+        invalidateWriteSession(tapDropTableEvent.getTableId());
         if (jdbcContext.queryAllTables(Collections.singletonList(tapDropTableEvent.getTableId())).size() >= 1) {
             jdbcContext.execute("drop table " + getSchemaAndTable(tapDropTableEvent.getTableId()) + " cascade");
         } else {
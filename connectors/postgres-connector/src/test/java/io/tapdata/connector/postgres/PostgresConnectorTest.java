@@ -2,15 +2,21 @@ package io.tapdata.connector.postgres;
 
 import io.tapdata.common.CommonSqlMaker;
 import io.tapdata.common.JdbcContext;
+import io.tapdata.common.ResultSetConsumer;
+import io.tapdata.connector.postgres.config.PostgresConfig;
 import io.tapdata.connector.postgres.partition.PostgresPartitionContext;
 import io.tapdata.connector.postgres.partition.TableType;
 import io.tapdata.entity.codec.TapCodecsRegistry;
 import io.tapdata.entity.error.CoreException;
+import io.tapdata.entity.logger.Log;
 import io.tapdata.entity.schema.TapField;
 import io.tapdata.entity.schema.TapTable;
 import io.tapdata.entity.schema.partition.TapPartition;
 import io.tapdata.entity.schema.type.*;
 import io.tapdata.entity.utils.DataMap;
+import io.tapdata.entity.utils.cache.Entry;
+import io.tapdata.entity.utils.cache.Iterator;
+import io.tapdata.entity.utils.cache.KVReadOnlyMap;
 import io.tapdata.pdk.apis.context.TapConnectionContext;
 import io.tapdata.pdk.apis.context.TapConnectorContext;
 import io.tapdata.pdk.apis.entity.TapAdvanceFilter;
@@ -25,6 +31,7 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Collection;
 import java.util.Collections;
@@ -249,4 +256,64 @@ public class PostgresConnectorTest {
         postgresConnector.discoverPartitionInfo(Collections.emptyList());
         verify(postgresPartitionContext, times(1)).discoverPartitionInfo(anyList());
     }
+
+    @Nested
+    class TestReplicateIdentityTest {
+        PostgresConnector postgresConnector;
+        PostgresConfig postgresConfig;
+        PostgresJdbcContext postgresJdbcContext;
+        KVReadOnlyMap<TapTable> tableMap;
+        Log log;
+
+        @BeforeEach
+        @SuppressWarnings("unchecked")
+        void beforeEach() throws SQLException {
+            postgresConnector = new PostgresConnector();
+            log = mock(Log.class);
+            ReflectionTestUtils.setField(postgresConnector, "tapLogger", log);
+            postgresConfig = new PostgresConfig();
+            postgresConfig.setLogPluginName("pgoutput");
+            postgresConfig.setSchema("public");
+            postgresConnector.postgresConfig = postgresConfig;
+            postgresConnector.postgresVersion = "140000";
+
+            TapTable tapTable = new TapTable("t1");
+            tapTable.add(new TapField("id", "int").primaryKeyPos(1));
+            Entry<TapTable> entry = mock(Entry.class);
+            when(entry.getKey()).thenReturn("t1");
+            when(entry.getValue()).thenReturn(tapTable);
+            Iterator<Entry<TapTable>> iterator = mock(Iterator.class);
+            when(iterator.hasNext()).thenReturn(true, false);
+            when(iterator.next()).thenReturn(entry);
+            tableMap = mock(KVReadOnlyMap.class);
+            when(tableMap.iterator()).thenReturn(iterator);
+
+            ResultSet resultSet = mock(ResultSet.class);
+            when(resultSet.next()).thenReturn(true, false);
+            when(resultSet.getString("relname")).thenReturn("t1");
+            when(resultSet.getString("relreplident")).thenReturn("d");
+            postgresJdbcContext = mock(PostgresJdbcContext.class);
+            doAnswer(a -> {
+                a.getArgument(1, ResultSetConsumer.class).accept(resultSet);
+                return null;
+            }).when(postgresJdbcContext).query(anyString(), any(ResultSetConsumer.class));
+            postgresConnector.postgresJdbcContext = postgresJdbcContext;
+        }
+
+        @Test
+        void testNativePgoutputChecksIdentity() throws SQLException {
+            postgresConfig.setNativePgoutput(true);
+            ReflectionTestUtils.invokeMethod(postgresConnector, "testReplicateIdentity", tableMap);
+            verify(postgresJdbcContext, times(1)).query(anyString(), any(ResultSetConsumer.class));
+            verify(log, times(1)).warn(contains("identity is default"), eq("t1"));
+        }
+
+        @Test
+        void testDebeziumPgoutputOnlyWarns() throws SQLException {
+            postgresConfig.setNativePgoutput(false);
+            ReflectionTestUtils.invokeMethod(postgresConnector, "testReplicateIdentity", tableMap);
+            verify(postgresJdbcContext, never()).query(anyString(), any(ResultSetConsumer.class));
+            verify(log, times(1)).warn(contains("pgoutput plugin"));
+        }
+    }
 }
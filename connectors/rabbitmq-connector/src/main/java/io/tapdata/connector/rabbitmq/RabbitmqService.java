@@ -10,6 +10,7 @@ import com.rabbitmq.client.GetResponse;
 import com.rabbitmq.http.client.Client;
 import com.rabbitmq.http.client.domain.QueueInfo;
 import io.tapdata.common.AbstractMqService;
+import io.tapdata.common.MqBatchPusher;
 import io.tapdata.common.constant.MqOp;
 import io.tapdata.connector.rabbitmq.config.RabbitmqConfig;
 import io.tapdata.constant.MqTestItem;
@@ -263,11 +264,11 @@ public class RabbitmqService extends AbstractMqService {
     public void streamConsume(List<String> tableList, int eventBatchSize, BiConsumer<List<TapEvent>, Object> eventsOffsetConsumer) throws Throwable {
         consuming.set(true);
         atomicReference.set(null);
-        List<TapEvent> list = TapSimplify.list();
-        try (Channel channel = rabbitmqConnection.createChannel()) {
+        try (MqBatchPusher<TapEvent> batchPusher = new MqBatchPusher<TapEvent>("rabbitmq-stream", eventsOffsetConsumer, TapSimplify::list)
+                .batchSize(eventBatchSize).maxDelay(SINGLE_MAX_LOAD_TIMEOUT / 2).start();
+             Channel channel = rabbitmqConnection.createChannel()) {
             for (String tableName : tableList) {
-                AtomicLong time = new AtomicLong(System.currentTimeMillis());
-                DefaultConsumer consumer = mqConsumer(channel, list, tableName, eventBatchSize, time, eventsOffsetConsumer);
+                DefaultConsumer consumer = mqConsumer(channel, batchPusher, tableName);
                 channel.queueDeclare(tableName, true, false, false, null);
                 channel.basicConsume(tableName, consumer);
             }
@@ -277,14 +278,10 @@ public class RabbitmqService extends AbstractMqService {
             }
         } catch (Exception e) {
             throw new CoreException(e, e.getMessage());
-        } finally {
-            if (EmptyKit.isNotEmpty(list)) {
-                eventsOffsetConsumer.accept(list, TapSimplify.list());
-            }
         }
     }
 
-    protected DefaultConsumer mqConsumer(Channel channel, List<TapEvent> list, String tableName, int eventBatchSize, AtomicLong time, BiConsumer<List<TapEvent>, Object> eventsOffsetConsumer) {
+    protected DefaultConsumer mqConsumer(Channel channel, MqBatchPusher<TapEvent> batchPusher, String tableName) {
         return new DefaultConsumer(channel) {
             @Override
             public void handleDelivery(String consumerTag, Envelope envelope, AMQP.BasicProperties properties, byte[] body) throws IOException {
@@ -294,22 +291,15 @@ public class RabbitmqService extends AbstractMqService {
                     Map<String, Object> data = parse(properties, body);
                     switch (mqOp) {
                         case UPDATE:
-                            list.add(new TapUpdateRecordEvent().init().table(tableName).after(data).referenceTime(System.currentTimeMillis()));
+                            batchPusher.add(new TapUpdateRecordEvent().init().table(tableName).after(data).referenceTime(System.currentTimeMillis()));
                             break;
                         case DELETE:
-                            list.add(new TapDeleteRecordEvent().init().table(tableName).before(data).referenceTime(System.currentTimeMillis()));
+                            batchPusher.add(new TapDeleteRecordEvent().init().table(tableName).before(data).referenceTime(System.currentTimeMillis()));
                             break;
                         default:
-                            list.add(new TapInsertRecordEvent().init().table(tableName).after(data).referenceTime(System.currentTimeMillis()));
+                            batchPusher.add(new TapInsertRecordEvent().init().table(tableName).after(data).referenceTime(System.currentTimeMillis()));
                     }
                     channel.basicAck(envelope.getDeliveryTag(), false);
-                    if (list.size() >= eventBatchSize) {
-                        List<TapEvent> subList = TapSimplify.list();
-                        subList.addAll(list);
-                        eventsOffsetConsumer.accept(subList, TapSimplify.list());
-                        time.set(System.currentTimeMillis());
-                        list.clear();
-                    }
                 } catch (Exception e) {
                     atomicReference.set(e);
                     throw e;
@@ -2,6 +2,7 @@ package io.tapdata.connector.redis;
 
 import io.tapdata.connector.redis.pipeline.ClusterExtPipeline;
 import io.tapdata.connector.redis.pipeline.ShardedExtPipeline;
+import io.tapdata.connector.redis.pipeline.SlotParallelClusterPipeline;
 import io.tapdata.kit.EmptyKit;
 import redis.clients.jedis.*;
 import redis.clients.jedis.args.*;
@@ -41,6 +42,9 @@ public class CommonJedis implements JedisCommands, Closeable {
         if (jedisCommands instanceof Jedis) {
             return new RedisPipeline(((Jedis) jedisCommands).pipelined());
         } else if (jedisCommands instanceof JedisCluster) {
+            if (Boolean.TRUE.equals(redisConfig.getParallelClusterWrite())) {
+                return new RedisPipeline(new SlotParallelClusterPipeline(new HashSet<>(redisConfig.getClusterNodes()), clientConfigBuilder.build(), redisConfig.getClusterInFlight()));
+            }
             return new RedisPipeline(new ClusterExtPipeline(new HashSet<>(redisConfig.getClusterNodes()), clientConfigBuilder.build()));
         } else if (jedisCommands instanceof JedisSharding) {
             return new RedisPipeline(new ShardedExtPipeline(redisConfig.getClusterNodes(), clientConfigBuilder.build()));
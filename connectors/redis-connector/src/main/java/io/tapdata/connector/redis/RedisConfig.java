@@ -40,6 +40,8 @@ public class RedisConfig {
     private Boolean oneKey = false;
     private String schemaKey = "-schema-key-";
     private long rateLimit = 5000L;
+    private Boolean parallelClusterWrite = false;
+    private int clusterInFlight = 1000;
 
     private final static String DATA_BASE ="database";
 
@@ -283,4 +285,20 @@ public class RedisConfig {
     public void setRateLimit(long rateLimit) {
         this.rateLimit = rateLimit;
     }
+
+    public Boolean getParallelClusterWrite() {
+        return parallelClusterWrite;
+    }
+
+    public void setParallelClusterWrite(Boolean parallelClusterWrite) {
+        this.parallelClusterWrite = parallelClusterWrite;
+    }
+
+    public int getClusterInFlight() {
+        return clusterInFlight;
+    }
+
+    public void setClusterInFlight(int clusterInFlight) {
+        this.clusterInFlight = clusterInFlight;
+    }
 }
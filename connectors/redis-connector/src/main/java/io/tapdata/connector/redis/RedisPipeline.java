@@ -2,6 +2,7 @@ package io.tapdata.connector.redis;
 
 import io.tapdata.connector.redis.pipeline.ClusterExtPipeline;
 import io.tapdata.connector.redis.pipeline.ShardedExtPipeline;
+import io.tapdata.connector.redis.pipeline.SlotParallelClusterPipeline;
 import redis.clients.jedis.GeoCoordinate;
 import redis.clients.jedis.Pipeline;
 import redis.clients.jedis.Response;
@@ -41,6 +42,8 @@ public class RedisPipeline implements PipelineCommands, Closeable {
     public void sync() {
         if (pipelineCommands instanceof Pipeline) {
             ((Pipeline) pipelineCommands).sync();
+        } else if (pipelineCommands instanceof SlotParallelClusterPipeline) {
+            ((SlotParallelClusterPipeline) pipelineCommands).syncParallel();
         } else if (pipelineCommands instanceof ClusterExtPipeline) {
             ((ClusterExtPipeline) pipelineCommands).sync();
         } else if (pipelineCommands instanceof ShardedExtPipeline) {
@@ -0,0 +1,216 @@
+package io.tapdata.connector.redis.pipeline;
+
+import redis.clients.jedis.*;
+import redis.clients.jedis.exceptions.JedisAskDataException;
+import redis.clients.jedis.exceptions.JedisClusterOperationException;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.exceptions.JedisRedirectionException;
+import redis.clients.jedis.providers.ClusterConnectionProvider;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * cluster pipeline which sends the commands of each master on its own connection concurrently
+ * commands are grouped by the master of their hash slot when they are appended, and sent when the pipeline is synced,
+ * each master has at most maxInFlight commands sent before their replies are read
+ * only the commands replied with MOVED or ASK are sent again, to the node of the redirection
+ */
+public class SlotParallelClusterPipeline extends ClusterExtPipeline {
+
+    private static final int MAX_REDIRECTIONS = 5;
+    private static final AtomicInteger THREAD_INDEX = new AtomicInteger();
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "redis-cluster-pipeline-" + THREAD_INDEX.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ClusterConnectionProvider provider;
+    private final int maxInFlight;
+    private final Map<HostAndPort, NodeCommands> nodeCommands = new LinkedHashMap<>();
+
+    public SlotParallelClusterPipeline(Set<HostAndPort> clusterNodes, JedisClientConfig clientConfig, int maxInFlight) {
+        this(new ClusterConnectionProvider(clusterNodes, clientConfig), maxInFlight);
+    }
+
+    SlotParallelClusterPipeline(ClusterConnectionProvider provider, int maxInFlight) {
+        super(provider);
+        this.provider = provider;
+        this.maxInFlight = Math.max(1, maxInFlight);
+    }
+
+    //commands of the master are kept until sync instead of being sent on a connection
+    @Override
+    protected Connection getConnection(HostAndPort nodeKey) {
+        return nodeCommands.computeIfAbsent(nodeKey, NodeCommands::new);
+    }
+
+    /**
+     * send the commands of all masters concurrently, the responses are set after all of them are replied
+     * the responses of a failed master get its error, and the error is thrown after all responses are set
+     */
+    public void syncParallel() {
+        List<NodeCommands> pending = new ArrayList<>();
+        nodeCommands.values().stream().filter(NodeCommands::hasPending).forEach(pending::add);
+        RuntimeException error = null;
+        try {
+            if (pending.size() == 1) {
+                error = pending.get(0).execute();
+            } else if (pending.size() > 1) {
+                List<Future<RuntimeException>> futures = new ArrayList<>();
+                pending.forEach(commands -> futures.add(EXECUTOR.submit(commands::execute)));
+                boolean interrupted = false;
+                //every master is waited for, so no replies are changed while the responses are set
+                for (Future<RuntimeException> future : futures) {
+                    while (true) {
+                        try {
+                            RuntimeException e = future.get();
+                            if (null == error) {
+                                error = e;
+                            }
+                            break;
+                        } catch (InterruptedException e) {
+                            interrupted = true;
+                        } catch (ExecutionException e) {
+                            if (null == error) {
+                                error = new JedisClusterOperationException(e.getCause());
+                            }
+                            break;
+                        }
+                    }
+                }
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        } finally {
+            //no reply of this sync is left to the responses of the next one
+            sync();
+        }
+        if (null != error) {
+            throw error;
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            super.close();
+        } finally {
+            provider.close();
+        }
+    }
+
+    //replies in the order of the commands
+    private List<Object> execute(HostAndPort node, List<CommandArguments> commands) {
+        Object[] replies = new Object[commands.size()];
+        List<Integer> sent = new ArrayList<>(commands.size());
+        for (int i = 0; i < commands.size(); i++) {
+            sent.add(i);
+        }
+        send(node, commands, sent, replies, false);
+        for (int redirections = 0; ; redirections++) {
+            Map<HostAndPort, List<Integer>> moved = new LinkedHashMap<>();
+            Map<HostAndPort, List<Integer>> asked = new LinkedHashMap<>();
+            for (int index : sent) {
+                if (replies[index] instanceof JedisRedirectionException) {
+                    JedisRedirectionException redirection = (JedisRedirectionException) replies[index];
+                    (redirection instanceof JedisAskDataException ? asked : moved).computeIfAbsent(redirection.getTargetNode(), k -> new ArrayList<>()).add(index);
+                }
+            }
+            if (moved.isEmpty() && asked.isEmpty()) {
+                return Arrays.asList(replies);
+            }
+            if (redirections >= MAX_REDIRECTIONS) {
+                throw new JedisClusterOperationException("Too many cluster redirections of the commands sent to " + node);
+            }
+            //the slots are migrated, the commands appended later go to the new masters
+            if (!moved.isEmpty()) {
+                provider.renewSlotCache();
+            }
+            sent = new ArrayList<>();
+            for (Map.Entry<HostAndPort, List<Integer>> entry : moved.entrySet()) {
+                send(entry.getKey(), commands, entry.getValue(), replies, false);
+                sent.addAll(entry.getValue());
+            }
+            for (Map.Entry<HostAndPort, List<Integer>> entry : asked.entrySet()) {
+                send(entry.getKey(), commands, entry.getValue(), replies, true);
+                sent.addAll(entry.getValue());
+            }
+        }
+    }
+
+    //the commands of indexes are sent in chunks of maxInFlight, ASKING is sent before each command being asked
+    private void send(HostAndPort node, List<CommandArguments> commands, List<Integer> indexes, Object[] replies, boolean asking) {
+        try (Connection connection = provider.getConnection(node)) {
+            for (int from = 0; from < indexes.size(); from += maxInFlight) {
+                List<Integer> chunk = indexes.subList(from, Math.min(indexes.size(), from + maxInFlight));
+                for (int index : chunk) {
+                    if (asking) {
+                        connection.sendCommand(Protocol.Command.ASKING);
+                    }
+                    connection.sendCommand(commands.get(index));
+                }
+                List<Object> results = connection.getMany(asking ? chunk.size() * 2 : chunk.size());
+                for (int i = 0; i < chunk.size(); i++) {
+                    replies[chunk.get(i)] = results.get(asking ? i * 2 + 1 : i);
+                }
+            }
+        }
+    }
+
+    //connection of a master for the pipeline base, it keeps the commands and gives their replies on sync
+    private class NodeCommands extends Connection {
+        private final HostAndPort node;
+        private final List<CommandArguments> commands = new ArrayList<>();
+        private List<Object> replies = Collections.emptyList();
+
+        NodeCommands(HostAndPort node) {
+            super(node);
+            this.node = node;
+        }
+
+        @Override
+        public void sendCommand(CommandArguments args) {
+            commands.add(args);
+        }
+
+        boolean hasPending() {
+            return !commands.isEmpty();
+        }
+
+        //every command gets a reply, the error of the master when its commands failed
+        RuntimeException execute() {
+            int count = commands.size();
+            List<Object> result = null;
+            RuntimeException error = null;
+            try {
+                result = SlotParallelClusterPipeline.this.execute(node, commands);
+            } catch (RuntimeException e) {
+                error = e;
+            } finally {
+                commands.clear();
+                if (null == result) {
+                    JedisDataException failure = null == error ? new JedisDataException("Commands sent to " + node + " failed")
+                            : new JedisDataException("Commands sent to " + node + " failed: " + error.getMessage(), error);
+                    result = Collections.nCopies(count, failure);
+                }
+                replies = result;
+            }
+            return error;
+        }
+
+        //commands not sent by syncParallel are sent here, when the pipeline is synced or closed directly
+        @Override
+        public List<Object> getMany(int count) {
+            if (hasPending()) {
+                execute();
+            }
+            List<Object> result = replies;
+            replies = Collections.emptyList();
+            return result;
+        }
+    }
+}
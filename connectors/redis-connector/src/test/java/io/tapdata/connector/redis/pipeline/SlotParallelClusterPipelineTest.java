@@ -0,0 +1,180 @@
+package io.tapdata.connector.redis.pipeline;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import redis.clients.jedis.CommandArguments;
+import redis.clients.jedis.Connection;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.args.Rawable;
+import redis.clients.jedis.exceptions.JedisAskDataException;
+import redis.clients.jedis.exceptions.JedisClusterOperationException;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.exceptions.JedisMovedDataException;
+import redis.clients.jedis.providers.ClusterConnectionProvider;
+import redis.clients.jedis.util.SafeEncoder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+public class SlotParallelClusterPipelineTest {
+
+    //"bar" is in slot 5061 of node A, "foo" is in slot 12182 of node B
+    private static final HostAndPort NODE_A = new HostAndPort("10.0.0.1", 7000);
+    private static final HostAndPort NODE_B = new HostAndPort("10.0.0.2", 7000);
+    private static final byte[] OK = SafeEncoder.encode("OK");
+
+    ClusterConnectionProvider provider;
+    //commands received by each node, as "ASKING" or "GET key"
+    Map<HostAndPort, List<String>> received;
+    //reply of each node to a command, ASKING is always replied OK
+    Map<HostAndPort, Function<String, Object>> replies;
+    SlotParallelClusterPipeline pipeline;
+
+    @BeforeEach
+    void beforeEach() {
+        provider = mock(ClusterConnectionProvider.class);
+        received = new ConcurrentHashMap<>();
+        replies = new ConcurrentHashMap<>();
+        when(provider.getNode(anyInt())).thenAnswer(invocation -> invocation.<Integer>getArgument(0) < 8192 ? NODE_A : NODE_B);
+        when(provider.getConnection(any(HostAndPort.class))).thenAnswer(invocation -> new FakeConnection(invocation.getArgument(0)));
+        pipeline = new SlotParallelClusterPipeline(provider, 2);
+    }
+
+    @AfterEach
+    void afterEach() {
+        pipeline.close();
+    }
+
+    private static String text(CommandArguments args) {
+        StringBuilder text = new StringBuilder(args.getCommand().toString());
+        Iterator<Rawable> iterator = args.iterator();
+        iterator.next();
+        if (iterator.hasNext()) {
+            text.append(' ').append(SafeEncoder.encode(iterator.next().getRaw()));
+        }
+        return text.toString();
+    }
+
+    private static byte[] echo(String command) {
+        return SafeEncoder.encode(command);
+    }
+
+    @Test
+    @DisplayName("test MOVED commands are sent again to the new master and the slot cache is renewed")
+    void testMoved() {
+        AtomicBoolean migrated = new AtomicBoolean();
+        replies.put(NODE_A, command -> migrated.compareAndSet(false, true) ? new JedisMovedDataException("MOVED 5061 10.0.0.2:7000", NODE_B, 5061) : echo(command));
+        replies.put(NODE_B, SlotParallelClusterPipelineTest::echo);
+        Response<String> moved = pipeline.get("bar");
+        Response<String> kept = pipeline.get("{bar}1");
+        pipeline.syncParallel();
+        Assertions.assertEquals("GET bar", moved.get());
+        Assertions.assertEquals("GET {bar}1", kept.get());
+        Assertions.assertEquals(Arrays.asList("GET bar", "GET {bar}1"), received.get(NODE_A));
+        Assertions.assertEquals(Arrays.asList("GET bar"), received.get(NODE_B));
+        verify(provider).renewSlotCache();
+    }
+
+    @Test
+    @DisplayName("test ASK commands are sent after ASKING and get the reply of the command, not of ASKING")
+    void testAsk() {
+        replies.put(NODE_A, command -> new JedisAskDataException("ASK 5061 10.0.0.2:7000", NODE_B, 5061));
+        replies.put(NODE_B, SlotParallelClusterPipelineTest::echo);
+        List<Response<String>> responses = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            responses.add(pipeline.get("{bar}" + i));
+        }
+        pipeline.syncParallel();
+        for (int i = 1; i <= 3; i++) {
+            Assertions.assertEquals("GET {bar}" + i, responses.get(i - 1).get());
+        }
+        Assertions.assertEquals(Arrays.asList("ASKING", "GET {bar}1", "ASKING", "GET {bar}2", "ASKING", "GET {bar}3"), received.get(NODE_B));
+        verify(provider, never()).renewSlotCache();
+    }
+
+    @Test
+    @DisplayName("test redirections over the limit fail the commands and leave nothing to the next sync")
+    void testRedirectionLimit() {
+        AtomicBoolean moving = new AtomicBoolean(true);
+        replies.put(NODE_A, command -> moving.get() ? new JedisMovedDataException("MOVED 5061 10.0.0.1:7000", NODE_A, 5061) : echo(command));
+        Response<String> response = pipeline.get("bar");
+        Assertions.assertThrows(JedisClusterOperationException.class, () -> pipeline.syncParallel());
+        Assertions.assertThrows(JedisDataException.class, response::get);
+        //the first attempt and 5 redirections
+        Assertions.assertEquals(6, received.get(NODE_A).size());
+
+        moving.set(false);
+        Response<String> next = pipeline.get("{bar}2");
+        pipeline.syncParallel();
+        Assertions.assertEquals("GET {bar}2", next.get());
+    }
+
+    @Test
+    @DisplayName("test a failed master does not keep the replies of the other masters for the next sync")
+    void testFailedMaster() {
+        replies.put(NODE_A, command -> {
+            throw new JedisConnectionException("connection reset");
+        });
+        replies.put(NODE_B, SlotParallelClusterPipelineTest::echo);
+        Response<String> failed = pipeline.get("bar");
+        Response<String> replied = pipeline.get("foo");
+        Assertions.assertThrows(JedisConnectionException.class, () -> pipeline.syncParallel());
+        Assertions.assertThrows(JedisDataException.class, failed::get);
+        Assertions.assertEquals("GET foo", replied.get());
+
+        replies.put(NODE_A, SlotParallelClusterPipelineTest::echo);
+        Response<String> nextA = pipeline.get("{bar}2");
+        Response<String> nextB = pipeline.get("{foo}2");
+        pipeline.syncParallel();
+        Assertions.assertEquals("GET {bar}2", nextA.get());
+        Assertions.assertEquals("GET {foo}2", nextB.get());
+    }
+
+    //connection of a node which replies the commands sent since the last read
+    private class FakeConnection extends Connection {
+        private final HostAndPort node;
+        private final List<String> sent = new ArrayList<>();
+
+        FakeConnection(HostAndPort node) {
+            super(node);
+            this.node = node;
+        }
+
+        @Override
+        public void sendCommand(CommandArguments args) {
+            String command = text(args);
+            sent.add(command);
+            received.computeIfAbsent(node, k -> new CopyOnWriteArrayList<>()).add(command);
+        }
+
+        @Override
+        public List<Object> getMany(int count) {
+            Assertions.assertEquals(sent.size(), count);
+            List<Object> result = new ArrayList<>(count);
+            try {
+                for (String command : sent) {
+                    result.add("ASKING".equals(command) ? OK : replies.get(node).apply(command));
+                }
+            } finally {
+                sent.clear();
+            }
+            return result;
+        }
+    }
+}
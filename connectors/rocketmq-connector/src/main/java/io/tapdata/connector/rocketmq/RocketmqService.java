@@ -2,6 +2,7 @@ package io.tapdata.connector.rocketmq;
 
 import com.google.common.collect.Lists;
 import io.tapdata.common.AbstractMqService;
+import io.tapdata.common.MqBatchPusher;
 import io.tapdata.common.constant.MqOp;
 import io.tapdata.connector.rocketmq.config.RocketmqConfig;
 import io.tapdata.constant.MqTestItem;
@@ -393,68 +394,68 @@ public class RocketmqService extends AbstractMqService {
         List<List<String>> tablesList = Lists.partition(tableList, (tableList.size() - 1) / concurrency + 1);
         executorService = Executors.newFixedThreadPool(tablesList.size());
         CountDownLatch countDownLatch = new CountDownLatch(tablesList.size());
-        tablesList.forEach(tables -> executorService.submit(() -> {
-            List<TapEvent> list = TapSimplify.list();
-            Map<String, DefaultLitePullConsumer> consumerMap = new HashMap<>();
-            int err = 0;
-            while (consuming.get() && err < 10) {
-                for (String tableName : tables) {
-                    try {
-                        DefaultLitePullConsumer litePullConsumer = consumerMap.get(tableName);
-                        if (EmptyKit.isNull(litePullConsumer)) {
-                            litePullConsumer = new DefaultLitePullConsumer(((RocketmqConfig) mqConfig).getConsumerGroup(), getRPCHook());
-                            litePullConsumer.setNamesrvAddr(mqConfig.getNameSrvAddr());
-                            litePullConsumer.setConsumeFromWhere(ConsumeFromWhere.CONSUME_FROM_FIRST_OFFSET);
-                            if (EmptyKit.isNotBlank(((RocketmqConfig) mqConfig).getConsumeExpression())) {
-                                litePullConsumer.subscribe(tableName, ((RocketmqConfig) mqConfig).getConsumeExpression());
-                            } else {
-                                litePullConsumer.subscribe(tableName, "*");
+        try (MqBatchPusher<TapEvent> batchPusher = new MqBatchPusher<TapEvent>("rocketmq-stream", eventsOffsetConsumer, TapSimplify::list)
+                .batchSize(eventBatchSize).maxDelay(SINGLE_MAX_LOAD_TIMEOUT / 2).start()) {
+            tablesList.forEach(tables -> executorService.submit(() -> {
+                List<TapEvent> list = TapSimplify.list();
+                Map<String, DefaultLitePullConsumer> consumerMap = new HashMap<>();
+                int err = 0;
+                while (consuming.get() && err < 10) {
+                    for (String tableName : tables) {
+                        try {
+                            DefaultLitePullConsumer litePullConsumer = consumerMap.get(tableName);
+                            if (EmptyKit.isNull(litePullConsumer)) {
+                                litePullConsumer = new DefaultLitePullConsumer(((RocketmqConfig) mqConfig).getConsumerGroup(), getRPCHook());
+                                litePullConsumer.setNamesrvAddr(mqConfig.getNameSrvAddr());
+                                litePullConsumer.setConsumeFromWhere(ConsumeFromWhere.CONSUME_FROM_FIRST_OFFSET);
+                                if (EmptyKit.isNotBlank(((RocketmqConfig) mqConfig).getConsumeExpression())) {
+                                    litePullConsumer.subscribe(tableName, ((RocketmqConfig) mqConfig).getConsumeExpression());
+                                } else {
+                                    litePullConsumer.subscribe(tableName, "*");
+                                }
+                                try {
+                                    litePullConsumer.start();
+                                } catch (MQClientException e) {
+                                    throw new RuntimeException(e);
+                                }
+                                consumerMap.put(tableName, litePullConsumer);
                             }
-                            try {
-                                litePullConsumer.start();
-                            } catch (MQClientException e) {
-                                throw new RuntimeException(e);
+                            List<MessageExt> messageList = litePullConsumer.poll(SINGLE_MAX_LOAD_TIMEOUT / 2);
+                            if (EmptyKit.isEmpty(messageList)) {
+                                continue;
                             }
-                            consumerMap.put(tableName, litePullConsumer);
-                        }
-                        List<MessageExt> messageList = litePullConsumer.poll(SINGLE_MAX_LOAD_TIMEOUT / 2);
-                        if (EmptyKit.isEmpty(messageList)) {
-                            continue;
-                        }
-                        for (MessageExt message : messageList) {
-                            makeMessage(message, list, tableName);
-                            if (list.size() >= eventBatchSize) {
-                                eventsOffsetConsumer.accept(list, TapSimplify.list());
-                                list = TapSimplify.list();
+                            for (MessageExt message : messageList) {
+                                makeMessage(message, list, tableName);
                             }
+                            batchPusher.addAll(list, null);
+                            list.clear();
+                        } catch (Exception e) {
+                            TapLogger.error(TAG, "error occur when consume queue: {}", tableName, e);
+                            err++;
                         }
-                    } catch (Exception e) {
-                        TapLogger.error(TAG, "error occur when consume queue: {}", tableName, e);
-                        err++;
                     }
+                    TapSimplify.sleep(50);
                 }
-                TapSimplify.sleep(50);
-            }
-            if (EmptyKit.isNotEmpty(list)) {
-                eventsOffsetConsumer.accept(list, TapSimplify.list());
-            }
-            consumerMap.forEach((key, value) -> {
-                try {
-                    value.shutdown();
-                } catch (Exception e) {
-                    TapLogger.error(TAG, "error occur when shutdown consumer: {}", key, e);
+                consumerMap.forEach((key, value) -> {
+                    try {
+                        value.shutdown();
+                    } catch (Exception e) {
+                        TapLogger.error(TAG, "error occur when shutdown consumer: {}", key, e);
+                    }
+                });
+                countDownLatch.countDown();
+                if (err >= 10) {
+                    consuming.set(false);
+                    throw new RuntimeException("Stream Read error!");
                 }
-            });
-            countDownLatch.countDown();
-            if (err >= 10) {
-                consuming.set(false);
-                throw new RuntimeException("Stream Read error!");
+            }));
+            try {
+                countDownLatch.await();
+            } catch (InterruptedException e) {
+                TapLogger.error(TAG, "error occur when await", e);
             }
-        }));
-        try {
-            countDownLatch.await();
-        } catch (InterruptedException e) {
-            TapLogger.error(TAG, "error occur when await", e);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
         }
     }
 }
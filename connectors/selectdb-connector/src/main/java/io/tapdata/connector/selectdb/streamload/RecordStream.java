@@ -1,52 +0,0 @@
-package io.tapdata.connector.selectdb.streamload;
-import java.io.IOException;
-import java.io.InputStream;
-
-/**
- * Record Stream for writing record.
- */
-public class RecordStream extends InputStream {
-    private final RecordBuffer recordBuffer;
-
-    @Override
-    public int read() throws IOException {
-        return 0;
-    }
-
-    public RecordStream(int bufferSize, int bufferCount) {
-        this.recordBuffer = new RecordBuffer(bufferSize, bufferCount);
-    }
-
-    public void startInput() {
-        recordBuffer.startBufferData();
-    }
-
-    public void endInput() throws IOException {
-        recordBuffer.stopBufferData();
-    }
-
-    @Override
-    public int read(byte[] buff) throws IOException {
-        try {
-            return recordBuffer.read(buff);
-        } catch (InterruptedException e) {
-            throw new RuntimeException(e);
-        }
-    }
-
-    public void write(byte[] buff) throws IOException {
-        try {
-            recordBuffer.write(buff);
-        } catch (InterruptedException e) {
-            throw new RuntimeException(e);
-        }
-    }
-
-    public void init() {
-        recordBuffer.init();
-    }
-
-    public boolean canWrite(int length) {
-        return recordBuffer.currentBufferRemaining() > length;
-    }
-}
@@ -5,6 +5,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import io.tapdata.connector.selectdb.SelectDbJdbcContext;
 import io.tapdata.connector.selectdb.streamload.Constants;
 import io.tapdata.connector.selectdb.streamload.HttpPutBuilder;
+import io.tapdata.connector.streamload.StreamLoadPayload;
 import io.tapdata.entity.error.CoreException;
 import io.tapdata.entity.logger.TapLogger;
 import io.tapdata.entity.schema.TapTable;
@@ -21,7 +22,6 @@ import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.client.HttpClients;
 import org.apache.http.util.EntityUtils;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.rmi.server.ExportException;
@@ -62,7 +62,7 @@ public class CopyIntoUtils {
         selectdbHttp = String.format("%s:%s", connectionConfig.getString("host"), connectionConfig.getString("selectDbHttp"));
     }
 
-    public void upload(String uuid, byte[] bytes,TapTable table) throws IOException {
+    public void upload(String uuid, StreamLoadPayload payload, TapTable table) throws IOException {
         if (selectdbHttp == null) {
             throw new RuntimeException("load_url cannot be empty, or the host cannot connect.Please check your configuration.");
         }
@@ -71,7 +71,7 @@ public class CopyIntoUtils {
         uuidName = uploadUuidName;
         String location = getUploadAddress(uploadLoadUrl, uuidName);
         tableName = table.getId();
-        put(location, uuidName, bytes);
+        put(location, uuidName, payload);
     }
 
     public BaseResponse copyInto() throws IOException {
@@ -176,13 +176,13 @@ public class CopyIntoUtils {
         }
     }
 
-    public String put(String loadUrl, String fileName, byte[] data) throws IOException {
+    public String put(String loadUrl, String fileName, StreamLoadPayload payload) throws IOException {
 
         HttpPutBuilder putBuilder = new HttpPutBuilder();
         putBuilder.setUrl(loadUrl)
                 .addCommonHeader()
                 .addFileName(fileName)
-                .setEntity(new InputStreamEntity(new ByteArrayInputStream(data)));
+                .setEntity(new InputStreamEntity(payload.newInputStream(), payload.size()));
         CloseableHttpResponse response = httpClientBuilder.build().execute(putBuilder.build());
         final int statusCode = response.getStatusLine().getStatusCode();
         if (statusCode >= 200 && statusCode < 300) {
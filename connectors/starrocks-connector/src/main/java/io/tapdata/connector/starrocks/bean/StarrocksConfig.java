@@ -37,6 +37,15 @@ public class StarrocksConfig extends CommonDbConfig {
     // 新增配置：每分钟写入限制（MB，0表示不限制）
     private Integer minuteLimitMB = 0;
 
+    // 每张表同时进行的 stream load 数量
+    private Integer streamLoadConcurrency = 2;
+
+    // stream load 请求体压缩：none、gzip、lz4
+    private String streamLoadCompression = "none";
+
+    // 所有表批次缓存可占用的堆外内存（MB），超出后溢出到磁盘
+    private Integer memoryBufferMB = 256;
+
     //customize
     public StarrocksConfig() {
         setDbType("starrocks");
@@ -194,4 +203,28 @@ public class StarrocksConfig extends CommonDbConfig {
     public void setMinuteLimitMB(Integer minuteLimitMB) {
         this.minuteLimitMB = minuteLimitMB;
     }
+
+    public Integer getStreamLoadConcurrency() {
+        return streamLoadConcurrency;
+    }
+
+    public void setStreamLoadConcurrency(Integer streamLoadConcurrency) {
+        this.streamLoadConcurrency = streamLoadConcurrency;
+    }
+
+    public String getStreamLoadCompression() {
+        return streamLoadCompression;
+    }
+
+    public void setStreamLoadCompression(String streamLoadCompression) {
+        this.streamLoadCompression = streamLoadCompression;
+    }
+
+    public Integer getMemoryBufferMB() {
+        return memoryBufferMB;
+    }
+
+    public void setMemoryBufferMB(Integer memoryBufferMB) {
+        this.memoryBufferMB = memoryBufferMB;
+    }
 }
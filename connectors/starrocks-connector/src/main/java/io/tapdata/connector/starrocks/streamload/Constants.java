@@ -11,6 +11,7 @@ public class Constants {
     public static final String NULL_VALUE = "\\N";
     public static final int CACHE_BUFFER_SIZE = 100 * 1024 * 1024;
     public static final int CACHE_BUFFER_COUNT = 3;
+    public static final int SPILL_BUFFER_SIZE = 1024 * 1024;
 
     public static void main(String[] args) {
         System.out.println(FIELD_DELIMITER_DEFAULT);
@@ -0,0 +1,190 @@
+package io.tapdata.connector.starrocks.streamload;
+
+import io.tapdata.connector.streamload.DirectBufferPool;
+import io.tapdata.connector.streamload.StreamLoadBody;
+import io.tapdata.connector.streamload.StreamLoadPayload;
+import io.tapdata.entity.logger.TapLogger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单张表一个批次的数据：先写入堆外内存，所有表共享的内存预算用完后才溢出到文件
+ * 一旦溢出，该批次后续的数据都追加到溢出文件，保证数据顺序
+ * 溢出文件通过 FileChannel 读写，不做内存映射，释放时可以直接删除
+ */
+public class SpillableLoadBody implements StreamLoadPayload {
+    private static final String TAG = SpillableLoadBody.class.getSimpleName();
+
+    private final String tableName;
+    private final AtomicLong memoryUsed;
+    private final long memoryLimit;
+    private final Path spillDir;
+    private final int spillBufferSize;
+
+    private final StreamLoadBody memoryBody;
+    private Path spillFile;
+    private FileChannel spillChannel;
+    private ByteBuffer spillBuffer;
+    private long memoryBytes;
+    private long size;
+    private boolean sealed;
+    private boolean released;
+
+    /**
+     * @param memoryUsed      所有表已占用的内存字节数
+     * @param memoryLimit     所有表可占用的内存字节数
+     * @param spillBufferSize 溢出时攒够该大小再写入文件
+     */
+    public SpillableLoadBody(String tableName, AtomicLong memoryUsed, long memoryLimit, Path spillDir, int spillBufferSize) {
+        this.tableName = tableName;
+        this.memoryUsed = memoryUsed;
+        this.memoryLimit = memoryLimit;
+        this.spillDir = spillDir;
+        this.spillBufferSize = spillBufferSize;
+        this.memoryBody = new StreamLoadBody(DirectBufferPool.shared(), Long.MAX_VALUE);
+    }
+
+    public void write(byte[] bytes) throws IOException {
+        if (sealed) {
+            throw new IllegalStateException("Load body of table " + tableName + " is sealed");
+        }
+        if (null == spillFile && reserve(bytes.length)) {
+            memoryBody.write(bytes);
+            memoryBytes += bytes.length;
+        } else {
+            spill(bytes);
+        }
+        size += bytes.length;
+    }
+
+    private boolean reserve(int length) {
+        long used;
+        do {
+            used = memoryUsed.get();
+            if (used + length > memoryLimit) {
+                return false;
+            }
+        } while (!memoryUsed.compareAndSet(used, used + length));
+        return true;
+    }
+
+    private void spill(byte[] bytes) throws IOException {
+        if (null == spillFile) {
+            openSpillFile();
+        }
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (!spillBuffer.hasRemaining()) {
+                drainSpillBuffer();
+            }
+            int n = Math.min(bytes.length - offset, spillBuffer.remaining());
+            spillBuffer.put(bytes, offset, n);
+            offset += n;
+        }
+    }
+
+    private void openSpillFile() throws IOException {
+        if (!Files.exists(spillDir)) {
+            Files.createDirectories(spillDir);
+        }
+        Path file = Files.createTempFile(spillDir, "starrocks-spill-", ".seg");
+        try {
+            spillChannel = FileChannel.open(file, StandardOpenOption.WRITE);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        spillFile = file;
+        spillBuffer = ByteBuffer.allocate(spillBufferSize);
+        TapLogger.info(TAG, "Memory buffer is full ({} bytes used), table {} spills to {}", memoryUsed.get(), tableName, file);
+    }
+
+    private void drainSpillBuffer() throws IOException {
+        spillBuffer.flip();
+        while (spillBuffer.hasRemaining()) {
+            spillChannel.write(spillBuffer);
+        }
+        spillBuffer.clear();
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long getMemoryBytes() {
+        return memoryBytes;
+    }
+
+    public boolean isSpilled() {
+        return null != spillFile;
+    }
+
+    public SpillableLoadBody seal() throws IOException {
+        if (!sealed) {
+            memoryBody.seal();
+            if (null != spillChannel) {
+                drainSpillBuffer();
+                spillChannel.close();
+                spillChannel = null;
+                spillBuffer = null;
+            }
+            sealed = true;
+        }
+        return this;
+    }
+
+    @Override
+    public InputStream newInputStream() throws IOException {
+        seal();
+        InputStream memoryStream = memoryBody.newInputStream();
+        if (null == spillFile) {
+            return memoryStream;
+        }
+        //每个读取流打开自己的文件句柄，读完或关闭时随流关闭
+        return new SequenceInputStream(memoryStream, Channels.newInputStream(FileChannel.open(spillFile, StandardOpenOption.READ)));
+    }
+
+    /**
+     * 归还内存预算并删除溢出文件，可以重复调用
+     */
+    @Override
+    public void release() {
+        if (released) {
+            return;
+        }
+        released = true;
+        memoryBody.release();
+        memoryUsed.addAndGet(-memoryBytes);
+        memoryBytes = 0;
+        if (null != spillChannel) {
+            try {
+                spillChannel.close();
+            } catch (IOException e) {
+                TapLogger.warn(TAG, "Failed to close spill file {}: {}", spillFile, e.getMessage());
+            }
+            spillChannel = null;
+            spillBuffer = null;
+        }
+        if (null != spillFile) {
+            try {
+                Files.deleteIfExists(spillFile);
+            } catch (IOException e) {
+                TapLogger.warn(TAG, "Failed to delete spill file {}: {}", spillFile, e.getMessage());
+            }
+        }
+    }
+}
@@ -8,6 +8,10 @@ import io.tapdata.connector.starrocks.streamload.exception.StarrocksRuntimeExcep
 import io.tapdata.connector.starrocks.streamload.exception.StreamLoadException;
 import io.tapdata.connector.starrocks.streamload.rest.models.RespContent;
 import io.tapdata.connector.starrocks.util.MinuteWriteLimiter;
+import io.tapdata.connector.streamload.StreamLoadCompression;
+import io.tapdata.connector.streamload.StreamLoadEngine;
+import io.tapdata.connector.streamload.StreamLoadHandler;
+import io.tapdata.connector.streamload.StreamLoadLabel;
 import io.tapdata.entity.event.dml.TapDeleteRecordEvent;
 import io.tapdata.entity.event.dml.TapInsertRecordEvent;
 import io.tapdata.entity.event.dml.TapRecordEvent;
@@ -16,21 +20,24 @@ import io.tapdata.entity.logger.TapLogger;
 import io.tapdata.entity.schema.TapTable;
 import io.tapdata.pdk.apis.entity.WriteListResult;
 import org.apache.commons.collections4.CollectionUtils;
+import org.apache.http.HttpEntity;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPut;
-import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.entity.AbstractHttpEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.util.EntityUtils;
 
 import java.io.*;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Consumer;
 
 import static io.tapdata.base.ConnectorBase.writeListResult;
@@ -45,13 +52,13 @@ public class StarrocksStreamLoader {
 
     private static final String HTTPS_LOAD_URL_PATTERN = "https://%s/api/%s/%s/_stream_load";
     private static final String HTTP_LOAD_URL_PATTERN = "http://%s/api/%s/%s/_stream_load";
-    private static final String LABEL_PREFIX_PATTERN = "tapdata_%s_%s";
 
     private final StarrocksConfig StarrocksConfig;
     private final CloseableHttpClient httpClient;
-    private final RecordStream recordStream;
-
-    private boolean loadBatchFirstRecord;
+    private final StreamLoadEngine streamLoadEngine;
+    private final int bodyLimit;
+    // 缓存文件中含有更新或删除的表，这些表的 load 需要按顺序执行
+    private final Set<String> changedTables;
     // 改为按表存储dataColumns
     private final Map<String, Set<String>> dataColumnsByTable;
     private MessageSerializer messageSerializer;
@@ -59,27 +66,29 @@ public class StarrocksStreamLoader {
     private final Metrics metrics;
 
     // 新增字段：时间和大小控制
-    private long lastFlushTime;
+    private volatile long lastFlushTime;
     private final long taskStartTime; // 任务启动时间，用作新表的默认刷新时间
     private final Map<String, Long> currentBatchSizeByTable; // 改为按表管理
     private final Map<String, Long> lastFlushTimeByTable; // 按表管理刷新时间
     private final MinuteWriteLimiter minuteWriteLimiter;
 
-    // 文件缓存相关字段 - 改为按表管理
-    private final Map<String, Path> tempCacheFilesByTable;
-    private final Map<String, FileOutputStream> cacheFileStreamsByTable;
-    private final Map<String, Boolean> isFirstRecordByTable;
+    // 按表缓存的批次数据，先放堆外内存，内存预算用完后溢出到文件
+    private final Map<String, SpillableLoadBody> loadBodiesByTable;
+    private final AtomicLong memoryUsed;
+    private final long memoryLimit;
+    private final Path spillDir;
+    private final AtomicBoolean relievingMemory;
     private final Set<String> pendingFlushTables; // 记录还没有flush的表
 
     // 表名到 TapTable 的映射，用于刷新时获取真正的 TapTable
     private final Map<String, TapTable> tableNameToTapTableMap;
 
     // 日志打印控制
-    private long lastLogTime;
+    private volatile long lastLogTime;
     private static final long LOG_INTERVAL_MS = 30 * 1000; // 30秒
 
-    // 线程安全和定时刷新
-    private final Object writeLock = new Object();
+    // 线程安全和定时刷新：按表加锁，不同表的写入和刷新互不阻塞
+    private final Map<String, ReentrantLock> tableLocks;
     private ScheduledExecutorService flushScheduler;
     private ScheduledFuture<?> flushTask;
 
@@ -96,8 +105,11 @@ public class StarrocksStreamLoader {
         } else {
             writeByteBufferCapacity = writeByteBufferCapacity * 1024;
         }
-        this.recordStream = new RecordStream(writeByteBufferCapacity, Constants.CACHE_BUFFER_COUNT);
-        this.loadBatchFirstRecord = true;
+        this.bodyLimit = writeByteBufferCapacity;
+        this.changedTables = ConcurrentHashMap.newKeySet();
+        this.streamLoadEngine = new StreamLoadEngine(TAG, httpClient, Optional.ofNullable(StarrocksConfig.getStreamLoadConcurrency()).orElse(1))
+                .compression(StreamLoadCompression.fromValue(StarrocksConfig.getStreamLoadCompression()))
+                .checkpointInterval(StarrocksConfig.getFlushTimeoutSeconds() * 1000L);
         this.dataColumnsByTable = new ConcurrentHashMap<>();
         initMessageSerializer();
         this.metrics = new Metrics();
@@ -110,12 +122,15 @@ public class StarrocksStreamLoader {
         this.minuteWriteLimiter = new MinuteWriteLimiter(StarrocksConfig.getMinuteLimitMB());
         this.lastLogTime = this.taskStartTime;
 
-        // 初始化文件缓存相关的Map
-        this.tempCacheFilesByTable = new ConcurrentHashMap<>();
-        this.cacheFileStreamsByTable = new ConcurrentHashMap<>();
-        this.isFirstRecordByTable = new ConcurrentHashMap<>();
+        // 初始化批次缓存相关的Map
+        this.loadBodiesByTable = new ConcurrentHashMap<>();
+        this.memoryUsed = new AtomicLong();
+        this.memoryLimit = Optional.ofNullable(StarrocksConfig.getMemoryBufferMB()).orElse(256) * 1024L * 1024L;
+        this.spillDir = Paths.get(System.getProperty("java.io.tmpdir"), "starrocks-cache");
+        this.relievingMemory = new AtomicBoolean();
         this.pendingFlushTables = ConcurrentHashMap.newKeySet();
         this.tableNameToTapTableMap = new ConcurrentHashMap<>();
+        this.tableLocks = new ConcurrentHashMap<>();
 
         // 初始化定时刷新
         initializeFlushScheduler();
@@ -135,41 +150,21 @@ public class StarrocksStreamLoader {
     }
 
     /**
-     * 为指定表初始化缓存文件
+     * 为指定表初始化批次缓存
      */
-    private void initializeCacheFileForTable(String tableName) {
-        try {
-            // 内存监控：检查内存使用情况
-            checkMemoryUsage(tableName);
+    private void initializeLoadBodyForTable(String tableName) {
+        // 内存监控：检查内存使用情况
+        checkMemoryUsage(tableName);
 
-            // 先清理该表的现有资源（如果存在）
-            cleanupCacheFileForTable(tableName);
-
-            // 创建临时目录
-            Path tempDir = Paths.get(System.getProperty("java.io.tmpdir"), "starrocks-cache");
-            if (!Files.exists(tempDir)) {
-                Files.createDirectories(tempDir);
-            }
+        // 先清理该表的现有资源（如果存在）
+        cleanupLoadBodyForTable(tableName);
 
-            // 创建临时缓存文件，使用简化的文件名避免过多对象创建
-            long timestamp = System.currentTimeMillis();
-            long threadId = Thread.currentThread().getId();
-            String fileName = String.format("starrocks-cache-%s-%d-%d.tmp", tableName, threadId, timestamp);
-            Path tempCacheFile = tempDir.resolve(fileName);
-
-            // 初始化文件输出流
-            FileOutputStream cacheFileStream = new FileOutputStream(tempCacheFile.toFile());
-
-            // 存储到Map中
-            tempCacheFilesByTable.put(tableName, tempCacheFile);
-            cacheFileStreamsByTable.put(tableName, cacheFileStream);
-            isFirstRecordByTable.put(tableName, true);
+        loadBodiesByTable.put(tableName, new SpillableLoadBody(tableName, memoryUsed, memoryLimit, spillDir, Constants.SPILL_BUFFER_SIZE));
+        TapLogger.debug(TAG, "Initialized load body for table {}, memory used: {}/{}", tableName, formatBytes(memoryUsed.get()), formatBytes(memoryLimit));
+    }
 
-            TapLogger.debug(TAG, "Initialized cache file for table {}: {}", tableName, tempCacheFile.toString());
-        } catch (IOException e) {
-            TapLogger.error(TAG, "Failed to initialize cache file for table {}: {}", tableName, e.getMessage());
-            throw new StarrocksRuntimeException("Failed to initialize cache file for table " + tableName, e);
-        }
+    private ReentrantLock tableLock(String tableName) {
+        return tableLocks.computeIfAbsent(tableName, t -> new ReentrantLock());
     }
 
     /**
@@ -217,11 +212,12 @@ public class StarrocksStreamLoader {
 
             double memoryUsagePercent = (double) usedMemory / maxMemory * 100;
 
-            TapLogger.info(TAG, "Memory usage: {}% ({}/{} MB), active tables: {}",
+            TapLogger.info(TAG, "Memory usage: {}% ({}/{} MB), active tables: {}, load buffer: {}/{}",
                 String.format("%.1f", memoryUsagePercent),
                 usedMemory / 1024 / 1024,
                 maxMemory / 1024 / 1024,
-                tempCacheFilesByTable.size());
+                loadBodiesByTable.size(),
+                formatBytes(memoryUsed.get()), formatBytes(memoryLimit));
 
             // 如果内存使用率超过80%，强制垃圾回收
             if (memoryUsagePercent > 80) {
@@ -255,54 +251,52 @@ public class StarrocksStreamLoader {
     }
 
     /**
-     * 检查并在需要时执行刷新 - 检查所有表的未刷新文件
+     * 检查并在需要时执行刷新 - 检查所有表的未刷新数据
      */
     private void checkAndFlushIfNeeded() {
-        synchronized (writeLock) {
-            if (pendingFlushTables.isEmpty()) {
-                return; // 没有数据需要刷新
-            }
+        if (pendingFlushTables.isEmpty()) {
+            return; // 没有数据需要刷新
+        }
 
-            long currentTime = System.currentTimeMillis();
-            long flushTimeoutMs = StarrocksConfig.getFlushTimeoutSeconds() * 1000L;
-            long flushSizeBytes = StarrocksConfig.getFlushSizeMB() * 1024L * 1024L;
-
-            // 检查每个表是否需要刷新
-            Set<String> tablesToFlush = new HashSet<>();
-
-            for (String tableName : new HashSet<>(pendingFlushTables)) {
-                long tableLastFlushTime = getTableLastFlushTime(tableName);
-                long timeSinceLastFlush = currentTime - tableLastFlushTime;
-                long tableSize = getTableBatchSize(tableName);
-
-                boolean timeoutReached = timeSinceLastFlush >= flushTimeoutMs;
-                boolean sizeReached = tableSize >= flushSizeBytes;
-
-                if (timeoutReached || sizeReached) {
-                    tablesToFlush.add(tableName);
-                    String reason = sizeReached ? "size_threshold" : "timeout";
-                    TapLogger.info(TAG, "Table {} scheduled flush triggered by {}: table_size={}, " +
-                        "waiting_time={} ms, timeout_threshold={} ms",
-                        tableName, reason, formatBytes(tableSize), timeSinceLastFlush, flushTimeoutMs);
-                }
+        long currentTime = System.currentTimeMillis();
+        long flushTimeoutMs = StarrocksConfig.getFlushTimeoutSeconds() * 1000L;
+        long flushSizeBytes = StarrocksConfig.getFlushSizeMB() * 1024L * 1024L;
+
+        // 检查每个表是否需要刷新
+        Set<String> tablesToFlush = new HashSet<>();
+
+        for (String tableName : new HashSet<>(pendingFlushTables)) {
+            long tableLastFlushTime = getTableLastFlushTime(tableName);
+            long timeSinceLastFlush = currentTime - tableLastFlushTime;
+            long tableSize = getTableBatchSize(tableName);
+
+            boolean timeoutReached = timeSinceLastFlush >= flushTimeoutMs;
+            boolean sizeReached = tableSize >= flushSizeBytes;
+
+            if (timeoutReached || sizeReached) {
+                tablesToFlush.add(tableName);
+                String reason = sizeReached ? "size_threshold" : "timeout";
+                TapLogger.info(TAG, "Table {} scheduled flush triggered by {}: table_size={}, " +
+                    "waiting_time={} ms, timeout_threshold={} ms",
+                    tableName, reason, formatBytes(tableSize), timeSinceLastFlush, flushTimeoutMs);
             }
+        }
 
-            // 刷新需要刷新的表
-            if (!tablesToFlush.isEmpty()) {
-                try {
-                    TapLogger.info(TAG, "Scheduled flush: {} tables to flush, total_size={}, {}",
-                        tablesToFlush.size(), formatBytes(getTotalBatchSize()), metrics.getCachedInfo());
+        // 刷新需要刷新的表
+        if (!tablesToFlush.isEmpty()) {
+            try {
+                TapLogger.info(TAG, "Scheduled flush: {} tables to flush, total_size={}, {}",
+                    tablesToFlush.size(), formatBytes(getTotalBatchSize()), metrics.getCachedInfo());
 
-                    flushSpecificTables(tablesToFlush);
-                } catch (Exception e) {
-                    TapLogger.error(TAG, "Failed to execute scheduled flush: {}", e.getMessage());
-                }
+                flushSpecificTables(tablesToFlush);
+            } catch (Exception e) {
+                TapLogger.error(TAG, "Failed to execute scheduled flush: {}", e.getMessage());
             }
         }
     }
 
     /**
-     * 刷新指定的表
+     * 刷新指定的表，正在写入的表跳过，由写线程自己判断刷新
      */
     private void flushSpecificTables(Set<String> tablesToFlush) throws StarrocksRetryableException {
         TapLogger.info(TAG, "=== Specific Tables Flush Started ===");
@@ -310,30 +304,15 @@ public class StarrocksStreamLoader {
         TapLogger.info(TAG, "====================================");
 
         for (String tableName : tablesToFlush) {
+            ReentrantLock lock = tableLock(tableName);
+            if (!lock.tryLock()) {
+                TapLogger.debug(TAG, "Table {} is being written, skip scheduled flush", tableName);
+                continue;
+            }
             try {
-                // 检查该表是否有缓存文件需要刷新
-                if (tempCacheFilesByTable.containsKey(tableName)) {
-                    // 从映射中获取真正的 TapTable
-                    TapTable realTable = tableNameToTapTableMap.get(tableName);
-                    if (realTable != null) {
-                        Path cacheFile = tempCacheFilesByTable.get(tableName);
-                        long tableSize = getTableBatchSize(tableName);
-
-                        TapLogger.info(TAG, "Flushing table {} with cache file {} (size: {})",
-                            tableName, cacheFile != null ? cacheFile.toString() : "unknown", formatBytes(tableSize));
-
-                        RespContent respContent = flushTable(tableName, realTable);
-                        if (respContent != null) {
-                            TapLogger.info(TAG, "Successfully flushed table {} during specific flush", tableName);
-                        }
-                    } else {
-                        TapLogger.warn(TAG, "Cannot flush table {} - no TapTable found in mapping", tableName);
-                    }
-                } else {
-                    TapLogger.debug(TAG, "Table {} has no cache file to flush", tableName);
-                }
-            } catch (Exception e) {
-                TapLogger.error(TAG, "Failed to flush table {} during specific flush: {}", tableName, e.getMessage());
+                flushPendingTable(tableName, "specific");
+            } finally {
+                lock.unlock();
             }
         }
 
@@ -360,30 +339,12 @@ public class StarrocksStreamLoader {
         TapLogger.info(TAG, "===============================");
 
         for (String tableName : tablesToFlush) {
+            ReentrantLock lock = tableLock(tableName);
+            lock.lock();
             try {
-                // 检查该表是否有缓存文件需要刷新
-                if (tempCacheFilesByTable.containsKey(tableName)) {
-                    // 从映射中获取真正的 TapTable
-                    TapTable realTable = tableNameToTapTableMap.get(tableName);
-                    if (realTable != null) {
-                        Path cacheFile = tempCacheFilesByTable.get(tableName);
-                        long tableSize = getTableBatchSize(tableName);
-
-                        TapLogger.info(TAG, "Flushing table {} with cache file {} (size: {})",
-                            tableName, cacheFile != null ? cacheFile.toString() : "unknown", formatBytes(tableSize));
-
-                        RespContent respContent = flushTable(tableName, realTable);
-                        if (respContent != null) {
-                            TapLogger.info(TAG, "Successfully flushed table {} during scheduled flush", tableName);
-                        }
-                    } else {
-                        TapLogger.warn(TAG, "Cannot flush table {} - no TapTable found in mapping", tableName);
-                    }
-                } else {
-                    TapLogger.debug(TAG, "Table {} has no cache file to flush", tableName);
-                }
-            } catch (Exception e) {
-                TapLogger.error(TAG, "Failed to flush table {} during scheduled flush: {}", tableName, e.getMessage());
+                flushPendingTable(tableName, "scheduled");
+            } finally {
+                lock.unlock();
             }
         }
 
@@ -398,26 +359,79 @@ public class StarrocksStreamLoader {
         }
     }
 
+    /**
+     * 持有表锁时调用
+     */
+    private void flushPendingTable(String tableName, String flushType) {
+        try {
+            // 检查该表是否有缓存数据需要刷新
+            SpillableLoadBody loadBody = loadBodiesByTable.get(tableName);
+            if (loadBody != null) {
+                // 从映射中获取真正的 TapTable
+                TapTable realTable = tableNameToTapTableMap.get(tableName);
+                if (realTable != null) {
+                    TapLogger.info(TAG, "Flushing table {} (size: {}, spilled: {})",
+                        tableName, formatBytes(getTableBatchSize(tableName)), loadBody.isSpilled());
+
+                    flushTable(tableName, realTable);
+                } else {
+                    TapLogger.warn(TAG, "Cannot flush table {} - no TapTable found in mapping", tableName);
+                }
+            } else {
+                TapLogger.debug(TAG, "Table {} has no cached data to flush", tableName);
+            }
+        } catch (Exception e) {
+            TapLogger.error(TAG, "Failed to flush table {} during {} flush: {}", tableName, flushType, e.getMessage());
+        }
+    }
 
+    /**
+     * 内存预算用完时在刷新调度线程上刷新占用内存最多的表，让其他表的数据回到内存中
+     */
+    private void relieveMemoryPressure() {
+        try {
+            loadBodiesByTable.entrySet().stream()
+                .filter(entry -> entry.getValue().getMemoryBytes() > 0)
+                .max(Comparator.comparingLong(entry -> entry.getValue().getMemoryBytes()))
+                .map(Map.Entry::getKey)
+                .ifPresent(tableName -> {
+                    ReentrantLock lock = tableLock(tableName);
+                    if (lock.tryLock()) {
+                        try {
+                            TapLogger.info(TAG, "Load buffer is full ({}/{}), flush table {} to release memory",
+                                formatBytes(memoryUsed.get()), formatBytes(memoryLimit), tableName);
+                            flushPendingTable(tableName, "memory_pressure");
+                        } finally {
+                            lock.unlock();
+                        }
+                    }
+                });
+        } finally {
+            relievingMemory.set(false);
+        }
+    }
 
     public void writeRecord(final List<TapRecordEvent> tapRecordEvents, final TapTable table, Consumer<WriteListResult<TapRecordEvent>> writeListResultConsumer) throws Throwable {
-        synchronized (writeLock) {
-            try {
-                WriteListResult<TapRecordEvent> listResult = writeListResult();
-                this.tapTable = table;
-                String tableName = table.getId();
-                boolean isAgg = StarrocksTableType.Aggregate.toString().equals(StarrocksConfig.getUniqueKeyType());
-
-                // 将 TapTable 存储到映射中，用于后续刷新时使用
-                tableNameToTapTableMap.put(tableName, table);
-
-                // 确保该表有缓存文件
-                if (!tempCacheFilesByTable.containsKey(tableName)) {
-                    TapLogger.info(TAG, "Initializing cache file for new table: {}", tableName);
-                    initializeCacheFileForTable(tableName);
-                }
+        WriteListResult<TapRecordEvent> listResult = writeListResult();
+        this.tapTable = table;
+        String tableName = table.getId();
+        boolean isAgg = StarrocksTableType.Aggregate.toString().equals(StarrocksConfig.getUniqueKeyType());
+
+        // 将 TapTable 存储到映射中，用于后续刷新时使用
+        tableNameToTapTableMap.put(tableName, table);
+
+        ReentrantLock lock = tableLock(tableName);
+        lock.lock();
+        try {
+            // 之前异步提交的 load 失败时尽早抛出
+            streamLoadEngine.throwIfFailed(tableName);
+
+            // 确保该表有批次缓存
+            if (!loadBodiesByTable.containsKey(tableName)) {
+                TapLogger.info(TAG, "Initializing load body for new table: {}", tableName);
+                initializeLoadBodyForTable(tableName);
+            }
 
-            long batchStartSize = getTotalBatchSize();
             int processedEvents = 0;
             long batchDataSize = 0;
 
@@ -455,13 +469,16 @@ public class StarrocksStreamLoader {
                 if (needStartLoad) {
                     startLoad(tapRecordEvent, tableName);
                 }
-                writeToCacheFile(bytes, tableName);
+                writeToLoadBody(bytes, tableName);
 
                 // 更新该表的批次大小
                 currentBatchSizeByTable.put(tableName, getTableBatchSize(tableName) + bytes.length);
 
                 // 将该表标记为待刷新
                 pendingFlushTables.add(tableName);
+                if (!(tapRecordEvent instanceof TapInsertRecordEvent)) {
+                    changedTables.add(tableName);
+                }
 
                 // 直接统计到listResult
                 if (tapRecordEvent instanceof TapInsertRecordEvent) {
@@ -488,80 +505,62 @@ public class StarrocksStreamLoader {
                 lastLogTime = currentTime;
                 flushTable(tableName, table);
             }
-                writeListResultConsumer.accept(listResult);
-            } catch (Throwable e) {
-                recordStream.init();
-                throw e;
-            }
-        }
-    }
 
-    public void writeRecord(byte[] record) throws IOException {
-        if (loadBatchFirstRecord) {
-            loadBatchFirstRecord = false;
-        } else {
-            recordStream.write(messageSerializer.lineEnd());
+            // 到达该表的 checkpoint 时刷新并等待该表已提交的 load 全部完成，上报的批次最多晚一个刷新周期提交
+            if (streamLoadEngine.isCheckpointDue(tableName)) {
+                flushTable(tableName, table);
+                streamLoadEngine.await(tableName);
+            }
+        } finally {
+            lock.unlock();
         }
-        recordStream.write(record);
+        writeListResultConsumer.accept(listResult);
     }
 
     /**
-     * 将数据写入指定表的缓存文件
+     * 将数据写入指定表的批次缓存
      */
-    private void writeToCacheFile(byte[] data, String tableName) throws IOException {
-        try {
-            FileOutputStream cacheFileStream = cacheFileStreamsByTable.get(tableName);
-            if (cacheFileStream == null) {
-                // 缓存文件流不存在，可能是被清理了，重新初始化
-                TapLogger.warn(TAG, "Cache file stream not found for table {}, reinitializing...", tableName);
-                initializeCacheFileForTable(tableName);
-                cacheFileStream = cacheFileStreamsByTable.get(tableName);
-
-                if (cacheFileStream == null) {
-                    throw new IOException("Failed to reinitialize cache file stream for table: " + tableName);
-                }
-            }
+    private void writeToLoadBody(byte[] data, String tableName) throws IOException {
+        SpillableLoadBody loadBody = loadBodiesByTable.get(tableName);
+        if (loadBody == null) {
+            // 批次缓存不存在，可能是被清理了，重新初始化
+            TapLogger.warn(TAG, "Load body not found for table {}, reinitializing...", tableName);
+            initializeLoadBodyForTable(tableName);
+            loadBody = loadBodiesByTable.get(tableName);
+        }
 
-            Boolean isFirstRecord = isFirstRecordByTable.get(tableName);
-            if (isFirstRecord == null) {
-                isFirstRecord = true;
-            }
+        boolean spilled = loadBody.isSpilled();
+        if (loadBody.isEmpty()) {
+            // 写入批次开始标记
+            loadBody.write(messageSerializer.batchStart());
+        } else {
+            // 写入分隔符
+            loadBody.write(messageSerializer.lineEnd());
+        }
+        // 写入实际数据
+        loadBody.write(data);
 
-            if (!isFirstRecord) {
-                // 写入分隔符
-                cacheFileStream.write(messageSerializer.lineEnd());
-            } else {
-                // 写入批次开始标记
-                cacheFileStream.write(messageSerializer.batchStart());
-                isFirstRecordByTable.put(tableName, false);
+        // 该表开始溢出到文件，让调度线程刷新占用内存最多的表
+        if (!spilled && loadBody.isSpilled() && null != flushScheduler && relievingMemory.compareAndSet(false, true)) {
+            try {
+                flushScheduler.execute(this::relieveMemoryPressure);
+            } catch (RejectedExecutionException e) {
+                relievingMemory.set(false);
             }
-            // 写入实际数据
-            cacheFileStream.write(data);
-            cacheFileStream.flush(); // 确保数据写入磁盘
-
-            TapLogger.debug(TAG, "Written {} bytes to cache file for table {}", data.length, tableName);
-        } catch (IOException e) {
-            TapLogger.error(TAG, "Failed to write to cache file for table {}: {}", tableName, e.getMessage());
-            throw e;
         }
     }
 
     public void startLoad(final TapRecordEvent recordEvent, String tableName) throws IOException {
-        recordStream.startInput();
-
-        // 确保该表有缓存文件
-        if (!tempCacheFilesByTable.containsKey(tableName)) {
-            TapLogger.info(TAG, "Initializing cache file for table {} in startLoad", tableName);
-            initializeCacheFileForTable(tableName);
+        // 确保该表有批次缓存
+        if (!loadBodiesByTable.containsKey(tableName)) {
+            TapLogger.info(TAG, "Initializing load body for table {} in startLoad", tableName);
+            initializeLoadBodyForTable(tableName);
         }
 
         // 为指定表设置dataColumns
         Set<String> newDataColumns = getDataColumns(recordEvent);
         dataColumnsByTable.put(tableName, newDataColumns);
 
-        loadBatchFirstRecord = true;
-        isFirstRecordByTable.put(tableName, true); // 重置该表的文件记录标志
-
         TapLogger.info(TAG, "Started new load batch for table {} with operation: {}, dataColumns: {}",
             tableName, OperationType.getOperationFlag(recordEvent), newDataColumns);
     }
@@ -587,208 +586,38 @@ public class StarrocksStreamLoader {
         return columns;
     }
 
-    public RespContent put(final TapTable table) throws StreamLoadException, StarrocksRetryableException {
-        StarrocksConfig.WriteFormat writeFormat = StarrocksConfig.getWriteFormatEnum();
-        try {
-            final String loadUrl = buildLoadUrl(StarrocksConfig.getStarrocksHttp(), StarrocksConfig.getDatabase(), table.getId());
-            final String prefix = buildPrefix(table.getId());
-            String tableName = table.getId();
-
-            String label = prefix + "-" + UUID.randomUUID();
-            List<String> columns = new ArrayList<>();
-
-            // 获取该表的dataColumns
-            Set<String> tableDataColumns = dataColumnsByTable.get(tableName);
-            if (tableDataColumns == null) {
-                tableDataColumns = Collections.emptySet();
-            }
-
-            // 打印调试信息 - put方法
-            TapLogger.info(TAG, "[PUT] Building columns for table {}: tableDataColumns={}, table.getNameFieldMap().keySet()={}, uniqueKeyType={}",
-                tableName, tableDataColumns, table.getNameFieldMap().keySet(), StarrocksConfig.getUniqueKeyType());
-
-            for (String col : table.getNameFieldMap().keySet()) {
-                boolean isInDataColumns = tableDataColumns.contains(col);
-                boolean isAggregateType = StarrocksTableType.Aggregate.toString().equals(StarrocksConfig.getUniqueKeyType());
-                boolean shouldInclude = isInDataColumns || isAggregateType;
-
-                TapLogger.debug(TAG, "[PUT] Column {}: isInDataColumns={}, isAggregateType={}, shouldInclude={}",
-                    col, isInDataColumns, isAggregateType, shouldInclude);
-
-                if (shouldInclude) {
-                    if (table.getNameFieldMap().get(col).getDataType().contains("binary")) {
-                        columns.add("`" + col + "_tmp`");
-                        columns.add("`" + col + "`=from_base64(`" + col + "_tmp`)");
-                    } else {
-                        columns.add("`" + col + "`");
-                    }
-                }
-            }
+    private LoadHandler newLoadHandler(final TapTable table) {
+        String tableName = table.getId();
+        List<String> columns = new ArrayList<>();
 
-            TapLogger.info(TAG, "[PUT] Final columns list for table {}: {}", tableName, columns);
-            // add the Starrocks_DELETE_SIGN at the end of the column
-            columns.add(Constants.Starrocks_DELETE_SIGN);
-            HttpPutBuilder putBuilder = new HttpPutBuilder();
-            InputStreamEntity entity = new InputStreamEntity(recordStream, recordStream.getContentLength());
-            entity.setContentType("application/json");
-            putBuilder.setUrl(loadUrl)
-                    // 前端表单传出来的值和tdd json加载的值可能有差别，如前端传的pwd可能是null，tdd的是空字符串
-                    .baseAuth(StarrocksConfig.getUser(), StarrocksConfig.getPassword())
-                    .addCommonHeader()
-                    .addFormat(writeFormat)
-                    .addColumns(columns)
-                    .setLabel(label)
-                    .setEntity(entity);
-            Collection<String> primaryKeys = table.primaryKeys(true);
-            if (CollectionUtils.isEmpty(primaryKeys)) {
-                putBuilder.enableAppend();
-            } else {
-                if (StarrocksTableType.Primary.toString().equals(StarrocksConfig.getUniqueKeyType()) || StarrocksTableType.Unique.toString().equals(StarrocksConfig.getUniqueKeyType())) {
-                    putBuilder.enableDelete();
-                    putBuilder.addPartialHeader();
-                } else {
-                    putBuilder.enableAppend();
-                }
-            }
-            HttpPut httpPut = putBuilder.build();
-            TapLogger.debug(TAG, "Call stream load http api, url: {}, headers: {}", loadUrl, putBuilder.header);
-            try (CloseableHttpResponse execute = httpClient.execute(httpPut)) {
-                return handlePreCommitResponse(execute);
-            }
-        } catch (StarrocksRetryableException e) {
-            throw e;
-        } catch (Exception e) {
-            throw new StreamLoadException(String.format("Call stream load error: %s", e.getMessage()), e);
+        // 获取该表的dataColumns
+        Set<String> tableDataColumns = dataColumnsByTable.get(tableName);
+        if (tableDataColumns == null) {
+            tableDataColumns = Collections.emptySet();
         }
-    }
-
-    /**
-     * 直接从缓存文件发送数据，模仿 curl 的行为
-     */
-    public RespContent putFromFile(final TapTable table) throws StreamLoadException, StarrocksRetryableException {
-        StarrocksConfig.WriteFormat writeFormat = StarrocksConfig.getWriteFormatEnum();
-        try {
-            final String loadUrl = buildLoadUrl(StarrocksConfig.getStarrocksHttp(), StarrocksConfig.getDatabase(), table.getId());
-            final String prefix = buildPrefix(table.getId());
-            String tableName = table.getId();
-
-            String label = prefix + "-" + UUID.randomUUID();
-            List<String> columns = new ArrayList<>();
-
-            // 获取该表的dataColumns
-            Set<String> tableDataColumns = dataColumnsByTable.get(tableName);
-            if (tableDataColumns == null) {
-                tableDataColumns = Collections.emptySet();
-            }
-
-            // 打印调试信息 - putFromFile方法
-            TapLogger.info(TAG, "[PUT_FROM_FILE] Building columns for table {}: tableDataColumns={}, table.getNameFieldMap().keySet()={}, uniqueKeyType={}",
-                tableName, tableDataColumns, table.getNameFieldMap().keySet(), StarrocksConfig.getUniqueKeyType());
 
-            for (String col : table.getNameFieldMap().keySet()) {
-                boolean isInDataColumns = tableDataColumns.contains(col);
-                boolean isAggregateType = StarrocksTableType.Aggregate.toString().equals(StarrocksConfig.getUniqueKeyType());
-                boolean shouldInclude = isInDataColumns || isAggregateType;
+        TapLogger.debug(TAG, "Building columns for table {}: tableDataColumns={}, table.getNameFieldMap().keySet()={}, uniqueKeyType={}",
+            tableName, tableDataColumns, table.getNameFieldMap().keySet(), StarrocksConfig.getUniqueKeyType());
 
-                TapLogger.debug(TAG, "[PUT_FROM_FILE] Column {}: isInDataColumns={}, isAggregateType={}, shouldInclude={}",
-                    col, isInDataColumns, isAggregateType, shouldInclude);
-
-                if (shouldInclude) {
-                    if (table.getNameFieldMap().get(col).getDataType().contains("binary")) {
-                        columns.add("`" + col + "_tmp`");
-                        columns.add("`" + col + "`=from_base64(`" + col + "_tmp`)");
-                    } else {
-                        columns.add("`" + col + "`");
-                    }
-                }
-            }
-
-            TapLogger.info(TAG, "[PUT_FROM_FILE] Columns before adding DELETE_SIGN for table {}: {}", tableName, columns);
-            // add the Starrocks_DELETE_SIGN at the end of the column
-            columns.add(Constants.Starrocks_DELETE_SIGN);
-
-            TapLogger.info(TAG, "[PUT_FROM_FILE] Final columns list for table {} (with DELETE_SIGN): {}", tableName, columns);
-
-            // 直接从指定表的缓存文件创建 InputStreamEntity，模仿 curl -T 的行为
-            Path tableCacheFile = tempCacheFilesByTable.get(tableName);
-            if (tableCacheFile == null || !Files.exists(tableCacheFile)) {
-                throw new StreamLoadException("Cache file not found for table: " + tableName);
-            }
-
-            long fileSize = Files.size(tableCacheFile);
-            FileInputStream fileInputStream = new FileInputStream(tableCacheFile.toFile());
-            InputStreamEntity entity = new InputStreamEntity(fileInputStream, fileSize);
-            entity.setContentType("application/json");
-
-            HttpPutBuilder putBuilder = new HttpPutBuilder();
-            putBuilder.setUrl(loadUrl)
-                    .baseAuth(StarrocksConfig.getUser(), StarrocksConfig.getPassword())
-                    .addCommonHeader()
-                    .addFormat(writeFormat)
-                    .addColumns(columns)
-                    .setLabel(label)
-                    .setEntity(entity);
-
-            Collection<String> primaryKeys = table.primaryKeys(true);
-            if (CollectionUtils.isEmpty(primaryKeys)) {
-                putBuilder.enableAppend();
-            } else {
-                if (StarrocksTableType.Primary.toString().equals(StarrocksConfig.getUniqueKeyType()) || StarrocksTableType.Unique.toString().equals(StarrocksConfig.getUniqueKeyType())) {
-                    putBuilder.enableDelete();
-                    putBuilder.addPartialHeader();
+        boolean isAggregateType = StarrocksTableType.Aggregate.toString().equals(StarrocksConfig.getUniqueKeyType());
+        for (String col : table.getNameFieldMap().keySet()) {
+            if (tableDataColumns.contains(col) || isAggregateType) {
+                if (table.getNameFieldMap().get(col).getDataType().contains("binary")) {
+                    columns.add("`" + col + "_tmp`");
+                    columns.add("`" + col + "`=from_base64(`" + col + "_tmp`)");
                 } else {
-                    putBuilder.enableAppend();
-                }
-            }
-
-            HttpPut httpPut = putBuilder.build();
-
-            // 详细的 HTTP 请求日志
-            TapLogger.info(TAG, "=== StarRocks HTTP Request Details ===");
-            TapLogger.info(TAG, "Table: {}", tableName);
-            TapLogger.info(TAG, "Cache File: {}", tableCacheFile.toString());
-            TapLogger.info(TAG, "File Size: {}", formatBytes(fileSize));
-            TapLogger.info(TAG, "URL: {}", loadUrl);
-            TapLogger.info(TAG, "Label: {}", label);
-            TapLogger.info(TAG, "Columns: {}", columns);
-            TapLogger.info(TAG, "Headers: {}", putBuilder.header);
-            TapLogger.info(TAG, "=====================================");
-
-            long requestStartTime = System.currentTimeMillis();
-            try (CloseableHttpResponse execute = httpClient.execute(httpPut)) {
-                long requestEndTime = System.currentTimeMillis();
-                long requestDuration = requestEndTime - requestStartTime;
-
-                RespContent respContent = handlePreCommitResponse(execute);
-
-                // 详细的 HTTP 响应日志
-                TapLogger.info(TAG, "=== StarRocks HTTP Response Details ===");
-                TapLogger.info(TAG, "Table: {}", tableName);
-                TapLogger.info(TAG, "Request Duration: {} ms", requestDuration);
-                TapLogger.info(TAG, "Status Code: {}", execute.getStatusLine().getStatusCode());
-                TapLogger.info(TAG, "Status Line: {}", execute.getStatusLine().toString());
-                TapLogger.info(TAG, "Response Content: {}", respContent);
-                TapLogger.info(TAG, "Success: {}", respContent != null ? respContent.isSuccess() : "null");
-                if (respContent != null) {
-                    TapLogger.info(TAG, "Message: {}", respContent.getMessage());
-                    TapLogger.info(TAG, "Status: {}", respContent.getStatus());
-                }
-                TapLogger.info(TAG, "=======================================");
-
-                return respContent;
-            } finally {
-                // 确保文件流被关闭
-                try {
-                    fileInputStream.close();
-                } catch (IOException e) {
-                    TapLogger.warn(TAG, "Failed to close file input stream: {}", e.getMessage());
+                    columns.add("`" + col + "`");
                 }
             }
-        } catch (StarrocksRetryableException e) {
-            throw e;
-        } catch (Exception e) {
-            throw new StreamLoadException(String.format("Call stream load from file error: %s", e.getMessage()), e);
         }
+        // add the Starrocks_DELETE_SIGN at the end of the column
+        columns.add(Constants.Starrocks_DELETE_SIGN);
+        TapLogger.info(TAG, "Final columns list for table {} (with DELETE_SIGN): {}", tableName, columns);
+
+        Collection<String> primaryKeys = table.primaryKeys(true);
+        boolean enableDelete = CollectionUtils.isNotEmpty(primaryKeys)
+                && (StarrocksTableType.Primary.toString().equals(StarrocksConfig.getUniqueKeyType()) || StarrocksTableType.Unique.toString().equals(StarrocksConfig.getUniqueKeyType()));
+        return new LoadHandler(tableName, buildLoadUrl(StarrocksConfig.getStarrocksHttp(), StarrocksConfig.getDatabase(), tableName), columns, enableDelete);
     }
 
     public RespContent handlePreCommitResponse(CloseableHttpResponse response) throws Exception {
@@ -800,6 +629,10 @@ public class StarrocksStreamLoader {
 
         TapLogger.debug(TAG, "Stream load Result {}", loadResult);
         RespContent respContent = OBJECT_MAPPER.readValue(loadResult, RespContent.class);
+        // 相同 label 已被之前的尝试使用，无法确认是否已提交，不再重试
+        if (StreamLoadLabel.isLabelExists(respContent.getStatus())) {
+            throw new StreamLoadException("Stream load label is used by an earlier attempt, existing job status: " + respContent.getExistingJobStatus() + " | Error: " + loadResult);
+        }
         if (!respContent.isSuccess() && !"Publish Timeout".equals(respContent.getStatus())) {
             if (respContent.getMessage().toLowerCase().contains("too many filtered rows")
                     || respContent.getMessage().toLowerCase().contains("access denied")) {
@@ -811,33 +644,30 @@ public class StarrocksStreamLoader {
     }
 
     /**
-     * 刷新指定表的数据
+     * 刷新指定表的数据：批次缓存交给 stream load 引擎异步发送，写线程继续写入新的批次缓存
+     * 失败的 load 在该表下一次写入或刷新时抛出，调用方需持有该表的锁
      */
-    public RespContent flushTable(String tableName, TapTable table) throws StarrocksRetryableException {
+    public void flushTable(String tableName, TapTable table) throws StarrocksRetryableException {
         // 检查该表是否有数据需要刷新
         if (!pendingFlushTables.contains(tableName)) {
-            return null;
+            return;
         }
 
         // 记录刷新开始时间和状态
         long flushStartTime = System.currentTimeMillis();
         long waitTime = flushStartTime - lastFlushTime;
         long tableDataSize = getTableBatchSize(tableName);
+        SpillableLoadBody loadBody = loadBodiesByTable.get(tableName);
 
-        // 获取缓存文件路径用于日志
-        Path cacheFile = tempCacheFilesByTable.get(tableName);
-        String cacheFileName = cacheFile != null ? cacheFile.toString() : "unknown";
-
-        TapLogger.info(TAG, "=== Starting Table Flush ===");
-        TapLogger.info(TAG, "Table: {}", tableName);
-        TapLogger.info(TAG, "Cache File: {}", cacheFileName);
-        TapLogger.info(TAG, "Data Size: {}", formatBytes(tableDataSize));
-        TapLogger.info(TAG, "Wait Time: {} ms", waitTime);
-        TapLogger.info(TAG, "============================");
+        TapLogger.info(TAG, "Starting table flush: table={}, data_size={}, spilled={}, wait_time={} ms",
+            tableName, formatBytes(tableDataSize), loadBody != null && loadBody.isSpilled(), waitTime);
 
         try {
-            // 完成该表的缓存文件写入
-            finalizeCacheFileForTable(tableName);
+            if (loadBody == null || loadBody.isEmpty()) {
+                throw new StreamLoadException("Load body not found for table: " + tableName);
+            }
+            // 完成该表的批次缓存写入
+            finalizeLoadBodyForTable(tableName);
 
             // 记录写入的数据量到每分钟限制器
             if (minuteWriteLimiter.isLimitEnabled()) {
@@ -846,89 +676,80 @@ public class StarrocksStreamLoader {
                     tableDataSize, minuteWriteLimiter.getCurrentMinuteWritten());
             }
 
-            // 直接从文件发送，模仿 curl 的行为
-            RespContent respContent = putFromFile(table);
-
-            // 计算刷新耗时
-            long flushEndTime = System.currentTimeMillis();
-            long flushDuration = flushEndTime - flushStartTime;
-
-            // 记录刷新详细信息
-            TapLogger.info(TAG, "Table {} flush completed: flushed_size={}, waiting_time={} ms, " +
-                "flush_duration={} ms, response={}",
-                tableName, formatBytes(tableDataSize), waitTime, flushDuration, respContent);
-
-            // 刷新成功，更新该表的刷新时间
-            long newFlushTime = System.currentTimeMillis();
-            long oldFlushTime = lastFlushTimeByTable.getOrDefault(tableName, taskStartTime);
-            lastFlushTimeByTable.put(tableName, newFlushTime);
-            TapLogger.info(TAG, "Updated last flush time for table {}: {} -> {} (diff: {} ms)",
-                tableName, oldFlushTime, newFlushTime, newFlushTime - oldFlushTime);
+            // 批次缓存从该表摘下，由引擎在 load 结束后释放
+            LoadHandler handler = newLoadHandler(table);
+            loadBodiesByTable.remove(tableName);
+            streamLoadEngine.submit(tableName, loadBody, handler, changedTables.remove(tableName))
+                    .whenComplete((respContent, e) -> {
+                        long flushDuration = System.currentTimeMillis() - flushStartTime;
+                        if (null == e) {
+                            TapLogger.info(TAG, "Table {} flush completed: flushed_size={}, flush_duration={} ms, response={}",
+                                tableName, formatBytes(tableDataSize), flushDuration, respContent);
+                        } else {
+                            TapLogger.error(TAG, "Table {} flush failed: flushed_size={}, flush_duration={} ms, error={}",
+                                tableName, formatBytes(tableDataSize), flushDuration, e.getMessage());
+                        }
+                    });
 
-            return respContent;
+            // 提交成功，更新该表的刷新时间
+            lastFlushTimeByTable.put(tableName, System.currentTimeMillis());
         } catch (StarrocksRetryableException e) {
-            long flushEndTime = System.currentTimeMillis();
-            long flushDuration = flushEndTime - flushStartTime;
-            TapLogger.error(TAG, "Table {} flush failed: flushed_size={}, waiting_time={} ms, " +
-                "flush_duration={} ms, error={}",
-                tableName, formatBytes(tableDataSize), waitTime, flushDuration, e.getMessage());
+            TapLogger.error(TAG, "Table {} flush failed: flushed_size={}, waiting_time={} ms, error={}",
+                tableName, formatBytes(tableDataSize), waitTime, e.getMessage());
             throw e;
         } catch (Exception e) {
-            long flushEndTime = System.currentTimeMillis();
-            long flushDuration = flushEndTime - flushStartTime;
-            TapLogger.error(TAG, "Table {} flush failed: flushed_size={}, waiting_time={} ms, " +
-                "flush_duration={} ms, error={}",
-                tableName, formatBytes(tableDataSize), waitTime, flushDuration, e.getMessage());
+            TapLogger.error(TAG, "Table {} flush failed: flushed_size={}, waiting_time={} ms, error={}",
+                tableName, formatBytes(tableDataSize), waitTime, e.getMessage());
             throw new StarrocksRuntimeException(e);
         } finally {
-            // 清理该表的缓存文件
-            cleanupCacheFileForTable(tableName);
+            // 清理该表的缓存状态，已提交的批次缓存不在映射中，不会被释放
+            cleanupLoadBodyForTable(tableName);
+            changedTables.remove(tableName);
             // 从待刷新列表中移除该表
             pendingFlushTables.remove(tableName);
             // 清理该表的批次大小
             currentBatchSizeByTable.remove(tableName);
-            // 注意：刷新时间只在成功时更新，失败时不更新以便重试
 
-            // 只有在所有表都已刷新且没有活跃的缓存文件时，才重置全局状态
-            // 这样避免影响其他正在写入的表
-            if (pendingFlushTables.isEmpty() && tempCacheFilesByTable.isEmpty()) {
-                recordStream.setContentLength(0L);
+            if (pendingFlushTables.isEmpty() && loadBodiesByTable.isEmpty()) {
                 lastFlushTime = System.currentTimeMillis();
-                TapLogger.debug(TAG, "Reset global state after table {} flush - all tables completed", tableName);
-            } else {
-                TapLogger.debug(TAG, "Table {} flush completed, but other tables still active: pending={}, active_files={}",
-                    tableName, pendingFlushTables.size(), tempCacheFilesByTable.size());
             }
         }
     }
 
-    public RespContent flush(TapTable table) throws StarrocksRetryableException {
+    public void flush(TapTable table) throws StarrocksRetryableException {
         // 兼容性方法，调用新的flushTable方法
-        return flushTable(table.getId(), table);
+        flushTable(table.getId(), table);
     }
 
     /**
      * 在停止时刷新剩余数据 - 刷新所有待刷新的表
      */
     public void flushOnStop() throws StarrocksRetryableException {
-        synchronized (writeLock) {
-            if (!pendingFlushTables.isEmpty()) {
-                TapLogger.info(TAG, "Flushing remaining data on stop: accumulated_size={}, pending_tables={}, {}",
-                    formatBytes(getTotalBatchSize()), pendingFlushTables.size(), metrics.getCachedInfo());
+        if (!pendingFlushTables.isEmpty()) {
+            TapLogger.info(TAG, "Flushing remaining data on stop: accumulated_size={}, pending_tables={}, {}",
+                formatBytes(getTotalBatchSize()), pendingFlushTables.size(), metrics.getCachedInfo());
 
-                // 刷新所有待刷新的表
-                flushAllPendingTables();
+            // 刷新所有待刷新的表
+            flushAllPendingTables();
 
-                // 清理缓存的 metrics，因为数据已成功刷新
-                metrics.clearCache();
-                TapLogger.info(TAG, "Cleared cached metrics after stop flush");
-            }
+            // 清理缓存的 metrics，因为数据已成功刷新
+            metrics.clearCache();
+            TapLogger.info(TAG, "Cleared cached metrics after stop flush");
+        }
+        // 等待所有已提交的 load 完成
+        try {
+            streamLoadEngine.awaitAll();
+            TapLogger.info(TAG, "All stream loads completed on stop, {}", streamLoadEngine.metrics());
+        } catch (StarrocksRetryableException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new StarrocksRuntimeException(e);
         }
     }
 
     public void shutdown() {
         try {
-            TapLogger.info(TAG, "Shutting down StarrocksStreamLoader, active tables: {}", tempCacheFilesByTable.size());
+            TapLogger.info(TAG, "Shutting down StarrocksStreamLoader, active tables: {}", loadBodiesByTable.size());
 
             // 停止定时刷新调度器
             if (flushTask != null) {
@@ -948,18 +769,17 @@ public class StarrocksStreamLoader {
                 flushScheduler = null;
             }
 
-            // 关闭HTTP客户端
+            // 关闭 stream load 引擎和HTTP客户端
+            streamLoadEngine.close();
             if (this.httpClient != null) {
                 this.httpClient.close();
             }
 
-            // 清理所有表的缓存文件
-            cleanupAllCacheFiles();
+            // 释放所有表的批次缓存
+            cleanupAllLoadBodies();
 
             // 清理所有Map，释放内存
-            tempCacheFilesByTable.clear();
-            cacheFileStreamsByTable.clear();
-            isFirstRecordByTable.clear();
+            loadBodiesByTable.clear();
             dataColumnsByTable.clear();
             pendingFlushTables.clear();
             currentBatchSizeByTable.clear();
@@ -982,10 +802,6 @@ public class StarrocksStreamLoader {
             return String.format(HTTP_LOAD_URL_PATTERN, StarrocksHttp, database, tableName);
     }
 
-    private String buildPrefix(final String tableName) {
-        return String.format(LABEL_PREFIX_PATTERN, Thread.currentThread().getId(), tableName);
-    }
-
     /**
      * 格式化字节大小为易读格式
      */
@@ -1031,94 +847,51 @@ public class StarrocksStreamLoader {
     }
 
     /**
-     * 完成指定表的缓存文件写入
+     * 完成指定表的批次缓存写入
      */
-    private void finalizeCacheFileForTable(String tableName) throws IOException {
-        try {
-            FileOutputStream cacheFileStream = cacheFileStreamsByTable.get(tableName);
-            Path tempCacheFile = tempCacheFilesByTable.get(tableName);
-
-            if (cacheFileStream != null && tempCacheFile != null) {
-                // 写入批次结束标记
-                cacheFileStream.write(messageSerializer.batchEnd());
-                cacheFileStream.flush();
-                cacheFileStream.close();
-
-                TapLogger.debug(TAG, "Finalized cache file for table {}: {}, size: {}",
-                    tableName, tempCacheFile.toString(), formatBytes(Files.size(tempCacheFile)));
-            }
-        } catch (IOException e) {
-            TapLogger.error(TAG, "Failed to finalize cache file for table {}: {}", tableName, e.getMessage());
-            throw e;
+    private void finalizeLoadBodyForTable(String tableName) throws IOException {
+        SpillableLoadBody loadBody = loadBodiesByTable.get(tableName);
+        if (loadBody != null) {
+            // 写入批次结束标记
+            loadBody.write(messageSerializer.batchEnd());
+            loadBody.seal();
+
+            TapLogger.debug(TAG, "Finalized load body for table {}, size: {}, spilled: {}",
+                tableName, formatBytes(loadBody.size()), loadBody.isSpilled());
         }
     }
 
     /**
-     * 清理指定表的缓存文件
+     * 清理指定表的批次缓存
      */
-    private void cleanupCacheFileForTable(String tableName) {
-        try {
-            FileOutputStream cacheFileStream = cacheFileStreamsByTable.get(tableName);
-            Path tempCacheFile = tempCacheFilesByTable.get(tableName);
-
-            if (cacheFileStream != null) {
-                try {
-                    cacheFileStream.close();
-                } catch (IOException e) {
-                    TapLogger.warn(TAG, "Failed to close cache file stream for table {}: {}", tableName, e.getMessage());
-                }
-                cacheFileStreamsByTable.remove(tableName);
-            }
-
-            if (tempCacheFile != null && Files.exists(tempCacheFile)) {
-                try {
-                    long fileSize = Files.size(tempCacheFile);
-
-                    // 直接删除缓存文件
-                    Files.deleteIfExists(tempCacheFile);
-
-                    TapLogger.info(TAG, "=== File Cleanup Completed ===");
-                    TapLogger.info(TAG, "Table: {}", tableName);
-                    TapLogger.info(TAG, "Deleted File: {}", tempCacheFile.toString());
-                    TapLogger.info(TAG, "File Size: {}", formatBytes(fileSize));
-                    TapLogger.info(TAG, "==============================");
-                } catch (IOException e) {
-                    TapLogger.warn(TAG, "Failed to delete cache file for table {}: {}", tableName, e.getMessage());
-                }
-                tempCacheFilesByTable.remove(tableName);
-            }
-
-            // 清理相关状态
-            isFirstRecordByTable.remove(tableName);
-            dataColumnsByTable.remove(tableName);
-            currentBatchSizeByTable.remove(tableName);
-            // 注意：lastFlushTimeByTable 不清理，需要保持刷新时间记录
-            // 注意：tableNameToTapTableMap 不清理，因为表结构信息需要持久保存
-        } catch (Exception e) {
-            TapLogger.error(TAG, "Failed to cleanup cache file for table {}: {}", tableName, e.getMessage());
+    private void cleanupLoadBodyForTable(String tableName) {
+        SpillableLoadBody loadBody = loadBodiesByTable.remove(tableName);
+        if (loadBody != null) {
+            loadBody.release();
+            TapLogger.debug(TAG, "Released load body for table {}, memory used: {}", tableName, formatBytes(memoryUsed.get()));
         }
+
+        // 清理相关状态
+        dataColumnsByTable.remove(tableName);
+        currentBatchSizeByTable.remove(tableName);
+        // 注意：lastFlushTimeByTable 不清理，需要保持刷新时间记录
+        // 注意：tableNameToTapTableMap 不清理，因为表结构信息需要持久保存
     }
 
     /**
-     * 清理所有表的缓存文件
+     * 清理所有表的批次缓存
      */
-    private void cleanupAllCacheFiles() {
+    private void cleanupAllLoadBodies() {
         // 创建表名列表的副本，避免在迭代过程中修改集合
-        Set<String> tableNames = new HashSet<>(tempCacheFilesByTable.keySet());
+        Set<String> tableNames = new HashSet<>(loadBodiesByTable.keySet());
 
         for (String tableName : tableNames) {
-            cleanupCacheFileForTable(tableName);
+            cleanupLoadBodyForTable(tableName);
         }
 
-        TapLogger.info(TAG, "Cleaned up cache files for {} tables during shutdown", tableNames.size());
+        TapLogger.info(TAG, "Released load bodies of {} tables during shutdown", tableNames.size());
     }
 
-
-
-
-
-
-
     protected boolean needFlush(TapRecordEvent recordEvent, int length, boolean noNeed, String tableName) {
         // 检查该表是否有数据（通过pendingFlushTables判断）
         boolean hasData = pendingFlushTables.contains(tableName);
@@ -1154,7 +927,7 @@ public class StarrocksStreamLoader {
         Set<String> currentDataColumns = dataColumnsByTable.get(tableName);
         boolean dataColumnsChanged = hasData && currentDataColumns != null &&
             !getDataColumns(recordEvent).equals(currentDataColumns) && !noNeed;
-        boolean bufferFull = !recordStream.canWrite(length);
+        boolean bufferFull = length >= bodyLimit;
 
         if (dataColumnsChanged || bufferFull) {
             String reason = dataColumnsChanged ? "data_columns_changed" : "buffer_full";
@@ -1204,6 +977,63 @@ public class StarrocksStreamLoader {
         }
     }
 
+    private class LoadHandler implements StreamLoadHandler<RespContent> {
+        private final String tableName;
+        private final String loadUrl;
+        private final List<String> columns;
+        private final boolean enableDelete;
+
+        LoadHandler(String tableName, String loadUrl, List<String> columns, boolean enableDelete) {
+            this.tableName = tableName;
+            this.loadUrl = loadUrl;
+            this.columns = columns;
+            this.enableDelete = enableDelete;
+        }
+
+        @Override
+        public HttpPut buildPut(String label, HttpEntity entity, StreamLoadCompression compression) {
+            ((AbstractHttpEntity) entity).setContentType("application/json");
+            HttpPutBuilder putBuilder = new HttpPutBuilder();
+            putBuilder.setUrl(loadUrl)
+                    // 前端表单传出来的值和tdd json加载的值可能有差别，如前端传的pwd可能是null，tdd的是空字符串
+                    .baseAuth(StarrocksConfig.getUser(), StarrocksConfig.getPassword())
+                    .addCommonHeader()
+                    .addFormat(StarrocksConfig.getWriteFormatEnum())
+                    .addColumns(columns)
+                    .setLabel(label)
+                    .setEntity(entity);
+            if (enableDelete) {
+                putBuilder.enableDelete();
+                putBuilder.addPartialHeader();
+            } else {
+                putBuilder.enableAppend();
+            }
+            switch (compression) {
+                case GZIP:
+                    putBuilder.addHeader("compression", "gzip");
+                    break;
+                case LZ4_FRAME:
+                    putBuilder.addHeader("compression", "lz4_frame");
+                    break;
+                default:
+                    break;
+            }
+            TapLogger.info(TAG, "Call stream load http api, table: {}, url: {}, label: {}, size: {}, headers: {}",
+                tableName, loadUrl, label, formatBytes(entity.getContentLength()), putBuilder.header);
+            return putBuilder.build();
+        }
+
+        @Override
+        public RespContent handleResponse(String label, CloseableHttpResponse response) throws Exception {
+            return handlePreCommitResponse(response);
+        }
+
+        @Override
+        public boolean isRetryable(Throwable e) {
+            return e instanceof StarrocksRetryableException || e instanceof IOException;
+        }
+    }
+
     public enum OperationType {
         INSERT(1, "insert"),
         UPDATE(2, "update"),
@@ -0,0 +1,133 @@
+package io.tapdata.connector.starrocks.streamload;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+public class SpillableLoadBodyTest {
+
+    @TempDir
+    Path spillDir;
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String readAll(SpillableLoadBody body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = body.newInputStream()) {
+            byte[] buffer = new byte[7];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                out.write(buffer, 0, n);
+            }
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private long spillFiles() throws IOException {
+        try (Stream<Path> files = Files.list(spillDir)) {
+            return files.count();
+        }
+    }
+
+    @Nested
+    class MemoryBudgetTest {
+
+        @Test
+        @DisplayName("test bodies share the memory budget and release it")
+        void testSharedBudget() throws IOException {
+            AtomicLong memoryUsed = new AtomicLong();
+            SpillableLoadBody first = new SpillableLoadBody("t1", memoryUsed, 10, spillDir, 4);
+            SpillableLoadBody second = new SpillableLoadBody("t2", memoryUsed, 10, spillDir, 4);
+            first.write(bytes("123456"));
+            Assertions.assertEquals(6, memoryUsed.get());
+            Assertions.assertEquals(6, first.getMemoryBytes());
+            Assertions.assertFalse(first.isSpilled());
+
+            //the rest of the budget is too small for the record
+            second.write(bytes("abcde"));
+            Assertions.assertEquals(6, memoryUsed.get());
+            Assertions.assertEquals(0, second.getMemoryBytes());
+            Assertions.assertTrue(second.isSpilled());
+            Assertions.assertEquals(5, second.size());
+            Assertions.assertEquals(1, spillFiles());
+
+            first.write(bytes("7890"));
+            Assertions.assertEquals(10, memoryUsed.get());
+            first.release();
+            Assertions.assertEquals(0, memoryUsed.get());
+            //released twice does not give back the budget again
+            first.release();
+            Assertions.assertEquals(0, memoryUsed.get());
+            second.release();
+            Assertions.assertEquals(0, memoryUsed.get());
+            Assertions.assertEquals(0, spillFiles());
+        }
+    }
+
+    @Nested
+    class SpillTest {
+
+        @Test
+        @DisplayName("test spilled body is replayed in the written order")
+        void testReplayInOrder() throws IOException {
+            AtomicLong memoryUsed = new AtomicLong();
+            SpillableLoadBody body = new SpillableLoadBody("t", memoryUsed, 8, spillDir, 4);
+            StringBuilder expected = new StringBuilder();
+            for (int i = 0; i < 20; i++) {
+                String record = "[" + i + "]";
+                body.write(bytes(record));
+                expected.append(record);
+                if (i == 5) {
+                    Assertions.assertTrue(body.isSpilled());
+                    //the budget comes back but the body keeps spilling to keep the order
+                    memoryUsed.set(0);
+                }
+            }
+            Assertions.assertEquals(6, body.getMemoryBytes());
+            Assertions.assertEquals(expected.length(), body.size());
+            Assertions.assertEquals(expected.toString(), readAll(body));
+            //a retried load reads the body again
+            Assertions.assertEquals(expected.toString(), readAll(body));
+            Assertions.assertThrows(IllegalStateException.class, () -> body.write(bytes("x")));
+            body.release();
+            Assertions.assertEquals(0, spillFiles());
+        }
+
+        @Test
+        @DisplayName("test body within the budget does not create a spill file")
+        void testNoSpill() throws IOException {
+            SpillableLoadBody body = new SpillableLoadBody("t", new AtomicLong(), 1024, spillDir, 4);
+            body.write(bytes("a,b\n"));
+            body.write(bytes("c,d\n"));
+            Assertions.assertFalse(body.isSpilled());
+            Assertions.assertEquals("a,b\nc,d\n", readAll(body));
+            Assertions.assertEquals(0, spillFiles());
+            body.release();
+        }
+
+        @Test
+        @DisplayName("test unsealed spilled body is deleted on release")
+        void testReleaseUnsealed() throws IOException {
+            AtomicLong memoryUsed = new AtomicLong();
+            SpillableLoadBody body = new SpillableLoadBody("t", memoryUsed, 0, spillDir, 4);
+            body.write(bytes("0123456789"));
+            Assertions.assertEquals(1, spillFiles());
+            body.release();
+            Assertions.assertEquals(0, spillFiles());
+            Assertions.assertEquals(0, memoryUsed.get());
+        }
+    }
+}